@@ -0,0 +1,92 @@
+package ru.sovcombank.petbackendaccounts.mapping;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sovcombank.petbackendaccounts.mapping.impl.AccountToAccountDTO;
+import ru.sovcombank.petbackendaccounts.mapping.impl.AccountToGetAccountResponse;
+import ru.sovcombank.petbackendaccounts.mapping.impl.CreateAccountRequestToAccount;
+import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendaccounts.model.dto.AccountDTO;
+import ru.sovcombank.petbackendaccounts.model.entity.Account;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение ModelMapper и сгенерированных MapStruct мапперов на тех же объектах.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private Account account;
+
+    private CreateAccountRequest createAccountRequest;
+
+    private AccountToAccountDTO accountToAccountDTO;
+
+    private AccountToGetAccountResponse accountToGetAccountResponse;
+
+    private CreateAccountRequestToAccount createAccountRequestToAccount;
+
+    @Setup
+    public void setUp() {
+        account = new Account(1, "4200810666632677", 1, "810", new BigDecimal("1000.00"),
+                LocalDateTime.of(2024, 1, 1, 12, 0), true, false, 0, 0L);
+        createAccountRequest = new CreateAccountRequest(1, "810");
+        accountToAccountDTO = Mappers.getMapper(AccountToAccountDTO.class);
+        accountToGetAccountResponse = Mappers.getMapper(AccountToGetAccountResponse.class);
+        createAccountRequestToAccount = Mappers.getMapper(CreateAccountRequestToAccount.class);
+        // Один экземпляр на все замеры, как бин в приложении: карта типов строится при первом вызове на прогреве
+        modelMapper = new ModelMapper();
+    }
+
+    @Benchmark
+    public AccountDTO modelMapperAccountToAccountDTO() {
+        return modelMapper.map(account, AccountDTO.class);
+    }
+
+    @Benchmark
+    public AccountDTO generatedAccountToAccountDTO() {
+        return accountToAccountDTO.map(account);
+    }
+
+    @Benchmark
+    public GetAccountResponse modelMapperAccountToGetAccountResponse() {
+        return modelMapper.map(account, GetAccountResponse.class);
+    }
+
+    @Benchmark
+    public GetAccountResponse generatedAccountToGetAccountResponse() {
+        return accountToGetAccountResponse.map(account);
+    }
+
+    @Benchmark
+    public Account modelMapperCreateAccountRequestToAccount() {
+        return modelMapper.map(createAccountRequest, Account.class);
+    }
+
+    @Benchmark
+    public Account generatedCreateAccountRequestToAccount() {
+        return createAccountRequestToAccount.map(createAccountRequest);
+    }
+}
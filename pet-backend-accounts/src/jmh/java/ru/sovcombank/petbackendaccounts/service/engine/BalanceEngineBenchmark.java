@@ -0,0 +1,111 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sovcombank.petbackendaccounts.config.BalanceEngineProperties;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Пропускная способность движка балансов без HTTP и базы: счета загружаются из заглушки хранилища, журнал пишется
+ * в настоящий файл с fsync. Сравнение с JPA и условным UPDATE под той же нагрузкой через HTTP - в задаче loadTest
+ * (loadtest.mode), здесь видно, сколько операций дает пакетная запись журнала при разном числе разделов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class BalanceEngineBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"1", "4"})
+    private int partitions;
+
+    private Path directory;
+
+    private BalanceEngine balanceEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("balance-engine-benchmark");
+        BalanceEngineProperties properties = new BalanceEngineProperties();
+        properties.setPartitions(partitions);
+        properties.setRingSize(8192);
+        properties.setBatchSize(256);
+        properties.setDirectory(directory);
+        properties.setTimeout(Duration.ofSeconds(10));
+        balanceEngine = new BalanceEngine(properties, new BalanceStore() {
+            @Override
+            public Optional<AccountState> load(String accountNumber) {
+                return Optional.of(new AccountState(accountNumber, 0, false));
+            }
+
+            @Override
+            public void store(Collection<AccountState> states) {
+                // Балансы остаются только в снимке
+            }
+        });
+        balanceEngine.start();
+        for (int account = 0; account < ACCOUNTS; account++) {
+            balanceEngine.getBalance(accountNumber(account));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        balanceEngine.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal credit() {
+        return balanceEngine.credit(accountNumber(ThreadLocalRandom.current().nextInt(ACCOUNTS)), AMOUNT);
+    }
+
+    // Все потоки меняют баланс одного счета: в JPA и условном UPDATE это ожидание блокировки одной строки
+    @Benchmark
+    public BigDecimal creditHotAccount() {
+        return balanceEngine.credit(accountNumber(0), AMOUNT);
+    }
+
+    @Benchmark
+    public BigDecimal getBalance() {
+        return balanceEngine.getBalance(accountNumber(ThreadLocalRandom.current().nextInt(ACCOUNTS)));
+    }
+
+    private static String accountNumber(int account) {
+        return String.format("4200810666%06d", account);
+    }
+}
@@ -0,0 +1,152 @@
+package ru.sovcombank.petbackendaccounts.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Подает запросы изменения баланса с заданной частотой независимо от времени ответа сервиса (открытая модель
+ * нагрузки). Время ответа отсчитывается от запланированного момента отправки, поэтому запаздывание отправки
+ * попадает в замер. Каждый запрос зачисляет или списывает {@link #AMOUNT}, успешные операции учитываются,
+ * чтобы после теста сверить сумму балансов.
+ */
+final class BalanceLoadGenerator {
+
+    static final String AMOUNT = "1.00";
+
+    static final String TIMEOUT = "timeout";
+
+    static final String IO_ERROR = "io-error";
+
+    static final String DROPPED = "dropped";
+
+    private static final String CREDIT_BODY = "{\"typePayments\":\"REPLENISHMENT\",\"amount\":" + AMOUNT + "}";
+
+    private static final String DEBIT_BODY = "{\"typePayments\":\"DEBITING\",\"amount\":" + AMOUNT + "}";
+
+    private final HttpClient httpClient;
+
+    private final String balanceUrl;
+
+    private final BalanceLoadSettings settings;
+
+    // Разность успешных зачислений и списаний за все ступени, включая прогрев
+    private final LongAdder netOperations = new LongAdder();
+
+    BalanceLoadGenerator(HttpClient httpClient, String balanceUrl, BalanceLoadSettings settings) {
+        this.httpClient = httpClient;
+        this.balanceUrl = balanceUrl;
+        this.settings = settings;
+    }
+
+    /**
+     * Выполняет ступень нагрузки и дожидается ответов на все отправленные запросы.
+     *
+     * @param rps      Запросов в секунду.
+     * @param duration Длительность ступени.
+     * @return Отчет по ступени.
+     * @throws InterruptedException Если ожидание ответов прервано.
+     */
+    BalanceStageReport run(int rps, Duration duration) throws InterruptedException {
+        LatencyRecorder latency = new LatencyRecorder();
+        ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + duration.toNanos();
+
+        for (long scheduledNanos = startNanos; scheduledNanos < endNanos; scheduledNanos += intervalNanos) {
+            long waitNanos = scheduledNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            if (!inFlight.tryAcquire()) {
+                errors.computeIfAbsent(DROPPED, key -> new LongAdder()).increment();
+                continue;
+            }
+            send(scheduledNanos, latency, errors, inFlight);
+        }
+
+        // Ответ на каждый запрос приходит не позже requestTimeout, дальше ждать незачем
+        if (inFlight.tryAcquire(settings.maxInFlight(), settings.requestTimeout().toNanos() * 2, TimeUnit.NANOSECONDS)) {
+            inFlight.release(settings.maxInFlight());
+        }
+        return toReport(rps, System.nanoTime() - startNanos, latency, errors);
+    }
+
+    long netOperations() {
+        return netOperations.sum();
+    }
+
+    private void send(long scheduledNanos, LatencyRecorder latency, ConcurrentMap<String, LongAdder> errors,
+                      Semaphore inFlight) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Горячий счет - первый, остальные запросы распределены по всем счетам
+        int account = random.nextDouble() < settings.hotShare() ? 1 : random.nextInt(1, settings.accounts() + 1);
+        boolean debit = random.nextDouble() < settings.debitShare();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(balanceUrl + BalanceLoadTest.accountNumber(account)))
+                .timeout(settings.requestTimeout())
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(debit ? DEBIT_BODY : CREDIT_BODY, StandardCharsets.UTF_8))
+                .build();
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, exception) -> {
+                    long latencyNanos = System.nanoTime() - scheduledNanos;
+                    inFlight.release();
+                    String error;
+                    if (exception != null) {
+                        error = getError(exception);
+                    } else if (response.statusCode() == 200) {
+                        latency.record(latencyNanos);
+                        if (debit) {
+                            netOperations.decrement();
+                        } else {
+                            netOperations.increment();
+                        }
+                        return;
+                    } else {
+                        error = String.valueOf(response.statusCode());
+                    }
+                    errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+                });
+    }
+
+    private static BalanceStageReport toReport(int rps, long elapsedNanos, LatencyRecorder latency,
+                                               ConcurrentMap<String, LongAdder> errors) {
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((error, count) -> errorCounts.put(error, count.sum()));
+        LatencyRecorder.LatencySummary latencySummary = latency.summarize();
+        long failed = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+        long sent = latencySummary.count() + failed;
+        double elapsedSeconds = elapsedNanos / 1_000_000_000.0;
+        return new BalanceStageReport(rps, round(elapsedSeconds), sent, latencySummary.count(),
+                round(latencySummary.count() / elapsedSeconds), sent > 0 ? round((double) failed / sent) : 0,
+                errorCounts, latencySummary);
+    }
+
+    private static String getError(Throwable exception) {
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause()
+                : exception;
+        return cause instanceof HttpTimeoutException ? TIMEOUT : IO_ERROR;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.sovcombank.petbackendaccounts.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Отчет нагрузочного теста: настройки, результаты ступеней, выдержанная нагрузка и расхождение суммы балансов.
+ *
+ * @param settings     Настройки теста.
+ * @param stages       Результаты ступеней в порядке выполнения.
+ * @param sustainedRps Наибольшая нагрузка среди ступеней, уложившихся в maxErrorRate и p99Slo, или 0.
+ * @param balanceDrift Сумма балансов после теста минус ожидаемая по успешным ответам. Без ошибок timeout
+ *                     расхождение означает потерянные обновления.
+ */
+record BalanceLoadReport(BalanceLoadSettings settings, List<BalanceStageReport> stages, int sustainedRps,
+                         BigDecimal balanceDrift) {
+
+    static final String JSON_REPORT = "load-test-report.json";
+
+    static final String SUMMARY = "summary.txt";
+
+    static BalanceLoadReport of(BalanceLoadSettings settings, List<BalanceStageReport> stages,
+                                BigDecimal balanceDrift) {
+        int sustainedRps = stages.stream()
+                .filter(stage -> stage.isSustained(settings))
+                .mapToInt(BalanceStageReport::targetRps)
+                .max()
+                .orElse(0);
+        return new BalanceLoadReport(settings, stages, sustainedRps, balanceDrift);
+    }
+
+    /**
+     * Записывает отчет в JSON для сравнения режимов и краткую таблицу для чтения.
+     *
+     * @param objectMapper ObjectMapper для записи JSON.
+     * @throws IOException Если отчет не удалось записать.
+     */
+    void write(ObjectMapper objectMapper) throws IOException {
+        Path reportDir = settings.reportDir();
+        Files.createDirectories(reportDir);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportDir.resolve(JSON_REPORT).toFile(), this);
+        Files.writeString(reportDir.resolve(SUMMARY), toSummary());
+    }
+
+    String toSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "%10s %12s %10s %10s %10s %10s %10s %10s%n",
+                "rps", "achieved", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (BalanceStageReport stage : stages) {
+            summary.append(String.format(Locale.ROOT, "%10d %12.1f %9.2f%% %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    stage.targetRps(), stage.achievedRps(), stage.errorRate() * 100,
+                    stage.latency().p50(), stage.latency().p90(), stage.latency().p99(),
+                    stage.latency().p999(), stage.latency().max()));
+            if (!stage.errors().isEmpty()) {
+                summary.append(String.format("%10s errors: %s%n", "", stage.errors()));
+            }
+        }
+        summary.append(String.format(Locale.ROOT, "Sustained (%s): %d rps (error rate <= %.2f%%, p99 <= %d ms)%n",
+                settings.mode(), sustainedRps, settings.maxErrorRate() * 100, settings.p99Slo().toMillis()));
+        summary.append(String.format(Locale.ROOT, "Balance drift: %s%n", balanceDrift.toPlainString()));
+        return summary.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.sovcombank.petbackendaccounts.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Настройки нагрузочного теста изменения баланса. Задаются системными свойствами loadtest.*,
+ * задача loadTest передает их из свойств Gradle: ./gradlew loadTest -Ploadtest.mode=engine
+ *
+ * @param rps            Ступени нагрузки: запросов изменения баланса в секунду, ступени выполняются по очереди.
+ * @param stageDuration  Длительность каждой ступени.
+ * @param warmup         Прогрев на первой ступени перед замерами, его результаты не учитываются.
+ * @param accounts       Количество счетов под нагрузкой.
+ * @param hotShare       Доля запросов к одному счету с большим потоком операций, остальные распределены по счетам.
+ * @param debitShare     Доля списаний, остальные запросы - зачисления.
+ * @param requestTimeout Срок ожидания ответа сервиса, после него запрос считается ошибкой.
+ * @param maxInFlight    Максимум запросов без ответа: сверх него запросы не отправляются и считаются ошибкой.
+ * @param maxErrorRate   Допустимая доля ошибок на ступени.
+ * @param p99Slo         Допустимый 99-й перцентиль времени ответа на ступени.
+ * @param minRps         Минимальная выдерживаемая нагрузка, при меньшей тест завершается ошибкой.
+ * @param reportDir      Каталог для отчета.
+ * @param mode           Способ изменения баланса: jpa (чтение счета и сохранение сущности), single-statement
+ *                       (balance-update.single-statement) или engine (balance-engine.enabled).
+ */
+public record BalanceLoadSettings(List<Integer> rps,
+                                  Duration stageDuration,
+                                  Duration warmup,
+                                  int accounts,
+                                  double hotShare,
+                                  double debitShare,
+                                  Duration requestTimeout,
+                                  int maxInFlight,
+                                  double maxErrorRate,
+                                  Duration p99Slo,
+                                  int minRps,
+                                  Path reportDir,
+                                  String mode) {
+
+    static final String JPA = "jpa";
+
+    static final String SINGLE_STATEMENT = "single-statement";
+
+    static final String ENGINE = "engine";
+
+    private static final String PREFIX = "loadtest.";
+
+    public static BalanceLoadSettings fromSystemProperties() {
+        return new BalanceLoadSettings(
+                Arrays.stream(property("rps", "100,200,400").split(","))
+                        .map(String::trim)
+                        .map(Integer::valueOf)
+                        .toList(),
+                Duration.parse(property("stage-duration", "PT30S")),
+                Duration.parse(property("warmup", "PT15S")),
+                Integer.parseInt(property("accounts", "1000")),
+                Double.parseDouble(property("hot-share", "0.2")),
+                Double.parseDouble(property("debit-share", "0.5")),
+                Duration.parse(property("request-timeout", "PT5S")),
+                Integer.parseInt(property("max-in-flight", "2000")),
+                Double.parseDouble(property("max-error-rate", "0.01")),
+                Duration.parse(property("p99-slo", "PT0.5S")),
+                Integer.parseInt(property("min-rps", "0")),
+                Path.of(property("report-dir", "build/reports/load-test")),
+                property("mode", JPA));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+}
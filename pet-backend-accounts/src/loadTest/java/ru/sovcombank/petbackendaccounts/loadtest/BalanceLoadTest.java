@@ -0,0 +1,129 @@
+package ru.sovcombank.petbackendaccounts.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный тест изменения баланса: настоящий Postgres в Testcontainers, один способ изменения баланса
+ * на запуск (loadtest.mode), чтобы сравнить JPA, условный UPDATE и движок балансов в памяти под одной нагрузкой.
+ * Запускается отдельно от обычных тестов: ./gradlew loadTest, настройки описаны в {@link BalanceLoadSettings}.
+ */
+@Testcontainers
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        // Вывод каждого SQL-запроса в консоль сборки ограничивал бы пропускную способность теста, а не сервиса
+        properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class BalanceLoadTest {
+
+    private static final String BASE_HOST = "http://localhost:";
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+
+    private static final BalanceLoadSettings settings = BalanceLoadSettings.fromSystemProperties();
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) throws IOException {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("balance-update.single-statement",
+                () -> settings.mode().equals(BalanceLoadSettings.SINGLE_STATEMENT));
+        registry.add("balance-engine.enabled", () -> settings.mode().equals(BalanceLoadSettings.ENGINE));
+        Path engineDirectory = Files.createTempDirectory("balance-engine");
+        registry.add("balance-engine.directory", engineDirectory::toString);
+    }
+
+    static String accountNumber(int account) {
+        return String.format("4200810666%06d", account);
+    }
+
+    @Test
+    @DisplayName("Зачисления и списания под ступенчатой нагрузкой с горячим счетом")
+    void updateBalancesUnderLoad() throws Exception {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO accounts (account_number, client_id, cur, balance) VALUES (?, ?, '810', ?)",
+                IntStream.rangeClosed(1, settings.accounts())
+                        .mapToObj(account -> new Object[]{accountNumber(account), account, INITIAL_BALANCE})
+                        .toList());
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.requestTimeout())
+                .build();
+        String balanceUrl = BASE_HOST + port + "/accounts/balance/";
+        BalanceLoadGenerator loadGenerator = new BalanceLoadGenerator(httpClient, balanceUrl, settings);
+
+        if (!settings.warmup().isZero()) {
+            loadGenerator.run(settings.rps().get(0), settings.warmup());
+        }
+
+        List<BalanceStageReport> stages = new ArrayList<>();
+        for (int rps : settings.rps()) {
+            stages.add(loadGenerator.run(rps, settings.stageDuration()));
+        }
+
+        BigDecimal netAmount = new BigDecimal(BalanceLoadGenerator.AMOUNT)
+                .multiply(BigDecimal.valueOf(loadGenerator.netOperations()));
+        BigDecimal expected = INITIAL_BALANCE.multiply(BigDecimal.valueOf(settings.accounts())).add(netAmount);
+        BigDecimal drift = sumBalances(httpClient, balanceUrl).subtract(expected);
+
+        BalanceLoadReport report = BalanceLoadReport.of(settings, stages, drift);
+        report.write(objectMapper);
+
+        assertTrue(report.sustainedRps() >= settings.minRps(),
+                "Sustained " + report.sustainedRps() + " rps, required " + settings.minRps() + " rps\n"
+                        + report.toSummary());
+    }
+
+    // Балансы читаются через API: в режиме engine баланс в базе обновляется только на контрольных точках
+    private BigDecimal sumBalances(HttpClient httpClient, String balanceUrl) throws Exception {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int account = 1; account <= settings.accounts(); account++) {
+            HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(balanceUrl + accountNumber(account))).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode body = objectMapper.readTree(response.body());
+            total = total.add(body.get("balance").decimalValue());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.sovcombank.petbackendaccounts.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Накапливает времена ответов одной ступени и считает по ним перцентили.
+ * Значения хранятся целиком: на ступени их не больше, чем запросов, а точные перцентили
+ * не зависят от границ корзин гистограммы.
+ */
+final class LatencyRecorder {
+
+    private static final int INITIAL_CAPACITY = 1 << 14;
+
+    private long[] nanos = new long[INITIAL_CAPACITY];
+
+    private int count;
+
+    synchronized void record(long latencyNanos) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, nanos.length * 2);
+        }
+        nanos[count++] = latencyNanos;
+    }
+
+    synchronized LatencySummary summarize() {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return new LatencySummary(
+                sorted.length,
+                toMillis(percentile(sorted, 0.5)),
+                toMillis(percentile(sorted, 0.9)),
+                toMillis(percentile(sorted, 0.99)),
+                toMillis(percentile(sorted, 0.999)),
+                toMillis(sorted.length > 0 ? sorted[sorted.length - 1] : 0));
+    }
+
+    // Перцентиль по ближайшему рангу: значение, не меньше которого доля quantile всех замеров
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * Перцентили времени ответа в миллисекундах.
+     */
+    record LatencySummary(long count, double p50, double p90, double p99, double p999, double max) {
+    }
+}
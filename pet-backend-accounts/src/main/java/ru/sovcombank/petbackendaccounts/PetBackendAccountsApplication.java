@@ -3,9 +3,11 @@ package ru.sovcombank.petbackendaccounts;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableRetry
+@EnableScheduling
 public class PetBackendAccountsApplication {
 
 	public static void main(String[] args) {
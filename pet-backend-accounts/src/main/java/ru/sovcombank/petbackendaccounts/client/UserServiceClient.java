@@ -1,12 +1,13 @@
 package ru.sovcombank.petbackendaccounts.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import ru.sovcombank.petbackendaccounts.exception.UserNotFoundException;
-import ru.sovcombank.petbackendaccounts.mapping.impl.ResponseToGetUserResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetUserResponse;
 import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
 
@@ -14,30 +15,29 @@ import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
 public class UserServiceClient {
 
     private final RestTemplate restTemplate;
-    private final ResponseToGetUserResponse responseToGetUserResponse;
+    private final ObjectReader getUserResponseReader;
     private final String userServiceUrl;
 
     public UserServiceClient(RestTemplate restTemplate,
-                             ResponseToGetUserResponse responseToGetUserResponse,
+                             ObjectMapper objectMapper,
                              @Value("${user-service.url}") String userServiceUrl) {
         this.restTemplate = restTemplate;
-        this.responseToGetUserResponse = responseToGetUserResponse;
+        // Десериализатор строится при создании ObjectReader, а не при первом запросе
+        this.getUserResponseReader = objectMapper.readerFor(GetUserResponse.class);
         this.userServiceUrl = userServiceUrl;
     }
 
     // Проверка существования клиента с таким clientId
-    public ResponseEntity<Object> checkUserExists(Integer clientId) {
+    public GetUserResponse checkUserExists(Integer clientId) {
         String getUserByIdUrl = userServiceUrl + "/users/" + clientId;
 
         try {
-            ResponseEntity<Object> responseEntity = restTemplate.getForEntity(getUserByIdUrl, Object.class);
-            if (!responseEntity.getStatusCode().isError()) {
-                GetUserResponse getUserResponseEntity = responseToGetUserResponse.map(responseEntity);
-                if (!isUserActiveAndNotDeleted(getUserResponseEntity)) {
-                    throw new UserNotFoundException(AccountResponseMessagesEnum.USER_NOT_FOUND.getMessage());
-                }
+            GetUserResponse getUserResponseEntity = restTemplate.execute(getUserByIdUrl, HttpMethod.GET, null,
+                    response -> getUserResponseReader.readValue(response.getBody()));
+            if (getUserResponseEntity == null || !isUserActiveAndNotDeleted(getUserResponseEntity)) {
+                throw new UserNotFoundException(AccountResponseMessagesEnum.USER_NOT_FOUND.getMessage());
             }
-            return responseEntity;
+            return getUserResponseEntity;
 
         } catch (HttpClientErrorException.NotFound ex) {
             throw new UserNotFoundException(AccountResponseMessagesEnum.USER_NOT_FOUND.getMessage());
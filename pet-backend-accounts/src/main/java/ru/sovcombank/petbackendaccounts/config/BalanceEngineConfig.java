@@ -0,0 +1,20 @@
+package ru.sovcombank.petbackendaccounts.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.sovcombank.petbackendaccounts.service.engine.BalanceEngine;
+import ru.sovcombank.petbackendaccounts.service.engine.BalanceStore;
+
+@Configuration
+@ConditionalOnProperty(name = "balance-engine.enabled", havingValue = "true")
+@EnableConfigurationProperties(BalanceEngineProperties.class)
+public class BalanceEngineConfig {
+
+    // Восстановление из снимка и журналов при запуске, контрольная точка при остановке
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public BalanceEngine balanceEngine(BalanceEngineProperties properties, BalanceStore balanceStore) {
+        return new BalanceEngine(properties, balanceStore);
+    }
+}
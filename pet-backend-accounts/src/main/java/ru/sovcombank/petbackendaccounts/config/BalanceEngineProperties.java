@@ -0,0 +1,30 @@
+package ru.sovcombank.petbackendaccounts.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки движка балансов в памяти (balance-engine.enabled).
+ */
+@Data
+@ConfigurationProperties(prefix = "balance-engine")
+public class BalanceEngineProperties {
+
+    // Число разделов: у каждого раздела счетов свой поток записи, своя очередь и свой журнал
+    private int partitions;
+
+    // Емкость очереди раздела, степень двойки. При заполненной очереди запрос ждет места до timeout
+    private int ringSize;
+
+    // Наибольшее число операций, записываемых в журнал одним вызовом fsync
+    private int batchSize;
+
+    // Каталог журналов и снимков
+    private Path directory;
+
+    // Время ожидания подтверждения операции
+    private Duration timeout;
+}
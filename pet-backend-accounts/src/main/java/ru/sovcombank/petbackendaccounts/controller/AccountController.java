@@ -1,6 +1,7 @@
 package ru.sovcombank.petbackendaccounts.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,17 +10,22 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.TransferBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.request.UpdateBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.response.CreateAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.DeleteAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountsResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetBalanceResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.TransferBalanceResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.UpdateBalanceResponse;
 import ru.sovcombank.petbackendaccounts.service.AccountService;
 
+import java.time.LocalDateTime;
+
 /**
  * Контроллер для управления счетами.
  */
@@ -84,14 +90,19 @@ public class AccountController {
     }
 
     /**
-     * Обрабатывает запрос на получение баланса.
+     * Обрабатывает запрос на получение баланса, текущего или на момент времени.
      *
      * @param accountNumber Номер счета.
+     * @param at            Момент времени (необязательный).
      * @return Ответ с балансом.
      */
     @GetMapping("/balance/{accountNumber}")
-    public ResponseEntity<Object> getBalance(@PathVariable String accountNumber) {
-        GetBalanceResponse response = accountService.getBalance(accountNumber);
+    public ResponseEntity<Object> getBalance(@PathVariable String accountNumber,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        GetBalanceResponse response = at == null
+                ? accountService.getBalance(accountNumber)
+                : accountService.getBalanceAt(accountNumber, at);
         return ResponseEntity.ok(response);
     }
 
@@ -107,4 +118,16 @@ public class AccountController {
         UpdateBalanceResponse response = accountService.updateBalance(accountNumber, updateBalanceRequest);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Обрабатывает запрос на перевод между двумя счетами (списание и зачисление в одной транзакции).
+     *
+     * @param transferBalanceRequest Запрос на перевод между счетами.
+     * @return Ответ с новыми балансами обоих счетов.
+     */
+    @PostMapping("/transfers")
+    public ResponseEntity<Object> transferBalance(@Valid @RequestBody TransferBalanceRequest transferBalanceRequest) {
+        TransferBalanceResponse response = accountService.transferBalance(transferBalanceRequest);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.sovcombank.petbackendaccounts.model.api.response.DeleteAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.MessageResponse;
 
@@ -38,6 +39,13 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new MessageResponse(errorMessage), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<MessageResponse> handleTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        String errorMessage = String.format("Некорректный запрос по полю %s", ex.getName());
+        return new ResponseEntity<>(new MessageResponse(errorMessage), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(UserNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<MessageResponse> handleUserNotFoundException(UserNotFoundException ex) {
@@ -2,6 +2,10 @@ package ru.sovcombank.petbackendaccounts.exception;
 
 public class InternalServerErrorException extends RuntimeException {
 
+    public InternalServerErrorException(String message) {
+        super(message);
+    }
+
     public InternalServerErrorException(Throwable cause) {
         super(cause);
     }
@@ -0,0 +1,13 @@
+package ru.sovcombank.petbackendaccounts.mapping;
+
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Общие настройки генерируемых мапперов: реализации создаются при компиляции и регистрируются как бины Spring.
+ * Незаполненное поле результата считается ошибкой компиляции, пропуск поля указывается явно через ignore.
+ */
+@MapperConfig(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface MapStructConfig {
+}
@@ -1,19 +1,12 @@
 package ru.sovcombank.petbackendaccounts.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendaccounts.mapping.MapStructConfig;
 import ru.sovcombank.petbackendaccounts.mapping.Mapper;
 import ru.sovcombank.petbackendaccounts.model.dto.AccountDTO;
 import ru.sovcombank.petbackendaccounts.model.entity.Account;
 
-@Component
-public class AccountToAccountDTO implements Mapper<Account, AccountDTO> {
-
-    private final ModelMapper modelMapper;
-
-    public AccountToAccountDTO(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface AccountToAccountDTO extends Mapper<Account, AccountDTO> {
 
     /**
      * Преобразует сущность счета в DTO.
@@ -22,7 +15,5 @@ public class AccountToAccountDTO implements Mapper<Account, AccountDTO> {
      * @return DTO счета.
      */
     @Override
-    public AccountDTO map(Account account) {
-        return modelMapper.map(account, AccountDTO.class);
-    }
+    AccountDTO map(Account account);
 }
@@ -1,22 +1,19 @@
 package ru.sovcombank.petbackendaccounts.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendaccounts.mapping.MapStructConfig;
 import ru.sovcombank.petbackendaccounts.mapping.Mapper;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.entity.Account;
 
-@Component
-public class AccountToGetAccountResponse implements Mapper<Account, GetAccountResponse> {
-
-    private final ModelMapper modelMapper;
-
-    public AccountToGetAccountResponse(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface AccountToGetAccountResponse extends Mapper<Account, GetAccountResponse> {
 
+    /**
+     * Преобразует сущность счета в ответ с информацией о счете.
+     *
+     * @param account Сущность счета.
+     * @return Ответ с информацией о счете.
+     */
     @Override
-    public GetAccountResponse map(Account account) {
-        return modelMapper.map(account, GetAccountResponse.class);
-    }
+    GetAccountResponse map(Account account);
 }
@@ -1,22 +1,29 @@
 package ru.sovcombank.petbackendaccounts.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import org.mapstruct.Mapping;
+import ru.sovcombank.petbackendaccounts.mapping.MapStructConfig;
 import ru.sovcombank.petbackendaccounts.mapping.Mapper;
 import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
 import ru.sovcombank.petbackendaccounts.model.entity.Account;
 
-@Component
-public class CreateAccountRequestToAccount implements Mapper<CreateAccountRequest, Account> {
-
-    private final ModelMapper modelMapper;
-
-    public CreateAccountRequestToAccount(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface CreateAccountRequestToAccount extends Mapper<CreateAccountRequest, Account> {
 
+    /**
+     * Преобразует запрос на открытие счета в сущность счета.
+     * Номер счета и значения по умолчанию (баланс, признак основного счета) заполняются сущностью и сервисом.
+     *
+     * @param createAccountRequest Запрос на открытие счета.
+     * @return Сущность счета.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "accountNumber", ignore = true)
+    @Mapping(target = "balance", ignore = true)
+    @Mapping(target = "createDateTime", ignore = true)
+    @Mapping(target = "main", ignore = true)
+    @Mapping(target = "closed", ignore = true)
+    @Mapping(target = "balanceStripes", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Override
-    public Account map(CreateAccountRequest createAccountRequest) {
-        return modelMapper.map(createAccountRequest, Account.class);
-    }
+    Account map(CreateAccountRequest createAccountRequest);
 }
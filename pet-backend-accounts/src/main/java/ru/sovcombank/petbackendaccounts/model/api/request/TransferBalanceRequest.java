@@ -0,0 +1,36 @@
+package ru.sovcombank.petbackendaccounts.model.api.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferBalanceRequest {
+
+    @NotNull
+    private String accountNumberFrom;
+
+    @NotNull
+    private String accountNumberTo;
+
+    // Сумма списания в валюте счета отправителя
+    @NotNull
+    @DecimalMin(value = "0.01")
+    private BigDecimal amountFrom;
+
+    // Сумма зачисления в валюте счета получателя
+    @NotNull
+    @DecimalMin(value = "0.01")
+    private BigDecimal amountTo;
+
+    // Идентификатор перевода в transfers. Перевод с уже выполненным идентификатором не выполняется повторно,
+    // без идентификатора перевод всегда выполняется как новый
+    private UUID transferUuid;
+}
@@ -46,6 +46,10 @@ public class Account {
     @Column(nullable = false)
     private boolean isClosed = false;
 
+    // Число полос баланса для счетов с большим потоком зачислений, 0 - полосы не используются
+    @Column(nullable = false)
+    private int balanceStripes = 0;
+
     @Version
     private Long version;
 }
@@ -0,0 +1,46 @@
+package ru.sovcombank.petbackendaccounts.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Проводка по счету. Проводки только добавляются: баланс счета на любой момент равен сумме проводок до него.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "ledger_entries")
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Общий идентификатор проводок одной операции: у перевода это списание и зачисление
+    @Column(nullable = false)
+    private UUID operationUuid;
+
+    @Column(nullable = false)
+    private String accountNumber;
+
+    // Зачисление положительное, списание отрицательное
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private String entryType;
+
+    // Время транзакции в базе, по нему строятся снимки и баланс на момент времени
+    @Column(nullable = false)
+    private LocalDateTime createDateTime;
+}
@@ -6,10 +6,13 @@ public enum AccountResponseMessagesEnum {
     BAD_REQUEST_FOR_CUR("Некорректный запрос по полю cur"),
     BAD_REQUEST_FOR_TYPE_PAY("Некорректный запрос по полю typePayments"),
     BAD_REQUEST_FOR_AMOUNT("Некорректный запрос по полю amount"),
+    BAD_REQUEST_FOR_ACCOUNT_NUMBER("Некорректный запрос по полю accountNumberTo"),
+    BAD_REQUEST_FOR_AT("Некорректный запрос по полю at"),
     USER_NOT_FOUND("Не найден клиент по запросу"),
     ACCOUNT_NOT_FOUND("Не найден счет по запросу"),
     ACCOUNT_DELETED_SUCCESSFULLY("Счет успешно закрыт"),
-    BALANCE_UPDATED_SUCCESSFULLY("Баланс успешно обновлен. Ваш баланс: ");
+    BALANCE_UPDATED_SUCCESSFULLY("Баланс успешно обновлен. Ваш баланс: "),
+    ACCOUNT_NUMBERS_EXHAUSTED("Исчерпаны номера счетов в валюте");
 
     private final String message;
 
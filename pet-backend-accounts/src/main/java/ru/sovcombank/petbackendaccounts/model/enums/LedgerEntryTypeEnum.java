@@ -0,0 +1,18 @@
+package ru.sovcombank.petbackendaccounts.model.enums;
+
+public enum LedgerEntryTypeEnum {
+
+    REPLENISHMENT("REPLENISHMENT"),
+    DEBITING("DEBITING"),
+    TRANSFER("TRANSFER");
+
+    private final String entryType;
+
+    LedgerEntryTypeEnum(String entryType) {
+        this.entryType = entryType;
+    }
+
+    public String getEntryType() {
+        return entryType;
+    }
+}
@@ -4,18 +4,102 @@ import jakarta.annotation.Nonnull;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.sovcombank.petbackendaccounts.model.entity.Account;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
+
+    // Общий баланс счета: основной баланс и зачисления в полосах, еще не перенесенные в него
+    String TOTAL_BALANCE_SQL = "balance + COALESCE((SELECT SUM(s.amount) FROM account_balance_stripes s "
+            + "WHERE s.account_number = :accountNumber), 0)";
+
+    // Обнуляет полосы баланса счета и возвращает снятые с них суммы. Полосы, заблокированные незавершенным
+    // зачислением, пропускаются: перенос не ждет зачислений и переносит только подтвержденные суммы
+    String TAKE_STRIPES_SQL = "WITH taken AS (UPDATE account_balance_stripes s SET amount = 0 "
+            + "FROM (SELECT stripe, amount FROM account_balance_stripes "
+            + "WHERE account_number = :accountNumber AND amount <> 0 FOR UPDATE SKIP LOCKED) locked "
+            + "WHERE s.account_number = :accountNumber AND s.stripe = locked.stripe RETURNING locked.amount) ";
+
     List<Account> findByClientIdAndCur(Integer clientId, String cur);
 
     Optional<List<Account>> findByClientId(Integer clientId);
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    // Получение счета с блокировкой строки (SELECT ... FOR UPDATE) до конца транзакции
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Account> findForUpdateByAccountNumber(String accountNumber);
+
+    @Query(value = "SELECT " + TOTAL_BALANCE_SQL + " FROM accounts WHERE account_number = :accountNumber",
+            nativeQuery = true)
+    Optional<BigDecimal> findTotalBalance(String accountNumber);
+
+    // Списание одним запросом: проверка остатка и закрытия счета выполняется в том же UPDATE под блокировкой строки.
+    // Возвращает новый общий баланс или пустой результат, если счет не найден, закрыт или средств недостаточно
+    @Query(value = "UPDATE accounts SET balance = balance - :amount "
+            + "WHERE account_number = :accountNumber AND balance >= :amount AND NOT is_closed "
+            + "RETURNING " + TOTAL_BALANCE_SQL, nativeQuery = true)
+    Optional<BigDecimal> debitBalance(String accountNumber, BigDecimal amount);
+
+    // Пополнение одним запросом. Возвращает новый общий баланс или пустой результат, если счет не найден
+    @Query(value = "UPDATE accounts SET balance = balance + :amount WHERE account_number = :accountNumber "
+            + "RETURNING " + TOTAL_BALANCE_SQL, nativeQuery = true)
+    Optional<BigDecimal> creditBalance(String accountNumber, BigDecimal amount);
+
+    // Зачисление в полосу probe % balance_stripes, строка счета не блокируется и не меняется.
+    // Возвращает 0, если счет не найден или полосы баланса для него не включены
+    @Modifying
+    @Query(value = "INSERT INTO account_balance_stripes (account_number, stripe, amount) "
+            + "SELECT account_number, :probe % balance_stripes, :amount FROM accounts "
+            + "WHERE account_number = :accountNumber AND balance_stripes > 0 "
+            + "ON CONFLICT (account_number, stripe) "
+            + "DO UPDATE SET amount = account_balance_stripes.amount + EXCLUDED.amount", nativeQuery = true)
+    int creditStripe(String accountNumber, int probe, BigDecimal amount);
+
+    // Снимает суммы с полос баланса счета и возвращает их сумму, чтобы добавить к основному балансу
+    @Query(value = TAKE_STRIPES_SQL + "SELECT COALESCE(SUM(amount), 0) FROM taken", nativeQuery = true)
+    BigDecimal takeStripes(String accountNumber);
+
+    // Переносит суммы из полос баланса счета в основной баланс. Возвращает 0, если переносить нечего
+    @Transactional
+    @Modifying
+    @Query(value = TAKE_STRIPES_SQL + "UPDATE accounts SET balance = balance + (SELECT SUM(amount) FROM taken) "
+            + "WHERE account_number = :accountNumber AND EXISTS (SELECT 1 FROM taken)", nativeQuery = true)
+    int foldStripes(String accountNumber);
+
+    // Резервирует блок из blockSize номеров счетов в валюте cur и возвращает первый номер блока. Резерв фиксируется
+    // в отдельной транзакции: откат создания счета не должен возвращать блок, уже выданный в память экземпляра
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO account_number_blocks (cur, next_value) VALUES (:cur, :blockSize) "
+            + "ON CONFLICT (cur) DO UPDATE SET next_value = account_number_blocks.next_value + :blockSize "
+            + "RETURNING next_value - :blockSize", nativeQuery = true)
+    long reserveAccountNumbers(String cur, int blockSize);
+
+    @Query(value = "SELECT account_number FROM accounts WHERE account_number BETWEEN :first AND :last",
+            nativeQuery = true)
+    List<String> findAccountNumbersBetween(String first, String last);
+
+    // Закрывает счет, не затрагивая баланс. Возвращает 0, если счет не найден или уже закрыт
+    @Modifying
+    @Query(value = "UPDATE accounts SET is_closed = true WHERE account_number = :accountNumber AND NOT is_closed",
+            nativeQuery = true)
+    int closeAccount(String accountNumber);
+
+    // Запись баланса, посчитанного движком балансов (balance-engine.enabled)
+    @Modifying
+    @Query(value = "UPDATE accounts SET balance = :balance WHERE account_number = :accountNumber", nativeQuery = true)
+    int setBalance(String accountNumber, BigDecimal balance);
+
+    @Query(value = "SELECT DISTINCT account_number FROM account_balance_stripes WHERE amount <> 0", nativeQuery = true)
+    List<String> findAccountNumbersWithStripes();
+
     @Lock(LockModeType.OPTIMISTIC)
     @Nonnull
     Account save(Account account);
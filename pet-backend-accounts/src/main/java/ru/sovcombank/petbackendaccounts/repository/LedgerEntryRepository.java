@@ -0,0 +1,80 @@
+package ru.sovcombank.petbackendaccounts.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.sovcombank.petbackendaccounts.model.entity.LedgerEntry;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // Время проводки задает база (время начала транзакции), как и границу снимков
+    @Modifying
+    @Query(value = "INSERT INTO ledger_entries (operation_uuid, account_number, amount, entry_type) "
+            + "VALUES (:operationUuid, :accountNumber, :amount, :entryType)", nativeQuery = true)
+    void insertEntry(UUID operationUuid, String accountNumber, BigDecimal amount, String entryType);
+
+    // Списание и зачисление перевода одним запросом. Проводки перевода с уже записанным идентификатором операции
+    // не вставляются, возвращает число вставленных проводок. Пока операция с тем же идентификатором не завершена
+    // другой транзакцией, вставка ждет ее завершения
+    @Modifying
+    @Query(value = "INSERT INTO ledger_entries (operation_uuid, account_number, amount, entry_type) "
+            + "VALUES (:operationUuid, :accountNumberFrom, -:amountFrom, :entryType), "
+            + "(:operationUuid, :accountNumberTo, :amountTo, :entryType) "
+            + "ON CONFLICT (operation_uuid, account_number) WHERE entry_type = 'TRANSFER' DO NOTHING",
+            nativeQuery = true)
+    int insertTransferEntries(UUID operationUuid, String accountNumberFrom, BigDecimal amountFrom,
+                               String accountNumberTo, BigDecimal amountTo, String entryType);
+
+    // Баланс на момент at: ближайший к нему снимок и проводки после последней проводки снимка
+    @Query(value = "SELECT COALESCE(s.balance, 0.00) + COALESCE((SELECT SUM(e.amount) FROM ledger_entries e "
+            + "WHERE e.account_number = :accountNumber AND e.id > COALESCE(s.last_entry_id, 0) "
+            + "AND e.create_date_time <= :at), 0.00) "
+            + "FROM (SELECT 1) one LEFT JOIN LATERAL (SELECT balance, last_entry_id FROM ledger_snapshots "
+            + "WHERE account_number = :accountNumber AND snapshot_date_time <= :at "
+            + "ORDER BY snapshot_date_time DESC LIMIT 1) s ON TRUE", nativeQuery = true)
+    BigDecimal findBalanceAt(String accountNumber, LocalDateTime at);
+
+    // Блокировка создания снимков до конца транзакции: снимки создает один экземпляр сервиса за раз.
+    // Возвращает false, если снимки сейчас создает другой экземпляр
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('ledger_snapshots'))", nativeQuery = true)
+    boolean tryLockSnapshots();
+
+    // Наибольший выданный номер проводки, в том числе проводки еще не завершенной транзакции
+    @Query(value = "SELECT CASE WHEN is_called THEN last_value ELSE 0 END FROM ledger_entries_id_seq",
+            nativeQuery = true)
+    long findLastIssuedEntryId();
+
+    // Транзакции, добавляющие проводки: номер проводки выдается под блокировкой ROW EXCLUSIVE таблицы,
+    // которую транзакция держит до своего завершения
+    @Query(value = "SELECT virtualtransaction FROM pg_locks WHERE relation = CAST('ledger_entries' AS regclass) "
+            + "AND mode = 'RowExclusiveLock' AND granted", nativeQuery = true)
+    List<String> findEntryWriters();
+
+    // Число еще не завершенных транзакций из writers
+    @Query(value = "SELECT COUNT(*) FROM pg_locks WHERE relation = CAST('ledger_entries' AS regclass) "
+            + "AND virtualtransaction IN :writers", nativeQuery = true)
+    long countEntryWriters(Collection<String> writers);
+
+    // Снимки для счетов с проводками после предыдущих снимков: к последнему снимку счета прибавляются проводки
+    // с номером больше наибольшей проводки предыдущих снимков и не больше lastEntryId. Все проводки с номером
+    // не больше lastEntryId к этому моменту зафиксированы или отменены, проводка, зафиксированная позже, получит
+    // номер больше и попадет в следующий снимок. Время снимка не меньше времени любой вошедшей в него проводки
+    @Modifying
+    @Query(value = "WITH boundary AS (SELECT (SELECT COALESCE(MAX(last_entry_id), 0) FROM ledger_snapshots) "
+            + "AS after_id, CAST(:lastEntryId AS BIGINT) AS last_id, "
+            + "CAST(clock_timestamp() AS TIMESTAMP) AS at) "
+            + "INSERT INTO ledger_snapshots (account_number, snapshot_date_time, balance, last_entry_id) "
+            + "SELECT e.account_number, (SELECT at FROM boundary), COALESCE((SELECT s.balance "
+            + "FROM ledger_snapshots s WHERE s.account_number = e.account_number "
+            + "ORDER BY s.snapshot_date_time DESC LIMIT 1), 0) + SUM(e.amount), (SELECT last_id FROM boundary) "
+            + "FROM ledger_entries e "
+            + "WHERE e.id > (SELECT after_id FROM boundary) AND e.id <= (SELECT last_id FROM boundary) "
+            + "GROUP BY e.account_number", nativeQuery = true)
+    int createSnapshots(long lastEntryId);
+}
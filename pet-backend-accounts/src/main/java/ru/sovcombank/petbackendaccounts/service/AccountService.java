@@ -1,14 +1,18 @@
 package ru.sovcombank.petbackendaccounts.service;
 
 import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.TransferBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.request.UpdateBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.response.CreateAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.DeleteAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountsResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetBalanceResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.TransferBalanceResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.UpdateBalanceResponse;
 
+import java.time.LocalDateTime;
+
 public interface AccountService {
 
     CreateAccountResponse createAccount(CreateAccountRequest createAccountRequest);
@@ -21,5 +25,9 @@ public interface AccountService {
 
     GetBalanceResponse getBalance(String accountNumber);
 
+    GetBalanceResponse getBalanceAt(String accountNumber, LocalDateTime at);
+
     UpdateBalanceResponse updateBalance(String accountNumber, UpdateBalanceRequest updateBalanceRequest);
+
+    TransferBalanceResponse transferBalance(TransferBalanceRequest transferBalanceRequest);
 }
@@ -0,0 +1,45 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.sovcombank.petbackendaccounts.repository.AccountRepository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Счета движка балансов в таблице accounts.
+ */
+@Component
+@ConditionalOnProperty(name = "balance-engine.enabled", havingValue = "true")
+public class AccountBalanceStore implements BalanceStore {
+
+    private final AccountRepository accountRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AccountBalanceStore(AccountRepository accountRepository, TransactionTemplate transactionTemplate) {
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Зачисления из полос баланса переносятся в основной баланс до чтения счета: дальше баланс счета ведет движок
+    @Override
+    public Optional<AccountState> load(String accountNumber) {
+        accountRepository.foldStripes(accountNumber);
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(account -> new AccountState(account.getAccountNumber(),
+                        BalanceEngine.toCents(account.getBalance()), account.isClosed()));
+    }
+
+    @Override
+    public void store(Collection<AccountState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> states.forEach(state ->
+                accountRepository.setBalance(state.accountNumber(), BigDecimal.valueOf(state.balance(), 2))));
+    }
+}
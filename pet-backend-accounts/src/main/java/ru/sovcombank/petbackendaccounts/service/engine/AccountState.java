@@ -0,0 +1,11 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+/**
+ * Состояние счета в движке балансов.
+ *
+ * @param accountNumber Номер счета.
+ * @param balance       Баланс в копейках.
+ * @param closed        Счет закрыт: списания с него запрещены.
+ */
+public record AccountState(String accountNumber, long balance, boolean closed) {
+}
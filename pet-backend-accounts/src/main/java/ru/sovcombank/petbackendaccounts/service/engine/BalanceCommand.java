@@ -0,0 +1,88 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Операция, передаваемая в очередь раздела. Результат заполняется потоком раздела до завершения done,
+ * поэтому после ожидания done поля результата видны вызывающему потоку.
+ */
+final class BalanceCommand {
+
+    enum Type {
+        GET, CREDIT, DEBIT, CLOSE, TRANSFER_DEBIT, TRANSFER_CREDIT, CHECKPOINT
+    }
+
+    // DUPLICATE_TRANSFER: списание перевода с этим идентификатором уже выполнено, баланс не изменен
+    enum Outcome {
+        APPLIED, UNKNOWN_ACCOUNT, ACCOUNT_CLOSED, INSUFFICIENT_FUNDS, DUPLICATE_TRANSFER
+    }
+
+    final Type type;
+
+    final String accountNumber;
+
+    // Сумма операции в копейках
+    final long amount;
+
+    // Состояние счета из базы: передается, если раздел ответил UNKNOWN_ACCOUNT и счет загружен вызывающим потоком
+    final AccountState initialState;
+
+    // Для частей перевода: идентификатор перевода, счет и сумма зачисления
+    final UUID transferUuid;
+
+    final String counterparty;
+
+    final long counterAmount;
+
+    // Для контрольной точки: поколение новых журналов
+    final long generation;
+
+    final CompletableFuture<BalanceCommand> done = new CompletableFuture<>();
+
+    Outcome outcome;
+
+    long balance;
+
+    // Результат контрольной точки: все счета раздела и счета, измененные с предыдущей контрольной точки
+    List<AccountState> states;
+
+    List<AccountState> changed;
+
+    private BalanceCommand(Type type, String accountNumber, long amount, AccountState initialState,
+                           UUID transferUuid, String counterparty, long counterAmount, long generation) {
+        this.type = type;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.initialState = initialState;
+        this.transferUuid = transferUuid;
+        this.counterparty = counterparty;
+        this.counterAmount = counterAmount;
+        this.generation = generation;
+    }
+
+    static BalanceCommand of(Type type, String accountNumber, long amount) {
+        return new BalanceCommand(type, accountNumber, amount, null, null, null, 0, 0);
+    }
+
+    static BalanceCommand transferDebit(UUID transferUuid, String accountNumberFrom, long amountFrom,
+                                        String accountNumberTo, long amountTo) {
+        return new BalanceCommand(Type.TRANSFER_DEBIT, accountNumberFrom, amountFrom, null,
+                transferUuid, accountNumberTo, amountTo, 0);
+    }
+
+    static BalanceCommand transferCredit(UUID transferUuid, String accountNumberTo, long amountTo) {
+        return new BalanceCommand(Type.TRANSFER_CREDIT, accountNumberTo, amountTo, null, transferUuid, null, 0, 0);
+    }
+
+    static BalanceCommand checkpoint(long generation) {
+        return new BalanceCommand(Type.CHECKPOINT, null, 0, null, null, null, 0, generation);
+    }
+
+    // Та же операция со счетом, загруженным из базы
+    BalanceCommand withInitialState(AccountState state) {
+        return new BalanceCommand(type, accountNumber, amount, state, transferUuid, counterparty, counterAmount,
+                generation);
+    }
+}
@@ -0,0 +1,469 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.sovcombank.petbackendaccounts.config.BalanceEngineProperties;
+import ru.sovcombank.petbackendaccounts.exception.AccountNotFoundException;
+import ru.sovcombank.petbackendaccounts.exception.BadRequestException;
+import ru.sovcombank.petbackendaccounts.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Движок балансов в памяти (balance-engine.enabled).
+ * <p>
+ * Счета распределяются по разделам по хешу номера счета. Операции раздела выполняет один поток
+ * ({@link BalancePartition}), поэтому баланс меняется без блокировок строк и повторов, а каждая операция
+ * подтверждается после записи в журнал раздела. Счет загружается из базы при первом обращении.
+ * <p>
+ * На контрольной точке все разделы начинают журналы нового поколения, балансы всех счетов сохраняются в снимок,
+ * а измененные балансы записываются в базу. При запуске состояние восстанавливается из последнего снимка
+ * и журналов, сразу сохраняется новым снимком и записывается в базу.
+ * <p>
+ * Перевод между счетами разных разделов состоит из списания и зачисления. Списание записывается в журнал вместе
+ * с суммой и счетом зачисления, поэтому перевод, прерванный между частями, при восстановлении завершается
+ * зачислением. Контрольная точка дожидается завершения начатых переводов, чтобы обе части перевода попадали
+ * в журналы одного поколения. Списание, принятое очередью раздела, остается в памяти до тех пор, пока зачисление
+ * не принято очередью раздела получателя. Если результат списания не дождались или зачисление не удалось
+ * добавить в очередь, следующая контрольная точка дожидается списания и первым делом добавляет зачисление
+ * в очередь: снимок не записывается и журнал со списанием не удаляется, пока зачисление не принято разделом.
+ * Повтор перевода с идентификатором, списанным в журналах текущего или предыдущего поколения, не выполняется
+ * и возвращает текущие балансы счетов.
+ */
+@Slf4j
+public class BalanceEngine {
+
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin(\\.tmp)?");
+
+    private static final Pattern JOURNAL_FILE = Pattern.compile("journal-(\\d+)-(\\d+)\\.log");
+
+    private final BalanceEngineProperties properties;
+
+    private final BalanceStore balanceStore;
+
+    // Переводы выполняются под блокировкой чтения, контрольная точка - под блокировкой записи
+    private final ReentrantReadWriteLock transferLock = new ReentrantReadWriteLock();
+
+    // Списания переводов, принятые очередью раздела, зачисление которых еще не принято очередью раздела получателя
+    private final ConcurrentMap<UUID, BalanceCommand> pendingTransfers = new ConcurrentHashMap<>();
+
+    private BalancePartition[] partitions;
+
+    private long generation;
+
+    public BalanceEngine(BalanceEngineProperties properties, BalanceStore balanceStore) {
+        this.properties = properties;
+        this.balanceStore = balanceStore;
+    }
+
+    /**
+     * Восстанавливает балансы из снимка и журналов и запускает потоки разделов.
+     */
+    public synchronized void start() throws IOException {
+        Path directory = properties.getDirectory();
+        Files.createDirectories(directory);
+
+        Map<UUID, BalanceJournal.JournalRecord> transferDebits = new HashMap<>();
+        Map<String, AccountState> states = recover(directory, transferDebits);
+        long next = generation + 1;
+        BalanceSnapshot.write(BalanceSnapshot.path(directory, next), states.values());
+        deleteFilesBefore(next);
+        balanceStore.store(states.values());
+        generation = next;
+
+        partitions = new BalancePartition[properties.getPartitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new BalancePartition(i, properties.getRingSize(), properties.getBatchSize(),
+                    directory, next);
+        }
+        for (AccountState state : states.values()) {
+            partition(state.accountNumber()).load(state);
+        }
+        for (BalanceJournal.JournalRecord debit : transferDebits.values()) {
+            partition(debit.accountNumber()).loadTransfer(debit.transferUuid());
+        }
+        for (BalancePartition partition : partitions) {
+            partition.start();
+        }
+        log.info("Balance engine started with {} partitions, {} accounts recovered, generation {}",
+                partitions.length, states.size(), next);
+    }
+
+    /**
+     * Сохраняет контрольную точку и останавливает потоки разделов.
+     */
+    public synchronized void stop() throws IOException, InterruptedException {
+        try {
+            checkpoint();
+        } finally {
+            for (BalancePartition partition : partitions) {
+                partition.stop();
+            }
+        }
+    }
+
+    /**
+     * Сохраняет снимок балансов, удаляет журналы, вошедшие в снимок, и записывает измененные балансы в базу.
+     */
+    public synchronized void checkpoint() throws IOException {
+        long next = generation + 1;
+        List<BalanceCommand> commands = new ArrayList<>(partitions.length);
+        transferLock.writeLock().lock();
+        try {
+            // Операции, добавленные в очередь раздела после контрольной точки, попадают в журнал нового поколения.
+            // Начатых переводов нет, поэтому обе части каждого перевода окажутся в журналах одного поколения.
+            // Зачисления незавершенных переводов добавляются в очереди до контрольной точки после выполненного
+            // списания; если это не удалось, контрольная точка прерывается до смены журналов, и списание остается
+            // в журнале для восстановления
+            long deadline = deadline();
+            for (BalanceCommand debit : pendingTransfers.values()) {
+                if (result(debit, deadline).outcome == BalanceCommand.Outcome.APPLIED) {
+                    offer(partition(debit.counterparty), BalanceCommand.transferCredit(
+                            debit.transferUuid, debit.counterparty, debit.counterAmount), deadline);
+                    log.info("Postponed credit of transfer {} to account {} queued",
+                            debit.transferUuid, debit.counterparty);
+                }
+                pendingTransfers.remove(debit.transferUuid);
+            }
+            for (BalancePartition partition : partitions) {
+                BalanceCommand command = BalanceCommand.checkpoint(next);
+                offer(partition, command, deadline);
+                commands.add(command);
+            }
+        } finally {
+            generation = next;
+            transferLock.writeLock().unlock();
+        }
+
+        List<AccountState> states = new ArrayList<>();
+        List<AccountState> changed = new ArrayList<>();
+        long deadline = deadline();
+        for (BalanceCommand command : commands) {
+            BalanceCommand result = result(command, deadline);
+            states.addAll(result.states);
+            changed.addAll(result.changed);
+        }
+        BalanceSnapshot.write(BalanceSnapshot.path(properties.getDirectory(), next), states);
+        deleteFilesBefore(next);
+        balanceStore.store(changed);
+        log.info("Balance engine checkpoint {}: {} accounts, {} changed", next, states.size(), changed.size());
+    }
+
+    /**
+     * @return Баланс счета.
+     * @throws AccountNotFoundException В случае, если счет не найден.
+     */
+    public BigDecimal getBalance(String accountNumber) {
+        return toAmount(execute(BalanceCommand.of(BalanceCommand.Type.GET, accountNumber, 0)).balance);
+    }
+
+    /**
+     * Зачисляет сумму на счет, в том числе закрытый.
+     *
+     * @return Новый баланс счета.
+     * @throws AccountNotFoundException В случае, если счет не найден.
+     */
+    public BigDecimal credit(String accountNumber, BigDecimal amount) {
+        return toAmount(execute(BalanceCommand.of(BalanceCommand.Type.CREDIT, accountNumber, toCents(amount))).balance);
+    }
+
+    /**
+     * Списывает сумму со счета.
+     *
+     * @return Новый баланс счета.
+     * @throws AccountNotFoundException В случае, если счет не найден или закрыт.
+     * @throws BadRequestException      В случае недостаточного количества средств.
+     */
+    public BigDecimal debit(String accountNumber, BigDecimal amount) {
+        BalanceCommand result = execute(BalanceCommand.of(BalanceCommand.Type.DEBIT, accountNumber, toCents(amount)));
+        return toAmount(checkDebit(result).balance);
+    }
+
+    /**
+     * Закрывает счет в движке, если он загружен. Состояние счета в базе меняет вызывающий.
+     */
+    public void close(String accountNumber) {
+        await(BalanceCommand.of(BalanceCommand.Type.CLOSE, accountNumber, 0), deadline());
+    }
+
+    /**
+     * Переводит средства между счетами. Повтор уже списанного перевода с тем же идентификатором
+     * не меняет балансы.
+     *
+     * @param transferUuid Идентификатор перевода.
+     * @return Новые балансы счетов отправителя и получателя.
+     * @throws AccountNotFoundException В случае, если один из счетов не найден или счет отправителя закрыт.
+     * @throws BadRequestException      В случае недостаточного количества средств.
+     */
+    public TransferBalances transfer(UUID transferUuid, String accountNumberFrom, BigDecimal amountFrom,
+                                     String accountNumberTo, BigDecimal amountTo) {
+        long centsTo = toCents(amountTo);
+        transferLock.readLock().lock();
+        try {
+            // Счет получателя загружается до списания: после списания зачисление не может завершиться отказом
+            execute(BalanceCommand.of(BalanceCommand.Type.GET, accountNumberTo, 0));
+            BalanceCommand debitCommand = BalanceCommand.transferDebit(
+                    transferUuid, accountNumberFrom, toCents(amountFrom), accountNumberTo, centsTo);
+            BalanceCommand debit = transferDebit(debitCommand);
+            if (debit.outcome == BalanceCommand.Outcome.UNKNOWN_ACCOUNT) {
+                debit = transferDebit(debitCommand.withInitialState(load(accountNumberFrom)));
+            }
+            checkDebit(debit);
+            if (debit.outcome == BalanceCommand.Outcome.DUPLICATE_TRANSFER) {
+                log.info("Transfer {} from account {} to account {} already completed",
+                        transferUuid, accountNumberFrom, accountNumberTo);
+                return new TransferBalances(toAmount(debit.balance), getBalance(accountNumberTo));
+            }
+            BalanceCommand credit = completeCredit(
+                    BalanceCommand.transferCredit(transferUuid, accountNumberTo, centsTo));
+            return new TransferBalances(toAmount(debit.balance), toAmount(credit.balance));
+        } finally {
+            transferLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Новые балансы счетов после перевода.
+     */
+    public record TransferBalances(BigDecimal balanceFrom, BigDecimal balanceTo) {
+    }
+
+    // Выполняет операцию; если счета нет в разделе, загружает его из базы и повторяет операцию
+    private BalanceCommand execute(BalanceCommand command) {
+        BalanceCommand result = await(command, deadline());
+        if (result.outcome == BalanceCommand.Outcome.UNKNOWN_ACCOUNT) {
+            result = await(command.withInitialState(load(command.accountNumber)), deadline());
+        }
+        return result;
+    }
+
+    private AccountState load(String accountNumber) {
+        return balanceStore.load(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(
+                        AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage()));
+    }
+
+    // Выполняет списание перевода. Принятое очередью списание остается незавершенным переводом до зачисления:
+    // если результат списания не дождались, поток раздела все равно выполнит списание, и зачисление
+    // добавит контрольная точка. Повтор перевода, первое списание которого еще не завершено, не заменяет его
+    private BalanceCommand transferDebit(BalanceCommand debit) {
+        long deadline = deadline();
+        offer(partition(debit.accountNumber), debit, deadline);
+        pendingTransfers.putIfAbsent(debit.transferUuid, debit);
+        BalanceCommand result = result(debit, deadline);
+        if (result.outcome != BalanceCommand.Outcome.APPLIED) {
+            pendingTransfers.remove(debit.transferUuid, debit);
+        }
+        return result;
+    }
+
+    // Выполняет зачисление перевода после записанного списания. Счет получателя уже загружен в раздел.
+    // Если очередь раздела не приняла зачисление, оно откладывается до контрольной точки, а не теряется
+    private BalanceCommand completeCredit(BalanceCommand credit) {
+        try {
+            offer(partition(credit.accountNumber), credit, deadline());
+        } catch (InternalServerErrorException ex) {
+            log.error("Credit of transfer {} to account {} postponed to the next checkpoint",
+                    credit.transferUuid, credit.accountNumber, ex);
+            throw ex;
+        }
+        pendingTransfers.remove(credit.transferUuid);
+        return result(credit, deadline());
+    }
+
+    private BalanceCommand checkDebit(BalanceCommand result) {
+        switch (result.outcome) {
+            case ACCOUNT_CLOSED ->
+                    throw new AccountNotFoundException(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
+            case INSUFFICIENT_FUNDS ->
+                    throw new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_AMOUNT.getMessage());
+            default -> {
+                return result;
+            }
+        }
+    }
+
+    private BalanceCommand await(BalanceCommand command, long deadline) {
+        offer(partition(command.accountNumber), command, deadline);
+        return result(command, deadline);
+    }
+
+    private BalanceCommand result(BalanceCommand command, long deadline) {
+        try {
+            return command.done.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            throw new InternalServerErrorException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new InternalServerErrorException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    // Добавляет операцию в очередь раздела, ожидая места в заполненной очереди не дольше deadline
+    private void offer(BalancePartition partition, BalanceCommand command, long deadline) {
+        while (true) {
+            IOException failure = partition.failure();
+            if (failure != null) {
+                throw new InternalServerErrorException(failure);
+            }
+            if (partition.offer(command)) {
+                return;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new InternalServerErrorException(new TimeoutException("Balance engine queue is full"));
+            }
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    private long deadline() {
+        return System.nanoTime() + properties.getTimeout().toNanos();
+    }
+
+    BalancePartition partition(String accountNumber) {
+        return partitions[Math.floorMod(accountNumber.hashCode(), partitions.length)];
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // Последний снимок и журналы поколений начиная с него. Запоминает наибольшее найденное поколение
+    // и списания переводов из журналов
+    private Map<String, AccountState> recover(Path directory,
+                                              Map<UUID, BalanceJournal.JournalRecord> transferDebits)
+            throws IOException {
+        long snapshotGeneration = -1;
+        Map<Long, List<Path>> journals = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher snapshot = SNAPSHOT_FILE.matcher(name);
+                Matcher journal = JOURNAL_FILE.matcher(name);
+                if (snapshot.matches() && snapshot.group(2) == null) {
+                    snapshotGeneration = Math.max(snapshotGeneration, Long.parseLong(snapshot.group(1)));
+                } else if (journal.matches()) {
+                    journals.computeIfAbsent(Long.parseLong(journal.group(1)), key -> new ArrayList<>()).add(file);
+                }
+            }
+        }
+
+        Map<String, AccountState> states = new LinkedHashMap<>();
+        if (snapshotGeneration >= 0) {
+            for (AccountState state : BalanceSnapshot.read(BalanceSnapshot.path(directory, snapshotGeneration))) {
+                states.put(state.accountNumber(), state);
+            }
+        }
+        generation = Math.max(snapshotGeneration, 0);
+
+        Set<UUID> transferCredits = new HashSet<>();
+        long firstGeneration = snapshotGeneration;
+        List<Long> generations = journals.keySet().stream()
+                .filter(journalGeneration -> journalGeneration >= firstGeneration)
+                .sorted()
+                .toList();
+        for (long journalGeneration : generations) {
+            generation = Math.max(generation, journalGeneration);
+            List<Path> files = journals.get(journalGeneration);
+            files.sort(Comparator.naturalOrder());
+            for (Path file : files) {
+                BalanceJournal.read(file, record -> replay(states, record, transferDebits, transferCredits));
+            }
+        }
+
+        // Переводы, списание которых сохранено, а зачисление нет
+        for (BalanceJournal.JournalRecord debit : transferDebits.values()) {
+            if (transferCredits.contains(debit.transferUuid())) {
+                continue;
+            }
+            AccountState to = states.get(debit.counterparty());
+            if (to == null) {
+                Optional<AccountState> loaded = balanceStore.load(debit.counterparty());
+                if (loaded.isEmpty()) {
+                    log.error("Cannot complete transfer {}: account {} not found",
+                            debit.transferUuid(), debit.counterparty());
+                    continue;
+                }
+                to = loaded.get();
+            }
+            states.put(to.accountNumber(), new AccountState(to.accountNumber(),
+                    to.balance() + debit.counterAmount(), to.closed()));
+            log.warn("Completed interrupted transfer {} to account {}", debit.transferUuid(), debit.counterparty());
+        }
+        return states;
+    }
+
+    private static void replay(Map<String, AccountState> states, BalanceJournal.JournalRecord record,
+                               Map<UUID, BalanceJournal.JournalRecord> transferDebits, Set<UUID> transferCredits) {
+        if (record.type() == BalanceJournal.OPEN) {
+            states.put(record.accountNumber(),
+                    new AccountState(record.accountNumber(), record.amount(), record.closed()));
+            return;
+        }
+        AccountState state = states.get(record.accountNumber());
+        if (state == null) {
+            log.error("Balance journal record for unknown account {} skipped", record.accountNumber());
+            return;
+        }
+        AccountState replayed = switch (record.type()) {
+            case BalanceJournal.CHANGE -> new AccountState(state.accountNumber(),
+                    state.balance() + record.amount(), state.closed());
+            case BalanceJournal.CLOSE -> new AccountState(state.accountNumber(), state.balance(), true);
+            case BalanceJournal.TRANSFER_DEBIT -> {
+                transferDebits.put(record.transferUuid(), record);
+                yield new AccountState(state.accountNumber(), state.balance() - record.amount(), state.closed());
+            }
+            case BalanceJournal.TRANSFER_CREDIT -> {
+                transferCredits.add(record.transferUuid());
+                yield new AccountState(state.accountNumber(), state.balance() + record.amount(), state.closed());
+            }
+            default -> state;
+        };
+        states.put(state.accountNumber(), replayed);
+    }
+
+    // Удаляет снимки и журналы поколений, вошедших в снимок generation
+    private void deleteFilesBefore(long generation) throws IOException {
+        try (Stream<Path> files = Files.list(properties.getDirectory())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher snapshot = SNAPSHOT_FILE.matcher(name);
+                Matcher journal = JOURNAL_FILE.matcher(name);
+                if (snapshot.matches() && Long.parseLong(snapshot.group(1)) < generation
+                        || journal.matches() && Long.parseLong(journal.group(1)) < generation) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Периодические контрольные точки движка балансов: снимок ограничивает размер журналов и время восстановления,
+ * а измененные балансы записываются в базу.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "balance-engine.enabled", havingValue = "true")
+public class BalanceEngineCheckpointer {
+
+    private final BalanceEngine balanceEngine;
+
+    public BalanceEngineCheckpointer(BalanceEngine balanceEngine) {
+        this.balanceEngine = balanceEngine;
+    }
+
+    @Scheduled(fixedDelayString = "${balance-engine.checkpoint-interval}",
+            initialDelayString = "${balance-engine.checkpoint-interval}")
+    public void checkpoint() {
+        try {
+            balanceEngine.checkpoint();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Balance engine checkpoint failed", ex);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал операций раздела: файл только для дозаписи journal-{поколение}-{раздел}.log.
+ * <p>
+ * Запись журнала: длина, данные и CRC32 данных. Записи пакета накапливаются в памяти и записываются на диск одним
+ * вызовом {@link #sync()} с fsync, до подтверждения операций пакета. При чтении журнал обрывается на первой
+ * неполной или поврежденной записи: такие записи могли быть только у неподтвержденных операций.
+ */
+@Slf4j
+final class BalanceJournal implements Closeable {
+
+    static final byte OPEN = 1;
+
+    static final byte CHANGE = 2;
+
+    static final byte CLOSE = 3;
+
+    static final byte TRANSFER_DEBIT = 4;
+
+    static final byte TRANSFER_CREDIT = 5;
+
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final Buffer record = new Buffer(256);
+
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    private final Buffer pending = new Buffer(64 * 1024);
+
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+
+    private final CRC32 crc = new CRC32();
+
+    private BalanceJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    static Path path(Path directory, long generation, int partition) {
+        return directory.resolve("journal-" + generation + "-" + partition + ".log");
+    }
+
+    static BalanceJournal create(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        BalanceSnapshot.syncDirectory(path.getParent());
+        return new BalanceJournal(channel);
+    }
+
+    void open(AccountState state) {
+        try {
+            recordOut.writeByte(OPEN);
+            recordOut.writeUTF(state.accountNumber());
+            recordOut.writeLong(state.balance());
+            recordOut.writeBoolean(state.closed());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        append();
+    }
+
+    void change(String accountNumber, long amount) {
+        try {
+            recordOut.writeByte(CHANGE);
+            recordOut.writeUTF(accountNumber);
+            recordOut.writeLong(amount);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        append();
+    }
+
+    void close(String accountNumber) {
+        try {
+            recordOut.writeByte(CLOSE);
+            recordOut.writeUTF(accountNumber);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        append();
+    }
+
+    void transferDebit(UUID transferUuid, String accountNumberFrom, long amountFrom,
+                       String accountNumberTo, long amountTo) {
+        try {
+            recordOut.writeByte(TRANSFER_DEBIT);
+            recordOut.writeUTF(accountNumberFrom);
+            recordOut.writeLong(amountFrom);
+            recordOut.writeLong(transferUuid.getMostSignificantBits());
+            recordOut.writeLong(transferUuid.getLeastSignificantBits());
+            recordOut.writeUTF(accountNumberTo);
+            recordOut.writeLong(amountTo);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        append();
+    }
+
+    void transferCredit(UUID transferUuid, String accountNumberTo, long amountTo) {
+        try {
+            recordOut.writeByte(TRANSFER_CREDIT);
+            recordOut.writeUTF(accountNumberTo);
+            recordOut.writeLong(amountTo);
+            recordOut.writeLong(transferUuid.getMostSignificantBits());
+            recordOut.writeLong(transferUuid.getLeastSignificantBits());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        append();
+    }
+
+    // Переносит подготовленную запись в пакет, добавляя длину и контрольную сумму
+    private void append() {
+        crc.reset();
+        crc.update(record.array(), 0, record.size());
+        try {
+            pendingOut.writeInt(record.size());
+            record.writeTo(pendingOut);
+            pendingOut.writeInt((int) crc.getValue());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        record.reset();
+    }
+
+    /**
+     * Записывает накопленные записи в файл и дожидается их сохранения на диске.
+     */
+    void sync() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.array(), 0, pending.size());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        pending.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Читает записи журнала по порядку.
+     *
+     * @param path     Файл журнала.
+     * @param consumer Обработчик записей.
+     */
+    static void read(Path path, Consumer<JournalRecord> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            CRC32 checksum = new CRC32();
+            long offset = 0;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException ex) {
+                    return;
+                }
+                byte[] data;
+                int expected;
+                try {
+                    if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                        throw new EOFException();
+                    }
+                    data = new byte[length];
+                    in.readFully(data);
+                    expected = in.readInt();
+                } catch (EOFException ex) {
+                    log.warn("Balance journal {} is truncated at offset {}", path, offset);
+                    return;
+                }
+                checksum.reset();
+                checksum.update(data);
+                if ((int) checksum.getValue() != expected) {
+                    log.warn("Balance journal {} has a corrupted record at offset {}", path, offset);
+                    return;
+                }
+                consumer.accept(JournalRecord.parse(data));
+                offset += Integer.BYTES * 2 + length;
+            }
+        }
+    }
+
+    /**
+     * Запись журнала.
+     *
+     * @param type          Тип записи.
+     * @param accountNumber Счет записи.
+     * @param amount        Баланс счета для OPEN, изменение баланса для CHANGE, сумма части перевода.
+     * @param closed        Признак закрытия счета для OPEN.
+     * @param transferUuid  Идентификатор перевода для частей перевода.
+     * @param counterparty  Счет зачисления для TRANSFER_DEBIT.
+     * @param counterAmount Сумма зачисления для TRANSFER_DEBIT.
+     */
+    record JournalRecord(byte type, String accountNumber, long amount, boolean closed, UUID transferUuid,
+                         String counterparty, long counterAmount) {
+
+        private static JournalRecord parse(byte[] data) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            byte type = in.readByte();
+            String accountNumber = in.readUTF();
+            return switch (type) {
+                case OPEN -> new JournalRecord(type, accountNumber, in.readLong(), in.readBoolean(), null, null, 0);
+                case CHANGE -> new JournalRecord(type, accountNumber, in.readLong(), false, null, null, 0);
+                case CLOSE -> new JournalRecord(type, accountNumber, 0, true, null, null, 0);
+                case TRANSFER_DEBIT -> new JournalRecord(type, accountNumber, in.readLong(), false,
+                        new UUID(in.readLong(), in.readLong()), in.readUTF(), in.readLong());
+                case TRANSFER_CREDIT -> new JournalRecord(type, accountNumber, in.readLong(), false,
+                        new UUID(in.readLong(), in.readLong()), null, 0);
+                default -> throw new IOException("Unknown balance journal record type " + type);
+            };
+        }
+    }
+
+    // Буфер с доступом к массиву без копирования
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer(int size) {
+            super(size);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+}
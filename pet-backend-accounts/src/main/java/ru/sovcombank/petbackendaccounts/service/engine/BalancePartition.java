@@ -0,0 +1,258 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Раздел движка балансов: очередь операций, таблица балансов и журнал, которыми владеет один поток.
+ * <p>
+ * Поток забирает из очереди до batch-size операций, применяет их к таблице и добавляет записи в журнал,
+ * затем одним fsync сохраняет журнал пакета и только после этого подтверждает операции пакета, в том числе
+ * чтения баланса: вызывающий поток никогда не видит баланс, которого нет на диске. После ошибки записи журнала
+ * раздел отклоняет все операции: состояние в памяти опережает журнал и восстанавливается только перезапуском.
+ * <p>
+ * Раздел помнит идентификаторы переводов, списанных в журналах текущего и предыдущего поколений, и не списывает
+ * повтор перевода с тем же идентификатором.
+ */
+@Slf4j
+final class BalancePartition implements Runnable {
+
+    // Пустых проходов очереди до засыпания потока
+    private static final int IDLE_SPINS = 200;
+
+    private static final long PARK_NANOS = 1_000_000;
+
+    private final int index;
+
+    private final Path directory;
+
+    private final MpscRingBuffer<BalanceCommand> ring;
+
+    private final BalanceCommand[] batch;
+
+    private final BalanceTable table = new BalanceTable();
+
+    private final Thread thread;
+
+    private BalanceJournal journal;
+
+    // Идентификаторы переводов, списанных в журнале текущего и предыдущего поколений
+    private Set<UUID> transfers = new HashSet<>();
+
+    private Set<UUID> previousTransfers = new HashSet<>();
+
+    private volatile boolean running = true;
+
+    private volatile boolean sleeping;
+
+    private volatile IOException failure;
+
+    BalancePartition(int index, int ringSize, int batchSize, Path directory, long generation) throws IOException {
+        this.index = index;
+        this.directory = directory;
+        this.ring = new MpscRingBuffer<>(ringSize);
+        this.batch = new BalanceCommand[batchSize];
+        this.journal = BalanceJournal.create(BalanceJournal.path(directory, generation, index));
+        this.thread = new Thread(this, "balance-engine-" + index);
+    }
+
+    // Добавляет восстановленный счет в таблицу до запуска потока
+    void load(AccountState state) {
+        table.open(state);
+    }
+
+    // Добавляет перевод, списание которого восстановлено из журнала, до запуска потока
+    void loadTransfer(UUID transferUuid) {
+        transfers.add(transferUuid);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Добавляет операцию в очередь раздела.
+     *
+     * @return false, если очередь заполнена.
+     */
+    boolean offer(BalanceCommand command) {
+        if (!ring.offer(command)) {
+            return false;
+        }
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    IOException failure() {
+        return failure;
+    }
+
+    /**
+     * Останавливает поток после обработки уже принятых операций.
+     */
+    void stop() throws IOException, InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+        journal.close();
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running || !ring.isEmpty()) {
+            int size = 0;
+            BalanceCommand checkpoint = null;
+            while (size < batch.length) {
+                BalanceCommand command = ring.poll();
+                if (command == null) {
+                    break;
+                }
+                if (command.type == BalanceCommand.Type.CHECKPOINT) {
+                    // Контрольная точка начинает новый журнал после сохранения предыдущих операций
+                    checkpoint = command;
+                    break;
+                }
+                if (failure != null) {
+                    command.done.completeExceptionally(failure);
+                    continue;
+                }
+                apply(command);
+                batch[size++] = command;
+            }
+            if (size > 0) {
+                commit(size);
+            }
+            if (checkpoint != null) {
+                checkpoint(checkpoint);
+            }
+            if (size > 0 || checkpoint != null) {
+                idle = 0;
+            } else if (++idle > IDLE_SPINS) {
+                park();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void apply(BalanceCommand command) {
+        int slot = table.slot(command.accountNumber);
+        if (slot < 0) {
+            if (command.initialState == null || command.type == BalanceCommand.Type.CLOSE) {
+                command.outcome = BalanceCommand.Outcome.UNKNOWN_ACCOUNT;
+                return;
+            }
+            slot = table.open(command.initialState);
+            journal.open(command.initialState);
+        }
+        switch (command.type) {
+            case CREDIT -> {
+                table.add(slot, command.amount);
+                journal.change(command.accountNumber, command.amount);
+            }
+            case TRANSFER_CREDIT -> {
+                table.add(slot, command.amount);
+                journal.transferCredit(command.transferUuid, command.accountNumber, command.amount);
+            }
+            case DEBIT, TRANSFER_DEBIT -> {
+                if (command.type == BalanceCommand.Type.TRANSFER_DEBIT && (transfers.contains(command.transferUuid)
+                        || previousTransfers.contains(command.transferUuid))) {
+                    command.outcome = BalanceCommand.Outcome.DUPLICATE_TRANSFER;
+                    command.balance = table.balance(slot);
+                    return;
+                }
+                if (table.isClosed(slot)) {
+                    command.outcome = BalanceCommand.Outcome.ACCOUNT_CLOSED;
+                    return;
+                }
+                if (table.balance(slot) < command.amount) {
+                    command.outcome = BalanceCommand.Outcome.INSUFFICIENT_FUNDS;
+                    return;
+                }
+                table.add(slot, -command.amount);
+                if (command.type == BalanceCommand.Type.DEBIT) {
+                    journal.change(command.accountNumber, -command.amount);
+                } else {
+                    journal.transferDebit(command.transferUuid, command.accountNumber, command.amount,
+                            command.counterparty, command.counterAmount);
+                    transfers.add(command.transferUuid);
+                }
+            }
+            case CLOSE -> {
+                table.close(slot);
+                journal.close(command.accountNumber);
+            }
+            default -> {
+                // GET: баланс без изменений
+            }
+        }
+        command.outcome = BalanceCommand.Outcome.APPLIED;
+        command.balance = table.balance(slot);
+    }
+
+    // Сохраняет журнал пакета и подтверждает его операции
+    private void commit(int size) {
+        try {
+            journal.sync();
+            for (int i = 0; i < size; i++) {
+                batch[i].done.complete(batch[i]);
+            }
+        } catch (IOException ex) {
+            log.error("Balance journal of partition {} failed, partition stopped accepting operations", index, ex);
+            failure = ex;
+            for (int i = 0; i < size; i++) {
+                batch[i].done.completeExceptionally(ex);
+            }
+        } finally {
+            Arrays.fill(batch, 0, size, null);
+        }
+    }
+
+    // Передает состояние таблицы для снимка и начинает журнал следующего поколения
+    private void checkpoint(BalanceCommand command) {
+        if (failure != null) {
+            command.done.completeExceptionally(failure);
+            return;
+        }
+        try {
+            BalanceJournal next = BalanceJournal.create(BalanceJournal.path(directory, command.generation, index));
+            journal.close();
+            journal = next;
+            previousTransfers = transfers;
+            transfers = new HashSet<>();
+        } catch (IOException ex) {
+            log.error("Failed to rotate balance journal of partition {}", index, ex);
+            command.done.completeExceptionally(ex);
+            return;
+        }
+        List<AccountState> states = new ArrayList<>(table.size());
+        table.forEach(states::add);
+        List<AccountState> changed = new ArrayList<>();
+        table.drainChanged(changed::add);
+        command.states = states;
+        command.changed = changed;
+        command.done.complete(command);
+    }
+
+    private void park() {
+        sleeping = true;
+        // Повторная проверка после объявления о засыпании: писатель, добавивший операцию до этого,
+        // не увидел sleeping и не разбудил поток
+        if (running && ring.isEmpty()) {
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        sleeping = false;
+    }
+}
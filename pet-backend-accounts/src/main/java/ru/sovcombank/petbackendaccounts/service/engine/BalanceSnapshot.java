@@ -0,0 +1,84 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Снимок балансов snapshot-{поколение}.bin: состояние всех счетов движка на начало журналов того же поколения.
+ * Снимок пишется во временный файл и переименовывается, поэтому в каталоге не бывает недописанных снимков.
+ */
+final class BalanceSnapshot {
+
+    private static final int MAGIC = 0x42414c53;
+
+    private BalanceSnapshot() {
+    }
+
+    static Path path(Path directory, long generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    static void write(Path path, Collection<AccountState> states) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            BufferedOutputStream buffered = new BufferedOutputStream(file);
+            CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(states.size());
+            for (AccountState state : states) {
+                out.writeUTF(state.accountNumber());
+                out.writeLong(state.balance());
+                out.writeBoolean(state.closed());
+            }
+            out.flush();
+            new DataOutputStream(buffered).writeLong(checked.getChecksum().getValue());
+            buffered.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.getParent());
+    }
+
+    static List<AccountState> read(Path path) throws IOException {
+        try (BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(path))) {
+            CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a balance snapshot: " + path);
+            }
+            int size = in.readInt();
+            List<AccountState> states = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                states.add(new AccountState(in.readUTF(), in.readLong(), in.readBoolean()));
+            }
+            long checksum = checked.getChecksum().getValue();
+            if (new DataInputStream(buffered).readLong() != checksum) {
+                throw new IOException("Corrupted balance snapshot: " + path);
+            }
+            return states;
+        }
+    }
+
+    // Сохраняет на диске создание и переименование файлов каталога
+    static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Хранилище счетов, из которого движок балансов загружает счета и в которое записывает балансы на контрольных точках.
+ */
+public interface BalanceStore {
+
+    /**
+     * Загружает счет при первом обращении к нему.
+     *
+     * @param accountNumber Номер счета.
+     * @return Состояние счета или пустой результат, если счет не найден.
+     */
+    Optional<AccountState> load(String accountNumber);
+
+    /**
+     * Записывает балансы счетов.
+     *
+     * @param states Состояния счетов.
+     */
+    void store(Collection<AccountState> states);
+}
@@ -0,0 +1,92 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Таблица балансов раздела: номер счета отображается в индекс, балансы и признаки закрытия хранятся
+ * в массивах примитивов. Не потокобезопасна, изменяется только потоком своего раздела.
+ */
+final class BalanceTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    private String[] accountNumbers = new String[INITIAL_CAPACITY];
+
+    private long[] balances = new long[INITIAL_CAPACITY];
+
+    private boolean[] closed = new boolean[INITIAL_CAPACITY];
+
+    // Счета, измененные с предыдущей контрольной точки
+    private boolean[] changed = new boolean[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * @return Индекс счета или -1, если счета нет в таблице.
+     */
+    int slot(String accountNumber) {
+        Integer slot = slots.get(accountNumber);
+        return slot != null ? slot : -1;
+    }
+
+    int open(AccountState state) {
+        int slot = slot(state.accountNumber());
+        if (slot < 0) {
+            if (size == balances.length) {
+                accountNumbers = Arrays.copyOf(accountNumbers, size * 2);
+                balances = Arrays.copyOf(balances, size * 2);
+                closed = Arrays.copyOf(closed, size * 2);
+                changed = Arrays.copyOf(changed, size * 2);
+            }
+            slot = size++;
+            slots.put(state.accountNumber(), slot);
+            accountNumbers[slot] = state.accountNumber();
+        }
+        balances[slot] = state.balance();
+        closed[slot] = state.closed();
+        return slot;
+    }
+
+    long balance(int slot) {
+        return balances[slot];
+    }
+
+    void add(int slot, long amount) {
+        balances[slot] += amount;
+        changed[slot] = true;
+    }
+
+    boolean isClosed(int slot) {
+        return closed[slot];
+    }
+
+    void close(int slot) {
+        closed[slot] = true;
+        changed[slot] = true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Consumer<AccountState> consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            consumer.accept(new AccountState(accountNumbers[slot], balances[slot], closed[slot]));
+        }
+    }
+
+    // Передает счета, измененные с предыдущего вызова, и снимает с них отметку изменения
+    void drainChanged(Consumer<AccountState> consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            if (changed[slot]) {
+                changed[slot] = false;
+                consumer.accept(new AccountState(accountNumbers[slot], balances[slot], closed[slot]));
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.sovcombank.petbackendaccounts.service.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.sovcombank.petbackendaccounts.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
+import ru.sovcombank.petbackendaccounts.repository.AccountRepository;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Генератор номеров счетов вида 4200{cur}666NNNNNN.
+ * <p>
+ * Порядковые номера NNNNNN выдаются по валютам блоками: экземпляр сервиса резервирует в account_number_blocks
+ * блок из account-number.block-size номеров и раздает его из памяти без блокировок. Блоки разных экземпляров
+ * не пересекаются, поэтому новые номера не совпадают друг с другом. Номера счетов, созданных до появления блоков
+ * (случайные NNNNNN), проверяются один раз при резервировании блока и пропускаются.
+ * Номера неиспользованного остатка блока при остановке экземпляра теряются.
+ * <p>
+ * Номер запрашивается вне транзакции: блок резервируется в собственной транзакции, и внутри транзакции вызывающего
+ * кода резервирование занимало бы второе соединение пула. Потоки, ожидающие резервирования под reserveLock,
+ * тогда держат по соединению, и одновременное создание счетов по числу соединений пула исчерпывает его.
+ */
+@Slf4j
+@Component
+public class AccountNumberGenerator {
+
+    // Количество порядковых номеров в валюте: NNNNNN из 6 цифр
+    private static final long SEQUENCE_LIMIT = 1_000_000;
+
+    private final AccountRepository accountRepository;
+
+    private final int blockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    // Резервирование блока выполняет один поток, остальные ждут новый блок. ReentrantLock вместо synchronized,
+    // чтобы виртуальный поток не закреплялся за потоком платформы на время запроса в базу
+    private final ReentrantLock reserveLock = new ReentrantLock();
+
+    public AccountNumberGenerator(AccountRepository accountRepository,
+                                  @Value("${account-number.block-size}") int blockSize) {
+        this.accountRepository = accountRepository;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Выдает следующий свободный номер счета в валюте.
+     *
+     * @param cur Код валюты.
+     * @return Номер счета.
+     * @throws InternalServerErrorException если номера счетов в валюте исчерпаны.
+     * @throws IllegalStateException        если вызван внутри транзакции.
+     */
+    public String nextAccountNumber(String cur) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Account number must be requested outside of a transaction");
+        }
+        while (true) {
+            Block block = blocks.get(cur);
+            if (block != null) {
+                long sequence = block.next();
+                if (sequence >= 0) {
+                    return format(cur, sequence);
+                }
+            }
+            reserveBlock(cur, block);
+        }
+    }
+
+    // Заменяет исчерпанный блок валюты новым, если этого еще не сделал другой поток.
+    private void reserveBlock(String cur, Block exhausted) {
+        reserveLock.lock();
+        try {
+            if (blocks.get(cur) != exhausted) {
+                return;
+            }
+            long first = accountRepository.reserveAccountNumbers(cur, blockSize);
+            if (first >= SEQUENCE_LIMIT) {
+                log.error("InternalServerErrorException occurred: {} {}",
+                        AccountResponseMessagesEnum.ACCOUNT_NUMBERS_EXHAUSTED.getMessage(), cur);
+                throw new InternalServerErrorException(AccountResponseMessagesEnum.ACCOUNT_NUMBERS_EXHAUSTED.getMessage());
+            }
+            int size = (int) Math.min(blockSize, SEQUENCE_LIMIT - first);
+
+            // Номера, уже занятые счетами, созданными до появления блоков
+            BitSet taken = new BitSet(size);
+            for (String accountNumber : accountRepository.findAccountNumbersBetween(
+                    format(cur, first), format(cur, first + size - 1))) {
+                taken.set((int) (parseSequence(accountNumber) - first));
+            }
+
+            blocks.put(cur, new Block(first, size, taken));
+            log.info("Reserved account numbers {}..{} for cur {}, {} already taken", first, first + size - 1, cur,
+                    taken.cardinality());
+        } finally {
+            reserveLock.unlock();
+        }
+    }
+
+    private static String format(String cur, long sequence) {
+        return String.format("4200%s666%06d", cur, sequence);
+    }
+
+    private static long parseSequence(String accountNumber) {
+        return Long.parseLong(accountNumber.substring(accountNumber.length() - 6));
+    }
+
+    // Блок порядковых номеров first..first + size - 1. Номера выдаются атомарным счетчиком,
+    // занятые номера из taken пропускаются.
+    private static final class Block {
+
+        private final long first;
+
+        private final int size;
+
+        private final BitSet taken;
+
+        private final AtomicLong cursor = new AtomicLong();
+
+        private Block(long first, int size, BitSet taken) {
+            this.first = first;
+            this.size = size;
+            this.taken = taken;
+        }
+
+        // Возвращает следующий свободный номер блока или -1, если блок исчерпан.
+        private long next() {
+            long offset = cursor.getAndIncrement();
+            while (offset < size) {
+                if (!taken.get((int) offset)) {
+                    return first + offset;
+                }
+                offset = cursor.getAndIncrement();
+            }
+            return -1;
+        }
+    }
+}
@@ -2,11 +2,13 @@ package ru.sovcombank.petbackendaccounts.service.impl;
 
 import jakarta.persistence.OptimisticLockException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.sovcombank.petbackendaccounts.builder.ResponseBuilder;
 import ru.sovcombank.petbackendaccounts.client.UserServiceClient;
 import ru.sovcombank.petbackendaccounts.exception.AccountNotFoundException;
@@ -16,23 +18,31 @@ import ru.sovcombank.petbackendaccounts.mapping.impl.AccountToGetAccountResponse
 import ru.sovcombank.petbackendaccounts.mapping.impl.CreateAccountRequestToAccount;
 import ru.sovcombank.petbackendaccounts.mapping.impl.ListAccountToGetAccountsResponse;
 import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.TransferBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.request.UpdateBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.response.CreateAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.DeleteAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountsResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetBalanceResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.TransferBalanceResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.UpdateBalanceResponse;
 import ru.sovcombank.petbackendaccounts.model.entity.Account;
 import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
+import ru.sovcombank.petbackendaccounts.model.enums.LedgerEntryTypeEnum;
 import ru.sovcombank.petbackendaccounts.model.enums.TypePaymentsEnum;
 import ru.sovcombank.petbackendaccounts.repository.AccountRepository;
+import ru.sovcombank.petbackendaccounts.repository.LedgerEntryRepository;
 import ru.sovcombank.petbackendaccounts.service.AccountService;
+import ru.sovcombank.petbackendaccounts.service.generator.AccountNumberGenerator;
 import ru.sovcombank.petbackendaccounts.service.validator.AccountValidator;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Сервис для операций со счетами.
@@ -43,6 +53,8 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
 
+    private final LedgerEntryRepository ledgerEntryRepository;
+
     private final ListAccountToGetAccountsResponse listAccountToGetAccountsResponse;
 
     private final CreateAccountRequestToAccount createAccountRequestToAccount;
@@ -55,19 +67,32 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountValidator accountValidator;
 
-    public AccountServiceImpl(AccountRepository accountRepository,
+    private final AccountNumberGenerator accountNumberGenerator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Изменение баланса одним условным UPDATE вместо чтения счета и сохранения с проверкой версии
+    private final boolean singleStatementBalanceUpdate;
+
+    public AccountServiceImpl(AccountRepository accountRepository, LedgerEntryRepository ledgerEntryRepository,
                               ListAccountToGetAccountsResponse listAccountToGetAccountsResponse,
                               CreateAccountRequestToAccount createAccountRequestToAccount,
                               AccountToGetAccountResponse accountToGetAccountResponse,
                               UserServiceClient userServiceClient,
-                              ResponseBuilder responseBuilder, AccountValidator accountValidator) {
+                              ResponseBuilder responseBuilder, AccountValidator accountValidator,
+                              AccountNumberGenerator accountNumberGenerator, TransactionTemplate transactionTemplate,
+                              @Value("${balance-update.single-statement}") boolean singleStatementBalanceUpdate) {
         this.accountRepository = accountRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
         this.listAccountToGetAccountsResponse = listAccountToGetAccountsResponse;
         this.createAccountRequestToAccount = createAccountRequestToAccount;
         this.accountToGetAccountResponse = accountToGetAccountResponse;
         this.userServiceClient = userServiceClient;
         this.responseBuilder = responseBuilder;
         this.accountValidator = accountValidator;
+        this.accountNumberGenerator = accountNumberGenerator;
+        this.transactionTemplate = transactionTemplate;
+        this.singleStatementBalanceUpdate = singleStatementBalanceUpdate;
     }
 
     /**
@@ -79,7 +104,6 @@ public class AccountServiceImpl implements AccountService {
      * @throws BadRequestException   если достигнуто максимальное количество счетов для указанной валюты.
      */
     @Override
-    @Transactional
     public CreateAccountResponse createAccount(CreateAccountRequest createAccountRequest) {
 
         Integer clientId = createAccountRequest.getClientId();
@@ -89,18 +113,21 @@ public class AccountServiceImpl implements AccountService {
 
         // Проверка на лимит (2) кол-ва счетов в одной валюте для одного клиента
         if (!accountValidator.hasMaxAccountsForCurrency(clientId, createAccountRequest.getCur())) {
-            String accountNumber = generateAccountNumber(createAccountRequest.getCur());
+            // Номер выдается до транзакции сохранения: резервирование блока номеров выполняется в своей транзакции,
+            // и внутри транзакции счета запрос держал бы второе соединение пула
+            String accountNumber = accountNumberGenerator.nextAccountNumber(createAccountRequest.getCur());
 
-            Account accountEntity = createAccountRequestToAccount.map(createAccountRequest);
-            accountEntity.setAccountNumber(accountNumber);
-            accountEntity.setId(null);
+            Account createdAccount = transactionTemplate.execute(status -> {
+                Account accountEntity = createAccountRequestToAccount.map(createAccountRequest);
+                accountEntity.setAccountNumber(accountNumber);
 
-            // Если это не первый счет у клиента - значение поля isMain становится false
-            if (accountValidator.hasMoreThenOneAccount(clientId)) {
-                accountEntity.setMain(false);
-            }
+                // Если это не первый счет у клиента - значение поля isMain становится false
+                if (accountValidator.hasMoreThenOneAccount(clientId)) {
+                    accountEntity.setMain(false);
+                }
 
-            Account createdAccount = accountRepository.save(accountEntity);
+                return accountRepository.save(accountEntity);
+            });
             log.info("Account created successfully for client with id: {}", createAccountRequest.getClientId());
 
             return responseBuilder.buildCreateAccountResponse(createdAccount);
@@ -110,11 +137,6 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
-    // Генерирует уникальный номер счета на основе валюты.
-    private String generateAccountNumber(String cur) {
-        return String.format("4200%s666%06d", cur, new Random().nextInt(1000000));
-    }
-
     /**
      * Получает счета клиента.
      *
@@ -152,23 +174,17 @@ public class AccountServiceImpl implements AccountService {
     @Override
     @Transactional
     public DeleteAccountResponse deleteAccount(String accountNumber) {
-        // Проверяем существование клиента по переданному идентификатору
-        Optional<Account> accountOptional = accountRepository.findByAccountNumber(accountNumber);
-        if (accountOptional.isPresent()) {
-            Account account = accountOptional.get();
-
-            accountValidator.validateAccountIsClosed(accountOptional.get());
-
-            account.setClosed(true);
-            accountRepository.save(account);
-
-            log.info("Account deleted successfully for account with number: {}", accountNumber);
-
-            return new DeleteAccountResponse(AccountResponseMessagesEnum.ACCOUNT_DELETED_SUCCESSFULLY.getMessage());
-        } else {
+        // Счет закрывается одним UPDATE: сохранение загруженного счета перезаписало бы баланс,
+        // измененный одновременным списанием или зачислением
+        if (accountRepository.closeAccount(accountNumber) == 0) {
+            // Счет не найден или уже закрыт
             log.error("AccountNotFoundException occurred: {}", AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
             throw new AccountNotFoundException(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
         }
+
+        log.info("Account deleted successfully for account with number: {}", accountNumber);
+
+        return new DeleteAccountResponse(AccountResponseMessagesEnum.ACCOUNT_DELETED_SUCCESSFULLY.getMessage());
     }
 
     /**
@@ -180,11 +196,12 @@ public class AccountServiceImpl implements AccountService {
      */
     @Override
     public GetBalanceResponse getBalance(String accountNumber) {
-        Optional<Account> accountOptional = accountRepository.findByAccountNumber(accountNumber);
-        if (accountOptional.isPresent()) {
+        // Баланс вместе с зачислениями в полосах, еще не перенесенными в основной баланс
+        Optional<BigDecimal> balanceOptional = accountRepository.findTotalBalance(accountNumber);
+        if (balanceOptional.isPresent()) {
 
             GetBalanceResponse getBalanceResponse = new GetBalanceResponse();
-            getBalanceResponse.setBalance(accountOptional.get().getBalance());
+            getBalanceResponse.setBalance(balanceOptional.get());
 
             log.info("Retrieved balance successfully for account with number: {}", accountNumber);
 
@@ -195,8 +212,36 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
+    /**
+     * Получает баланс счета на момент времени по проводкам: ближайший снимок баланса до этого момента
+     * и проводки после снимка.
+     *
+     * @param accountNumber Номер счета.
+     * @param at            Момент времени.
+     * @return Ответ с балансом.
+     * @throws AccountNotFoundException В случае, если счет не найден.
+     */
+    @Override
+    public GetBalanceResponse getBalanceAt(String accountNumber, LocalDateTime at) {
+        if (accountRepository.findByAccountNumber(accountNumber).isEmpty()) {
+            log.error("AccountNotFoundException occurred: {}", AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
+            throw new AccountNotFoundException(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
+        }
+
+        GetBalanceResponse getBalanceResponse = new GetBalanceResponse();
+        getBalanceResponse.setBalance(ledgerEntryRepository.findBalanceAt(accountNumber, at));
+
+        log.info("Retrieved balance at {} successfully for account with number: {}", at, accountNumber);
+
+        return getBalanceResponse;
+    }
+
     /**
      * Изменяет баланс.
+     * В режиме balance-update.single-statement баланс меняется одним условным UPDATE: одновременные запросы
+     * по одному счету выполняются по очереди на блокировке строки и не повторяются.
+     * Зачисления на счет с полосами баланса (balance_stripes > 0) попадают в одну из полос и не блокируют строку счета.
+     * Операция записывается проводкой в ledger_entries в той же транзакции.
      *
      * @param accountNumber        Номер счета.
      * @param updateBalanceRequest Запрос на изменение баланса.
@@ -207,22 +252,231 @@ public class AccountServiceImpl implements AccountService {
     @Transactional
     @Retryable(retryFor = OptimisticLockException.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
     public UpdateBalanceResponse updateBalance(String accountNumber, UpdateBalanceRequest updateBalanceRequest) {
+        if (singleStatementBalanceUpdate) {
+            BigDecimal balance = applyPayment(accountNumber, updateBalanceRequest);
+            recordPayment(accountNumber, updateBalanceRequest);
+
+            log.info("Balance updated successfully for account with number: {}", accountNumber);
+
+            return new UpdateBalanceResponse(AccountResponseMessagesEnum.BALANCE_UPDATED_SUCCESSFULLY.getMessage()
+                    + balance.toPlainString());
+        }
+
+        if (updateBalanceRequest.getTypePayments().equals(TypePaymentsEnum.REPLENISHMENT.getTypePayment())) {
+            Optional<BigDecimal> stripedBalance = creditStripe(accountNumber, updateBalanceRequest.getAmount());
+            if (stripedBalance.isPresent()) {
+                recordPayment(accountNumber, updateBalanceRequest);
+                log.info("Balance updated successfully for account with number: {}", accountNumber);
+
+                return new UpdateBalanceResponse(AccountResponseMessagesEnum.BALANCE_UPDATED_SUCCESSFULLY.getMessage()
+                        + stripedBalance.get().toPlainString());
+            }
+        }
+
         // Проверяем существование клиента по переданному идентификатору
         Optional<Account> accountOptional = accountRepository.findByAccountNumber(accountNumber);
         if (accountOptional.isPresent()) {
             Account changedAccount = makePayment(updateBalanceRequest, accountOptional.get());
             accountRepository.save(changedAccount);
+            recordPayment(accountNumber, updateBalanceRequest);
 
             log.info("Balance updated successfully for account with number: {}", accountNumber);
 
             return new UpdateBalanceResponse(AccountResponseMessagesEnum.BALANCE_UPDATED_SUCCESSFULLY.getMessage()
-                    + changedAccount.getBalance().toPlainString());
+                    + totalBalance(changedAccount).toPlainString());
         } else {
             log.error("AccountNotFoundException occurred: {}", AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
             throw new AccountNotFoundException(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
         }
     }
 
+    /**
+     * Переводит средства между двумя счетами в одной транзакции.
+     * Строки счетов блокируются в порядке возрастания номера, поэтому встречные переводы
+     * между одной и той же парой счетов не приводят к взаимной блокировке.
+     * Списание и зачисление записываются двумя проводками одной операции в ledger_entries.
+     * Проводки записываются первыми под идентификатором перевода: повтор уже выполненного перевода
+     * не меняет балансы и возвращает текущие балансы счетов.
+     *
+     * @param transferBalanceRequest Запрос на перевод между счетами.
+     * @return Ответ с новыми балансами обоих счетов.
+     * @throws AccountNotFoundException В случае, если один из счетов не найден или счет отправителя закрыт.
+     * @throws BadRequestException      В случае перевода на тот же счет или недостаточного количества средств.
+     */
+    @Override
+    @Transactional
+    public TransferBalanceResponse transferBalance(TransferBalanceRequest transferBalanceRequest) {
+        String accountNumberFrom = transferBalanceRequest.getAccountNumberFrom();
+        String accountNumberTo = transferBalanceRequest.getAccountNumberTo();
+
+        if (accountNumberFrom.equals(accountNumberTo)) {
+            throw new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_ACCOUNT_NUMBER.getMessage());
+        }
+
+        if (!recordTransfer(transferBalanceRequest)) {
+            log.info("Transfer {} from account {} to account {} already completed",
+                    transferBalanceRequest.getTransferUuid(), accountNumberFrom, accountNumberTo);
+            return new TransferBalanceResponse(accountNumberFrom, findTotalBalance(accountNumberFrom),
+                    accountNumberTo, findTotalBalance(accountNumberTo));
+        }
+
+        // Зачисление на счет с полосами баланса не блокирует строку получателя и выполняется до блокировки
+        // строки отправителя: полоса никогда не ожидается под блокировкой строки счета
+        Optional<BigDecimal> stripedBalanceTo = creditStripe(accountNumberTo, transferBalanceRequest.getAmountTo());
+
+        if (singleStatementBalanceUpdate) {
+            return transferBalanceBySingleStatements(transferBalanceRequest, stripedBalanceTo);
+        }
+
+        Account accountFrom;
+        Account accountTo = null;
+        if (stripedBalanceTo.isPresent()) {
+            accountFrom = findAccountForUpdate(accountNumberFrom);
+        } else if (accountNumberFrom.compareTo(accountNumberTo) < 0) {
+            accountFrom = findAccountForUpdate(accountNumberFrom);
+            accountTo = findAccountForUpdate(accountNumberTo);
+        } else {
+            accountTo = findAccountForUpdate(accountNumberTo);
+            accountFrom = findAccountForUpdate(accountNumberFrom);
+        }
+
+        makePayment(new UpdateBalanceRequest(
+                TypePaymentsEnum.DEBITING.getTypePayment(), transferBalanceRequest.getAmountFrom()), accountFrom);
+        accountRepository.save(accountFrom);
+        if (accountTo != null) {
+            makePayment(new UpdateBalanceRequest(
+                    TypePaymentsEnum.REPLENISHMENT.getTypePayment(), transferBalanceRequest.getAmountTo()), accountTo);
+            accountRepository.save(accountTo);
+        }
+
+        log.info("Transfer from account {} to account {} completed successfully", accountNumberFrom, accountNumberTo);
+
+        return new TransferBalanceResponse(accountNumberFrom, totalBalance(accountFrom), accountNumberTo,
+                accountTo != null ? totalBalance(accountTo) : stripedBalanceTo.get());
+    }
+
+    // Перевод условными UPDATE в режиме balance-update.single-statement. Строки обновляются в порядке возрастания
+    // номера счета, как и при блокировке в основном режиме; при отказе любого из UPDATE транзакция откатывается.
+    private TransferBalanceResponse transferBalanceBySingleStatements(TransferBalanceRequest transferBalanceRequest,
+                                                                      Optional<BigDecimal> stripedBalanceTo) {
+        String accountNumberFrom = transferBalanceRequest.getAccountNumberFrom();
+        String accountNumberTo = transferBalanceRequest.getAccountNumberTo();
+        BigDecimal amountFrom = transferBalanceRequest.getAmountFrom();
+        BigDecimal amountTo = transferBalanceRequest.getAmountTo();
+
+        BigDecimal balanceFrom;
+        BigDecimal balanceTo;
+        if (stripedBalanceTo.isPresent()) {
+            balanceFrom = debit(accountNumberFrom, amountFrom);
+            balanceTo = stripedBalanceTo.get();
+        } else if (accountNumberFrom.compareTo(accountNumberTo) < 0) {
+            balanceFrom = debit(accountNumberFrom, amountFrom);
+            balanceTo = credit(accountNumberTo, amountTo);
+        } else {
+            balanceTo = credit(accountNumberTo, amountTo);
+            balanceFrom = debit(accountNumberFrom, amountFrom);
+        }
+
+        log.info("Transfer from account {} to account {} completed successfully", accountNumberFrom, accountNumberTo);
+
+        return new TransferBalanceResponse(accountNumberFrom, balanceFrom, accountNumberTo, balanceTo);
+    }
+
+    // Проводка по операции пополнения/снятия. Вторая сторона операции находится вне банка,
+    // поэтому у операции одна проводка.
+    private void recordPayment(String accountNumber, UpdateBalanceRequest updateBalanceRequest) {
+        if (updateBalanceRequest.getTypePayments().equals(TypePaymentsEnum.REPLENISHMENT.getTypePayment())) {
+            ledgerEntryRepository.insertEntry(UUID.randomUUID(), accountNumber, updateBalanceRequest.getAmount(),
+                    LedgerEntryTypeEnum.REPLENISHMENT.getEntryType());
+        } else {
+            ledgerEntryRepository.insertEntry(UUID.randomUUID(), accountNumber, updateBalanceRequest.getAmount().negate(),
+                    LedgerEntryTypeEnum.DEBITING.getEntryType());
+        }
+    }
+
+    // Проводки перевода: списание со счета отправителя и зачисление на счет получателя с общим идентификатором операции.
+    // Идентификатором операции служит идентификатор перевода. Возвращает false, если перевод уже выполнен.
+    private boolean recordTransfer(TransferBalanceRequest transferBalanceRequest) {
+        UUID operationUuid = transferBalanceRequest.getTransferUuid() != null
+                ? transferBalanceRequest.getTransferUuid()
+                : UUID.randomUUID();
+        return ledgerEntryRepository.insertTransferEntries(operationUuid,
+                transferBalanceRequest.getAccountNumberFrom(), transferBalanceRequest.getAmountFrom(),
+                transferBalanceRequest.getAccountNumberTo(), transferBalanceRequest.getAmountTo(),
+                LedgerEntryTypeEnum.TRANSFER.getEntryType()) > 0;
+    }
+
+    // Общий баланс счета с учетом полос.
+    private BigDecimal findTotalBalance(String accountNumber) {
+        return accountRepository.findTotalBalance(accountNumber).orElseThrow(() -> {
+            log.error("AccountNotFoundException occurred: {}", AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
+            return new AccountNotFoundException(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
+        });
+    }
+
+    // Совершает операцию пополнения/снятия одним UPDATE и возвращает новый баланс.
+    private BigDecimal applyPayment(String accountNumber, UpdateBalanceRequest updateBalanceRequest) {
+        String typePayment = updateBalanceRequest.getTypePayments();
+        BigDecimal amount = updateBalanceRequest.getAmount();
+
+        if (typePayment.equals(TypePaymentsEnum.REPLENISHMENT.getTypePayment())) {
+            return creditStripe(accountNumber, amount).orElseGet(() -> credit(accountNumber, amount));
+        } else if (typePayment.equals(TypePaymentsEnum.DEBITING.getTypePayment())) {
+            return debit(accountNumber, amount);
+        } else {
+            throw new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_TYPE_PAY.getMessage());
+        }
+    }
+
+    // Списывает сумму одним UPDATE. Если основного баланса не хватает, переносит в него зачисления из полос
+    // баланса и повторяет списание.
+    private BigDecimal debit(String accountNumber, BigDecimal amount) {
+        Optional<BigDecimal> balance = accountRepository.debitBalance(accountNumber, amount);
+        if (balance.isEmpty() && accountRepository.foldStripes(accountNumber) > 0) {
+            balance = accountRepository.debitBalance(accountNumber, amount);
+        }
+        return balance.orElseThrow(() -> paymentRejected(accountNumber));
+    }
+
+    // Зачисляет сумму одним UPDATE строки счета.
+    private BigDecimal credit(String accountNumber, BigDecimal amount) {
+        return accountRepository.creditBalance(accountNumber, amount)
+                .orElseThrow(() -> paymentRejected(accountNumber));
+    }
+
+    // Зачисляет сумму в одну из полос баланса, если они включены для счета, и возвращает общий баланс счета.
+    // Полоса выбирается случайно: одновременные зачисления, в том числе из виртуальных потоков и потоков
+    // с одинаковым хешем, равномерно распределяются по строкам account_balance_stripes и реже ждут друг друга.
+    private Optional<BigDecimal> creditStripe(String accountNumber, BigDecimal amount) {
+        int probe = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        if (accountRepository.creditStripe(accountNumber, probe, amount) == 0) {
+            return Optional.empty();
+        }
+        return accountRepository.findTotalBalance(accountNumber);
+    }
+
+    // Баланс счета с учетом полос после сохранения изменений счета.
+    private BigDecimal totalBalance(Account account) {
+        if (account.getBalanceStripes() == 0) {
+            return account.getBalance();
+        }
+        return accountRepository.findTotalBalance(account.getAccountNumber()).orElse(account.getBalance());
+    }
+
+    // Определяет, почему UPDATE не изменил счет: счет не найден, закрыт или на нем недостаточно средств.
+    private RuntimeException paymentRejected(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage()));
+        accountValidator.validateAccountIsClosed(account);
+        return new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_AMOUNT.getMessage());
+    }
+
+    // Получает счет с блокировкой строки до конца текущей транзакции.
+    private Account findAccountForUpdate(String accountNumber) {
+        return accountRepository.findForUpdateByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage()));
+    }
+
     // Совершает операцию пополнения/снятия исходя из запроса.
     private Account makePayment(UpdateBalanceRequest updateBalanceRequest, Account account) {
         String typePayment = updateBalanceRequest.getTypePayments();
@@ -232,6 +486,10 @@ public class AccountServiceImpl implements AccountService {
             account.setBalance(account.getBalance().add(updateBalanceRequest.getAmount()));
         } else if (typePayment.equals(TypePaymentsEnum.DEBITING.getTypePayment())) {
             accountValidator.validateAccountIsClosed(account);
+            // Основного баланса не хватает: добавляем к нему зачисления из полос баланса счета
+            if (account.getBalance().compareTo(updateBalanceRequest.getAmount()) < 0) {
+                account.setBalance(account.getBalance().add(accountRepository.takeStripes(account.getAccountNumber())));
+            }
             // Проверка на наличие достаточного количества средств для списания
             if (account.getBalance().compareTo(updateBalanceRequest.getAmount()) < 0) {
                 throw new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_AMOUNT.getMessage());
@@ -0,0 +1,166 @@
+package ru.sovcombank.petbackendaccounts.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.sovcombank.petbackendaccounts.exception.AccountNotFoundException;
+import ru.sovcombank.petbackendaccounts.exception.BadRequestException;
+import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.UpdateBalanceRequest;
+import ru.sovcombank.petbackendaccounts.model.api.response.CreateAccountResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.DeleteAccountResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountsResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetBalanceResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.TransferBalanceResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.UpdateBalanceResponse;
+import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
+import ru.sovcombank.petbackendaccounts.model.enums.TypePaymentsEnum;
+import ru.sovcombank.petbackendaccounts.service.AccountService;
+import ru.sovcombank.petbackendaccounts.service.engine.BalanceEngine;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Сервис счетов с балансами в движке балансов в памяти (balance-engine.enabled).
+ * Операции с балансом выполняет {@link BalanceEngine}, остальные операции - {@link AccountServiceImpl}.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(name = "balance-engine.enabled", havingValue = "true")
+public class BalanceEngineAccountService implements AccountService {
+
+    private final AccountService accountService;
+
+    private final BalanceEngine balanceEngine;
+
+    public BalanceEngineAccountService(@Qualifier("accountServiceImpl") AccountService accountService,
+                                       BalanceEngine balanceEngine) {
+        this.accountService = accountService;
+        this.balanceEngine = balanceEngine;
+    }
+
+    @Override
+    public CreateAccountResponse createAccount(CreateAccountRequest createAccountRequest) {
+        return accountService.createAccount(createAccountRequest);
+    }
+
+    @Override
+    public GetAccountsResponse getAccounts(Integer clientId) {
+        return accountService.getAccounts(clientId);
+    }
+
+    @Override
+    public GetAccountResponse getAccountInfo(String accountNumber) {
+        GetAccountResponse response = accountService.getAccountInfo(accountNumber);
+        // Баланс в базе обновляется только на контрольных точках движка
+        response.setBalance(balanceEngine.getBalance(accountNumber));
+        return response;
+    }
+
+    /**
+     * Закрывает счет в базе и в движке балансов.
+     *
+     * @param accountNumber Номер счета.
+     * @return Ответ с сообщением.
+     * @throws AccountNotFoundException В случае, если счет не найден.
+     */
+    @Override
+    public DeleteAccountResponse deleteAccount(String accountNumber) {
+        DeleteAccountResponse response = accountService.deleteAccount(accountNumber);
+        balanceEngine.close(accountNumber);
+        return response;
+    }
+
+    /**
+     * Получает баланс счета из движка балансов.
+     *
+     * @param accountNumber Номер счета.
+     * @return Ответ с балансом.
+     * @throws AccountNotFoundException В случае, если счет не найден.
+     */
+    @Override
+    public GetBalanceResponse getBalance(String accountNumber) {
+        GetBalanceResponse getBalanceResponse = new GetBalanceResponse(balanceEngine.getBalance(accountNumber));
+
+        log.info("Retrieved balance successfully for account with number: {}", accountNumber);
+
+        return getBalanceResponse;
+    }
+
+    /**
+     * Баланс на момент времени недоступен: операции движка не пишут проводки в ledger_entries
+     * (их история - журнал движка), и баланс по проводкам не учитывал бы их.
+     *
+     * @throws BadRequestException Всегда.
+     */
+    @Override
+    public GetBalanceResponse getBalanceAt(String accountNumber, LocalDateTime at) {
+        log.error("BadRequestException occurred: balance at {} requested while the balance engine is enabled", at);
+        throw new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_AT.getMessage());
+    }
+
+    /**
+     * Изменяет баланс в движке балансов. Ответ отправляется после записи операции в журнал.
+     *
+     * @param accountNumber        Номер счета.
+     * @param updateBalanceRequest Запрос на изменение баланса.
+     * @return Ответ с сообщением.
+     * @throws AccountNotFoundException В случае, если счет не найден или списание с закрытого счета.
+     * @throws BadRequestException      В случае недостаточного количества средств или неизвестного типа операции.
+     */
+    @Override
+    public UpdateBalanceResponse updateBalance(String accountNumber, UpdateBalanceRequest updateBalanceRequest) {
+        String typePayment = updateBalanceRequest.getTypePayments();
+
+        BigDecimal balance;
+        if (typePayment.equals(TypePaymentsEnum.REPLENISHMENT.getTypePayment())) {
+            balance = balanceEngine.credit(accountNumber, updateBalanceRequest.getAmount());
+        } else if (typePayment.equals(TypePaymentsEnum.DEBITING.getTypePayment())) {
+            balance = balanceEngine.debit(accountNumber, updateBalanceRequest.getAmount());
+        } else {
+            throw new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_TYPE_PAY.getMessage());
+        }
+
+        log.info("Balance updated successfully for account with number: {}", accountNumber);
+
+        return new UpdateBalanceResponse(AccountResponseMessagesEnum.BALANCE_UPDATED_SUCCESSFULLY.getMessage()
+                + balance.toPlainString());
+    }
+
+    /**
+     * Переводит средства между двумя счетами в движке балансов.
+     * Повтор уже выполненного перевода с тем же идентификатором возвращает текущие балансы счетов.
+     *
+     * @param transferBalanceRequest Запрос на перевод между счетами.
+     * @return Ответ с новыми балансами обоих счетов.
+     * @throws AccountNotFoundException В случае, если один из счетов не найден или счет отправителя закрыт.
+     * @throws BadRequestException      В случае перевода на тот же счет или недостаточного количества средств.
+     */
+    @Override
+    public TransferBalanceResponse transferBalance(TransferBalanceRequest transferBalanceRequest) {
+        String accountNumberFrom = transferBalanceRequest.getAccountNumberFrom();
+        String accountNumberTo = transferBalanceRequest.getAccountNumberTo();
+
+        if (accountNumberFrom.equals(accountNumberTo)) {
+            throw new BadRequestException(AccountResponseMessagesEnum.BAD_REQUEST_FOR_ACCOUNT_NUMBER.getMessage());
+        }
+
+        UUID transferUuid = transferBalanceRequest.getTransferUuid() != null
+                ? transferBalanceRequest.getTransferUuid()
+                : UUID.randomUUID();
+        BalanceEngine.TransferBalances balances = balanceEngine.transfer(transferUuid, accountNumberFrom,
+                transferBalanceRequest.getAmountFrom(), accountNumberTo, transferBalanceRequest.getAmountTo());
+
+        log.info("Transfer from account {} to account {} completed successfully", accountNumberFrom, accountNumberTo);
+
+        return new TransferBalanceResponse(accountNumberFrom, balances.balanceFrom(),
+                accountNumberTo, balances.balanceTo());
+    }
+}
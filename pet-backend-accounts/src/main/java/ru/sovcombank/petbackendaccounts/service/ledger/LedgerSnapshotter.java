@@ -0,0 +1,86 @@
+package ru.sovcombank.petbackendaccounts.service.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.sovcombank.petbackendaccounts.repository.LedgerEntryRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Периодические снимки балансов по проводкам ledger_entries.
+ * <p>
+ * Баланс на момент времени считается от ближайшего снимка, поэтому запрос читает только проводки после снимка
+ * и не зависит от длины истории счета. Снимок создается только для счетов с новыми проводками.
+ * Граница снимка - наибольший номер проводки, выданный к началу снимка. Перед снимком задача дожидается
+ * завершения транзакций, которые в этот момент добавляли проводки, поэтому проводка долгой транзакции
+ * не теряется между снимками. Таблица не блокируется: новые проводки добавляются, пока снимок создается.
+ * <p>
+ * Задача запускается на каждом экземпляре сервиса, а снимки создает один из них: остальные пропускают запуск,
+ * пока транзакция снимка держит рекомендательную блокировку.
+ */
+@Slf4j
+@Component
+public class LedgerSnapshotter {
+
+    // Период проверки завершения транзакций, добавлявших проводки в момент начала снимка
+    private static final long WRITERS_POLL_MILLIS = 50;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration writersTimeout;
+
+    public LedgerSnapshotter(LedgerEntryRepository ledgerEntryRepository, TransactionTemplate transactionTemplate,
+                             @Value("${ledger.snapshot-writers-timeout}") Duration writersTimeout) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.writersTimeout = writersTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.snapshot-interval}", initialDelayString = "${ledger.snapshot-interval}")
+    public void createSnapshots() {
+        try {
+            Integer snapshots = transactionTemplate.execute(status -> {
+                if (!ledgerEntryRepository.tryLockSnapshots()) {
+                    return null;
+                }
+                // Номера проводок выдаются под блокировкой таблицы, поэтому транзакция, получившая номер
+                // не больше границы, уже есть среди транзакций, добавляющих проводки
+                long lastEntryId = ledgerEntryRepository.findLastIssuedEntryId();
+                awaitWriters(ledgerEntryRepository.findEntryWriters());
+                return ledgerEntryRepository.createSnapshots(lastEntryId);
+            });
+            if (snapshots == null) {
+                log.info("Ledger snapshots are being created by another instance, skipped");
+            } else {
+                log.info("Created {} ledger snapshots", snapshots);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to create ledger snapshots", ex);
+        }
+    }
+
+    // Дожидается завершения транзакций writers, не блокируя новые проводки
+    private void awaitWriters(List<String> writers) {
+        if (writers.isEmpty()) {
+            return;
+        }
+        long deadline = System.nanoTime() + writersTimeout.toNanos();
+        while (ledgerEntryRepository.countEntryWriters(writers) > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Ledger entry writers did not finish in " + writersTimeout);
+            }
+            try {
+                Thread.sleep(WRITERS_POLL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for ledger entry writers", ex);
+            }
+        }
+    }
+}
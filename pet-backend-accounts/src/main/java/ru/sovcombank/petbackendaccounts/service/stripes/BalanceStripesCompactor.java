@@ -0,0 +1,42 @@
+package ru.sovcombank.petbackendaccounts.service.stripes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendaccounts.repository.AccountRepository;
+
+/**
+ * Перенос зачислений из полос баланса в основной баланс счетов.
+ * <p>
+ * На счет с полосами (accounts.balance_stripes > 0) зачисления попадают в строки account_balance_stripes, а строка
+ * счета не блокируется, поэтому одновременные зачисления на такой счет не ждут друг друга. Компактор периодически
+ * переносит накопленные суммы в accounts.balance, чтобы списания чаще обходились основным балансом. Полосы,
+ * в которые в этот момент идет зачисление, пропускаются до следующего запуска, поэтому компактор не ждет
+ * зачислений и может работать одновременно в нескольких экземплярах сервиса.
+ * <p>
+ * При balance-engine.enabled=true компактор не создается: движок переносит полосы в баланс при загрузке счета
+ * и затем перезаписывает accounts.balance своим значением, так что перенесенные компактором суммы были бы потеряны.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "balance-engine.enabled", havingValue = "false", matchIfMissing = true)
+public class BalanceStripesCompactor {
+
+    private final AccountRepository accountRepository;
+
+    public BalanceStripesCompactor(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${balance-stripes.compaction-interval}")
+    public void compact() {
+        for (String accountNumber : accountRepository.findAccountNumbersWithStripes()) {
+            try {
+                accountRepository.foldStripes(accountNumber);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to fold balance stripes of account {}", accountNumber, ex);
+            }
+        }
+    }
+}
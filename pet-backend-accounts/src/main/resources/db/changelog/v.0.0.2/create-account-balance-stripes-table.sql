@@ -0,0 +1,10 @@
+ALTER TABLE accounts
+    ADD COLUMN balance_stripes INT NOT NULL DEFAULT 0;
+
+CREATE TABLE account_balance_stripes
+(
+    account_number VARCHAR(16)    NOT NULL,
+    stripe         INT            NOT NULL,
+    amount         DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (account_number, stripe)
+) WITH (fillfactor = 50);
@@ -0,0 +1,31 @@
+CREATE TABLE ledger_entries
+(
+    id               BIGSERIAL PRIMARY KEY,
+    operation_uuid   UUID           NOT NULL,
+    account_number   VARCHAR(16)    NOT NULL,
+    amount           DECIMAL(15, 2) NOT NULL,
+    entry_type       VARCHAR(20)    NOT NULL,
+    create_date_time TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX ledger_entries_account_number_create_date_time_idx ON ledger_entries (account_number, create_date_time);
+
+CREATE INDEX ledger_entries_create_date_time_idx ON ledger_entries (create_date_time);
+
+CREATE TABLE ledger_snapshots
+(
+    account_number     VARCHAR(16)    NOT NULL,
+    snapshot_date_time TIMESTAMP      NOT NULL,
+    balance            DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (account_number, snapshot_date_time)
+);
+
+CREATE INDEX ledger_snapshots_snapshot_date_time_idx ON ledger_snapshots (snapshot_date_time);
+
+INSERT INTO ledger_snapshots (account_number, snapshot_date_time, balance)
+SELECT a.account_number,
+       CURRENT_TIMESTAMP,
+       COALESCE(a.balance, 0) + COALESCE((SELECT SUM(s.amount)
+                                          FROM account_balance_stripes s
+                                          WHERE s.account_number = a.account_number), 0)
+FROM accounts a;
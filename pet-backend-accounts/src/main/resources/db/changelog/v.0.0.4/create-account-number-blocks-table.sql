@@ -0,0 +1,5 @@
+CREATE TABLE account_number_blocks
+(
+    cur        VARCHAR(3) PRIMARY KEY NOT NULL,
+    next_value BIGINT                 NOT NULL
+);
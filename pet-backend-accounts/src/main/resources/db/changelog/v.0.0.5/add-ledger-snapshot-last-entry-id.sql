@@ -0,0 +1,17 @@
+ALTER TABLE ledger_snapshots
+    ADD COLUMN last_entry_id BIGINT NOT NULL DEFAULT 0;
+
+UPDATE ledger_snapshots s
+SET last_entry_id = COALESCE((SELECT MAX(e.id)
+                              FROM ledger_entries e
+                              WHERE e.create_date_time <= s.snapshot_date_time), 0);
+
+DROP INDEX ledger_snapshots_snapshot_date_time_idx;
+
+CREATE INDEX ledger_snapshots_last_entry_id_idx ON ledger_snapshots (last_entry_id);
+
+DROP INDEX ledger_entries_account_number_create_date_time_idx;
+
+DROP INDEX ledger_entries_create_date_time_idx;
+
+CREATE INDEX ledger_entries_account_number_id_idx ON ledger_entries (account_number, id);
@@ -0,0 +1,2 @@
+CREATE UNIQUE INDEX ledger_entries_transfer_operation_uuid_idx ON ledger_entries (operation_uuid, account_number)
+    WHERE entry_type = 'TRANSFER';
@@ -0,0 +1,195 @@
+package ru.sovcombank.petbackendaccounts;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.sovcombank.petbackendaccounts.client.UserServiceClient;
+import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.UpdateBalanceRequest;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetUserResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.MessageResponse;
+import ru.sovcombank.petbackendaccounts.model.enums.TypePaymentsEnum;
+import ru.sovcombank.petbackendaccounts.service.AccountService;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Одновременные изменения баланса одного счета в режиме balance-update.single-statement.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "balance-update.single-statement=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class AccountBalanceConcurrencyIntegrationTest {
+
+    private static final int THREADS = 32;
+
+    private final String BASE_HOST = "http://localhost:";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockBean
+    private UserServiceClient userServiceClient;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    public static void startContainers() {
+        postgresContainer.start();
+        System.setProperty("spring.datasource.url", postgresContainer.getJdbcUrl());
+        System.setProperty("spring.datasource.username", postgresContainer.getUsername());
+        System.setProperty("spring.datasource.password", postgresContainer.getPassword());
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgresContainer.stop();
+    }
+
+    @AfterEach
+    public void execute() {
+        jdbcTemplate.execute("TRUNCATE TABLE accounts");
+        jdbcTemplate.execute("TRUNCATE TABLE ledger_entries");
+        jdbcTemplate.execute("ALTER SEQUENCE accounts_id_seq RESTART");
+    }
+
+    @Test
+    @DisplayName("Изменение баланса: 200 одновременных списаний по 1.00 со 100.00, успешны ровно 100")
+    void concurrentDebitsDoNotLoseUpdates() throws Exception {
+        String accountNumber = createAccountWithBalance(new BigDecimal("100.00"));
+
+        List<HttpStatusCode> statuses = runConcurrently(200, () -> debit(accountNumber, new BigDecimal("1.00")));
+
+        assertEquals(100, statuses.stream().filter(HttpStatus.OK::equals).count());
+        assertEquals(100, statuses.stream().filter(HttpStatus.BAD_REQUEST::equals).count());
+        assertEquals(new BigDecimal("0.00"), accountService.getBalance(accountNumber).getBalance());
+        assertEquals(100, countDebitEntries(accountNumber));
+    }
+
+    @Test
+    @DisplayName("Удаление счета не перезаписывает баланс, измененный одновременным списанием")
+    void closeAccountKeepsConcurrentDebit() throws Exception {
+        String accountNumber = createAccountWithBalance(new BigDecimal("100.00"));
+
+        // Списание в отдельной транзакции держит блокировку строки счета, пока удаление ждет ее
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE accounts SET balance = balance - 1 WHERE account_number = ?")) {
+                statement.setString(1, accountNumber);
+                statement.executeUpdate();
+            }
+
+            CompletableFuture<HttpStatusCode> deleted = CompletableFuture.supplyAsync(() -> restTemplate.exchange(
+                    BASE_HOST + port + "/accounts/" + accountNumber, HttpMethod.DELETE, null,
+                    MessageResponse.class).getStatusCode());
+            awaitLockWait();
+            connection.commit();
+
+            assertEquals(HttpStatus.OK, deleted.get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(new BigDecimal("99.00"), jdbcTemplate.queryForObject(
+                "SELECT balance FROM accounts WHERE account_number = ?", BigDecimal.class, accountNumber));
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject(
+                "SELECT is_closed FROM accounts WHERE account_number = ?", Boolean.class, accountNumber));
+    }
+
+    private void awaitLockWait() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_locks WHERE NOT granted", Integer.class) == 0) {
+            assertTrue(System.nanoTime() < deadline, "DELETE did not wait for the row lock");
+            Thread.sleep(10);
+        }
+    }
+
+    private String createAccountWithBalance(BigDecimal balance) {
+        when(userServiceClient.checkUserExists(anyInt())).thenReturn(new GetUserResponse());
+        String accountNumber = accountService.createAccount(new CreateAccountRequest(1, "810")).getAccountNumber();
+        accountService.updateBalance(accountNumber,
+                new UpdateBalanceRequest(TypePaymentsEnum.REPLENISHMENT.getTypePayment(), balance));
+        return accountNumber;
+    }
+
+    private int countDebitEntries(String accountNumber) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_entries WHERE account_number = ? AND entry_type = 'DEBITING'",
+                Integer.class, accountNumber);
+    }
+
+    private HttpStatusCode debit(String accountNumber, BigDecimal amount) {
+        return restTemplate.exchange(BASE_HOST + port + "/accounts/balance/" + accountNumber, HttpMethod.PUT,
+                new HttpEntity<>(new UpdateBalanceRequest(TypePaymentsEnum.DEBITING.getTypePayment(), amount)),
+                MessageResponse.class).getStatusCode();
+    }
+
+    // Запускает запросы одновременно и возвращает статусы ответов
+    private List<HttpStatusCode> runConcurrently(int count, Callable<HttpStatusCode> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<HttpStatusCode>> futures = new ArrayList<>();
+            for (int i = 0; i < count; ++i) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<HttpStatusCode> statuses = new ArrayList<>();
+            for (Future<HttpStatusCode> future : futures) {
+                statuses.add(future.get());
+            }
+            return statuses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
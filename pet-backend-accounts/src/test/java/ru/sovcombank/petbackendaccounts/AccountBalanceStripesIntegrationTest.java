@@ -0,0 +1,176 @@
+package ru.sovcombank.petbackendaccounts;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.sovcombank.petbackendaccounts.client.UserServiceClient;
+import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.UpdateBalanceRequest;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetUserResponse;
+import ru.sovcombank.petbackendaccounts.model.enums.TypePaymentsEnum;
+import ru.sovcombank.petbackendaccounts.service.AccountService;
+import ru.sovcombank.petbackendaccounts.service.stripes.BalanceStripesCompactor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Зачисления на счет с полосами баланса и перенос полос в основной баланс.
+ * Компактор запускается вручную: интервал по расписанию увеличен, чтобы он не переносил полосы во время теста.
+ */
+@Testcontainers
+@SpringBootTest(properties = "balance-stripes.compaction-interval=PT1H")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class AccountBalanceStripesIntegrationTest {
+
+    private static final int STRIPES = 8;
+
+    private static final int THREADS = 16;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BalanceStripesCompactor balanceStripesCompactor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserServiceClient userServiceClient;
+
+    @BeforeAll
+    public static void startContainers() {
+        postgresContainer.start();
+        System.setProperty("spring.datasource.url", postgresContainer.getJdbcUrl());
+        System.setProperty("spring.datasource.username", postgresContainer.getUsername());
+        System.setProperty("spring.datasource.password", postgresContainer.getPassword());
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgresContainer.stop();
+    }
+
+    @AfterEach
+    public void execute() {
+        jdbcTemplate.execute("TRUNCATE TABLE accounts");
+        jdbcTemplate.execute("TRUNCATE TABLE account_balance_stripes");
+        jdbcTemplate.execute("TRUNCATE TABLE ledger_entries");
+        jdbcTemplate.execute("ALTER SEQUENCE accounts_id_seq RESTART");
+    }
+
+    @Test
+    @DisplayName("Полосы баланса: одновременные зачисления распределяются по полосам, строка счета не меняется")
+    void concurrentCreditsAreStriped() throws Exception {
+        String accountNumber = createStripedAccount();
+
+        runConcurrently(200, () -> credit(accountNumber, new BigDecimal("1.00")));
+
+        assertEquals(new BigDecimal("200.00"), accountService.getBalance(accountNumber).getBalance());
+        assertEquals(new BigDecimal("0.00"), mainBalance(accountNumber));
+        assertEquals(new BigDecimal("200.00"), jdbcTemplate.queryForObject(
+                "SELECT SUM(amount) FROM account_balance_stripes WHERE account_number = ?",
+                BigDecimal.class, accountNumber));
+        int usedStripes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM account_balance_stripes WHERE account_number = ?",
+                Integer.class, accountNumber);
+        assertTrue(usedStripes > 1 && usedStripes <= STRIPES, "used stripes: " + usedStripes);
+    }
+
+    @Test
+    @DisplayName("Полосы баланса: компактор переносит зачисления в основной баланс, общий баланс не меняется")
+    void compactorFoldsStripes() throws Exception {
+        String accountNumber = createStripedAccount();
+        runConcurrently(50, () -> credit(accountNumber, new BigDecimal("2.00")));
+
+        balanceStripesCompactor.compact();
+
+        assertEquals(new BigDecimal("100.00"), mainBalance(accountNumber));
+        assertEquals(new BigDecimal("100.00"), accountService.getBalance(accountNumber).getBalance());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM account_balance_stripes WHERE account_number = ? AND amount <> 0",
+                Integer.class, accountNumber));
+
+        // Повторный запуск без новых зачислений ничего не меняет
+        balanceStripesCompactor.compact();
+        assertEquals(new BigDecimal("100.00"), mainBalance(accountNumber));
+    }
+
+    @Test
+    @DisplayName("Полосы баланса: списание больше основного баланса использует зачисления из полос")
+    void debitUsesStripedCredits() {
+        String accountNumber = createStripedAccount();
+        credit(accountNumber, new BigDecimal("30.00"));
+        credit(accountNumber, new BigDecimal("20.00"));
+
+        accountService.updateBalance(accountNumber,
+                new UpdateBalanceRequest(TypePaymentsEnum.DEBITING.getTypePayment(), new BigDecimal("45.00")));
+
+        assertEquals(new BigDecimal("5.00"), accountService.getBalance(accountNumber).getBalance());
+        assertEquals(new BigDecimal("5.00"), mainBalance(accountNumber));
+    }
+
+    private String createStripedAccount() {
+        when(userServiceClient.checkUserExists(anyInt())).thenReturn(new GetUserResponse());
+        String accountNumber = accountService.createAccount(new CreateAccountRequest(1, "810")).getAccountNumber();
+        jdbcTemplate.update("UPDATE accounts SET balance_stripes = ? WHERE account_number = ?",
+                STRIPES, accountNumber);
+        return accountNumber;
+    }
+
+    private void credit(String accountNumber, BigDecimal amount) {
+        accountService.updateBalance(accountNumber,
+                new UpdateBalanceRequest(TypePaymentsEnum.REPLENISHMENT.getTypePayment(), amount));
+    }
+
+    private BigDecimal mainBalance(String accountNumber) {
+        return jdbcTemplate.queryForObject(
+                "SELECT balance FROM accounts WHERE account_number = ?", BigDecimal.class, accountNumber);
+    }
+
+    // Запускает вызовы одновременно и дожидается их завершения
+    private void runConcurrently(int count, Runnable call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; ++i) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    call.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -23,23 +24,39 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.sovcombank.petbackendaccounts.client.UserServiceClient;
 import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.request.TransferBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.request.UpdateBalanceRequest;
 import ru.sovcombank.petbackendaccounts.model.api.response.CreateAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.DeleteAccountResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetAccountsResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.GetBalanceResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetUserResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.MessageResponse;
+import ru.sovcombank.petbackendaccounts.model.api.response.TransferBalanceResponse;
 import ru.sovcombank.petbackendaccounts.model.api.response.UpdateBalanceResponse;
 import ru.sovcombank.petbackendaccounts.model.dto.AccountDTO;
 import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
+import ru.sovcombank.petbackendaccounts.model.enums.TypePaymentsEnum;
 import ru.sovcombank.petbackendaccounts.service.AccountService;
+import ru.sovcombank.petbackendaccounts.service.ledger.LedgerSnapshotter;
 
+import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
@@ -66,6 +83,12 @@ public class AccountControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private LedgerSnapshotter ledgerSnapshotter;
+
+    @Autowired
+    private DataSource dataSource;
+
     @MockBean
     private UserServiceClient userServiceClient;
 
@@ -88,6 +111,9 @@ public class AccountControllerIntegrationTest {
     @AfterEach
     public void execute() {
         jdbcTemplate.execute("TRUNCATE TABLE accounts");
+        jdbcTemplate.execute("TRUNCATE TABLE account_balance_stripes");
+        jdbcTemplate.execute("TRUNCATE TABLE ledger_entries");
+        jdbcTemplate.execute("TRUNCATE TABLE ledger_snapshots");
         jdbcTemplate.execute("ALTER SEQUENCE accounts_id_seq RESTART");
     }
 
@@ -98,7 +124,7 @@ public class AccountControllerIntegrationTest {
                 "request/create-account-request.json",
                 CreateAccountRequest.class);
 
-        when(userServiceClient.checkUserExists(createAccountRequest.getClientId())).thenReturn(ResponseEntity.ok().build());
+        when(userServiceClient.checkUserExists(createAccountRequest.getClientId())).thenReturn(new GetUserResponse());
 
         ResponseEntity<CreateAccountResponse> responseEntity = restTemplate.postForEntity(
                 BASE_HOST + port + "/accounts",
@@ -123,7 +149,7 @@ public class AccountControllerIntegrationTest {
         accountService.createAccount(createAccountRequest);
         accountService.createAccount(createAccountRequest);
 
-        when(userServiceClient.checkUserExists(createAccountRequest.getClientId())).thenReturn(ResponseEntity.ok().build());
+        when(userServiceClient.checkUserExists(createAccountRequest.getClientId())).thenReturn(new GetUserResponse());
 
         ResponseEntity<CreateAccountResponse> responseEntity = restTemplate.postForEntity(
                 BASE_HOST + port + "/accounts",
@@ -146,7 +172,7 @@ public class AccountControllerIntegrationTest {
 
         accountService.createAccount(createAccountRequest);
 
-        when(userServiceClient.checkUserExists(createAccountRequest.getClientId())).thenReturn(ResponseEntity.ok().build());
+        when(userServiceClient.checkUserExists(createAccountRequest.getClientId())).thenReturn(new GetUserResponse());
 
         ResponseEntity<GetAccountsResponse> responseEntity = restTemplate.getForEntity(
                 BASE_HOST + port + "/accounts/1",
@@ -280,6 +306,305 @@ public class AccountControllerIntegrationTest {
         );
     }
 
+    @Test
+    @DisplayName("Перевод между счетами: успешный сценарий")
+    void transferBalanceSuccessfully() throws IOException {
+        CreateAccountRequest createAccountRequest = readFromJson(
+                "request/create-account-request.json",
+                CreateAccountRequest.class);
+
+        UpdateBalanceRequest updateBalanceRequest = readFromJson(
+                "request/update-balance-request.json",
+                UpdateBalanceRequest.class);
+
+        String accountNumberFrom = accountService.createAccount(createAccountRequest).getAccountNumber();
+        String accountNumberTo = accountService.createAccount(createAccountRequest).getAccountNumber();
+        accountService.updateBalance(accountNumberFrom, updateBalanceRequest);
+
+        TransferBalanceRequest transferBalanceRequest = new TransferBalanceRequest(
+                accountNumberFrom, accountNumberTo, new BigDecimal("100.00"), new BigDecimal("100.00"),
+                UUID.randomUUID());
+
+        ResponseEntity<TransferBalanceResponse> responseEntity = restTemplate.postForEntity(
+                BASE_HOST + port + "/accounts/transfers",
+                transferBalanceRequest,
+                TransferBalanceResponse.class);
+
+        TransferBalanceResponse actualResponse = Objects.requireNonNull(responseEntity.getBody());
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, responseEntity.getHeaders().getContentType().toString());
+        assertEquals(new BigDecimal("900.00"), actualResponse.getBalanceFrom());
+        assertEquals(new BigDecimal("100.00"), actualResponse.getBalanceTo());
+        assertEquals(new BigDecimal("900.00"), accountService.getBalance(accountNumberFrom).getBalance());
+        assertEquals(new BigDecimal("100.00"), accountService.getBalance(accountNumberTo).getBalance());
+    }
+
+    @Test
+    @DisplayName("Перевод между счетами: повтор перевода с тем же идентификатором не меняет балансы")
+    void repeatedTransferBalanceAppliedOnce() throws IOException {
+        CreateAccountRequest createAccountRequest = readFromJson(
+                "request/create-account-request.json",
+                CreateAccountRequest.class);
+
+        UpdateBalanceRequest updateBalanceRequest = readFromJson(
+                "request/update-balance-request.json",
+                UpdateBalanceRequest.class);
+
+        String accountNumberFrom = accountService.createAccount(createAccountRequest).getAccountNumber();
+        String accountNumberTo = accountService.createAccount(createAccountRequest).getAccountNumber();
+        accountService.updateBalance(accountNumberFrom, updateBalanceRequest);
+
+        TransferBalanceRequest transferBalanceRequest = new TransferBalanceRequest(
+                accountNumberFrom, accountNumberTo, new BigDecimal("100.00"), new BigDecimal("100.00"),
+                UUID.randomUUID());
+
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<TransferBalanceResponse> responseEntity = restTemplate.postForEntity(
+                    BASE_HOST + port + "/accounts/transfers",
+                    transferBalanceRequest,
+                    TransferBalanceResponse.class);
+
+            TransferBalanceResponse actualResponse = Objects.requireNonNull(responseEntity.getBody());
+
+            assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+            assertEquals(new BigDecimal("900.00"), actualResponse.getBalanceFrom());
+            assertEquals(new BigDecimal("100.00"), actualResponse.getBalanceTo());
+        }
+
+        assertEquals(new BigDecimal("900.00"), accountService.getBalance(accountNumberFrom).getBalance());
+        assertEquals(new BigDecimal("100.00"), accountService.getBalance(accountNumberTo).getBalance());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_entries WHERE operation_uuid = ?", Integer.class,
+                transferBalanceRequest.getTransferUuid()));
+    }
+
+    @Test
+    @DisplayName("Перевод между счетами: ошибка BadRequestException, баланс получателя не изменяется")
+    void transferBalanceBadRequestException() throws IOException {
+        CreateAccountRequest createAccountRequest = readFromJson(
+                "request/create-account-request.json",
+                CreateAccountRequest.class);
+
+        String accountNumberFrom = accountService.createAccount(createAccountRequest).getAccountNumber();
+        String accountNumberTo = accountService.createAccount(createAccountRequest).getAccountNumber();
+
+        TransferBalanceRequest transferBalanceRequest = new TransferBalanceRequest(
+                accountNumberFrom, accountNumberTo, new BigDecimal("100.00"), new BigDecimal("100.00"),
+                UUID.randomUUID());
+
+        ResponseEntity<MessageResponse> responseEntity = restTemplate.postForEntity(
+                BASE_HOST + port + "/accounts/transfers",
+                transferBalanceRequest,
+                MessageResponse.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals(AccountResponseMessagesEnum.BAD_REQUEST_FOR_AMOUNT.getMessage(),
+                Objects.requireNonNull(responseEntity.getBody()).getMessage()
+        );
+        assertEquals(new BigDecimal("0.00"), accountService.getBalance(accountNumberTo).getBalance());
+    }
+
+    @Test
+    @DisplayName("Перевод между счетами: ошибка AccountNotFoundException")
+    void transferBalanceAccountNotFoundException() throws IOException {
+        CreateAccountRequest createAccountRequest = readFromJson(
+                "request/create-account-request.json",
+                CreateAccountRequest.class);
+
+        UpdateBalanceRequest updateBalanceRequest = readFromJson(
+                "request/update-balance-request.json",
+                UpdateBalanceRequest.class);
+
+        String accountNumberFrom = accountService.createAccount(createAccountRequest).getAccountNumber();
+        accountService.updateBalance(accountNumberFrom, updateBalanceRequest);
+
+        TransferBalanceRequest transferBalanceRequest = new TransferBalanceRequest(
+                accountNumberFrom, "77777777777777", new BigDecimal("100.00"), new BigDecimal("100.00"),
+                UUID.randomUUID());
+
+        ResponseEntity<MessageResponse> responseEntity = restTemplate.postForEntity(
+                BASE_HOST + port + "/accounts/transfers",
+                transferBalanceRequest,
+                MessageResponse.class);
+
+        assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+        assertEquals(AccountResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage(),
+                Objects.requireNonNull(responseEntity.getBody()).getMessage()
+        );
+        assertEquals(new BigDecimal("1000.00"), accountService.getBalance(accountNumberFrom).getBalance());
+    }
+
+    @Test
+    @DisplayName("Баланс на момент времени: снимок по проводкам и проводки после снимка")
+    void getBalanceAtFromLedgerSnapshot() throws IOException {
+        String accountNumber = accountService.createAccount(readFromJson(
+                "request/create-account-request.json", CreateAccountRequest.class)).getAccountNumber();
+        LocalDateTime beforeEntries = dbNow();
+        updateBalance(accountNumber, TypePaymentsEnum.REPLENISHMENT, "100.00");
+        updateBalance(accountNumber, TypePaymentsEnum.DEBITING, "30.00");
+
+        ledgerSnapshotter.createSnapshots();
+
+        assertEquals(new BigDecimal("70.00"), jdbcTemplate.queryForObject(
+                "SELECT balance FROM ledger_snapshots WHERE account_number = ?", BigDecimal.class, accountNumber));
+        assertEquals(jdbcTemplate.queryForObject("SELECT MAX(id) FROM ledger_entries", Long.class),
+                jdbcTemplate.queryForObject("SELECT last_entry_id FROM ledger_snapshots WHERE account_number = ?",
+                        Long.class, accountNumber));
+        LocalDateTime snapshotAt = jdbcTemplate.queryForObject(
+                "SELECT snapshot_date_time FROM ledger_snapshots WHERE account_number = ?",
+                LocalDateTime.class, accountNumber);
+
+        updateBalance(accountNumber, TypePaymentsEnum.REPLENISHMENT, "5.00");
+
+        assertEquals(new BigDecimal("0.00"), getBalanceAt(accountNumber, beforeEntries));
+        assertEquals(new BigDecimal("70.00"), getBalanceAt(accountNumber, snapshotAt));
+        assertEquals(new BigDecimal("75.00"), getBalanceAt(accountNumber, dbNow()));
+
+        // Следующий снимок продолжает предыдущий и создается только для счетов с новыми проводками
+        String otherAccountNumber = accountService.createAccount(new CreateAccountRequest(2, "810"))
+                .getAccountNumber();
+        ledgerSnapshotter.createSnapshots();
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_snapshots", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_snapshots WHERE account_number = ?",
+                Integer.class, otherAccountNumber));
+        assertEquals(new BigDecimal("75.00"), getBalanceAt(accountNumber, dbNow()));
+        assertEquals(new BigDecimal("70.00"), getBalanceAt(accountNumber, snapshotAt));
+    }
+
+    @Test
+    @DisplayName("Баланс на момент времени: снимок дожидается проводки незавершенной транзакции, не блокируя новые")
+    void ledgerSnapshotWaitsForUncommittedEntry() throws Exception {
+        String accountNumber = accountService.createAccount(readFromJson(
+                "request/create-account-request.json", CreateAccountRequest.class)).getAccountNumber();
+        updateBalance(accountNumber, TypePaymentsEnum.REPLENISHMENT, "100.00");
+
+        // Проводка транзакции, начатой до снимка и зафиксированной во время его создания
+        long entryId;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO ledger_entries (operation_uuid, account_number, amount, entry_type) "
+                            + "VALUES (?, ?, 10.00, 'REPLENISHMENT') RETURNING id")) {
+                statement.setObject(1, UUID.randomUUID());
+                statement.setString(2, accountNumber);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    entryId = resultSet.getLong(1);
+                }
+            }
+
+            CompletableFuture<Void> snapshot = CompletableFuture.runAsync(ledgerSnapshotter::createSnapshots);
+            awaitSnapshotLock();
+
+            // Пока снимок ждет незавершенную транзакцию, проводки добавляются без ожидания
+            CompletableFuture.runAsync(() -> updateBalance(accountNumber, TypePaymentsEnum.REPLENISHMENT, "1.00"))
+                    .get(5, TimeUnit.SECONDS);
+            assertFalse(snapshot.isDone());
+
+            connection.commit();
+            snapshot.get(10, TimeUnit.SECONDS);
+        }
+
+        // Проводка, зафиксированная во время снимка, входит в снимок
+        assertTrue(jdbcTemplate.queryForObject("SELECT last_entry_id FROM ledger_snapshots WHERE account_number = ?",
+                Long.class, accountNumber) >= entryId);
+        assertEquals(new BigDecimal("111.00"), getBalanceAt(accountNumber, dbNow()));
+
+        updateBalance(accountNumber, TypePaymentsEnum.REPLENISHMENT, "1.00");
+        ledgerSnapshotter.createSnapshots();
+        assertEquals(new BigDecimal("112.00"), getBalanceAt(accountNumber, dbNow()));
+    }
+
+    @Test
+    @DisplayName("Баланс на момент времени: снимки создает один экземпляр, остальные пропускают запуск")
+    void ledgerSnapshotSkippedWhileAnotherInstanceCreatesIt() throws Exception {
+        String accountNumber = accountService.createAccount(readFromJson(
+                "request/create-account-request.json", CreateAccountRequest.class)).getAccountNumber();
+        updateBalance(accountNumber, TypePaymentsEnum.REPLENISHMENT, "100.00");
+
+        // Блокировка снимков, которую держит транзакция снимка другого экземпляра
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT pg_advisory_xact_lock(hashtext('ledger_snapshots'))")) {
+                statement.execute();
+            }
+
+            ledgerSnapshotter.createSnapshots();
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM ledger_snapshots WHERE account_number = ?", Integer.class, accountNumber));
+            connection.commit();
+        }
+
+        ledgerSnapshotter.createSnapshots();
+        ledgerSnapshotter.createSnapshots();
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_snapshots WHERE account_number = ?", Integer.class, accountNumber));
+        assertEquals(new BigDecimal("100.00"), getBalanceAt(accountNumber, dbNow()));
+    }
+
+    @Test
+    @DisplayName("Баланс на момент времени: начальный снимок миграции учитывает баланс и полосы счета")
+    void getBalanceAtFromOpeningSnapshot() throws IOException {
+        String accountNumber = accountService.createAccount(readFromJson(
+                "request/create-account-request.json", CreateAccountRequest.class)).getAccountNumber();
+        // Баланс счета, созданного до появления проводок
+        jdbcTemplate.update("UPDATE accounts SET balance = 250.00, balance_stripes = 2 WHERE account_number = ?",
+                accountNumber);
+        jdbcTemplate.update("INSERT INTO account_balance_stripes (account_number, stripe, amount) VALUES (?, 1, 50.00)",
+                accountNumber);
+        LocalDateTime beforeMigration = dbNow();
+
+        jdbcTemplate.update(openingSnapshotStatement());
+
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT last_entry_id FROM ledger_snapshots WHERE account_number = ?", Long.class, accountNumber));
+        assertEquals(new BigDecimal("300.00"), getBalanceAt(accountNumber, dbNow()));
+        assertEquals(new BigDecimal("0.00"), getBalanceAt(accountNumber, beforeMigration));
+
+        updateBalance(accountNumber, TypePaymentsEnum.REPLENISHMENT, "10.00");
+        assertEquals(new BigDecimal("310.00"), getBalanceAt(accountNumber, dbNow()));
+    }
+
+    // Заполнение ledger_snapshots из миграции, создавшей таблицы проводок
+    private String openingSnapshotStatement() throws IOException {
+        String migration = new ClassPathResource("db/changelog/v.0.0.3/create-ledger-tables.sql")
+                .getContentAsString(StandardCharsets.UTF_8);
+        return Arrays.stream(migration.split(";"))
+                .filter(statement -> statement.contains("INSERT INTO ledger_snapshots"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void updateBalance(String accountNumber, TypePaymentsEnum typePayment, String amount) {
+        accountService.updateBalance(accountNumber,
+                new UpdateBalanceRequest(typePayment.getTypePayment(), new BigDecimal(amount)));
+    }
+
+    private BigDecimal getBalanceAt(String accountNumber, LocalDateTime at) {
+        ResponseEntity<GetBalanceResponse> responseEntity = restTemplate.getForEntity(
+                BASE_HOST + port + "/accounts/balance/" + accountNumber + "?at=" + at,
+                GetBalanceResponse.class);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        return Objects.requireNonNull(responseEntity.getBody()).getBalance();
+    }
+
+    // Время базы: время проводок задает база
+    private LocalDateTime dbNow() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+    }
+
+    // Дожидается, пока задача снимков возьмет блокировку снимков
+    private void awaitSnapshotLock() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_locks WHERE locktype = 'advisory' AND granted",
+                Integer.class) == 0) {
+            assertTrue(System.nanoTime() < deadline, "Snapshot did not start");
+            Thread.sleep(10);
+        }
+    }
+
     private <T> T readFromJson(String jsonFileName, Class<T> requestClass) throws IOException {
         InputStream inputStream = getClass().getClassLoader().getResourceAsStream("json/" + jsonFileName);
         return objectMapper.readValue(inputStream, requestClass);
@@ -0,0 +1,140 @@
+package ru.sovcombank.petbackendaccounts;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.sovcombank.petbackendaccounts.client.UserServiceClient;
+import ru.sovcombank.petbackendaccounts.model.api.request.CreateAccountRequest;
+import ru.sovcombank.petbackendaccounts.model.api.response.GetUserResponse;
+import ru.sovcombank.petbackendaccounts.service.AccountService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Выдача номеров счетов блоками.
+ * Пул соединений уменьшен до числа потоков, а блок - до нескольких номеров, чтобы одновременные запросы
+ * часто резервировали новые блоки.
+ */
+@Testcontainers
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=" + AccountNumberGeneratorIntegrationTest.THREADS,
+        "spring.datasource.hikari.connection-timeout=2000",
+        "account-number.block-size=" + AccountNumberGeneratorIntegrationTest.BLOCK_SIZE})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class AccountNumberGeneratorIntegrationTest {
+
+    static final int THREADS = 4;
+
+    static final int BLOCK_SIZE = 5;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserServiceClient userServiceClient;
+
+    @BeforeAll
+    public static void startContainers() {
+        postgresContainer.start();
+        System.setProperty("spring.datasource.url", postgresContainer.getJdbcUrl());
+        System.setProperty("spring.datasource.username", postgresContainer.getUsername());
+        System.setProperty("spring.datasource.password", postgresContainer.getPassword());
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgresContainer.stop();
+    }
+
+    @BeforeEach
+    public void mockUserService() {
+        when(userServiceClient.checkUserExists(anyInt())).thenReturn(new GetUserResponse());
+    }
+
+    @AfterEach
+    public void execute() {
+        jdbcTemplate.execute("TRUNCATE TABLE accounts");
+        jdbcTemplate.execute("ALTER SEQUENCE accounts_id_seq RESTART");
+    }
+
+    @Test
+    @DisplayName("Номера счетов: одновременное создание счетов по числу соединений пула выдает разные номера")
+    void concurrentCreationDoesNotExhaustPool() throws Exception {
+        int count = THREADS * BLOCK_SIZE * 3;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<String> accountNumbers = new ArrayList<>();
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < count; ++i) {
+                int clientId = i + 1;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return accountService.createAccount(new CreateAccountRequest(clientId, "810")).getAccountNumber();
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                accountNumbers.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(count, new HashSet<>(accountNumbers).size());
+        assertEquals(count, jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT account_number) FROM accounts WHERE cur = '810'", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Номера счетов: номера счетов, созданных до блоков, пропускаются внутри нового блока")
+    void legacyNumbersInsideBlockAreSkipped() {
+        long first = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(next_value), 0) FROM account_number_blocks WHERE cur = '840'", Long.class);
+        Set<String> legacy = Set.of(accountNumber(first + 1), accountNumber(first + 3));
+        legacy.forEach(accountNumber -> jdbcTemplate.update(
+                "INSERT INTO accounts (account_number, client_id, cur) VALUES (?, 1, '840')", accountNumber));
+
+        List<String> accountNumbers = new ArrayList<>();
+        for (int clientId = 2; clientId <= BLOCK_SIZE + 1; clientId++) {
+            accountNumbers.add(accountService.createAccount(new CreateAccountRequest(clientId, "840"))
+                    .getAccountNumber());
+        }
+
+        // Блок first..first + 4 дает три свободных номера, остальные выдаются из следующего блока
+        assertEquals(List.of(accountNumber(first), accountNumber(first + 2), accountNumber(first + 4),
+                accountNumber(first + 5), accountNumber(first + 6)), accountNumbers);
+    }
+
+    private static String accountNumber(long sequence) {
+        return String.format("4200840666%06d", sequence);
+    }
+}
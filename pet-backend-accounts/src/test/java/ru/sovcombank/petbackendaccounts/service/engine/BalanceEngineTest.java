@@ -0,0 +1,301 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.sovcombank.petbackendaccounts.config.BalanceEngineProperties;
+import ru.sovcombank.petbackendaccounts.exception.AccountNotFoundException;
+import ru.sovcombank.petbackendaccounts.exception.BadRequestException;
+import ru.sovcombank.petbackendaccounts.exception.InternalServerErrorException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BalanceEngineTest {
+
+    private static final int PARTITIONS = 2;
+
+    private static final String UNKNOWN_ACCOUNT = "4200810666999999";
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryBalanceStore balanceStore = new InMemoryBalanceStore();
+
+    private final String accountFrom = accountInPartition(0);
+
+    private final String accountTo = accountInPartition(1);
+
+    private BalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        balanceStore.accounts.put(accountFrom, new AccountState(accountFrom, 10000, false));
+        balanceStore.accounts.put(accountTo, new AccountState(accountTo, 500, false));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Движок балансов: зачисление, не принятое очередью раздела, выполняется на контрольной точке")
+    void postponedCreditSurvivesCheckpointAndRestart() throws Exception {
+        engine = start();
+        assertNotEquals(engine.partition(accountFrom), engine.partition(accountTo));
+        engine.getBalance(accountTo);
+
+        // Поток раздела получателя останавливается, а его очередь заполняется, пока списание загружает счет
+        CountDownLatch release = new CountDownLatch(1);
+        balanceStore.onLoad = () -> fillPartition(engine.partition(accountTo), release);
+
+        assertThrows(InternalServerErrorException.class,
+                () -> engine.transfer(UUID.randomUUID(), accountFrom, amount("30.00"), accountTo, amount("30.00")));
+        balanceStore.onLoad = () -> {
+        };
+        release.countDown();
+
+        engine.checkpoint();
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+
+        engine.stop();
+        engine = start();
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+    }
+
+    @Test
+    @DisplayName("Движок балансов: списание, не дождавшееся результата, завершается зачислением на контрольной точке")
+    void timedOutDebitIsCreditedOnCheckpoint() throws Exception {
+        engine = start();
+        engine.getBalance(accountFrom);
+        engine.getBalance(accountTo);
+
+        // Поток раздела отправителя остановлен: списание принято очередью, но не выполнено до истечения ожидания
+        CountDownLatch release = new CountDownLatch(1);
+        blockPartition(engine.partition(accountFrom), release);
+        assertThrows(InternalServerErrorException.class,
+                () -> engine.transfer(UUID.randomUUID(), accountFrom, amount("30.00"), accountTo, amount("30.00")));
+        release.countDown();
+
+        engine.checkpoint();
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+
+        engine.stop();
+        engine = start();
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+    }
+
+    @Test
+    @DisplayName("Движок балансов: повтор перевода с тем же идентификатором не меняет балансы")
+    void repeatedTransferIsAppliedOnce() throws Exception {
+        engine = start();
+        UUID transferUuid = UUID.randomUUID();
+
+        BalanceEngine.TransferBalances first = engine.transfer(transferUuid, accountFrom, amount("30.00"),
+                accountTo, amount("30.00"));
+        assertEquals(new BalanceEngine.TransferBalances(amount("70.00"), amount("35.00")), first);
+
+        assertEquals(first, engine.transfer(transferUuid, accountFrom, amount("30.00"), accountTo, amount("30.00")));
+
+        // Списание перевода остается известным разделу в журнале предыдущего поколения
+        engine.checkpoint();
+        assertEquals(first, engine.transfer(transferUuid, accountFrom, amount("30.00"), accountTo, amount("30.00")));
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+    }
+
+    @Test
+    @DisplayName("Движок балансов: повтор перевода, списание которого не дождалось результата, не списывает второй раз")
+    void retryOfTimedOutTransferIsNotDebitedTwice() throws Exception {
+        engine = start();
+        engine.getBalance(accountFrom);
+        engine.getBalance(accountTo);
+        UUID transferUuid = UUID.randomUUID();
+
+        CountDownLatch release = new CountDownLatch(1);
+        blockPartition(engine.partition(accountFrom), release);
+        assertThrows(InternalServerErrorException.class,
+                () -> engine.transfer(transferUuid, accountFrom, amount("30.00"), accountTo, amount("30.00")));
+        release.countDown();
+
+        // Повтор не заменяет незавершенное списание: зачисление первого запроса выполняет контрольная точка
+        assertEquals(amount("70.00"), engine.transfer(transferUuid, accountFrom, amount("30.00"),
+                accountTo, amount("30.00")).balanceFrom());
+        engine.checkpoint();
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+    }
+
+    @Test
+    @DisplayName("Движок балансов: перевод, прерванный между списанием и зачислением, завершается при восстановлении")
+    void interruptedTransferCompletedOnRecovery() throws Exception {
+        // Журнал процесса, остановленного после записи списания до записи зачисления
+        try (BalanceJournal journal = BalanceJournal.create(BalanceJournal.path(directory, 1, 0))) {
+            journal.open(new AccountState(accountFrom, 10000, false));
+            journal.transferDebit(UUID.randomUUID(), accountFrom, 3000, accountTo, 3000);
+            journal.sync();
+        }
+
+        engine = start();
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+        assertEquals(new AccountState(accountTo, 3500, false), balanceStore.accounts.get(accountTo));
+
+        // Завершенный перевод вошел в снимок и не выполняется повторно
+        engine.stop();
+        engine = start();
+        assertEquals(amount("70.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("35.00"), engine.getBalance(accountTo));
+    }
+
+    @Test
+    @DisplayName("Движок балансов: контрольная точка сохраняет снимок, удаляет старые журналы и записывает балансы")
+    void checkpointTruncatesJournals() throws Exception {
+        engine = start();
+        engine.credit(accountFrom, amount("10.00"));
+        engine.transfer(UUID.randomUUID(), accountFrom, amount("20.00"), accountTo, amount("20.00"));
+
+        engine.checkpoint();
+
+        assertEquals(Set.of("snapshot-2.bin", "journal-2-0.log", "journal-2-1.log"), files());
+        assertEquals(new AccountState(accountFrom, 9000, false), balanceStore.accounts.get(accountFrom));
+        assertEquals(new AccountState(accountTo, 2500, false), balanceStore.accounts.get(accountTo));
+
+        // Операции после контрольной точки восстанавливаются из снимка и журналов нового поколения
+        engine.debit(accountTo, amount("5.00"));
+        engine.stop();
+        engine = start();
+        assertEquals(amount("90.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("20.00"), engine.getBalance(accountTo));
+    }
+
+    @Test
+    @DisplayName("Движок балансов: недостаточно средств, неизвестный и закрытый счет")
+    void rejectsInsufficientFundsAndUnknownAccount() throws Exception {
+        engine = start();
+
+        assertThrows(BadRequestException.class, () -> engine.debit(accountFrom, amount("100.01")));
+        assertThrows(BadRequestException.class,
+                () -> engine.transfer(UUID.randomUUID(), accountFrom, amount("100.01"), accountTo, amount("100.01")));
+        assertEquals(amount("100.00"), engine.getBalance(accountFrom));
+        assertEquals(amount("5.00"), engine.getBalance(accountTo));
+
+        assertThrows(AccountNotFoundException.class, () -> engine.getBalance(UNKNOWN_ACCOUNT));
+        assertThrows(AccountNotFoundException.class, () -> engine.credit(UNKNOWN_ACCOUNT, amount("1.00")));
+        assertThrows(AccountNotFoundException.class,
+                () -> engine.transfer(UUID.randomUUID(), accountFrom, amount("1.00"), UNKNOWN_ACCOUNT, amount("1.00")));
+        assertEquals(amount("100.00"), engine.getBalance(accountFrom));
+
+        engine.close(accountFrom);
+        assertThrows(AccountNotFoundException.class, () -> engine.debit(accountFrom, amount("1.00")));
+        assertThrows(AccountNotFoundException.class,
+                () -> engine.transfer(UUID.randomUUID(), accountFrom, amount("1.00"), accountTo, amount("1.00")));
+        assertEquals(amount("101.00"), engine.credit(accountFrom, amount("1.00")));
+    }
+
+    private BalanceEngine start() throws IOException {
+        BalanceEngineProperties properties = new BalanceEngineProperties();
+        properties.setPartitions(PARTITIONS);
+        properties.setRingSize(4);
+        properties.setBatchSize(16);
+        properties.setDirectory(directory);
+        properties.setTimeout(Duration.ofMillis(500));
+        BalanceEngine balanceEngine = new BalanceEngine(properties, balanceStore);
+        balanceEngine.start();
+        return balanceEngine;
+    }
+
+    // Занимает поток раздела до release и заполняет его очередь
+    private static void fillPartition(BalancePartition partition, CountDownLatch release) {
+        blockPartition(partition, release);
+        while (partition.offer(BalanceCommand.of(BalanceCommand.Type.GET, UNKNOWN_ACCOUNT, 0))) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // Занимает поток раздела до release
+    private static void blockPartition(BalancePartition partition, CountDownLatch release) {
+        CountDownLatch blocked = new CountDownLatch(1);
+        BalanceCommand blocker = BalanceCommand.of(BalanceCommand.Type.GET, UNKNOWN_ACCOUNT, 0);
+        blocker.done.thenRun(() -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        while (!partition.offer(blocker)) {
+            Thread.onSpinWait();
+        }
+        try {
+            blocked.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Set<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toSet());
+        }
+    }
+
+    private static String accountInPartition(int partition) {
+        for (int i = 1; ; i++) {
+            String accountNumber = String.format("4200810666%06d", i);
+            if (Math.floorMod(accountNumber.hashCode(), PARTITIONS) == partition) {
+                return accountNumber;
+            }
+        }
+    }
+
+    private static BigDecimal amount(String value) {
+        return new BigDecimal(value);
+    }
+
+    // Счета в памяти; onLoad выполняется при загрузке счета движком
+    private static final class InMemoryBalanceStore implements BalanceStore {
+
+        private final Map<String, AccountState> accounts = new ConcurrentHashMap<>();
+
+        private volatile Runnable onLoad = () -> {
+        };
+
+        @Override
+        public Optional<AccountState> load(String accountNumber) {
+            onLoad.run();
+            return Optional.ofNullable(accounts.get(accountNumber));
+        }
+
+        @Override
+        public void store(Collection<AccountState> states) {
+            states.forEach(state -> accounts.put(state.accountNumber(), state));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.sovcombank.petbackendaccounts.service.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+
+    private static final int PER_PRODUCER = 20_000;
+
+    @Test
+    @DisplayName("Очередь: элементы каждого писателя читаются по порядку, без потерь и повторов")
+    void preservesOrderOfEachProducer() throws Exception {
+        MpscRingBuffer<long[]> ring = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                long id = producer;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (long sequence = 0; sequence < PER_PRODUCER; sequence++) {
+                        long[] element = {id, sequence};
+                        while (!ring.offer(element)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            long[] expected = new long[PRODUCERS];
+            int received = 0;
+            while (received < PRODUCERS * PER_PRODUCER) {
+                long[] element = ring.poll();
+                if (element == null) {
+                    Thread.yield();
+                    continue;
+                }
+                int producer = (int) element[0];
+                assertEquals(expected[producer], element[1], "producer " + producer);
+                expected[producer]++;
+                received++;
+            }
+            for (Future<?> future : producers) {
+                future.get();
+            }
+            for (long count : expected) {
+                assertEquals(PER_PRODUCER, count);
+            }
+            assertTrue(ring.isEmpty());
+            assertNull(ring.poll());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Очередь: заполненная очередь отклоняет элемент до освобождения места")
+    void rejectsWhenFull() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Очередь: емкость должна быть степенью двойки")
+    void rejectsCapacityNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(6));
+    }
+}
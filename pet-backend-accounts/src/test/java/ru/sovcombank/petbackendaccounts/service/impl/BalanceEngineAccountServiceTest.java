@@ -0,0 +1,32 @@
+package ru.sovcombank.petbackendaccounts.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.sovcombank.petbackendaccounts.exception.BadRequestException;
+import ru.sovcombank.petbackendaccounts.model.enums.AccountResponseMessagesEnum;
+import ru.sovcombank.petbackendaccounts.service.AccountService;
+import ru.sovcombank.petbackendaccounts.service.engine.BalanceEngine;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class BalanceEngineAccountServiceTest {
+
+    @Test
+    @DisplayName("Движок балансов: баланс на момент времени отклоняется, а не считается без операций движка")
+    void getBalanceAtIsRejected() {
+        AccountService accountService = mock(AccountService.class);
+        BalanceEngine balanceEngine = mock(BalanceEngine.class);
+        BalanceEngineAccountService service = new BalanceEngineAccountService(accountService, balanceEngine);
+
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> service.getBalanceAt("4200810666000001", LocalDateTime.now()));
+
+        assertEquals(AccountResponseMessagesEnum.BAD_REQUEST_FOR_AT.getMessage(), ex.getMessage());
+        verifyNoInteractions(accountService, balanceEngine);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.sovcombank.petbackendhistory.mapping;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sovcombank.petbackendhistory.mapping.impl.HistoryToHistoryDTO;
+import ru.sovcombank.petbackendhistory.model.dto.HistoryDTO;
+import ru.sovcombank.petbackendhistory.model.entity.History;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение ModelMapper и сгенерированных MapStruct мапперов на тех же объектах.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private History history;
+
+    private HistoryToHistoryDTO historyToHistoryDTO;
+
+    @Setup
+    public void setUp() {
+        history = new History(UUID.randomUUID(), "4200933666961739", 1, 2, "4200810666632677",
+                new BigDecimal("100.00"), "810", LocalDateTime.of(2024, 1, 1, 12, 0));
+        historyToHistoryDTO = Mappers.getMapper(HistoryToHistoryDTO.class);
+        // Один экземпляр на все замеры, как бин в приложении: карта типов строится при первом вызове на прогреве
+        modelMapper = new ModelMapper();
+    }
+
+    @Benchmark
+    public HistoryDTO modelMapperHistoryToHistoryDTO() {
+        return modelMapper.map(history, HistoryDTO.class);
+    }
+
+    @Benchmark
+    public HistoryDTO generatedHistoryToHistoryDTO() {
+        return historyToHistoryDTO.map(history);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.sovcombank.petbackendhistory.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.config.ContainerCustomizer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Режим виртуальных потоков Java 21, включается свойством virtual-threads.enabled.
+ * <p>
+ * Запросы Tomcat и потребители Kafka выполняются в виртуальных потоках: ожидание базы и сервиса accounts
+ * не занимает поток платформы, число одновременных запросов к базе ограничивает пул Hikari.
+ * Закрепления виртуальных потоков отслеживает {@link VirtualThreadPinningMonitor}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    // Каждый запрос обрабатывается в новом виртуальном потоке вместо пула потоков Tomcat
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+
+    // Цикл опроса каждого потребителя контейнеров @KafkaListener работает в своем виртуальном потоке
+    @Bean
+    public ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>>
+            virtualThreadsListenerContainerCustomizer() {
+        return container -> container.getContainerProperties().setListenerTaskExecutor(
+                new SimpleAsyncTaskExecutor(Thread.ofVirtual().name("kafka-listener-vt-", 0).factory()));
+    }
+}
@@ -1,22 +1,19 @@
 package ru.sovcombank.petbackendhistory.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendhistory.mapping.MapStructConfig;
 import ru.sovcombank.petbackendhistory.mapping.Mapper;
 import ru.sovcombank.petbackendhistory.model.dto.HistoryDTO;
 import ru.sovcombank.petbackendhistory.model.entity.History;
 
-@Component
-public class HistoryToHistoryDTO implements Mapper<History, HistoryDTO> {
-
-    private final ModelMapper modelMapper;
-
-    public HistoryToHistoryDTO(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface HistoryToHistoryDTO extends Mapper<History, HistoryDTO> {
 
+    /**
+     * Преобразует запись истории в DTO перевода.
+     *
+     * @param history Запись истории переводов.
+     * @return DTO перевода.
+     */
     @Override
-    public HistoryDTO map(History history) {
-        return modelMapper.map(history, HistoryDTO.class);
-    }
+    HistoryDTO map(History history);
 }
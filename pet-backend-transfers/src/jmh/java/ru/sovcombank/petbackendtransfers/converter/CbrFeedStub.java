@@ -0,0 +1,54 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import ru.sovcombank.petbackendtransfers.client.DownstreamGuard;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Заглушка ЦБ РФ для бенчмарков: сохраненная копия XML_daily.asp вместо запроса по сети.
+ */
+public final class CbrFeedStub {
+
+    private static final String FEED = "/cbr/XML_daily.xml";
+
+    private static final String CBR_URL = "https://www.cbr.ru/scripts/XML_daily.asp";
+
+    private CbrFeedStub() {
+    }
+
+    public static byte[] readFeed() throws IOException {
+        try (InputStream inputStream = CbrFeedStub.class.getResourceAsStream(FEED)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Feed copy not found: " + FEED);
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+
+    // Конвертер с таблицей курсов, загруженной из копии через ту же загрузку, что и по расписанию
+    public static CurrencyConverter createCurrencyConverter() throws IOException {
+        CurrencyConverter currencyConverter = new CurrencyConverter(restTemplate(readFeed()), new CbrRatesParser(),
+                new DownstreamGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults()), CBR_URL);
+        currencyConverter.refreshRates();
+        if (currencyConverter.getLoadedAt() == null) {
+            throw new IllegalStateException("Exchange rates were not loaded from the feed copy");
+        }
+        return currencyConverter;
+    }
+
+    // RestTemplate, который на любой GET отвечает копией ленты курсов
+    public static RestTemplate restTemplate(byte[] xml) {
+        return new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> getForEntity(String url, Class<T> responseType, Object... uriVariables) {
+                return (ResponseEntity<T>) ResponseEntity.ok(xml);
+            }
+        };
+    }
+}
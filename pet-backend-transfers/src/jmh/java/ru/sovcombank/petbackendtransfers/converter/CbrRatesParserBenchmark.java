@@ -0,0 +1,63 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение DOM- и StAX-разбора ежедневных курсов ЦБ РФ на сохраненной копии XML_daily.asp.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CbrRatesParserBenchmark {
+
+    private static final String FEED = "/cbr/XML_daily.xml";
+
+    private byte[] xml;
+
+    private CbrRatesParser cbrRatesParser;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream inputStream = CbrRatesParserBenchmark.class.getResourceAsStream(FEED)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Feed copy not found: " + FEED);
+            }
+            xml = inputStream.readAllBytes();
+        }
+        cbrRatesParser = new CbrRatesParser();
+    }
+
+    // Прежний путь перевода между двумя валютами: два разбора DOM на одну конвертацию
+    @Benchmark
+    public double domTwoLookups() throws Exception {
+        return DomCbrRatesParser.parseExchangeRate(xml, "840") / DomCbrRatesParser.parseExchangeRate(xml, "933");
+    }
+
+    @Benchmark
+    public ExchangeRateTable domFullTable() throws Exception {
+        return DomCbrRatesParser.parseTable(xml);
+    }
+
+    @Benchmark
+    public ExchangeRateTable staxFullTable() {
+        return cbrRatesParser.parse(new ByteArrayInputStream(xml));
+    }
+}
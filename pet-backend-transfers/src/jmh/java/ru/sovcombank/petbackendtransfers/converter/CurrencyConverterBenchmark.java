@@ -0,0 +1,48 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение курса из загруженной таблицы на пути перевода и обновление таблицы по расписанию:
+ * ответ ЦБ РФ берется из заглушки, замеряется разбор ленты и подмена таблицы.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyConverterBenchmark {
+
+    private CurrencyConverter currencyConverter;
+
+    @Setup
+    public void setUp() throws IOException {
+        currencyConverter = CbrFeedStub.createCurrencyConverter();
+    }
+
+    @Benchmark
+    public double getCurrentRate() {
+        return currencyConverter.getCurrentRate("840");
+    }
+
+    @Benchmark
+    public Instant refreshRates() {
+        currencyConverter.refreshRates();
+        return currencyConverter.getLoadedAt();
+    }
+}
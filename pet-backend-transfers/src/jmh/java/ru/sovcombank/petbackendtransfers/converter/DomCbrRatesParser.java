@@ -0,0 +1,58 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+
+/**
+ * Прежний DOM-разбор ответа ЦБ РФ, сохраненный как базовая линия для бенчмарков.
+ */
+public final class DomCbrRatesParser {
+
+    private DomCbrRatesParser() {
+    }
+
+    // Разбор на каждый вызов и поиск одной валюты, как в CurrencyConverter до кэширования курсов
+    public static double parseExchangeRate(byte[] xml, String currencyCode) throws Exception {
+        Document document = parseDocument(xml);
+        NodeList valuteList = document.getElementsByTagName("Valute");
+
+        for (int i = 0; i < valuteList.getLength(); ++i) {
+            Element valuteElement = (Element) valuteList.item(i);
+            String code = valuteElement.getElementsByTagName("NumCode").item(0).getTextContent();
+
+            if (code.equals(currencyCode)) {
+                String value = valuteElement.getElementsByTagName("Value").item(0).getTextContent();
+                return Double.parseDouble(value.replace(',', '.'));
+            }
+        }
+        throw new IllegalArgumentException(currencyCode);
+    }
+
+    // Разбор всей таблицы через DOM
+    public static ExchangeRateTable parseTable(byte[] xml) throws Exception {
+        Document document = parseDocument(xml);
+        NodeList valuteList = document.getElementsByTagName("Valute");
+        double[] rates = ExchangeRateTable.emptyRates();
+
+        for (int i = 0; i < valuteList.getLength(); ++i) {
+            Element valuteElement = (Element) valuteList.item(i);
+            int code = ExchangeRateTable.toNumCode(
+                    valuteElement.getElementsByTagName("NumCode").item(0).getTextContent());
+            int nominal = Integer.parseInt(valuteElement.getElementsByTagName("Nominal").item(0).getTextContent());
+            String value = valuteElement.getElementsByTagName("Value").item(0).getTextContent();
+            rates[code] = Double.parseDouble(value.replace(',', '.')) / nominal;
+        }
+        return new ExchangeRateTable(rates, null);
+    }
+
+    private static Document parseDocument(byte[] xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        return builder.parse(new ByteArrayInputStream(xml));
+    }
+}
@@ -0,0 +1,163 @@
+package ru.sovcombank.petbackendtransfers.mapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.sovcombank.petbackendtransfers.builder.RequestBuilder;
+import ru.sovcombank.petbackendtransfers.builder.TransferOutboxBuilder;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountsResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+import ru.sovcombank.petbackendtransfers.model.entity.TransferOutbox;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразования на пути перевода: чтение тела запроса, чтение ответов accounts,
+ * сборка запроса на перевод между счетами и запись события TransferDTO в transfer_outbox.
+ * Для ответов accounts оставлен прежний путь через LinkedHashMap и ModelMapper для сравнения.
+ * ObjectMapper настраивается так же, как в приложении.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMappingBenchmark {
+
+    private static final String MAKE_TRANSFER_BY_ACCOUNT_REQUEST = """
+            {"clientId": "1", "requestType": "ACCOUNT", "accountNumberFrom": "4200933666961739",
+             "accountNumberTo": "4200810666632677", "amount": 100.00, "cur": "810"}""";
+
+    private static final String MAKE_TRANSFER_BY_PHONE_REQUEST = """
+            {"clientId": "1", "requestType": "PHONE", "phoneNumberFrom": "79991234567",
+             "phoneNumberTo": "79997654321", "amount": 100.00, "cur": "810"}""";
+
+    // Ответ accounts в том виде, в котором его сериализует accounts
+    private static final String GET_ACCOUNT_RESPONSE = """
+            {"id": 1, "accountNumber": "4200933666961739", "clientId": "1", "cur": "810", "balance": 1000.00,
+             "createDateTime": "2024-01-01T12:00:00", "main": true, "closed": false}""";
+
+    private static final String GET_ACCOUNTS_RESPONSE = """
+            {"clientId": 1, "accountNumbers": [
+             {"accountNumber": "4200810666632677", "cur": "810", "isMain": false},
+             {"accountNumber": "4200840666632678", "cur": "840", "isMain": false},
+             {"accountNumber": "4200933666961739", "cur": "933", "isMain": true}]}""";
+
+    private ObjectMapper objectMapper;
+
+    private ModelMapper modelMapper;
+
+    private ObjectReader makeTransferRequestReader;
+
+    private ObjectReader getAccountResponseReader;
+
+    private ObjectReader getAccountsResponseReader;
+
+    private RequestBuilder requestBuilder;
+
+    private TransferOutboxBuilder transferOutboxBuilder;
+
+    private byte[] makeTransferByAccountRequest;
+
+    private byte[] makeTransferByPhoneRequest;
+
+    private byte[] getAccountResponse;
+
+    private byte[] getAccountsResponse;
+
+    private TransferContext transferContext;
+
+    private TransferDTO transferDTO;
+
+    private TransferOutbox transferOutbox;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        modelMapper = new ModelMapper();
+        makeTransferRequestReader = objectMapper.readerFor(MakeTransferRequest.class);
+        getAccountResponseReader = objectMapper.readerFor(GetAccountResponse.class);
+        getAccountsResponseReader = objectMapper.readerFor(GetAccountsResponse.class);
+        requestBuilder = new RequestBuilder();
+        transferOutboxBuilder = new TransferOutboxBuilder(objectMapper);
+
+        makeTransferByAccountRequest = MAKE_TRANSFER_BY_ACCOUNT_REQUEST.getBytes(StandardCharsets.UTF_8);
+        makeTransferByPhoneRequest = MAKE_TRANSFER_BY_PHONE_REQUEST.getBytes(StandardCharsets.UTF_8);
+        getAccountResponse = GET_ACCOUNT_RESPONSE.getBytes(StandardCharsets.UTF_8);
+        getAccountsResponse = GET_ACCOUNTS_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+        GetAccountResponse accountFrom = new GetAccountResponse("4200933666961739", 1, "810",
+                new BigDecimal("1000.00"), true, false);
+        GetAccountResponse accountTo = new GetAccountResponse("4200810666632677", 2, "810",
+                new BigDecimal("500.00"), true, false);
+        transferContext = new TransferContext(accountFrom.getAccountNumber(), accountTo.getAccountNumber(),
+                accountFrom, accountTo, new BigDecimal("100.00"), "810");
+        transferDTO = new TransferDTO(UUID.randomUUID(), 1, 2, accountFrom.getAccountNumber(),
+                accountTo.getAccountNumber(), new BigDecimal("100.00"), "810", LocalDateTime.of(2024, 1, 1, 12, 0));
+        transferOutbox = transferOutboxBuilder.createTransferOutboxObject(transferDTO);
+    }
+
+    @Benchmark
+    public MakeTransferRequest readMakeTransferByAccountRequest() throws IOException {
+        return makeTransferRequestReader.readValue(makeTransferByAccountRequest);
+    }
+
+    @Benchmark
+    public MakeTransferRequest readMakeTransferByPhoneRequest() throws IOException {
+        return makeTransferRequestReader.readValue(makeTransferByPhoneRequest);
+    }
+
+    @Benchmark
+    public GetAccountResponse readGetAccountResponse() throws IOException {
+        return getAccountResponseReader.readValue(getAccountResponse);
+    }
+
+    // Прежний путь: тело читается в LinkedHashMap, затем ModelMapper копирует его в объект
+    @Benchmark
+    public GetAccountResponse readGetAccountResponseViaMap() throws IOException {
+        return modelMapper.map(objectMapper.readValue(getAccountResponse, Object.class), GetAccountResponse.class);
+    }
+
+    @Benchmark
+    public GetAccountsResponse readGetAccountsResponse() throws IOException {
+        return getAccountsResponseReader.readValue(getAccountsResponse);
+    }
+
+    @Benchmark
+    public TransferBalanceRequest createTransferBalanceRequest() {
+        return requestBuilder.createTransferBalanceRequest(transferContext, new BigDecimal("100.00"),
+                UUID.randomUUID());
+    }
+
+    @Benchmark
+    public TransferOutbox writeTransferDTO() {
+        return transferOutboxBuilder.createTransferOutboxObject(transferDTO);
+    }
+
+    @Benchmark
+    public TransferDTO readTransferDTO() throws IOException {
+        return transferOutboxBuilder.readTransferDTO(transferOutbox);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.sovcombank.petbackendtransfers.mapping;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sovcombank.petbackendtransfers.mapping.impl.TransferToGetTransferResponse;
+import ru.sovcombank.petbackendtransfers.mapping.impl.TransferToTransferDTO;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение ModelMapper и сгенерированных MapStruct мапперов на тех же объектах.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private Transfer transfer;
+
+    private TransferToGetTransferResponse transferToGetTransferResponse;
+
+    private TransferToTransferDTO transferToTransferDTO;
+
+    @Setup
+    public void setUp() {
+        transfer = new Transfer(UUID.randomUUID(), "4200933666961739", "4200810666632677",
+                new BigDecimal("100.00"), "810", LocalDateTime.of(2024, 1, 1, 12, 0));
+        transferToGetTransferResponse = Mappers.getMapper(TransferToGetTransferResponse.class);
+        transferToTransferDTO = Mappers.getMapper(TransferToTransferDTO.class);
+        // Один экземпляр на все замеры, как бин в приложении: карта типов строится при первом вызове на прогреве
+        modelMapper = new ModelMapper();
+    }
+
+    @Benchmark
+    public GetTransferResponse modelMapperTransferToGetTransferResponse() {
+        return modelMapper.map(transfer, GetTransferResponse.class);
+    }
+
+    @Benchmark
+    public GetTransferResponse generatedTransferToGetTransferResponse() {
+        return transferToGetTransferResponse.map(transfer);
+    }
+
+    @Benchmark
+    public TransferDTO modelMapperTransferToTransferDTO() {
+        return modelMapper.map(transfer, TransferDTO.class);
+    }
+
+    @Benchmark
+    public TransferDTO generatedTransferToTransferDTO() {
+        return transferToTransferDTO.map(transfer);
+    }
+}
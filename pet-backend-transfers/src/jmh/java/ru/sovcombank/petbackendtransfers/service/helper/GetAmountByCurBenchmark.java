@@ -0,0 +1,61 @@
+package ru.sovcombank.petbackendtransfers.service.helper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sovcombank.petbackendtransfers.converter.CbrFeedStub;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчет суммы зачисления по всем ветвям конвертации: RUB - RUB, RUB - валюта, валюта - RUB, валюта - валюта.
+ * Курсы загружаются из копии XML_daily.asp через заглушку ЦБ РФ.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetAmountByCurBenchmark {
+
+    // Валюта отправителя - валюта получателя
+    @Param({"810-810", "810-840", "840-810", "840-933"})
+    private String curPair;
+
+    private GetAmountByCurServiceHelper getAmountByCurServiceHelper;
+
+    private String curFrom;
+
+    private BigDecimal amount;
+
+    private GetAccountResponse getAccountToResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        getAmountByCurServiceHelper = new GetAmountByCurServiceHelper(CbrFeedStub.createCurrencyConverter());
+
+        String[] curs = curPair.split("-");
+        curFrom = curs[0];
+        amount = new BigDecimal("1234.56");
+        getAccountToResponse = new GetAccountResponse("4200810666632677", 2, curs[1], new BigDecimal("1000.00"),
+                true, false);
+    }
+
+    @Benchmark
+    public BigDecimal getAmountByCur() {
+        return getAmountByCurServiceHelper.getAmountByCur(curFrom, amount, getAccountToResponse);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.sovcombank.petbackendtransfers.service.helper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sovcombank.petbackendtransfers.model.dto.AccountDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск основного счета клиента в списке счетов из accounts.
+ * Основной счет стоит последним, чтобы замерить полный проход по списку.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetMainAccountBenchmark {
+
+    // accounts открывает клиенту не больше двух счетов в каждой из трех валют
+    @Param({"1", "6"})
+    private int accountCount;
+
+    private GetMainAccountServiceHelper getMainAccountServiceHelper;
+
+    private List<AccountDTO> accountList;
+
+    @Setup
+    public void setUp() {
+        getMainAccountServiceHelper = new GetMainAccountServiceHelper();
+        accountList = new ArrayList<>();
+        for (int i = 1; i <= accountCount; i++) {
+            accountList.add(new AccountDTO(String.format("4200810%09d", i), "810", i == accountCount));
+        }
+    }
+
+    @Benchmark
+    public String getMainAccount() {
+        return getMainAccountServiceHelper.getMainAccount(accountList);
+    }
+}
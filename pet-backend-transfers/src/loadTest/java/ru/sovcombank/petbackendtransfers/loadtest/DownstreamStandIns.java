@@ -0,0 +1,208 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Заглушки сервисов users и accounts и ленты курсов ЦБ РФ для нагрузочного теста.
+ * <p>
+ * Заглушки отвечают в формате настоящих сервисов для clients клиентов с номерами от 1 до clients.
+ * У каждого клиента активная учетная запись, по одному счету в каждой валюте (основной счет в рублях)
+ * и баланс, которого хватает на любой перевод теста. Неизвестный клиент или счет получает 404.
+ */
+final class DownstreamStandIns implements AutoCloseable {
+
+    static final List<String> CURRENCIES = List.of("810", "840", "933");
+
+    static final String MAIN_ACCOUNT_CUR = "810";
+
+    private static final String CBR_FEED = "/cbr/XML_daily.xml";
+
+    private static final BigDecimal BALANCE = new BigDecimal("1000000000.00");
+
+    private final ObjectMapper objectMapper;
+
+    private final int clients;
+
+    private final StandInServer users;
+
+    private final StandInServer accounts;
+
+    private final StandInServer cbr;
+
+    private DownstreamStandIns(ObjectMapper objectMapper, LoadTestSettings settings) throws IOException {
+        this.objectMapper = objectMapper;
+        this.clients = settings.clients();
+        this.users = new StandInServer("users", settings.usersLatency(), settings.latencyJitter());
+        this.accounts = new StandInServer("accounts", settings.accountsLatency(), settings.latencyJitter());
+        this.cbr = new StandInServer("cbr", Duration.ZERO, Duration.ZERO);
+    }
+
+    static DownstreamStandIns start(ObjectMapper objectMapper, LoadTestSettings settings) throws IOException {
+        DownstreamStandIns standIns = new DownstreamStandIns(objectMapper, settings);
+        standIns.registerRoutes(readCbrFeed());
+        standIns.users.start();
+        standIns.accounts.start();
+        standIns.cbr.start();
+        return standIns;
+    }
+
+    static String phoneNumber(int clientId) {
+        return String.format("7900%07d", clientId);
+    }
+
+    static String accountNumber(int clientId, String cur) {
+        return String.format("4200%s%09d", cur, clientId);
+    }
+
+    String getUserServiceUrl() {
+        return users.getUrl();
+    }
+
+    String getAccountServiceUrl() {
+        return accounts.getUrl();
+    }
+
+    String getCbrUrl() {
+        return cbr.getUrl() + "/scripts/XML_daily.asp";
+    }
+
+    @Override
+    public void close() {
+        users.close();
+        accounts.close();
+        cbr.close();
+    }
+
+    private void registerRoutes(byte[] cbrFeed) {
+        users.route("/users/phone-number/", (method, phoneNumber, body) ->
+                user(phoneNumber.startsWith("7900") ? parseClientId(phoneNumber.substring(4)) : 0));
+        users.route("/users/", (method, clientId, body) -> user(parseClientId(clientId)));
+
+        accounts.route("/accounts/account/", (method, accountNumber, body) -> account(accountNumber));
+        accounts.route("/accounts/balance/", (method, accountNumber, body) -> balance(accountNumber));
+        accounts.route("/accounts/transfers", (method, path, body) -> transferBalance(body));
+        accounts.route("/accounts/", (method, clientId, body) -> accounts(parseClientId(clientId)));
+
+        cbr.route("/scripts/XML_daily.asp", (method, path, body) -> StandInServer.Response.xml(cbrFeed));
+    }
+
+    private StandInServer.Response user(int clientId) {
+        if (!isKnownClient(clientId)) {
+            return StandInServer.Response.status(404);
+        }
+        ObjectNode user = objectMapper.createObjectNode()
+                .put("id", clientId)
+                .put("phoneNumber", phoneNumber(clientId))
+                .put("isActive", true)
+                .put("isDeleted", false);
+        return json(user);
+    }
+
+    private StandInServer.Response accounts(int clientId) {
+        if (!isKnownClient(clientId)) {
+            return StandInServer.Response.status(404);
+        }
+        ObjectNode response = objectMapper.createObjectNode().put("clientId", clientId);
+        ArrayNode accountNumbers = response.putArray("accountNumbers");
+        for (String cur : CURRENCIES) {
+            accountNumbers.addObject()
+                    .put("accountNumber", accountNumber(clientId, cur))
+                    .put("cur", cur)
+                    .put("isMain", cur.equals(MAIN_ACCOUNT_CUR));
+        }
+        return json(response);
+    }
+
+    private StandInServer.Response account(String accountNumber) {
+        String cur = getCur(accountNumber);
+        if (cur == null) {
+            return StandInServer.Response.status(404);
+        }
+        ObjectNode account = objectMapper.createObjectNode()
+                .put("accountNumber", accountNumber)
+                .put("clientId", String.valueOf(parseClientId(accountNumber.substring(7))))
+                .put("cur", cur)
+                .put("balance", BALANCE)
+                .put("main", cur.equals(MAIN_ACCOUNT_CUR))
+                .put("closed", false);
+        return json(account);
+    }
+
+    private StandInServer.Response balance(String accountNumber) {
+        if (getCur(accountNumber) == null) {
+            return StandInServer.Response.status(404);
+        }
+        return json(objectMapper.createObjectNode().put("balance", BALANCE));
+    }
+
+    private StandInServer.Response transferBalance(byte[] body) {
+        JsonNode request = readTree(body);
+        String accountNumberFrom = request.path("accountNumberFrom").asText();
+        String accountNumberTo = request.path("accountNumberTo").asText();
+        if (getCur(accountNumberFrom) == null || getCur(accountNumberTo) == null) {
+            return StandInServer.Response.status(404);
+        }
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("accountNumberFrom", accountNumberFrom)
+                .put("balanceFrom", BALANCE)
+                .put("accountNumberTo", accountNumberTo)
+                .put("balanceTo", BALANCE);
+        return json(response);
+    }
+
+    // Валюта счета из его номера или null, если счет не принадлежит ни одному клиенту заглушки
+    private String getCur(String accountNumber) {
+        if (accountNumber.length() != 16 || !accountNumber.startsWith("4200")) {
+            return null;
+        }
+        String cur = accountNumber.substring(4, 7);
+        return CURRENCIES.contains(cur) && isKnownClient(parseClientId(accountNumber.substring(7))) ? cur : null;
+    }
+
+    private boolean isKnownClient(int clientId) {
+        return clientId >= 1 && clientId <= clients;
+    }
+
+    private static int parseClientId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private StandInServer.Response json(JsonNode body) {
+        try {
+            return StandInServer.Response.json(objectMapper.writeValueAsBytes(body));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private JsonNode readTree(byte[] body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] readCbrFeed() throws IOException {
+        try (InputStream inputStream = DownstreamStandIns.class.getResourceAsStream(CBR_FEED)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Feed copy not found: " + CBR_FEED);
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+}
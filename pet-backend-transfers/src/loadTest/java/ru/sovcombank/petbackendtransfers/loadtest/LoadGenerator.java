@@ -0,0 +1,154 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Подает запросы на перевод с заданной частотой независимо от времени ответа сервиса (открытая модель нагрузки).
+ * <p>
+ * Моменты отправки планируются заранее с равным интервалом, и время ответа отсчитывается от запланированного
+ * момента: если сервис не успевает и отправка запаздывает, задержка попадает в замер, а не скрывается
+ * уменьшением частоты. Каждый запрос получает свой ключ идемпотентности, как у настоящих клиентов.
+ */
+final class LoadGenerator {
+
+    private static final String ACCOUNT = "ACCOUNT";
+
+    private static final String PHONE = "PHONE";
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    private final HttpClient httpClient;
+
+    private final URI transfersUri;
+
+    private final ObjectMapper objectMapper;
+
+    private final LoadTestSettings settings;
+
+    LoadGenerator(HttpClient httpClient, URI transfersUri, ObjectMapper objectMapper, LoadTestSettings settings) {
+        this.httpClient = httpClient;
+        this.transfersUri = transfersUri;
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+    }
+
+    /**
+     * Выполняет ступень нагрузки и дожидается ответов на все отправленные запросы.
+     *
+     * @param rps      Запросов в секунду.
+     * @param duration Длительность ступени.
+     * @return Результаты запросов ступени.
+     * @throws InterruptedException Если ожидание ответов прервано.
+     */
+    StageResult run(int rps, Duration duration) throws InterruptedException {
+        StageRecorder recorder = new StageRecorder(rps);
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + duration.toNanos();
+
+        for (long scheduledNanos = startNanos; scheduledNanos < endNanos; scheduledNanos += intervalNanos) {
+            long waitNanos = scheduledNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            String requestType = ThreadLocalRandom.current().nextDouble() < settings.phoneShare() ? PHONE : ACCOUNT;
+            if (!inFlight.tryAcquire()) {
+                recorder.recordError(requestType, StageRecorder.DROPPED);
+                continue;
+            }
+            send(requestType, scheduledNanos, recorder, inFlight);
+        }
+
+        // Ответ на каждый запрос приходит не позже requestTimeout, дальше ждать незачем
+        if (inFlight.tryAcquire(settings.maxInFlight(), settings.requestTimeout().toNanos() * 2, TimeUnit.NANOSECONDS)) {
+            inFlight.release(settings.maxInFlight());
+        }
+        return new StageResult(recorder, System.nanoTime() - startNanos);
+    }
+
+    private void send(String requestType, long scheduledNanos, StageRecorder recorder, Semaphore inFlight) {
+        HttpRequest request = HttpRequest.newBuilder(transfersUri)
+                .timeout(settings.requestTimeout())
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(createBody(requestType)))
+                .build();
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, exception) -> {
+                    long latencyNanos = System.nanoTime() - scheduledNanos;
+                    inFlight.release();
+                    if (exception != null) {
+                        recorder.recordError(requestType, getError(exception));
+                    } else if (response.statusCode() == 200) {
+                        recorder.recordSuccess(requestType, latencyNanos);
+                    } else {
+                        recorder.recordError(requestType, String.valueOf(response.statusCode()));
+                    }
+                });
+    }
+
+    // Отправитель и получатель выбираются случайно среди разных клиентов заглушек
+    private byte[] createBody(String requestType) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int clientFrom = random.nextInt(1, settings.clients() + 1);
+        int clientTo = clientFrom % settings.clients() + 1;
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("clientId", clientFrom);
+        body.put("requestType", requestType);
+        if (requestType.equals(PHONE)) {
+            // Перевод по телефону идет с основного счета на основной счет, оба в рублях
+            body.put("phoneNumberFrom", DownstreamStandIns.phoneNumber(clientFrom));
+            body.put("phoneNumberTo", DownstreamStandIns.phoneNumber(clientTo));
+            body.put("cur", DownstreamStandIns.MAIN_ACCOUNT_CUR);
+        } else {
+            String curFrom = randomCur(random);
+            body.put("accountNumberFrom", DownstreamStandIns.accountNumber(clientFrom, curFrom));
+            body.put("accountNumberTo", DownstreamStandIns.accountNumber(clientTo, randomCur(random)));
+            body.put("cur", curFrom);
+        }
+        body.put("amount", AMOUNT);
+
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String randomCur(ThreadLocalRandom random) {
+        return DownstreamStandIns.CURRENCIES.get(random.nextInt(DownstreamStandIns.CURRENCIES.size()));
+    }
+
+    private static String getError(Throwable exception) {
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause()
+                : exception;
+        return cause instanceof HttpTimeoutException ? StageRecorder.TIMEOUT : StageRecorder.IO_ERROR;
+    }
+
+    /**
+     * Результаты ступени и ее фактическая длительность вместе с ожиданием последних ответов.
+     */
+    record StageResult(StageRecorder recorder, long elapsedNanos) {
+    }
+}
@@ -0,0 +1,63 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Отчет нагрузочного теста: настройки, результаты ступеней и выдержанная нагрузка на один экземпляр сервиса.
+ *
+ * @param settings     Настройки теста.
+ * @param stages       Результаты ступеней в порядке выполнения.
+ * @param sustainedRps Наибольшая нагрузка среди ступеней, уложившихся в maxErrorRate и p99Slo, или 0.
+ */
+record LoadTestReport(LoadTestSettings settings, List<StageReport> stages, int sustainedRps) {
+
+    static final String JSON_REPORT = "load-test-report.json";
+
+    static final String SUMMARY = "summary.txt";
+
+    static LoadTestReport of(LoadTestSettings settings, List<StageReport> stages) {
+        int sustainedRps = stages.stream()
+                .filter(stage -> stage.isSustained(settings))
+                .mapToInt(StageReport::targetRps)
+                .max()
+                .orElse(0);
+        return new LoadTestReport(settings, stages, sustainedRps);
+    }
+
+    /**
+     * Записывает отчет в JSON для сравнения между релизами и краткую таблицу для чтения.
+     *
+     * @param objectMapper ObjectMapper для записи JSON.
+     * @throws IOException Если отчет не удалось записать.
+     */
+    void write(ObjectMapper objectMapper) throws IOException {
+        Path reportDir = settings.reportDir();
+        Files.createDirectories(reportDir);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportDir.resolve(JSON_REPORT).toFile(), this);
+        Files.writeString(reportDir.resolve(SUMMARY), toSummary());
+    }
+
+    String toSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "%10s %12s %10s %10s %10s %10s %10s %10s %10s%n",
+                "rps", "achieved", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "outbox"));
+        for (StageReport stage : stages) {
+            summary.append(String.format(Locale.ROOT, "%10d %12.1f %9.2f%% %10.1f %10.1f %10.1f %10.1f %10.1f %10d%n",
+                    stage.targetRps(), stage.achievedRps(), stage.errorRate() * 100,
+                    stage.latency().p50(), stage.latency().p90(), stage.latency().p99(),
+                    stage.latency().p999(), stage.latency().max(), stage.outboxPending()));
+            if (!stage.errors().isEmpty()) {
+                summary.append(String.format("%10s errors: %s%n", "", stage.errors()));
+            }
+        }
+        summary.append(String.format(Locale.ROOT, "Sustained (%s): %d rps (error rate <= %.2f%%, p99 <= %d ms)%n",
+                settings.profile(), sustainedRps, settings.maxErrorRate() * 100, settings.p99Slo().toMillis()));
+        return summary.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Настройки нагрузочного теста. Задаются системными свойствами loadtest.*,
+ * задача loadTest передает их из свойств Gradle: ./gradlew loadTest -Ploadtest.rps=100,200,400
+ *
+ * @param rps             Ступени нагрузки: запросов на перевод в секунду, ступени выполняются по очереди.
+ * @param stageDuration   Длительность каждой ступени.
+ * @param warmup          Прогрев на первой ступени перед замерами, его результаты не учитываются.
+ * @param phoneShare      Доля переводов по номеру телефона, остальные переводы выполняются по номеру счета.
+ * @param clients         Количество клиентов в заглушках users и accounts.
+ * @param usersLatency    Задержка ответа заглушки users.
+ * @param accountsLatency Задержка ответа заглушки accounts.
+ * @param latencyJitter   Случайная добавка к задержке заглушек, от нуля до указанного значения.
+ * @param requestTimeout  Срок ожидания ответа сервиса переводов, после него запрос считается ошибкой.
+ * @param maxInFlight     Максимум запросов без ответа: сверх него запросы не отправляются и считаются ошибкой.
+ * @param maxErrorRate    Допустимая доля ошибок на ступени.
+ * @param p99Slo          Допустимый 99-й перцентиль времени ответа на ступени.
+ * @param minRps          Минимальная выдерживаемая нагрузка, при меньшей тест завершается ошибкой.
+ * @param reportDir       Каталог для отчета.
+ * @param profile         Вариант сервиса под нагрузкой: servlet или reactive, задача loadTest
+ *                        включает одноименный профиль Spring для reactive.
+ */
+public record LoadTestSettings(List<Integer> rps,
+                               Duration stageDuration,
+                               Duration warmup,
+                               double phoneShare,
+                               int clients,
+                               Duration usersLatency,
+                               Duration accountsLatency,
+                               Duration latencyJitter,
+                               Duration requestTimeout,
+                               int maxInFlight,
+                               double maxErrorRate,
+                               Duration p99Slo,
+                               int minRps,
+                               Path reportDir,
+                               String profile) {
+
+    private static final String PREFIX = "loadtest.";
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Arrays.stream(property("rps", "50,100,200").split(","))
+                        .map(String::trim)
+                        .map(Integer::valueOf)
+                        .toList(),
+                Duration.parse(property("stage-duration", "PT30S")),
+                Duration.parse(property("warmup", "PT15S")),
+                Double.parseDouble(property("phone-share", "0.3")),
+                Integer.parseInt(property("clients", "1000")),
+                Duration.parse(property("users-latency", "PT0.005S")),
+                Duration.parse(property("accounts-latency", "PT0.01S")),
+                Duration.parse(property("latency-jitter", "PT0.005S")),
+                Duration.parse(property("request-timeout", "PT5S")),
+                Integer.parseInt(property("max-in-flight", "2000")),
+                Double.parseDouble(property("max-error-rate", "0.01")),
+                Duration.parse(property("p99-slo", "PT0.5S")),
+                Integer.parseInt(property("min-rps", "0")),
+                Path.of(property("report-dir", "build/reports/load-test")),
+                property("profile", "servlet"));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Результаты запросов одной ступени нагрузки. Запросы завершаются в потоках HTTP-клиента,
+ * поэтому все счетчики потокобезопасны.
+ * Перцентили считаются только по успешным ответам, ошибки учитываются отдельно по причинам.
+ */
+final class StageRecorder {
+
+    static final String TIMEOUT = "timeout";
+
+    static final String IO_ERROR = "io-error";
+
+    static final String DROPPED = "dropped";
+
+    private final int targetRps;
+
+    private final LatencyRecorder latency = new LatencyRecorder();
+
+    private final ConcurrentMap<String, RequestTypeRecorder> requestTypes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    StageRecorder(int targetRps) {
+        this.targetRps = targetRps;
+    }
+
+    void recordSuccess(String requestType, long latencyNanos) {
+        latency.record(latencyNanos);
+        RequestTypeRecorder recorder = requestType(requestType);
+        recorder.sent.increment();
+        recorder.latency.record(latencyNanos);
+    }
+
+    void recordError(String requestType, String error) {
+        requestType(requestType).sent.increment();
+        errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Собирает отчет по ступени.
+     *
+     * @param elapsedNanos  Время от начала ступени до получения ответа на последний запрос.
+     * @param outboxPending Количество событий transfer_outbox, еще не отправленных в Kafka после ступени.
+     * @return Отчет по ступени.
+     */
+    StageReport toReport(long elapsedNanos, long outboxPending) {
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((error, count) -> errorCounts.put(error, count.sum()));
+        Map<String, StageReport.RequestTypeReport> requestTypeReports = new TreeMap<>();
+        requestTypes.forEach((requestType, recorder) -> requestTypeReports.put(requestType, recorder.toReport()));
+
+        LatencyRecorder.LatencySummary latencySummary = latency.summarize();
+        long failed = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+        long sent = latencySummary.count() + failed;
+        double elapsedSeconds = elapsedNanos / 1_000_000_000.0;
+
+        return new StageReport(
+                targetRps,
+                round(elapsedSeconds),
+                sent,
+                latencySummary.count(),
+                round(latencySummary.count() / elapsedSeconds),
+                sent > 0 ? round((double) failed / sent) : 0,
+                errorCounts,
+                latencySummary,
+                requestTypeReports,
+                outboxPending);
+    }
+
+    private RequestTypeRecorder requestType(String requestType) {
+        return requestTypes.computeIfAbsent(requestType, key -> new RequestTypeRecorder());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1_000.0) / 1_000.0;
+    }
+
+    private static final class RequestTypeRecorder {
+
+        private final LongAdder sent = new LongAdder();
+
+        private final LatencyRecorder latency = new LatencyRecorder();
+
+        private StageReport.RequestTypeReport toReport() {
+            return new StageReport.RequestTypeReport(sent.sum(), latency.summarize());
+        }
+    }
+}
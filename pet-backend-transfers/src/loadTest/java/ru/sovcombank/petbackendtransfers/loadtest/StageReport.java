@@ -0,0 +1,37 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import java.util.Map;
+
+/**
+ * Результат одной ступени нагрузки.
+ *
+ * @param targetRps      Заданная нагрузка, запросов в секунду.
+ * @param elapsedSeconds Время от начала ступени до ответа на последний запрос.
+ * @param sent           Количество запросов, включая не отправленные из-за превышения maxInFlight.
+ * @param succeeded      Количество успешных ответов.
+ * @param achievedRps    Успешных ответов в секунду.
+ * @param errorRate      Доля запросов, завершившихся ошибкой.
+ * @param errors         Количество ошибок по причинам: код ответа, timeout, io-error, dropped.
+ * @param latency        Перцентили времени успешного ответа, отсчитанного от запланированного момента отправки.
+ * @param requestTypes   Количество запросов и перцентили по типам перевода.
+ * @param outboxPending  Количество событий, не отправленных в Kafka к концу ступени.
+ */
+record StageReport(int targetRps,
+                   double elapsedSeconds,
+                   long sent,
+                   long succeeded,
+                   double achievedRps,
+                   double errorRate,
+                   Map<String, Long> errors,
+                   LatencyRecorder.LatencySummary latency,
+                   Map<String, RequestTypeReport> requestTypes,
+                   long outboxPending) {
+
+    // Ступень выдержана, если доля ошибок и 99-й перцентиль не превышают допустимых значений
+    boolean isSustained(LoadTestSettings settings) {
+        return errorRate <= settings.maxErrorRate() && latency.p99() <= settings.p99Slo().toNanos() / 1_000_000.0;
+    }
+
+    record RequestTypeReport(long sent, LatencyRecorder.LatencySummary latency) {
+    }
+}
@@ -0,0 +1,141 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Локальный HTTP-сервер, который заменяет соседний сервис с заданной задержкой ответа.
+ * Ответ отправляется по таймеру, а не из спящего потока, поэтому задержка не ограничивает
+ * количество одновременно обрабатываемых запросов.
+ */
+final class StandInServer implements AutoCloseable {
+
+    private static final int BACKLOG = 1024;
+
+    private static final int HANDLER_THREADS = 8;
+
+    private static final int DELAY_THREADS = 2;
+
+    private final HttpServer server;
+
+    private final ExecutorService handlerExecutor;
+
+    private final ScheduledExecutorService delayExecutor;
+
+    private final long latencyNanos;
+
+    private final long jitterNanos;
+
+    StandInServer(String name, Duration latency, Duration jitter) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+        this.handlerExecutor = Executors.newFixedThreadPool(HANDLER_THREADS, daemonThreads(name + "-handler-"));
+        this.delayExecutor = Executors.newScheduledThreadPool(DELAY_THREADS, daemonThreads(name + "-delay-"));
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        server.setExecutor(handlerExecutor);
+    }
+
+    /**
+     * Регистрирует обработчик запросов, путь которых начинается с указанного префикса.
+     * Из нескольких подходящих префиксов выбирается самый длинный.
+     *
+     * @param pathPrefix Префикс пути.
+     * @param handler    Обработчик, получает остаток пути после префикса.
+     */
+    void route(String pathPrefix, Handler handler) {
+        server.createContext(pathPrefix, exchange -> {
+            Response response;
+            try {
+                String pathVariable = exchange.getRequestURI().getPath().substring(pathPrefix.length());
+                response = handler.handle(exchange.getRequestMethod(), pathVariable,
+                        exchange.getRequestBody().readAllBytes());
+            } catch (RuntimeException ex) {
+                response = Response.status(500);
+            }
+            respondWithDelay(exchange, response);
+        });
+    }
+
+    void start() {
+        server.start();
+    }
+
+    String getUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        delayExecutor.shutdownNow();
+        handlerExecutor.shutdownNow();
+    }
+
+    private void respondWithDelay(HttpExchange exchange, Response response) {
+        long delayNanos = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+        if (delayNanos == 0) {
+            respond(exchange, response);
+        } else {
+            delayExecutor.schedule(() -> respond(exchange, response), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void respond(HttpExchange exchange, Response response) {
+        try (exchange) {
+            byte[] body = response.body();
+            exchange.getResponseHeaders().set("Content-Type", response.contentType());
+            exchange.sendResponseHeaders(response.status(), body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            }
+        } catch (IOException ex) {
+            // Клиент закрыл соединение, не дождавшись ответа: для сервиса переводов это таймаут чтения
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    interface Handler {
+
+        Response handle(String method, String pathVariable, byte[] body);
+    }
+
+    record Response(int status, String contentType, byte[] body) {
+
+        static Response json(byte[] body) {
+            return new Response(200, "application/json", body);
+        }
+
+        static Response xml(byte[] body) {
+            return new Response(200, "application/xml", body);
+        }
+
+        static Response status(int status) {
+            return new Response(status, "application/json", new byte[0]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ru.sovcombank.petbackendtransfers.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный тест сервиса переводов: настоящие Postgres и Kafka в Testcontainers,
+ * заглушки users и accounts с заданной задержкой ответа.
+ * Запускается отдельно от обычных тестов: ./gradlew loadTest, настройки описаны в {@link LoadTestSettings}.
+ */
+@Testcontainers
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        // Вывод каждого SQL-запроса в консоль сборки ограничивал бы пропускную способность теста, а не сервиса
+        properties = "spring.jpa.show-sql=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class TransferLoadTest {
+
+    private static final String BASE_HOST = "http://localhost:";
+
+    private static final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Container
+    private static final KafkaContainer kafkaContainer =
+            new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.4.0"));
+
+    private static DownstreamStandIns standIns;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    static void startStandIns() throws IOException {
+        standIns = DownstreamStandIns.start(new ObjectMapper(), settings);
+    }
+
+    @AfterAll
+    static void stopStandIns() {
+        standIns.close();
+    }
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        // Используется только в профиле reactive
+        registry.add("spring.r2dbc.url", () -> postgresContainer.getJdbcUrl().replace("jdbc:", "r2dbc:"));
+        registry.add("spring.kafka.bootstrap-servers", kafkaContainer::getBootstrapServers);
+        registry.add("user-service.url", () -> standIns.getUserServiceUrl());
+        registry.add("account-service.url", () -> standIns.getAccountServiceUrl());
+        registry.add("cbr.rates.url", () -> standIns.getCbrUrl());
+    }
+
+    @Test
+    @DisplayName("Переводы по номеру счета и по номеру телефона под ступенчатой нагрузкой")
+    void makeTransfersUnderLoad() throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.requestTimeout())
+                .build();
+        LoadGenerator loadGenerator = new LoadGenerator(
+                httpClient, URI.create(BASE_HOST + port + "/transfers"), objectMapper, settings);
+
+        if (!settings.warmup().isZero()) {
+            loadGenerator.run(settings.rps().get(0), settings.warmup());
+        }
+
+        List<StageReport> stages = new ArrayList<>();
+        for (int rps : settings.rps()) {
+            LoadGenerator.StageResult result = loadGenerator.run(rps, settings.stageDuration());
+            stages.add(result.recorder().toReport(result.elapsedNanos(), countPendingOutbox()));
+        }
+
+        LoadTestReport report = LoadTestReport.of(settings, stages);
+        report.write(objectMapper);
+
+        assertTrue(report.sustainedRps() >= settings.minRps(),
+                "Sustained " + report.sustainedRps() + " rps, required " + settings.minRps() + " rps\n"
+                        + report.toSummary());
+    }
+
+    private long countPendingOutbox() {
+        Long pending = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM transfer_outbox WHERE sent_date_time IS NULL", Long.class);
+        return pending != null ? pending : 0;
+    }
+}
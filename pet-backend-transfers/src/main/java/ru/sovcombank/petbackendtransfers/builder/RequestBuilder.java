@@ -1,18 +1,25 @@
 package ru.sovcombank.petbackendtransfers.builder;
 
 import org.springframework.stereotype.Component;
-import ru.sovcombank.petbackendtransfers.model.api.request.UpdateBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 @Component
 public class RequestBuilder {
 
-    // Создание запроса UpdateBalanceRequest по данным
-    public UpdateBalanceRequest createUpdateBalanceRequest(String typePayment, BigDecimal amount) {
-        UpdateBalanceRequest updateBalanceRequest = new UpdateBalanceRequest();
-        updateBalanceRequest.setTypePayments(typePayment);
-        updateBalanceRequest.setAmount(amount);
-        return updateBalanceRequest;
+    // Создание запроса TransferBalanceRequest по контексту перевода, сумме зачисления после конвертации
+    // и идентификатору перевода
+    public TransferBalanceRequest createTransferBalanceRequest(TransferContext transferContext, BigDecimal amountTo,
+                                                               UUID transferUuid) {
+        TransferBalanceRequest transferBalanceRequest = new TransferBalanceRequest();
+        transferBalanceRequest.setAccountNumberFrom(transferContext.getAccountNumberFrom());
+        transferBalanceRequest.setAccountNumberTo(transferContext.getAccountNumberTo());
+        transferBalanceRequest.setAmountFrom(transferContext.getAmount());
+        transferBalanceRequest.setAmountTo(amountTo);
+        transferBalanceRequest.setTransferUuid(transferUuid);
+        return transferBalanceRequest;
     }
 }
@@ -2,6 +2,7 @@ package ru.sovcombank.petbackendtransfers.builder;
 
 import org.springframework.stereotype.Component;
 import ru.sovcombank.petbackendtransfers.mapping.impl.TransferToTransferDTO;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
 import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
 
@@ -14,11 +15,11 @@ public class TransferDTOBuilder {
         this.transferToTransferDTO = transferToTransferDTO;
     }
 
-    // Создание объекта TransferDTO по значениям полей
-    public TransferDTO createTransferDTOObject(Transfer transfer, Integer clientIdFrom, Integer clientIdTo) {
+    // Создание объекта TransferDTO по сохраненному переводу и уже полученным данным счетов
+    public TransferDTO createTransferDTOObject(Transfer transfer, TransferContext transferContext) {
         TransferDTO transferDTO = transferToTransferDTO.map(transfer);
-        transferDTO.setClientIdFrom(clientIdFrom);
-        transferDTO.setClientIdTo(clientIdTo);
+        transferDTO.setClientIdFrom(transferContext.getAccountFrom().getClientId());
+        transferDTO.setClientIdTo(transferContext.getAccountTo().getClientId());
         return transferDTO;
     }
 }
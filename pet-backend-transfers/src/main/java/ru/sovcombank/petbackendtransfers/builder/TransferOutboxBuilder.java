@@ -0,0 +1,35 @@
+package ru.sovcombank.petbackendtransfers.builder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+import ru.sovcombank.petbackendtransfers.model.entity.TransferOutbox;
+
+@Component
+public class TransferOutboxBuilder {
+
+    private final ObjectMapper objectMapper;
+
+    public TransferOutboxBuilder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // Создание события TransferOutbox по объекту TransferDTO
+    public TransferOutbox createTransferOutboxObject(TransferDTO transferDTO) {
+        TransferOutbox transferOutbox = new TransferOutbox();
+        transferOutbox.setTransferUuid(transferDTO.getUuid());
+        try {
+            transferOutbox.setPayload(objectMapper.writeValueAsString(transferDTO));
+        } catch (JsonProcessingException ex) {
+            throw new InternalServerErrorException();
+        }
+        return transferOutbox;
+    }
+
+    // Восстановление объекта TransferDTO из события
+    public TransferDTO readTransferDTO(TransferOutbox transferOutbox) throws JsonProcessingException {
+        return objectMapper.readValue(transferOutbox.getPayload(), TransferDTO.class);
+    }
+}
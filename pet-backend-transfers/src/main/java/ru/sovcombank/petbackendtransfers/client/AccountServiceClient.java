@@ -1,55 +1,84 @@
 package ru.sovcombank.petbackendtransfers.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import ru.sovcombank.petbackendtransfers.exception.AccountNotFoundException;
-import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
 import ru.sovcombank.petbackendtransfers.exception.InsufficientFundsException;
 import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.exception.ServiceUnavailableException;
 import ru.sovcombank.petbackendtransfers.exception.UserNotFoundException;
-import ru.sovcombank.petbackendtransfers.mapping.impl.ResponseToGetAccountResponse;
-import ru.sovcombank.petbackendtransfers.mapping.impl.ResponseToGetAccountsResponse;
-import ru.sovcombank.petbackendtransfers.mapping.impl.ResponseToGetBalanceResponse;
-import ru.sovcombank.petbackendtransfers.model.api.request.UpdateBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountsResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetBalanceResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
 import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
 
 /**
  * Клиент для отправки запросов в микросервис accounts.
+ * Ответы читаются из потока сразу в типизированные объекты через заранее созданные ObjectReader.
+ * Адреса передаются шаблонами, чтобы метрика http.client.requests группировалась по эндпоинту,
+ * а не по номеру счета. Запросы выполняются через bulkhead и circuit breaker accounts.
+ * Перевод отправляется через отдельный RestTemplate с более долгим ожиданием ответа.
  */
+@Slf4j
 @Component
 public class AccountServiceClient {
 
     private final RestTemplate restTemplate;
 
-    private final ResponseToGetAccountResponse responseToGetAccountResponse;
+    private final RestTemplate accountTransferRestTemplate;
 
-    private final ResponseToGetAccountsResponse responseToGetAccountsResponse;
+    private final ObjectReader getAccountResponseReader;
 
-    private final ResponseToGetBalanceResponse responseToGetBalanceResponse;
+    private final ObjectReader getAccountsResponseReader;
+
+    private final ObjectReader getBalanceResponseReader;
+
+    private final ObjectReader transferBalanceResponseReader;
+
+    private final TransferMetrics transferMetrics;
+
+    private final DownstreamGuard downstreamGuard;
 
     private final String accountServiceUrl;
 
     public AccountServiceClient(
             RestTemplate restTemplate,
-            ResponseToGetAccountResponse responseToGetAccountResponse,
-            ResponseToGetAccountsResponse responseToGetAccountsResponse,
-            ResponseToGetBalanceResponse responseToGetBalanceResponse,
+            @Qualifier("accountTransferRestTemplate") RestTemplate accountTransferRestTemplate,
+            ObjectMapper objectMapper,
+            TransferMetrics transferMetrics,
+            DownstreamGuard downstreamGuard,
             @Value("${account-service.url}") String accountServiceUrl) {
         this.restTemplate = restTemplate;
-        this.responseToGetAccountResponse = responseToGetAccountResponse;
-        this.responseToGetAccountsResponse = responseToGetAccountsResponse;
-        this.responseToGetBalanceResponse = responseToGetBalanceResponse;
+        this.accountTransferRestTemplate = accountTransferRestTemplate;
+        this.transferMetrics = transferMetrics;
+        this.downstreamGuard = downstreamGuard;
+        // Десериализаторы строятся при создании ObjectReader, а не при первом запросе
+        this.getAccountResponseReader = objectMapper.readerFor(GetAccountResponse.class);
+        this.getAccountsResponseReader = objectMapper.readerFor(GetAccountsResponse.class);
+        this.getBalanceResponseReader = objectMapper.readerFor(GetBalanceResponse.class);
+        this.transferBalanceResponseReader = objectMapper.readerFor(TransferBalanceResponse.class);
         this.accountServiceUrl = accountServiceUrl;
     }
 
+    // Ответ с ошибкой обрабатывается RestTemplate до чтения тела и пробрасывается как HttpStatusCodeException
+    private <T> T getForObject(String stage, String uriTemplate, ObjectReader reader, Object uriVariable) {
+        return transferMetrics.recordStage(stage, () -> downstreamGuard.call(DownstreamGuard.ACCOUNTS,
+                () -> restTemplate.execute(accountServiceUrl + uriTemplate, HttpMethod.GET, null,
+                        response -> reader.readValue(response.getBody()), uriVariable)));
+    }
+
     /**
      * Получает информацию о счете по его номеру.
      *
@@ -58,34 +87,59 @@ public class AccountServiceClient {
      * @throws AccountNotFoundException Если счет не найден, выбрасывается исключение.
      */
     public GetAccountResponse getAccountResponse(String accountNumber) {
-        String getAccountByAccountNumberUrl = accountServiceUrl + "/accounts/account/" + accountNumber;
-
         try {
-            ResponseEntity<Object> responseEntity = restTemplate.getForEntity(getAccountByAccountNumberUrl, Object.class);
-            if (!responseEntity.getStatusCode().isError()) {
-                return responseToGetAccountResponse.map(responseEntity);
-            }
+            return getForObject("accounts.get-account", "/accounts/account/{accountNumber}",
+                    getAccountResponseReader, accountNumber);
         } catch (HttpClientErrorException.NotFound ex) {
             throw new AccountNotFoundException(TransferResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
         }
-        throw new InternalServerErrorException();
     }
 
     /**
-     * Обновляет баланс счета.
+     * Переводит средства между счетами одной операцией в микросервисе accounts.
+     * Если ответ не получен, запрос повторяется один раз с тем же идентификатором перевода: перевод, уже
+     * выполненный первым запросом, accounts не выполняет второй раз и возвращает текущие балансы.
      *
-     * @param accountNumber        Номер счета.
-     * @param updateBalanceRequest Запрос на обновление баланса.
-     * @throws InternalServerErrorException Если баланс не удалось обновить, выбрасывается исключение.
+     * @param transferBalanceRequest Запрос на перевод между счетами.
+     * @return Объект TransferBalanceResponse с балансами счетов после перевода.
+     * @throws InsufficientFundsException   Если на счете отправителя недостаточно средств.
+     * @throws AccountNotFoundException     Если один из счетов не найден.
+     * @throws ServiceUnavailableException  Если accounts недоступен и запрос не отправлялся.
+     * @throws InternalServerErrorException Если перевод не удалось выполнить по другой причине.
      */
-    public void updateBalance(String accountNumber, UpdateBalanceRequest updateBalanceRequest) {
-        String updateBalanceUrl = accountServiceUrl + "/accounts/balance/" + accountNumber;
-
+    public TransferBalanceResponse transferBalance(TransferBalanceRequest transferBalanceRequest) {
         try {
-            restTemplate.exchange(updateBalanceUrl, HttpMethod.PUT, new HttpEntity<>(updateBalanceRequest), Object.class);
-        } catch (BadRequestException ex) {
+            return transferMetrics.recordStage("accounts.transfer-balance", () -> {
+                try {
+                    return postTransfer(transferBalanceRequest);
+                } catch (ResourceAccessException ex) {
+                    log.warn("Transfer {} got no response from accounts, retrying: {}",
+                            transferBalanceRequest.getTransferUuid(), ex.getMessage());
+                    return retryTransfer(transferBalanceRequest);
+                }
+            });
+        } catch (HttpClientErrorException.BadRequest ex) {
             throw new InsufficientFundsException(TransferResponseMessagesEnum.INSUFFICIENT_FUNDS.getMessage());
-        } catch (Exception ex) {
+        } catch (HttpClientErrorException.NotFound ex) {
+            throw new AccountNotFoundException(TransferResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
+        } catch (RestClientException ex) {
+            throw new InternalServerErrorException();
+        }
+    }
+
+    private TransferBalanceResponse postTransfer(TransferBalanceRequest transferBalanceRequest) {
+        return downstreamGuard.call(DownstreamGuard.ACCOUNTS, () -> accountTransferRestTemplate.execute(
+                accountServiceUrl + "/accounts/transfers", HttpMethod.POST,
+                accountTransferRestTemplate.httpEntityCallback(transferBalanceRequest),
+                response -> transferBalanceResponseReader.readValue(response.getBody())));
+    }
+
+    // Отказ bulkhead или circuit breaker при повторе не означает, что перевода не было:
+    // результат первого запроса остается неизвестным
+    private TransferBalanceResponse retryTransfer(TransferBalanceRequest transferBalanceRequest) {
+        try {
+            return postTransfer(transferBalanceRequest);
+        } catch (ServiceUnavailableException ex) {
             throw new InternalServerErrorException();
         }
     }
@@ -98,17 +152,11 @@ public class AccountServiceClient {
      * @throws UserNotFoundException Если клиент не найден, выбрасывается исключение.
      */
     public GetAccountsResponse getAccountsResponse(Integer clientId) {
-        String getAccountsUrl = accountServiceUrl + "/accounts/" + clientId;
-
         try {
-            ResponseEntity<Object> responseEntity = restTemplate.getForEntity(getAccountsUrl, Object.class);
-            if (!responseEntity.getStatusCode().isError()) {
-                return responseToGetAccountsResponse.map(responseEntity);
-            }
+            return getForObject("accounts.get-accounts", "/accounts/{clientId}", getAccountsResponseReader, clientId);
         } catch (HttpClientErrorException.NotFound ex) {
             throw new UserNotFoundException(TransferResponseMessagesEnum.USER_NOT_FOUND.getMessage());
         }
-        throw new InternalServerErrorException();
     }
 
     /**
@@ -119,16 +167,11 @@ public class AccountServiceClient {
      * @throws AccountNotFoundException Если счет не найден, выбрасывается исключение.
      */
     public GetBalanceResponse getBalanceResponse(String accountNumber) {
-        String getAccountsUrl = accountServiceUrl + "/accounts/balance/" + accountNumber;
-
         try {
-            ResponseEntity<Object> responseEntity = restTemplate.getForEntity(getAccountsUrl, Object.class);
-            if (!responseEntity.getStatusCode().isError()) {
-                return responseToGetBalanceResponse.map(responseEntity);
-            }
+            return getForObject("accounts.get-balance", "/accounts/balance/{accountNumber}",
+                    getBalanceResponseReader, accountNumber);
         } catch (HttpClientErrorException.NotFound ex) {
             throw new AccountNotFoundException(TransferResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage());
         }
-        throw new InternalServerErrorException();
     }
 }
\ No newline at end of file
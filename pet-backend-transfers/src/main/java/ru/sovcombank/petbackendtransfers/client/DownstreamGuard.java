@@ -0,0 +1,102 @@
+package ru.sovcombank.petbackendtransfers.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.exception.ServiceUnavailableException;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+
+import java.util.function.Supplier;
+
+/**
+ * Изоляция запросов в соседние сервисы: users, accounts и ЦБ РФ (cbr).
+ * <p>
+ * Для каждого сервиса свои bulkhead и circuit breaker из настроек resilience4j. Bulkhead ограничивает число
+ * одновременных запросов, поэтому зависший сервис не занимает все потоки и остальные запросы, в том числе
+ * получение информации о переводе, продолжают обслуживаться. Circuit breaker после серии ошибок и медленных
+ * ответов перестает отправлять запросы и через wait-duration-in-open-state пропускает пробные запросы.
+ * В обоих случаях запрос сразу завершается ошибкой ServiceUnavailableException.
+ * Ответы 4xx означают, что сервис работает, и ошибками circuit breaker не считаются.
+ * Реактивный вариант сервиса (профиль reactive) использует те же bulkhead и circuit breaker через операторы Reactor.
+ */
+@Slf4j
+@Component
+public class DownstreamGuard {
+
+    public static final String USERS = "users";
+
+    public static final String ACCOUNTS = "accounts";
+
+    public static final String CBR = "cbr";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    public DownstreamGuard(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+    }
+
+    /**
+     * Выполняет запрос в соседний сервис через его bulkhead и circuit breaker.
+     *
+     * @param downstream Название сервиса: users, accounts или cbr.
+     * @param call       Запрос в сервис.
+     * @return Результат запроса.
+     * @throws ServiceUnavailableException Если circuit breaker сервиса открыт или лимит одновременных запросов исчерпан.
+     */
+    public <T> T call(String downstream, Supplier<T> call) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(downstream);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(downstream);
+
+        // Bulkhead снаружи: отказ из-за лимита не учитывается circuit breaker как ответ сервиса
+        Supplier<T> guardedCall = Bulkhead.decorateSupplier(bulkhead,
+                CircuitBreaker.decorateSupplier(circuitBreaker, call));
+        try {
+            return guardedCall.get();
+        } catch (CallNotPermittedException ex) {
+            log.debug("Call to {} rejected: circuit breaker is {}", downstream, circuitBreaker.getState());
+            throw new ServiceUnavailableException(TransferResponseMessagesEnum.SERVICE_UNAVAILABLE.getMessage());
+        } catch (BulkheadFullException ex) {
+            log.debug("Call to {} rejected: {} concurrent calls in progress",
+                    downstream, bulkhead.getBulkheadConfig().getMaxConcurrentCalls());
+            throw new ServiceUnavailableException(TransferResponseMessagesEnum.SERVICE_UNAVAILABLE.getMessage());
+        }
+    }
+
+    /**
+     * Выполняет неблокирующий запрос в соседний сервис через его bulkhead и circuit breaker.
+     * Место в bulkhead занимается при подписке и освобождается после ответа, ошибки или отмены запроса.
+     *
+     * @param downstream Название сервиса: users, accounts или cbr.
+     * @param call       Запрос в сервис.
+     * @return Результат запроса или ошибка ServiceUnavailableException, если circuit breaker сервиса открыт
+     * или лимит одновременных запросов исчерпан.
+     */
+    public <T> Mono<T> call(String downstream, Mono<T> call) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(downstream);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(downstream);
+
+        return call
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .onErrorMap(CallNotPermittedException.class, ex -> {
+                    log.debug("Call to {} rejected: circuit breaker is {}", downstream, circuitBreaker.getState());
+                    return new ServiceUnavailableException(TransferResponseMessagesEnum.SERVICE_UNAVAILABLE.getMessage());
+                })
+                .onErrorMap(BulkheadFullException.class, ex -> {
+                    log.debug("Call to {} rejected: {} concurrent calls in progress",
+                            downstream, bulkhead.getBulkheadConfig().getMaxConcurrentCalls());
+                    return new ServiceUnavailableException(TransferResponseMessagesEnum.SERVICE_UNAVAILABLE.getMessage());
+                });
+    }
+}
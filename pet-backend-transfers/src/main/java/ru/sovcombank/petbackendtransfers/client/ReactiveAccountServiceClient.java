@@ -0,0 +1,126 @@
+package ru.sovcombank.petbackendtransfers.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+import ru.sovcombank.petbackendtransfers.config.HttpClientProperties;
+import ru.sovcombank.petbackendtransfers.exception.AccountNotFoundException;
+import ru.sovcombank.petbackendtransfers.exception.InsufficientFundsException;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.exception.ServiceUnavailableException;
+import ru.sovcombank.petbackendtransfers.exception.UserNotFoundException;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountsResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+
+import java.time.Duration;
+
+/**
+ * Неблокирующий клиент микросервиса accounts для реактивного варианта сервиса (профиль reactive).
+ * Ошибки и повтор перевода без ответа соответствуют {@link AccountServiceClient}, запросы выполняются
+ * через bulkhead и circuit breaker accounts.
+ */
+@Slf4j
+@Component
+@Profile("reactive")
+public class ReactiveAccountServiceClient {
+
+    private final WebClient webClient;
+
+    private final DownstreamGuard downstreamGuard;
+
+    private final String accountServiceUrl;
+
+    private final Duration transferReadTimeout;
+
+    public ReactiveAccountServiceClient(
+            WebClient interServiceWebClient,
+            DownstreamGuard downstreamGuard,
+            HttpClientProperties httpClientProperties,
+            @Value("${account-service.url}") String accountServiceUrl) {
+        this.webClient = interServiceWebClient;
+        this.downstreamGuard = downstreamGuard;
+        this.transferReadTimeout = httpClientProperties.getTransferReadTimeout();
+        this.accountServiceUrl = accountServiceUrl;
+    }
+
+    // Адрес передается шаблоном, чтобы метрика http.client.requests группировалась по эндпоинту
+    private <T> Mono<T> get(String uriTemplate, Class<T> responseType, Object uriVariable) {
+        return downstreamGuard.call(DownstreamGuard.ACCOUNTS, webClient.get()
+                .uri(accountServiceUrl + uriTemplate, uriVariable)
+                .retrieve()
+                .bodyToMono(responseType));
+    }
+
+    /**
+     * Получает информацию о счете по его номеру.
+     *
+     * @param accountNumber Номер счета.
+     * @return Информация о счете или ошибка AccountNotFoundException, если счет не найден.
+     */
+    public Mono<GetAccountResponse> getAccountResponse(String accountNumber) {
+        return get("/accounts/account/{accountNumber}", GetAccountResponse.class, accountNumber)
+                .onErrorMap(WebClientResponseException.NotFound.class, ex -> new AccountNotFoundException(
+                        TransferResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage()));
+    }
+
+    /**
+     * Переводит средства между счетами одной операцией в микросервисе accounts.
+     * Если ответ не получен, запрос повторяется один раз с тем же идентификатором перевода.
+     *
+     * @param transferBalanceRequest Запрос на перевод между счетами.
+     * @return Балансы счетов после перевода или ошибка: InsufficientFundsException, если на счете отправителя
+     * недостаточно средств, AccountNotFoundException, если один из счетов не найден, ServiceUnavailableException,
+     * если accounts недоступен и запрос не отправлялся, InternalServerErrorException в остальных случаях.
+     */
+    public Mono<TransferBalanceResponse> transferBalance(TransferBalanceRequest transferBalanceRequest) {
+        return postTransfer(transferBalanceRequest)
+                .onErrorResume(WebClientRequestException.class, ex -> {
+                    log.warn("Transfer {} got no response from accounts, retrying: {}",
+                            transferBalanceRequest.getTransferUuid(), ex.getMessage());
+                    // Отказ bulkhead или circuit breaker при повторе оставляет результат первого запроса неизвестным
+                    return postTransfer(transferBalanceRequest)
+                            .onErrorMap(ServiceUnavailableException.class,
+                                    unavailable -> new InternalServerErrorException());
+                })
+                .onErrorMap(WebClientResponseException.BadRequest.class, ex -> new InsufficientFundsException(
+                        TransferResponseMessagesEnum.INSUFFICIENT_FUNDS.getMessage()))
+                .onErrorMap(WebClientResponseException.NotFound.class, ex -> new AccountNotFoundException(
+                        TransferResponseMessagesEnum.ACCOUNT_NOT_FOUND.getMessage()))
+                .onErrorMap(ex -> ex instanceof WebClientException || ex instanceof RestClientException,
+                        ex -> new InternalServerErrorException());
+    }
+
+    // Ответ на перевод ждется transferReadTimeout вместо responseTimeout клиента
+    private Mono<TransferBalanceResponse> postTransfer(TransferBalanceRequest transferBalanceRequest) {
+        return downstreamGuard.call(DownstreamGuard.ACCOUNTS, webClient.post()
+                .uri(accountServiceUrl + "/accounts/transfers")
+                .httpRequest(httpRequest -> ((HttpClientRequest) httpRequest.getNativeRequest())
+                        .responseTimeout(transferReadTimeout))
+                .bodyValue(transferBalanceRequest)
+                .retrieve()
+                .bodyToMono(TransferBalanceResponse.class));
+    }
+
+    /**
+     * Получает список счетов для указанного клиента.
+     *
+     * @param clientId Идентификатор клиента.
+     * @return Счета клиента или ошибка UserNotFoundException, если клиент не найден.
+     */
+    public Mono<GetAccountsResponse> getAccountsResponse(Integer clientId) {
+        return get("/accounts/{clientId}", GetAccountsResponse.class, clientId)
+                .onErrorMap(WebClientResponseException.NotFound.class, ex -> new UserNotFoundException(
+                        TransferResponseMessagesEnum.USER_NOT_FOUND.getMessage()));
+    }
+}
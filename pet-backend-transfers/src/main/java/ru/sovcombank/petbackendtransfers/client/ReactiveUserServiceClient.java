@@ -0,0 +1,84 @@
+package ru.sovcombank.petbackendtransfers.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.exception.UserNotFoundException;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetUserResponse;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+
+/**
+ * Неблокирующий клиент микросервиса users для реактивного варианта сервиса (профиль reactive).
+ * Проверки соответствуют {@link UserServiceClient}, запросы выполняются через bulkhead и circuit breaker users.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveUserServiceClient {
+
+    private final WebClient webClient;
+    private final DownstreamGuard downstreamGuard;
+    private final String userServiceUrl;
+
+    public ReactiveUserServiceClient(
+            WebClient interServiceWebClient,
+            DownstreamGuard downstreamGuard,
+            @Value("${user-service.url}") String userServiceUrl) {
+        this.webClient = interServiceWebClient;
+        this.downstreamGuard = downstreamGuard;
+        this.userServiceUrl = userServiceUrl;
+    }
+
+    // Адрес передается шаблоном, чтобы метрика http.client.requests группировалась по эндпоинту
+    private Mono<GetUserResponse> getUserResponse(String uriTemplate, Object uriVariable) {
+        return downstreamGuard.call(DownstreamGuard.USERS, webClient.get()
+                .uri(userServiceUrl + uriTemplate, uriVariable)
+                .retrieve()
+                .bodyToMono(GetUserResponse.class));
+    }
+
+    private boolean isUserActiveAndNotDeleted(GetUserResponse getUserResponse) {
+        return getUserResponse.isActive() && !getUserResponse.isDeleted();
+    }
+
+    /**
+     * Проверяет существование пользователя для осуществления трансфера по номеру счета.
+     *
+     * @param clientId Идентификатор клиента.
+     * @return true, если пользователь существует и активен, в противном случае - false.
+     */
+    public Mono<Boolean> checkUserExistsForTransferByAccount(Integer clientId) {
+        return getUserResponse("/users/{clientId}", clientId)
+                .map(this::isUserActiveAndNotDeleted)
+                .onErrorResume(WebClientResponseException.NotFound.class, ex -> Mono.just(false));
+    }
+
+    /**
+     * Проверяет существование пользователя для осуществления трансфера по номеру телефона.
+     *
+     * @param clientId    Идентификатор клиента.
+     * @param phoneNumber Номер телефона пользователя.
+     * @return true, если пользователь существует, активен и номер телефона совпадает,
+     * в противном случае - false.
+     */
+    public Mono<Boolean> checkUserExistsForTransferByPhone(Integer clientId, String phoneNumber) {
+        return getUserResponse("/users/{clientId}", clientId)
+                .map(getUserResponse -> isUserActiveAndNotDeleted(getUserResponse)
+                        && getUserResponse.getPhoneNumber().equals(phoneNumber))
+                .onErrorResume(WebClientResponseException.NotFound.class, ex -> Mono.just(false));
+    }
+
+    /**
+     * Получает информацию о пользователе по номеру телефона.
+     *
+     * @param phoneNumber Номер телефона пользователя.
+     * @return Информация о пользователе или ошибка UserNotFoundException, если пользователь не найден.
+     */
+    public Mono<GetUserResponse> getUserInfo(String phoneNumber) {
+        return getUserResponse("/users/phone-number/{phoneNumber}", phoneNumber)
+                .onErrorMap(WebClientResponseException.NotFound.class, ex -> new UserNotFoundException(
+                        TransferResponseMessagesEnum.USER_NOT_FOUND.getMessage()));
+    }
+}
@@ -1,37 +1,49 @@
 package ru.sovcombank.petbackendtransfers.client;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
-import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
 import ru.sovcombank.petbackendtransfers.exception.UserNotFoundException;
-import ru.sovcombank.petbackendtransfers.mapping.impl.ResponseToGetUserResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetUserResponse;
 import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
 
 /**
  * Клиент для отправки запросов в микросервис users.
+ * Запросы выполняются через bulkhead и circuit breaker users.
  */
 @Component
 public class UserServiceClient {
 
     private final RestTemplate restTemplate;
-    private final ResponseToGetUserResponse responseToGetUserResponse;
+    private final ObjectReader getUserResponseReader;
+    private final TransferMetrics transferMetrics;
+    private final DownstreamGuard downstreamGuard;
     private final String userServiceUrl;
 
     public UserServiceClient(
             RestTemplate restTemplate,
-            ResponseToGetUserResponse responseToGetUserResponse,
+            ObjectMapper objectMapper,
+            TransferMetrics transferMetrics,
+            DownstreamGuard downstreamGuard,
             @Value("${user-service.url}") String userServiceUrl) {
         this.restTemplate = restTemplate;
-        this.responseToGetUserResponse = responseToGetUserResponse;
+        this.transferMetrics = transferMetrics;
+        this.downstreamGuard = downstreamGuard;
+        this.getUserResponseReader = objectMapper.readerFor(GetUserResponse.class);
         this.userServiceUrl = userServiceUrl;
     }
 
-    private ResponseEntity<Object> getResponseEntity(String url) {
-        return restTemplate.getForEntity(url, Object.class);
+    // Тело ответа читается сразу в GetUserResponse, ответ с ошибкой пробрасывается как HttpStatusCodeException.
+    // Адрес передается шаблоном, чтобы метрика http.client.requests группировалась по эндпоинту
+    private GetUserResponse getUserResponse(String stage, String uriTemplate, Object uriVariable) {
+        return transferMetrics.recordStage(stage, () -> downstreamGuard.call(DownstreamGuard.USERS,
+                () -> restTemplate.execute(userServiceUrl + uriTemplate, HttpMethod.GET, null,
+                        response -> getUserResponseReader.readValue(response.getBody()), uriVariable)));
     }
 
     /**
@@ -51,18 +63,12 @@ public class UserServiceClient {
      * @return true, если пользователь существует и активен, в противном случае - false.
      */
     public boolean checkUserExistsForTransferByAccount(Integer clientId) {
-        String getUserByIdUrl = userServiceUrl + "/users/" + clientId;
-
         try {
-            ResponseEntity<Object> responseEntity = getResponseEntity(getUserByIdUrl);
-            if (!responseEntity.getStatusCode().isError()) {
-                GetUserResponse getUserResponseEntity = responseToGetUserResponse.map(responseEntity);
-                return isUserActiveAndNotDeleted(getUserResponseEntity);
-            }
+            GetUserResponse getUserResponseEntity = getUserResponse("users.get-user", "/users/{clientId}", clientId);
+            return isUserActiveAndNotDeleted(getUserResponseEntity);
         } catch (HttpClientErrorException.NotFound ex) {
             return false;
         }
-        return false;
     }
 
     /**
@@ -74,19 +80,13 @@ public class UserServiceClient {
      * в противном случае - false.
      */
     public boolean checkUserExistsForTransferByPhone(Integer clientId, String phoneNumber) {
-        String getUserByIdUrl = userServiceUrl + "/users/" + clientId;
-
         try {
-            ResponseEntity<Object> responseEntity = getResponseEntity(getUserByIdUrl);
-            if (!responseEntity.getStatusCode().isError()) {
-                GetUserResponse getUserResponseEntity = responseToGetUserResponse.map(responseEntity);
-                return isUserActiveAndNotDeleted(getUserResponseEntity)
-                        && getUserResponseEntity.getPhoneNumber().equals(phoneNumber);
-            }
+            GetUserResponse getUserResponseEntity = getUserResponse("users.get-user", "/users/{clientId}", clientId);
+            return isUserActiveAndNotDeleted(getUserResponseEntity)
+                    && getUserResponseEntity.getPhoneNumber().equals(phoneNumber);
         } catch (HttpClientErrorException.NotFound ex) {
             return false;
         }
-        return false;
     }
 
     /**
@@ -97,16 +97,10 @@ public class UserServiceClient {
      * @throws UserNotFoundException Если пользователь не найден, выбрасывается исключение.
      */
     public GetUserResponse getUserInfo(String phoneNumber) {
-        String getUserByPhoneNumberUrl = userServiceUrl + "/users/phone-number/" + phoneNumber;
-
         try {
-            ResponseEntity<Object> responseEntity = getResponseEntity(getUserByPhoneNumberUrl);
-            if (!responseEntity.getStatusCode().isError()) {
-                return responseToGetUserResponse.map(responseEntity);
-            }
+            return getUserResponse("users.get-user-by-phone", "/users/phone-number/{phoneNumber}", phoneNumber);
         } catch (HttpClientErrorException.NotFound ex) {
             throw new UserNotFoundException(TransferResponseMessagesEnum.USER_NOT_FOUND.getMessage());
         }
-        throw new InternalServerErrorException();
     }
 }
\ No newline at end of file
@@ -1,30 +1,124 @@
 package ru.sovcombank.petbackendtransfers.config;
 
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
+
+import java.net.URISyntaxException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class AppConfig {
 
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    @Primary
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+
+    // Перевод в accounts ждет ответа transferReadTimeout вместо readTimeout: срок ответа задается в контексте
+    // каждого запроса и заменяет таймаут сокета, а пул соединений остается общим
+    @Bean
+    public RestTemplate accountTransferRestTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient,
+                                                    HttpClientProperties properties) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(properties.getTransferReadTimeout()))
+                .setConnectionKeepAlive(TimeValue.of(properties.getKeepAlive()))
+                .build();
+        return builder
+                .requestFactory(() -> {
+                    HttpComponentsClientHttpRequestFactory requestFactory =
+                            new HttpComponentsClientHttpRequestFactory(httpClient);
+                    requestFactory.setHttpContextFactory((httpMethod, uri) -> {
+                        HttpClientContext context = HttpClientContext.create();
+                        context.setRequestConfig(requestConfig);
+                        return context;
+                    });
+                    return requestFactory;
+                })
+                .build();
+    }
+
+    // Пул соединений с ограничениями на каждый сервис, чтобы медленный сервис не занимал все соединения
+    @Bean
+    public PoolingHttpClientConnectionManager httpClientConnectionManager(HttpClientProperties properties)
+            throws URISyntaxException {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                        .build())
+                .setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getDefaultMaxPerRoute())
+                .build();
+        for (HttpClientProperties.Route route : properties.getRoutes().values()) {
+            connectionManager.setMaxPerRoute(new HttpRoute(HttpHost.create(route.getUrl())), route.getMaxConnections());
+        }
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager,
+                                          HttpClientProperties properties) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                        .setConnectionKeepAlive(TimeValue.of(properties.getKeepAlive()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getMaxIdleTime()))
+                .build();
     }
 
+    // Метрики пула: занятые, свободные соединения и ожидающие соединения запросы
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public MeterBinder httpClientConnectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "inter-service");
     }
 
+    // Пул для параллельных запросов в accounts и users в рамках одного перевода.
+    // При заполненной очереди запрос отклоняется и перевод сразу получает 503, а не выполняет запрос в потоке Tomcat.
+    // Задачи получают контекст метрик перевода, запустившего их.
+    // В режиме виртуальных потоков пул заменяется исполнителем из VirtualThreadsConfig
     @Bean
-    public ThreadPoolTaskScheduler taskScheduler() {
-        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
-        taskScheduler.setPoolSize(5);
-        taskScheduler.setThreadNamePrefix("MyTaskScheduler-");
-        return taskScheduler;
+    @ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "false", matchIfMissing = true)
+    public ThreadPoolTaskExecutor transferLookupExecutor(TransferMetrics transferMetrics,
+                                                         @Value("${transfer-validation.pool-size}") int poolSize,
+                                                         @Value("${transfer-validation.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor transferLookupExecutor = new ThreadPoolTaskExecutor();
+        transferLookupExecutor.setCorePoolSize(poolSize);
+        transferLookupExecutor.setMaxPoolSize(poolSize);
+        transferLookupExecutor.setQueueCapacity(queueCapacity);
+        transferLookupExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        transferLookupExecutor.setTaskDecorator(transferMetrics::propagate);
+        transferLookupExecutor.setThreadNamePrefix("TransferLookup-");
+        return transferLookupExecutor;
     }
-}
\ No newline at end of file
+}
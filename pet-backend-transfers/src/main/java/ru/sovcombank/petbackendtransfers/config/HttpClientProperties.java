@@ -0,0 +1,51 @@
+package ru.sovcombank.petbackendtransfers.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки пула HTTP-соединений для запросов к другим сервисам.
+ */
+@Data
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+
+    // Время на установку TCP-соединения
+    private Duration connectTimeout;
+
+    // Время ожидания ответа на запрос
+    private Duration readTimeout;
+
+    // Время ожидания ответа на перевод в accounts. По истечении срока accounts мог уже выполнить перевод,
+    // поэтому срок больше readTimeout
+    private Duration transferReadTimeout;
+
+    // Время ожидания свободного соединения в пуле
+    private Duration connectionRequestTimeout;
+
+    // Время удержания соединения открытым, если сервер не прислал заголовок Keep-Alive
+    private Duration keepAlive;
+
+    // Соединения, простаивающие дольше этого времени, закрываются фоновым потоком
+    private Duration maxIdleTime;
+
+    private int maxTotal;
+
+    // Ограничение соединений для хостов, не указанных в routes
+    private int defaultMaxPerRoute;
+
+    // Ограничения соединений по сервисам, ключ - имя сервиса
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+
+        private String url;
+
+        private int maxConnections;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.sovcombank.petbackendtransfers.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.netty.channel.ChannelOption;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.SenderOptions;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+/**
+ * Конфигурация реактивного варианта сервиса (профиль reactive): WebClient для запросов в users и accounts,
+ * R2DBC для записи переводов и reactor-kafka для отправки событий из transfer_outbox.
+ * JPA и Liquibase продолжают работать через JDBC: ими пользуются задачи по расписанию.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+
+    // Автонастройка DataSource не создает пул JDBC, если в контексте есть ConnectionFactory R2DBC,
+    // поэтому пул для JPA, Liquibase и задач по расписанию объявлен явно с теми же настройками spring.datasource
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Курсы ЦБ РФ по-прежнему загружаются через RestTemplate потоком задач по расписанию,
+    // а автонастройка RestTemplateBuilder в реактивном приложении отключена
+    @Bean
+    public RestTemplateBuilder restTemplateBuilder(ObjectProvider<RestTemplateCustomizer> customizers) {
+        return new RestTemplateBuilder(customizers.orderedStream().toArray(RestTemplateCustomizer[]::new));
+    }
+
+    // Пул соединений Reactor Netty с теми же ограничениями на каждый сервис, что и у пула RestTemplate
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider interServiceConnectionProvider(HttpClientProperties properties) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("inter-service")
+                .maxConnections(properties.getDefaultMaxPerRoute())
+                .pendingAcquireTimeout(properties.getConnectionRequestTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .evictInBackground(properties.getMaxIdleTime())
+                .metrics(true);
+        for (HttpClientProperties.Route route : properties.getRoutes().values()) {
+            URI uri = URI.create(route.getUrl());
+            builder.forRemoteHost(InetSocketAddress.createUnresolved(uri.getHost(), uri.getPort()),
+                    spec -> spec.maxConnections(route.getMaxConnections()));
+        }
+        return builder.build();
+    }
+
+    // Ответы 5xx превращаются в HttpServerErrorException, как у RestTemplate, поэтому circuit breaker
+    // считает ошибки обоих вариантов по одному списку record-exceptions
+    @Bean
+    public WebClient interServiceWebClient(WebClient.Builder builder,
+                                           ConnectionProvider interServiceConnectionProvider,
+                                           HttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(interServiceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getReadTimeout());
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultStatusHandler(HttpStatusCode::is5xxServerError, response -> response.releaseBody()
+                        .then(Mono.just(new HttpServerErrorException(response.statusCode()))))
+                .build();
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    // Менеджер транзакций R2DBC не регистрируется бином: @Transactional задач по расписанию остается за JPA
+    @Bean
+    public TransactionalOperator transferTransactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    @Bean
+    public ReactiveKafkaProducerTemplate<String, TransferDTO> reactiveKafkaProducerTemplate(
+            KafkaProperties kafkaProperties) {
+        return new ReactiveKafkaProducerTemplate<>(SenderOptions.create(kafkaProperties.buildProducerProperties()));
+    }
+}
@@ -0,0 +1,123 @@
+package ru.sovcombank.petbackendtransfers.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск закреплений виртуальных потоков в режиме virtual-threads.enabled.
+ * <p>
+ * Виртуальный поток, заблокированный внутри synchronized или нативного вызова, не освобождает поток платформы.
+ * Такие места есть в драйвере JDBC и в Hikari, и при высокой нагрузке они сводят число одновременных
+ * запросов к числу потоков-носителей. События JFR jdk.VirtualThreadPinned дольше virtual-threads.pinned-threshold
+ * записываются в метрику jvm.threads.virtual.pinned с тегом source (jdbc-driver, hikari, kafka или other),
+ * а стек каждого нового места закрепления выводится в лог один раз.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 15;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration threshold;
+
+    private final Set<String> reportedLocations = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${virtual-threads.pinned-threshold}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+        } catch (RuntimeException ex) {
+            // JFR может быть недоступен в среде запуска, сервис при этом продолжает работать без мониторинга
+            log.warn("Virtual thread pinning monitor is not started", ex);
+            recordingStream = null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String source = source(frames);
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual thread pinned to its carrier thread while blocking")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        // Место закрепления: первый кадр за пределами JDK
+        String location = frames.stream()
+                .filter(frame -> !isJdkFrame(frame))
+                .findFirst()
+                .map(VirtualThreadPinningMonitor::format)
+                .orElse("unknown");
+        if (reportedLocations.add(location)) {
+            log.warn("Virtual thread pinned for {} ms in {} ({}):\n\t{}", event.getDuration().toMillis(), location,
+                    source, frames.stream()
+                            .limit(LOGGED_FRAMES)
+                            .map(VirtualThreadPinningMonitor::format)
+                            .collect(Collectors.joining("\n\t")));
+        }
+    }
+
+    // Источник закрепления по ближайшему к месту блокировки кадру известной библиотеки
+    private static String source(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("org.postgresql.")) {
+                return "jdbc-driver";
+            }
+            if (type.startsWith("com.zaxxer.hikari.")) {
+                return "hikari";
+            }
+            if (type.startsWith("org.apache.kafka.")) {
+                return "kafka";
+            }
+        }
+        return "other";
+    }
+
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.sovcombank.petbackendtransfers.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Режим виртуальных потоков Java 21, включается свойством virtual-threads.enabled.
+ * <p>
+ * Запросы Tomcat, параллельные запросы в users и accounts и задачи по расписанию выполняются в виртуальных
+ * потоках: пока поток ждет ответа соседнего сервиса, базы или Kafka, поток платформы свободен. Число
+ * одновременных переводов в этом режиме ограничивают bulkhead-ы, пулы HTTP-соединений и пул Hikari,
+ * а не server.tomcat.threads.max. Закрепления виртуальных потоков отслеживает {@link VirtualThreadPinningMonitor}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    // Каждый запрос обрабатывается в новом виртуальном потоке вместо пула потоков Tomcat
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+
+    // Задачи по расписанию (отправка событий из transfer_outbox с повторами, обновление курсов ЦБ РФ)
+    // выполняются в виртуальных потоках с префиксом имени из spring.task.scheduling.thread-name-prefix
+    @Bean
+    public TaskSchedulerCustomizer virtualThreadsTaskSchedulerCustomizer() {
+        return taskScheduler -> taskScheduler.setThreadFactory(
+                Thread.ofVirtual().name(taskScheduler.getThreadNamePrefix(), 0).factory());
+    }
+
+    // Заменяет пул transferLookupExecutor из AppConfig: по виртуальному потоку на каждый запрос в users и accounts,
+    // одновременные запросы ограничивают bulkhead-ы этих сервисов. Задачи получают контекст метрик перевода
+    @Bean
+    public SimpleAsyncTaskExecutor transferLookupExecutor(TransferMetrics transferMetrics) {
+        SimpleAsyncTaskExecutor transferLookupExecutor =
+                new SimpleAsyncTaskExecutor(Thread.ofVirtual().name("TransferLookup-", 0).factory());
+        transferLookupExecutor.setTaskDecorator(transferMetrics::propagate);
+        return transferLookupExecutor;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.sovcombank.petbackendtransfers.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.model.api.request.GetTransfersByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferCursor;
+import ru.sovcombank.petbackendtransfers.service.ReactiveTransferService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Контроллер для управления переводами в реактивном варианте сервиса (профиль reactive).
+ * Адреса, заголовки, тела запросов и ответов совпадают с {@link TransferController}.
+ */
+@RestController
+@RequestMapping("/transfers")
+@Profile("reactive")
+public class ReactiveTransferController {
+
+    private final ReactiveTransferService transferService;
+
+    private final ObjectMapper objectMapper;
+
+    public ReactiveTransferController(ReactiveTransferService transferService, ObjectMapper objectMapper) {
+        this.transferService = transferService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Обрабатывает запрос на создание нового перевода.
+     *
+     * @param request        Запрос на создание перевода, тип определяется полем requestType.
+     * @param idempotencyKey Ключ идемпотентности для безопасного повтора запроса.
+     * @return Ответ с результатом выполнения перевода.
+     */
+    @PostMapping()
+    public Mono<ResponseEntity<MakeTransferResponse>> makeTransfer(
+            @Valid @RequestBody MakeTransferRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return transferService.makeTransfer(request, idempotencyKey).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Обрабатывает запрос на получение информации о переводе.
+     *
+     * @param uuid UUID транзакции.
+     * @return Ответ с информацией о переводе.
+     */
+    @GetMapping("/{uuid}")
+    public Mono<ResponseEntity<GetTransferResponse>> getInfoAboutTransaction(@PathVariable String uuid) {
+        return transferService.getTransfers(uuid).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Обрабатывает запрос на получение переводов по счету постранично.
+     * Ответ имеет вид {@link ru.sovcombank.petbackendtransfers.model.api.response.GetTransfersByAccountResponse}:
+     * переводы пишутся в ответ по мере чтения из базы, курсор next следующей страницы записывается в конце.
+     *
+     * @param request Счет, период, курсор предыдущей страницы и размер страницы.
+     * @return Страница переводов по счету.
+     */
+    @GetMapping()
+    public ResponseEntity<Flux<DataBuffer>> getTransfersByAccount(@Valid GetTransfersByAccountRequest request) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(writeTransfersByAccount(request));
+    }
+
+    private Flux<DataBuffer> writeTransfersByAccount(GetTransfersByAccountRequest request) {
+        return Flux.defer(() -> {
+            AtomicReference<TransferCursor> next = new AtomicReference<>();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return Flux.concat(
+                    Mono.fromCallable(() -> toDataBuffer("{\"transfers\":[")),
+                    transferService.getTransfersByAccount(request, next::set)
+                            .map(transfer -> toDataBuffer((first.getAndSet(false) ? "" : ",") + writeValue(transfer))),
+                    Mono.fromCallable(() -> toDataBuffer("],\"next\":"
+                            + writeValue(next.get() != null ? next.get().toString() : null) + "}")));
+        });
+    }
+
+    private String writeValue(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new InternalServerErrorException();
+        }
+    }
+
+    private DataBuffer toDataBuffer(String json) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
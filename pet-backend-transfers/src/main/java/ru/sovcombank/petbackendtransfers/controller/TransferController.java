@@ -1,40 +1,68 @@
 package ru.sovcombank.petbackendtransfers.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.sovcombank.petbackendtransfers.model.api.request.GetTransfersByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.AccountTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferCursor;
 import ru.sovcombank.petbackendtransfers.service.TransferService;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
 /**
  * Контроллер для управления переводами.
+ * В профиле reactive вместо него работает {@link ReactiveTransferController}.
  */
 @RestController
 @RequestMapping("/transfers")
+@Profile("!reactive")
 public class TransferController {
 
     private final TransferService transferService;
 
-    public TransferController(TransferService transferService) {
+    private final ObjectMapper objectMapper;
+
+    // Переводы пишутся в буфер генератора без сброса после каждого, в сеть ответ уходит блоками
+    private final ObjectWriter transferWriter;
+
+    public TransferController(TransferService transferService, ObjectMapper objectMapper) {
         this.transferService = transferService;
+        this.objectMapper = objectMapper;
+        this.transferWriter = objectMapper.writerFor(AccountTransferResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
      * Обрабатывает запрос на создание нового перевода.
      *
-     * @param requestMap Запрос на создание перевода.
+     * @param request        Запрос на создание перевода, тип определяется полем requestType.
+     * @param idempotencyKey Ключ идемпотентности для безопасного повтора запроса.
      * @return Ответ с результатом выполнения перевода.
      */
     @PostMapping()
-    public ResponseEntity<MakeTransferResponse> makeTransfer(@RequestBody Map<String, Object> requestMap) {
-        MakeTransferResponse makeTransferResponse = transferService.makeTransfer(requestMap);
+    public ResponseEntity<MakeTransferResponse> makeTransfer(
+            @Valid @RequestBody MakeTransferRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        MakeTransferResponse makeTransferResponse = transferService.makeTransfer(request, idempotencyKey);
         return ResponseEntity.ok(makeTransferResponse);
     }
 
@@ -49,4 +77,36 @@ public class TransferController {
         GetTransferResponse response = transferService.getTransfers(uuid);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Обрабатывает запрос на получение переводов по счету постранично.
+     * Ответ имеет вид {@link ru.sovcombank.petbackendtransfers.model.api.response.GetTransfersByAccountResponse}:
+     * переводы пишутся в ответ по мере чтения из базы, курсор next следующей страницы записывается в конце.
+     *
+     * @param request Счет, период, курсор предыдущей страницы и размер страницы.
+     * @return Страница переводов по счету.
+     */
+    @GetMapping()
+    public ResponseEntity<StreamingResponseBody> getTransfersByAccount(@Valid GetTransfersByAccountRequest request) {
+        StreamingResponseBody body = outputStream -> writeTransfersByAccount(request, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private void writeTransfersByAccount(GetTransfersByAccountRequest request, OutputStream outputStream)
+            throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("transfers");
+            TransferCursor next = transferService.getTransfersByAccount(request, transfer -> {
+                try {
+                    transferWriter.writeValue(generator, transfer);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeStringField("next", next != null ? next.toString() : null);
+            generator.writeEndObject();
+        }
+    }
 }
\ No newline at end of file
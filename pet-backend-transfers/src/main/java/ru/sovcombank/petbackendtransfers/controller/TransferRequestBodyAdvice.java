@@ -0,0 +1,53 @@
+package ru.sovcombank.petbackendtransfers.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
+
+import java.lang.reflect.Type;
+
+/**
+ * Замеряет время чтения тела запроса на перевод в типизированный объект.
+ */
+@ControllerAdvice
+public class TransferRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String START_NANOS_ATTRIBUTE = TransferRequestBodyAdvice.class.getName() + ".startNanos";
+
+    private final TransferMetrics transferMetrics;
+
+    public TransferRequestBodyAdvice(TransferMetrics transferMetrics) {
+        this.transferMetrics = transferMetrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return MakeTransferRequest.class.equals(methodParameter.getParameterType());
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestContextHolder.currentRequestAttributes()
+                .setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime(), RequestAttributes.SCOPE_REQUEST);
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        Object startNanos = RequestContextHolder.currentRequestAttributes()
+                .getAttribute(START_NANOS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (startNanos instanceof Long start && body instanceof MakeTransferRequest request) {
+            transferMetrics.recordRequestMapping(request.getRequestType(), System.nanoTime() - start);
+        }
+        return body;
+    }
+}
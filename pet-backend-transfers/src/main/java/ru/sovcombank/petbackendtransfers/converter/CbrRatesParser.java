@@ -0,0 +1,100 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * Потоковый (StAX) парсер ежедневных курсов ЦБ РФ.
+ * Разбирает весь ответ XML_daily.asp за один проход без построения DOM.
+ */
+@Component
+public class CbrRatesParser {
+
+    private static final String VALUTE = "Valute";
+    private static final String NUM_CODE = "NumCode";
+    private static final String NOMINAL = "Nominal";
+    private static final String VALUE = "Value";
+    private static final String VUNIT_RATE = "VunitRate";
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public CbrRatesParser() {
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * Парсит ответ ЦБ РФ в таблицу курсов.
+     * Курс считается за одну единицу валюты: берется VunitRate, а при его отсутствии Value / Nominal.
+     *
+     * @param xml Поток с XML-данными, кодировка берется из XML-декларации.
+     * @return Таблица курсов валют.
+     * @throws InternalServerErrorException Если данные не удалось разобрать.
+     */
+    public ExchangeRateTable parse(InputStream xml) {
+        double[] rates = ExchangeRateTable.emptyRates();
+        XMLStreamReader reader = null;
+
+        try {
+            reader = xmlInputFactory.createXMLStreamReader(xml);
+
+            int numCode = -1;
+            int nominal = 1;
+            double value = Double.NaN;
+            double unitRate = Double.NaN;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case VALUTE -> {
+                            numCode = -1;
+                            nominal = 1;
+                            value = Double.NaN;
+                            unitRate = Double.NaN;
+                        }
+                        case NUM_CODE -> numCode = ExchangeRateTable.toNumCode(reader.getElementText().trim());
+                        case NOMINAL -> nominal = Integer.parseInt(reader.getElementText().trim());
+                        case VALUE -> value = parseDecimal(reader.getElementText());
+                        case VUNIT_RATE -> unitRate = parseDecimal(reader.getElementText());
+                        default -> {
+                            // Остальные теги (CharCode, Name) для расчета курса не нужны
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && VALUTE.equals(reader.getLocalName())
+                        && numCode >= 0) {
+                    rates[numCode] = Double.isNaN(unitRate) ? value / nominal : unitRate;
+                }
+            }
+            return new ExchangeRateTable(rates, Instant.now());
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new InternalServerErrorException();
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    // В ответе ЦБ РФ дробная часть отделяется запятой
+    private double parseDecimal(String text) {
+        return Double.parseDouble(text.trim().replace(',', '.'));
+    }
+
+    private void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // Ошибка закрытия не влияет на уже разобранные данные
+            }
+        }
+    }
+}
@@ -1,98 +1,131 @@
 package ru.sovcombank.petbackendtransfers.converter;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+import ru.sovcombank.petbackendtransfers.client.DownstreamGuard;
 import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
 import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
-import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.exception.ServiceUnavailableException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.IOException;
-import java.io.StringReader;
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Класс для получения курса валют.
+ * Курсы загружаются из ЦБ РФ целиком и обновляются по расписанию в фоне,
+ * поэтому чтение курса сводится к поиску в уже разобранной таблице.
  */
+@Slf4j
 @Component
 public class CurrencyConverter {
 
-    private static final String CBR_URL = "https://www.cbr.ru/scripts/XML_daily.asp";
-
     private final RestTemplate restTemplate;
 
-    public CurrencyConverter(RestTemplate restTemplate) {
+    private final CbrRatesParser cbrRatesParser;
+
+    private final DownstreamGuard downstreamGuard;
+
+    private final String cbrUrl;
+
+    // Не synchronized: виртуальный поток, ждущий ответа ЦБ РФ внутри монитора, удерживал бы поток платформы
+    private final ReentrantLock initialLoadLock = new ReentrantLock();
+
+    private volatile ExchangeRateTable exchangeRateTable;
+
+    public CurrencyConverter(RestTemplate restTemplate,
+                             CbrRatesParser cbrRatesParser,
+                             DownstreamGuard downstreamGuard,
+                             @Value("${cbr.rates.url}") String cbrUrl) {
         this.restTemplate = restTemplate;
+        this.cbrRatesParser = cbrRatesParser;
+        this.downstreamGuard = downstreamGuard;
+        this.cbrUrl = cbrUrl;
     }
 
     /**
      * Получает текущий курс валюты.
      *
      * @param cur Код валюты.
-     * @return Текущий курс валюты.
-     * @throws InternalServerErrorException Если произошла внутренняя ошибка при выполнении запроса или парсинге данных.
+     * @return Текущий курс за одну единицу валюты.
+     * @throws BadRequestException          Если код валюты не найден в таблице курсов.
+     * @throws InternalServerErrorException Если таблица курсов еще не загружена и загрузить ее не удалось.
+     * @throws ServiceUnavailableException  Если таблица курсов еще не загружена, а ЦБ РФ недоступен.
      */
     public double getCurrentRate(String cur) {
-        try {
-            return parseExchangeRate(getXmlResponse(), cur);
-        } catch (Exception ex) {
-            throw new InternalServerErrorException();
+        ExchangeRateTable table = exchangeRateTable;
+        if (table == null) {
+            table = loadInitialTable();
         }
+        return table.getRate(cur);
     }
 
     /**
-     * Получает XML-ответ от сервера Центрального банка.
+     * Возвращает момент загрузки текущей таблицы курсов.
      *
-     * @return XML-ответ от сервера Центрального банка.
-     * @throws InternalServerErrorException Если произошла внутренняя ошибка при выполнении запроса.
+     * @return Момент загрузки или null, если таблица еще не загружена.
+     */
+    public Instant getLoadedAt() {
+        ExchangeRateTable table = exchangeRateTable;
+        return table != null ? table.getLoadedAt() : null;
+    }
+
+    /**
+     * Обновляет таблицу курсов по расписанию.
+     * Новая таблица подменяет старую целиком, читатели в это время продолжают работать с предыдущей.
      */
-    private String getXmlResponse() {
-        ResponseEntity<String> responseEntity = restTemplate.getForEntity(CBR_URL, String.class);
+    @Scheduled(fixedDelayString = "${cbr.rates.refresh-interval}")
+    public void refreshRates() {
+        try {
+            exchangeRateTable = loadTable();
+            log.info("Exchange rates refreshed: {} currencies loaded", exchangeRateTable.size());
+        } catch (Exception ex) {
+            log.warn("Failed to refresh exchange rates, keeping the table loaded at {}", getLoadedAt(), ex);
+        }
+    }
 
+    // Синхронная загрузка выполняется только один раз, если запрос пришел раньше первого обновления по расписанию
+    private ExchangeRateTable loadInitialTable() {
+        initialLoadLock.lock();
         try {
-            return responseEntity.getBody();
+            if (exchangeRateTable == null) {
+                exchangeRateTable = loadTable();
+            }
+            return exchangeRateTable;
+        } catch (ServiceUnavailableException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new InternalServerErrorException();
+        } finally {
+            initialLoadLock.unlock();
         }
     }
 
+    private ExchangeRateTable loadTable() {
+        return cbrRatesParser.parse(new ByteArrayInputStream(getXmlResponse()));
+    }
+
     /**
-     * Парсит XML-данные и возвращает курс валюты.
+     * Получает XML-ответ от сервера Центрального банка.
+     * Ответ читается как массив байт, чтобы парсер взял кодировку из XML-декларации (windows-1251).
+     * Запрос выполняется через bulkhead и circuit breaker cbr.
      *
-     * @param xml          XML-данные от сервера Центрального банка.
-     * @param currencyCode Код валюты для поиска курса.
-     * @return Курс валюты.
-     * @throws BadRequestException          Если код валюты не найден в XML-данных.
-     * @throws InternalServerErrorException Если произошла внутренняя ошибка при парсинге данных.
+     * @return XML-ответ от сервера Центрального банка.
+     * @throws InternalServerErrorException Если произошла внутренняя ошибка при выполнении запроса.
+     * @throws ServiceUnavailableException  Если circuit breaker cbr открыт.
      */
-    private double parseExchangeRate(String xml, String currencyCode) {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(new InputSource(new StringReader(xml)));
+    private byte[] getXmlResponse() {
+        ResponseEntity<byte[]> responseEntity = downstreamGuard.call(DownstreamGuard.CBR,
+                () -> restTemplate.getForEntity(cbrUrl, byte[].class));
 
-            NodeList valuteList = document.getElementsByTagName("Valute");
-
-            for (int i = 0; i < valuteList.getLength(); ++i) {
-                Element valuteElement = (Element) valuteList.item(i);
-                String code = valuteElement.getElementsByTagName("NumCode").item(0).getTextContent();
-
-                // Если искомый код валюты совпадает с найденным, получаем ткущий курс из тега Value
-                if (code.equals(currencyCode)) {
-                    String value = valuteElement.getElementsByTagName("Value").item(0).getTextContent();
-                    return Double.parseDouble(value.replace(',', '.'));
-                }
-            }
-            throw new BadRequestException(TransferResponseMessagesEnum.BAD_REQUEST_FOR_CUR.getMessage());
-        } catch (ParserConfigurationException | SAXException | IOException ex) {
+        byte[] body = responseEntity.getBody();
+        if (body == null) {
             throw new InternalServerErrorException();
         }
+        return body;
     }
 }
@@ -0,0 +1,82 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Неизменяемая таблица курсов валют, загруженная из одного ответа ЦБ РФ.
+ * Курсы хранятся в массиве, индексом которого служит трехзначный цифровой код валюты (ISO 4217).
+ */
+public class ExchangeRateTable {
+
+    private static final int NUM_CODE_LIMIT = 1000;
+
+    private final double[] ratesByNumCode;
+
+    private final int size;
+
+    private final Instant loadedAt;
+
+    /**
+     * @param ratesByNumCode Курсы за одну единицу валюты по цифровому коду, NaN для отсутствующих валют.
+     * @param loadedAt       Момент загрузки курсов.
+     */
+    public ExchangeRateTable(double[] ratesByNumCode, Instant loadedAt) {
+        if (ratesByNumCode.length != NUM_CODE_LIMIT) {
+            throw new IllegalArgumentException("Rate table must have " + NUM_CODE_LIMIT + " slots");
+        }
+        this.ratesByNumCode = ratesByNumCode.clone();
+        this.size = (int) Arrays.stream(ratesByNumCode).filter(rate -> !Double.isNaN(rate)).count();
+        this.loadedAt = loadedAt;
+    }
+
+    // Создает пустой массив курсов для заполнения парсером
+    public static double[] emptyRates() {
+        double[] rates = new double[NUM_CODE_LIMIT];
+        Arrays.fill(rates, Double.NaN);
+        return rates;
+    }
+
+    // Преобразует строковый цифровой код валюты в индекс таблицы, -1 если код некорректен
+    public static int toNumCode(CharSequence currencyCode) {
+        if (currencyCode == null || currencyCode.length() != 3) {
+            return -1;
+        }
+        int code = 0;
+        for (int i = 0; i < 3; ++i) {
+            char digit = currencyCode.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            code = code * 10 + (digit - '0');
+        }
+        return code;
+    }
+
+    /**
+     * Получает курс валюты из таблицы.
+     *
+     * @param currencyCode Цифровой код валюты.
+     * @return Курс за одну единицу валюты.
+     * @throws BadRequestException Если код валюты отсутствует в таблице.
+     */
+    public double getRate(String currencyCode) {
+        int numCode = toNumCode(currencyCode);
+        double rate = numCode < 0 ? Double.NaN : ratesByNumCode[numCode];
+        if (Double.isNaN(rate)) {
+            throw new BadRequestException(TransferResponseMessagesEnum.BAD_REQUEST_FOR_CUR.getMessage());
+        }
+        return rate;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -2,8 +2,11 @@ package ru.sovcombank.petbackendtransfers.db;
 
 import org.springframework.stereotype.Component;
 import ru.sovcombank.petbackendtransfers.client.AccountServiceClient;
-import ru.sovcombank.petbackendtransfers.model.api.request.UpdateBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+import ru.sovcombank.petbackendtransfers.model.entity.TransferOutbox;
+import ru.sovcombank.petbackendtransfers.repository.TransferOutboxRepository;
 import ru.sovcombank.petbackendtransfers.repository.TransferRepository;
 
 @Component
@@ -11,20 +14,31 @@ public class DatabaseChanger {
 
     private final TransferRepository transferRepository;
 
+    private final TransferOutboxRepository transferOutboxRepository;
+
     private final AccountServiceClient accountServiceClient;
 
-    public DatabaseChanger(TransferRepository transferRepository, AccountServiceClient accountServiceClient) {
+    public DatabaseChanger(TransferRepository transferRepository,
+                           TransferOutboxRepository transferOutboxRepository,
+                           AccountServiceClient accountServiceClient) {
         this.transferRepository = transferRepository;
+        this.transferOutboxRepository = transferOutboxRepository;
         this.accountServiceClient = accountServiceClient;
     }
 
-    // Обновление баланса
-    public void updateAccountBalance(String accountNumber, UpdateBalanceRequest updateBalanceRequest) {
-        accountServiceClient.updateBalance(accountNumber, updateBalanceRequest);
+    // Списание и зачисление по обоим счетам одной операцией
+    public TransferBalanceResponse transferAccountBalance(TransferBalanceRequest transferBalanceRequest) {
+        return accountServiceClient.transferBalance(transferBalanceRequest);
     }
 
-    // Сохранение перевода в базе данных
+    // Сохранение перевода в базе данных с заданным uuid
     public void saveTransfer(Transfer transfer) {
-        transferRepository.save(transfer);
+        transferRepository.insert(transfer.getUuid(), transfer.getAccountNumberFrom(), transfer.getAccountNumberTo(),
+                transfer.getAmount(), transfer.getCur(), transfer.getTransactionDateTime());
+    }
+
+    // Сохранение события для отправки в history
+    public void saveTransferOutbox(TransferOutbox transferOutbox) {
+        transferOutboxRepository.save(transferOutbox);
     }
 }
@@ -1,16 +1,21 @@
 package ru.sovcombank.petbackendtransfers.exception;
 
-
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.MessageResponse;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
 
 /**
  * Глобальный обработчик исключений для управления ошибками в приложении.
@@ -27,6 +32,35 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new MessageResponse(errorMessage), HttpStatus.BAD_REQUEST);
     }
 
+    // Ошибка валидации тела запроса в реактивном варианте сервиса (профиль reactive)
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<MessageResponse> handleWebExchangeBindException(WebExchangeBindException ex) {
+        FieldError invalidField = ex.getBindingResult().getFieldError();
+        String errorMessage = String.format("Некорректный запрос по полю %s", invalidField.getField());
+        return new ResponseEntity<>(new MessageResponse(errorMessage), HttpStatus.BAD_REQUEST);
+    }
+
+    // Тело запроса не удалось прочитать в реактивном варианте сервиса: Jackson оборачивается в DecodingException
+    @ExceptionHandler(ServerWebInputException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<MessageResponse> handleServerWebInputException(ServerWebInputException ex) {
+        String errorMessage = NestedExceptionUtils.getMostSpecificCause(ex) instanceof InvalidTypeIdException
+                ? TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage()
+                : TransferResponseMessagesEnum.BAD_REQUEST_FOR_BODY.getMessage();
+        return new ResponseEntity<>(new MessageResponse(errorMessage), HttpStatus.BAD_REQUEST);
+    }
+
+    // Тело запроса не удалось прочитать: неизвестный requestType или значения неверного формата
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<MessageResponse> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
+        String errorMessage = ex.getCause() instanceof InvalidTypeIdException
+                ? TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage()
+                : TransferResponseMessagesEnum.BAD_REQUEST_FOR_BODY.getMessage();
+        return new ResponseEntity<>(new MessageResponse(errorMessage), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(InternalServerErrorException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<MessageResponse> handleInternalServerErrorException(InternalServerErrorException ex) {
@@ -45,6 +79,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new MessageResponse(ex.getMessage()), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<MessageResponse> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        return new ResponseEntity<>(new MessageResponse(ex.getMessage()), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(AccountNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<MessageResponse> handleAccountNotFoundException(AccountNotFoundException ex) {
@@ -68,4 +108,11 @@ public class GlobalExceptionHandler {
     public ResponseEntity<MessageResponse> handleTransferNotFoundException(TransferNotFoundException ex) {
         return new ResponseEntity<>(new MessageResponse(ex.getMessage()), HttpStatus.NOT_FOUND);
     }
-}
\ No newline at end of file
+
+    // Соседний сервис недоступен: circuit breaker открыт или исчерпан лимит одновременных запросов к нему
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<MessageResponse> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        return new ResponseEntity<>(new MessageResponse(ex.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
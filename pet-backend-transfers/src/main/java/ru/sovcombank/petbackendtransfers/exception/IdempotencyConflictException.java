@@ -0,0 +1,8 @@
+package ru.sovcombank.petbackendtransfers.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.sovcombank.petbackendtransfers.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
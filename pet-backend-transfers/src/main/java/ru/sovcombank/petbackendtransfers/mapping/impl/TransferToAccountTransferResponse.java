@@ -0,0 +1,19 @@
+package ru.sovcombank.petbackendtransfers.mapping.impl;
+
+import ru.sovcombank.petbackendtransfers.mapping.MapStructConfig;
+import ru.sovcombank.petbackendtransfers.mapping.Mapper;
+import ru.sovcombank.petbackendtransfers.model.api.response.AccountTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface TransferToAccountTransferResponse extends Mapper<Transfer, AccountTransferResponse> {
+
+    /**
+     * Преобразует сущность перевода в элемент выборки переводов по счету.
+     *
+     * @param transfer Сущность перевода.
+     * @return Перевод в выборке по счету.
+     */
+    @Override
+    AccountTransferResponse map(Transfer transfer);
+}
@@ -1,19 +1,12 @@
 package ru.sovcombank.petbackendtransfers.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.mapping.MapStructConfig;
 import ru.sovcombank.petbackendtransfers.mapping.Mapper;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
 
-@Component
-public class TransferToGetTransferResponse implements Mapper<Transfer, GetTransferResponse> {
-
-    private final ModelMapper modelMapper;
-
-    public TransferToGetTransferResponse(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface TransferToGetTransferResponse extends Mapper<Transfer, GetTransferResponse> {
 
     /**
      * Преобразует сущность перевода в ответ с информацией о переводе.
@@ -22,7 +15,5 @@ public class TransferToGetTransferResponse implements Mapper<Transfer, GetTransf
      * @return Ответ с информацией о переводе.
      */
     @Override
-    public GetTransferResponse map(Transfer transfer) {
-        return modelMapper.map(transfer, GetTransferResponse.class);
-    }
-}
\ No newline at end of file
+    GetTransferResponse map(Transfer transfer);
+}
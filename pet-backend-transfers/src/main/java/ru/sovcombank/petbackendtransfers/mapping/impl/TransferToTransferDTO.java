@@ -1,28 +1,23 @@
 package ru.sovcombank.petbackendtransfers.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import org.mapstruct.Mapping;
+import ru.sovcombank.petbackendtransfers.mapping.MapStructConfig;
 import ru.sovcombank.petbackendtransfers.mapping.Mapper;
 import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
 
-@Component
-public class TransferToTransferDTO implements Mapper<Transfer, TransferDTO> {
-
-    private final ModelMapper modelMapper;
-
-    public TransferToTransferDTO(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface TransferToTransferDTO extends Mapper<Transfer, TransferDTO> {
 
     /**
      * Преобразует сущность перевода в DTO перевода для history.
+     * Клиенты отправителя и получателя заполняются в TransferDTOBuilder.
      *
      * @param transfer Сущность перевода.
      * @return Ответ DTO перевода.
      */
+    @Mapping(target = "clientIdFrom", ignore = true)
+    @Mapping(target = "clientIdTo", ignore = true)
     @Override
-    public TransferDTO map(Transfer transfer) {
-        return modelMapper.map(transfer, TransferDTO.class);
-    }
-}
\ No newline at end of file
+    TransferDTO map(Transfer transfer);
+}
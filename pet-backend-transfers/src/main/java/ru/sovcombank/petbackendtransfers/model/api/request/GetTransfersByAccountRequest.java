@@ -0,0 +1,43 @@
+package ru.sovcombank.petbackendtransfers.model.api.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import ru.sovcombank.petbackendtransfers.model.context.TransferCursor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Параметры запроса переводов по счету: GET /transfers?account=...&from=...&to=...&after=...&limit=...
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetTransfersByAccountRequest {
+
+    // Номер счета отправителя или получателя
+    @NotNull
+    @Pattern(regexp = "^\\d{16}$")
+    private String account;
+
+    // Начало периода включительно
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    // Конец периода не включительно
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    // Курсор из поля next предыдущей страницы
+    private TransferCursor after;
+
+    @NotNull
+    @Min(1)
+    @Max(1000)
+    private Integer limit = 100;
+}
@@ -12,7 +12,7 @@ import java.math.BigDecimal;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class MakeTransferByAccountRequest {
+public class MakeTransferByAccountRequest implements MakeTransferRequest {
 
     @NotNull
     private Integer clientId;
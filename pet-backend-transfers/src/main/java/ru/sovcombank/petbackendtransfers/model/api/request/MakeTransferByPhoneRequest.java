@@ -12,7 +12,7 @@ import java.math.BigDecimal;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class MakeTransferByPhoneRequest {
+public class MakeTransferByPhoneRequest implements MakeTransferRequest {
 
     @NotNull
     private Integer clientId;
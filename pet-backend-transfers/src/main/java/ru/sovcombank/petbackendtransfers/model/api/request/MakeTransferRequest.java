@@ -0,0 +1,21 @@
+package ru.sovcombank.petbackendtransfers.model.api.request;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Запрос на перевод. Конкретный тип запроса определяется полем requestType
+ * при чтении тела запроса, без промежуточного преобразования в Map.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY,
+        property = "requestType", visible = true)
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = MakeTransferByAccountRequest.class, name = "ACCOUNT"),
+        @JsonSubTypes.Type(value = MakeTransferByPhoneRequest.class, name = "PHONE")
+})
+public interface MakeTransferRequest {
+
+    String getRequestType();
+
+    String getCur();
+}
@@ -0,0 +1,25 @@
+package ru.sovcombank.petbackendtransfers.model.api.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferBalanceRequest {
+
+    private String accountNumberFrom;
+
+    private String accountNumberTo;
+
+    private BigDecimal amountFrom;
+
+    private BigDecimal amountTo;
+
+    // Идентификатор перевода: повторный запрос с тем же идентификатором accounts не выполняет второй раз
+    private UUID transferUuid;
+}
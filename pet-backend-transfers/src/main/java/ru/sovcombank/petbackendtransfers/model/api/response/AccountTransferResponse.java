@@ -0,0 +1,27 @@
+package ru.sovcombank.petbackendtransfers.model.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountTransferResponse {
+
+    private UUID uuid;
+
+    private String accountNumberFrom;
+
+    private String accountNumberTo;
+
+    private BigDecimal amount;
+
+    private String cur;
+
+    private LocalDateTime transactionDateTime;
+}
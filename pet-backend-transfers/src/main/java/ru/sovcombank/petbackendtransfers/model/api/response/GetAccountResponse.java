@@ -1,5 +1,6 @@
 package ru.sovcombank.petbackendtransfers.model.api.response;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -22,6 +23,8 @@ public class GetAccountResponse {
 
     private boolean isMain;
 
+    // accounts отдает признак закрытия счета в поле closed
     @JsonProperty(value = "isClosed")
+    @JsonAlias("closed")
     private boolean isClosed;
 }
@@ -1,5 +1,6 @@
 package ru.sovcombank.petbackendtransfers.model.api.response;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,5 +13,7 @@ import java.util.List;
 @NoArgsConstructor
 public class GetAccountsResponse {
 
+    // accounts отдает список счетов клиента в поле accountNumbers
+    @JsonAlias("accountNumbers")
     private List<AccountDTO> accountList;
 }
@@ -0,0 +1,21 @@
+package ru.sovcombank.petbackendtransfers.model.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница переводов по счету. Поле next содержит курсор для параметра after следующей страницы
+ * или null, если переводов больше нет.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetTransfersByAccountResponse {
+
+    private List<AccountTransferResponse> transfers;
+
+    private String next;
+}
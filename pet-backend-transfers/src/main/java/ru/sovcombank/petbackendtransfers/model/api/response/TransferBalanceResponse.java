@@ -0,0 +1,21 @@
+package ru.sovcombank.petbackendtransfers.model.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferBalanceResponse {
+
+    private String accountNumberFrom;
+
+    private BigDecimal balanceFrom;
+
+    private String accountNumberTo;
+
+    private BigDecimal balanceTo;
+}
@@ -0,0 +1,21 @@
+package ru.sovcombank.petbackendtransfers.model.context;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetUserResponse;
+
+/**
+ * Получатель перевода по номеру телефона: пользователь, его основной счет и данные этого счета.
+ * Разрешается одной цепочкой запросов, которая не зависит от данных отправителя.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipientContext {
+
+    private final GetUserResponse user;
+
+    private final String mainAccountNumber;
+
+    private final GetAccountResponse account;
+}
@@ -0,0 +1,29 @@
+package ru.sovcombank.petbackendtransfers.model.context;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+
+import java.math.BigDecimal;
+
+/**
+ * Данные одного перевода, полученные из микросервисов accounts и users.
+ * Каждый счет запрашивается один раз при валидации, после чего контекст передается
+ * в обновление баланса и в построение сообщения для Kafka без повторных запросов.
+ */
+@Getter
+@AllArgsConstructor
+public class TransferContext {
+
+    private final String accountNumberFrom;
+
+    private final String accountNumberTo;
+
+    private final GetAccountResponse accountFrom;
+
+    private final GetAccountResponse accountTo;
+
+    private final BigDecimal amount;
+
+    private final String cur;
+}
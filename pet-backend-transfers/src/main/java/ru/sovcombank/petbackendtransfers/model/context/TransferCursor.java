@@ -0,0 +1,94 @@
+package ru.sovcombank.petbackendtransfers.model.context;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция в выборке переводов по счету: время и uuid последнего перевода страницы.
+ * Переводы упорядочены по (transactionDateTime, uuid), следующая страница начинается строго после курсора.
+ * Клиент получает курсор в виде непрозрачной строки и передает ее без изменений.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class TransferCursor {
+
+    private static final String SEPARATOR = "_";
+
+    // Границы выборки, если период не задан: раньше и позже любого перевода
+    private static final LocalDateTime NO_LOWER_BOUND = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final LocalDateTime NO_UPPER_BOUND = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // Наименьший uuid: позиция (from, NIL_UUID) пропускает только переводы раньше from
+    private static final UUID NIL_UUID = new UUID(0, 0);
+
+    private final LocalDateTime transactionDateTime;
+
+    private final UUID uuid;
+
+    public static TransferCursor of(Transfer transfer) {
+        return new TransferCursor(transfer.getTransactionDateTime(), transfer.getUuid());
+    }
+
+    /**
+     * Позиция, после которой начинается выборка: курсор after, но не раньше начала периода from.
+     *
+     * @param from  Начало периода включительно, может отсутствовать.
+     * @param after Курсор предыдущей страницы, может отсутствовать.
+     * @return Нижняя граница выборки.
+     */
+    public static TransferCursor lowerBound(LocalDateTime from, TransferCursor after) {
+        LocalDateTime fromDateTime = from != null ? from : NO_LOWER_BOUND;
+        if (after != null && !after.getTransactionDateTime().isBefore(fromDateTime)) {
+            return after;
+        }
+        return new TransferCursor(fromDateTime, NIL_UUID);
+    }
+
+    /**
+     * Верхняя граница выборки по времени перевода, не включительно.
+     *
+     * @param to Конец периода, может отсутствовать.
+     * @return Конец периода или время позже любого перевода.
+     */
+    public static LocalDateTime upperBound(LocalDateTime to) {
+        return to != null ? to : NO_UPPER_BOUND;
+    }
+
+    /**
+     * Разбирает курсор из параметра запроса. Используется конвертером Spring при привязке параметра after,
+     * поэтому некорректный курсор приводит к ошибке привязки этого параметра.
+     *
+     * @param value Курсор, полученный в поле next.
+     * @return Курсор.
+     * @throws IllegalArgumentException Если строка не является курсором.
+     */
+    public static TransferCursor valueOf(String value) {
+        String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid transfer cursor: " + value);
+        }
+        try {
+            return new TransferCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    UUID.fromString(decoded.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid transfer cursor: " + value, ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (transactionDateTime + SEPARATOR + uuid).getBytes(StandardCharsets.UTF_8));
+    }
+}
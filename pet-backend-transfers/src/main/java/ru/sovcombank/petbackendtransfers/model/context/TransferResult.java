@@ -0,0 +1,19 @@
+package ru.sovcombank.petbackendtransfers.model.context;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+
+import java.math.BigDecimal;
+
+/**
+ * Результат проведения перевода: сохраненный перевод и баланс отправителя сразу после списания.
+ */
+@Getter
+@AllArgsConstructor
+public class TransferResult {
+
+    private final Transfer transfer;
+
+    private final BigDecimal balanceFrom;
+}
@@ -0,0 +1,42 @@
+package ru.sovcombank.petbackendtransfers.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Ключ идемпотентности запроса на перевод.
+ * Строка создается до выполнения перевода, а uuid перевода и ответ записываются после его успешного завершения.
+ * Пока ответ не записан, перевод с этим ключом считается выполняющимся
+ * или завершившимся с неизвестным результатом.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "transfer_idempotency_keys")
+public class IdempotencyKey {
+
+    @Id
+    private String idempotencyKey;
+
+    // SHA-256 тела запроса, по нему повтор отличается от другого запроса с тем же ключом
+    @Column(nullable = false)
+    private String requestHash;
+
+    private UUID transferUuid;
+
+    // Сериализованный в JSON объект MakeTransferResponse
+    private String response;
+
+    @Column(nullable = false)
+    private LocalDateTime createDateTime;
+
+    @Column(nullable = false)
+    private LocalDateTime expireDateTime;
+}
@@ -2,8 +2,6 @@ package ru.sovcombank.petbackendtransfers.model.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -21,8 +19,8 @@ import java.util.UUID;
 @Entity(name = "transfers")
 public class Transfer {
 
+    // Задается до запроса в accounts и передается в него идентификатором перевода
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID uuid;
 
     @Column(nullable = false)
@@ -0,0 +1,51 @@
+package ru.sovcombank.petbackendtransfers.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Событие истории перевода, ожидающее отправки в Kafka.
+ * Записывается в одной транзакции с переводом и помечается отправленным после подтверждения от брокера.
+ * Неудачные отправки откладываются через nextAttemptDateTime, поэтому таблица служит и очередью повторов.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "transfer_outbox")
+public class TransferOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID transferUuid;
+
+    // Сериализованный в JSON объект TransferDTO
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createDateTime = LocalDateTime.now();
+
+    private LocalDateTime sentDateTime;
+
+    // Количество попыток отправки, увеличивается при каждой выборке события для отправки
+    @Column(nullable = false)
+    private int attempts;
+
+    // Время, раньше которого событие не будет выбрано для отправки повторно
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptDateTime = LocalDateTime.now();
+
+    private String lastError;
+}
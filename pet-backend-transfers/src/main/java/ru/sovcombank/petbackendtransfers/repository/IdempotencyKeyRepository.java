@@ -0,0 +1,41 @@
+package ru.sovcombank.petbackendtransfers.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.sovcombank.petbackendtransfers.model.entity.IdempotencyKey;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // Занимает ключ для выполнения перевода. Возвращает 0, если ключ уже занят и срок его хранения не истек
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO transfer_idempotency_keys (idempotency_key, request_hash, create_date_time, expire_date_time) "
+            + "VALUES (:key, :requestHash, :now, :expireDateTime) "
+            + "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, transfer_uuid = NULL, "
+            + "response = NULL, create_date_time = EXCLUDED.create_date_time, expire_date_time = EXCLUDED.expire_date_time "
+            + "WHERE transfer_idempotency_keys.expire_date_time <= :now", nativeQuery = true)
+    int claim(String key, String requestHash, LocalDateTime now, LocalDateTime expireDateTime);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE transfer_idempotency_keys SET transfer_uuid = :transferUuid, response = :response "
+            + "WHERE idempotency_key = :key", nativeQuery = true)
+    int complete(String key, UUID transferUuid, String response);
+
+    // Освобождает ключ, если перевод не выполнен и запрос можно повторить
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM transfer_idempotency_keys WHERE idempotency_key = :key AND response IS NULL",
+            nativeQuery = true)
+    int release(String key);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM transfer_idempotency_keys WHERE expire_date_time <= :now", nativeQuery = true)
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,78 @@
+package ru.sovcombank.petbackendtransfers.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.model.entity.IdempotencyKey;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Таблица transfer_idempotency_keys через R2DBC для реактивного варианта сервиса (профиль reactive).
+ * Запросы те же, что у {@link IdempotencyKeyRepository}, удалением истекших ключей занимается он же.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveIdempotencyKeyRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveIdempotencyKeyRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Занимает ключ для выполнения перевода. Возвращает 0, если ключ уже занят и срок его хранения не истек
+    public Mono<Long> claim(String key, String requestHash, LocalDateTime now, LocalDateTime expireDateTime) {
+        return databaseClient.sql("INSERT INTO transfer_idempotency_keys (idempotency_key, request_hash, "
+                        + "create_date_time, expire_date_time) VALUES (:key, :requestHash, :now, :expireDateTime) "
+                        + "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, "
+                        + "transfer_uuid = NULL, response = NULL, create_date_time = EXCLUDED.create_date_time, "
+                        + "expire_date_time = EXCLUDED.expire_date_time "
+                        + "WHERE transfer_idempotency_keys.expire_date_time <= :now")
+                .bind("key", key)
+                .bind("requestHash", requestHash)
+                .bind("now", now)
+                .bind("expireDateTime", expireDateTime)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> complete(String key, UUID transferUuid, String response) {
+        return databaseClient.sql("UPDATE transfer_idempotency_keys SET transfer_uuid = :transferUuid, "
+                        + "response = :response WHERE idempotency_key = :key")
+                .bind("key", key)
+                .bind("transferUuid", transferUuid)
+                .bind("response", response)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Освобождает ключ, если перевод не выполнен и запрос можно повторить
+    public Mono<Long> release(String key) {
+        return databaseClient.sql("DELETE FROM transfer_idempotency_keys WHERE idempotency_key = :key "
+                        + "AND response IS NULL")
+                .bind("key", key)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<IdempotencyKey> findById(String key) {
+        return databaseClient.sql("SELECT * FROM transfer_idempotency_keys WHERE idempotency_key = :key")
+                .bind("key", key)
+                .map(ReactiveIdempotencyKeyRepository::toIdempotencyKey)
+                .one();
+    }
+
+    private static IdempotencyKey toIdempotencyKey(Readable row) {
+        return new IdempotencyKey(
+                row.get("idempotency_key", String.class),
+                row.get("request_hash", String.class),
+                row.get("transfer_uuid", UUID.class),
+                row.get("response", String.class),
+                row.get("create_date_time", LocalDateTime.class),
+                row.get("expire_date_time", LocalDateTime.class));
+    }
+}
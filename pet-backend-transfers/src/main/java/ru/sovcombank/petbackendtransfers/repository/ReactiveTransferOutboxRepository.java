@@ -0,0 +1,32 @@
+package ru.sovcombank.petbackendtransfers.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.model.entity.TransferOutbox;
+
+/**
+ * Запись событий в transfer_outbox через R2DBC для реактивного варианта сервиса (профиль reactive).
+ * Выборкой и отправкой событий занимается TransferOutboxRelay через {@link TransferOutboxRepository}.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveTransferOutboxRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveTransferOutboxRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> save(TransferOutbox transferOutbox) {
+        return databaseClient.sql("INSERT INTO transfer_outbox (transfer_uuid, payload, create_date_time, "
+                        + "next_attempt_date_time) VALUES (:transferUuid, :payload, :createDateTime, :nextAttemptDateTime)")
+                .bind("transferUuid", transferOutbox.getTransferUuid())
+                .bind("payload", transferOutbox.getPayload())
+                .bind("createDateTime", transferOutbox.getCreateDateTime())
+                .bind("nextAttemptDateTime", transferOutbox.getNextAttemptDateTime())
+                .then();
+    }
+}
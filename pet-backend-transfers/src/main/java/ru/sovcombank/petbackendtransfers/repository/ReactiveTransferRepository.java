@@ -0,0 +1,71 @@
+package ru.sovcombank.petbackendtransfers.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Таблица transfers через R2DBC для реактивного варианта сервиса (профиль reactive).
+ * Сущность та же, что у {@link TransferRepository}, uuid перевода задается до вставки.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveTransferRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveTransferRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> save(Transfer transfer) {
+        return databaseClient.sql("INSERT INTO transfers (uuid, account_number_from, account_number_to, amount, cur, "
+                        + "transaction_date_time) VALUES (:uuid, :accountNumberFrom, :accountNumberTo, :amount, :cur, "
+                        + ":transactionDateTime)")
+                .bind("uuid", transfer.getUuid())
+                .bind("accountNumberFrom", transfer.getAccountNumberFrom())
+                .bind("accountNumberTo", transfer.getAccountNumberTo())
+                .bind("amount", transfer.getAmount())
+                .bind("cur", transfer.getCur())
+                .bind("transactionDateTime", transfer.getTransactionDateTime())
+                .then();
+    }
+
+    public Mono<Transfer> findByUuid(UUID uuid) {
+        return databaseClient.sql("SELECT * FROM transfers WHERE uuid = :uuid")
+                .bind("uuid", uuid)
+                .map(ReactiveTransferRepository::toTransfer)
+                .one();
+    }
+
+    // Тот же запрос, что и TransferRepository.streamByAccount: строки передаются дальше по мере чтения
+    public Flux<Transfer> findByAccount(String account, LocalDateTime afterDateTime, UUID afterUuid,
+                                        LocalDateTime to, int limit) {
+        return databaseClient.sql(TransferRepository.FIND_BY_ACCOUNT_SQL)
+                .bind("account", account)
+                .bind("afterDateTime", afterDateTime)
+                .bind("afterUuid", afterUuid)
+                .bind("to", to)
+                .bind("limit", limit)
+                .map(ReactiveTransferRepository::toTransfer)
+                .all();
+    }
+
+    private static Transfer toTransfer(Readable row) {
+        return new Transfer(
+                row.get("uuid", UUID.class),
+                row.get("account_number_from", String.class),
+                row.get("account_number_to", String.class),
+                row.get("amount", BigDecimal.class),
+                row.get("cur", String.class),
+                row.get("transaction_date_time", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.sovcombank.petbackendtransfers.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.sovcombank.petbackendtransfers.model.entity.TransferOutbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TransferOutboxRepository extends JpaRepository<TransferOutbox, Long> {
+
+    // Получение пачки событий, готовых к отправке, с блокировкой строк.
+    // Строки, уже взятые другим экземпляром сервиса, пропускаются
+    @Query(value = "SELECT * FROM transfer_outbox WHERE sent_date_time IS NULL AND next_attempt_date_time <= :now "
+            + "ORDER BY next_attempt_date_time, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<TransferOutbox> findPendingForUpdate(LocalDateTime now, int limit);
+
+    @Modifying
+    @Query(value = "UPDATE transfer_outbox SET sent_date_time = :sentDateTime WHERE id IN (:ids)", nativeQuery = true)
+    int markSent(Collection<Long> ids, LocalDateTime sentDateTime);
+
+    @Modifying
+    @Query(value = "UPDATE transfer_outbox SET next_attempt_date_time = :nextAttemptDateTime, last_error = :lastError "
+            + "WHERE id = :id AND sent_date_time IS NULL", nativeQuery = true)
+    int markFailed(Long id, LocalDateTime nextAttemptDateTime, String lastError);
+
+    long countBySentDateTimeIsNull();
+}
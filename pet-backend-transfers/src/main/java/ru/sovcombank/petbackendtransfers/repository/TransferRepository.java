@@ -1,12 +1,47 @@
 package ru.sovcombank.petbackendtransfers.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TransferRepository extends JpaRepository<Transfer, UUID> {
 
+    // Переводы по счету отправителя или получателя после позиции (afterDateTime, afterUuid) и до времени to.
+    // Каждая половина читается диапазоном по своему индексу (счет, время, uuid) уже в нужном порядке,
+    // поэтому запрос не сортирует все переводы счета. Перевод на тот же счет запрещен, дублей нет
+    String FIND_BY_ACCOUNT_SQL = "SELECT * FROM ("
+            + "(SELECT * FROM transfers WHERE account_number_from = :account "
+            + "AND (transaction_date_time, uuid) > (:afterDateTime, :afterUuid) AND transaction_date_time < :to "
+            + "ORDER BY transaction_date_time, uuid LIMIT :limit) "
+            + "UNION ALL "
+            + "(SELECT * FROM transfers WHERE account_number_to = :account "
+            + "AND (transaction_date_time, uuid) > (:afterDateTime, :afterUuid) AND transaction_date_time < :to "
+            + "ORDER BY transaction_date_time, uuid LIMIT :limit)"
+            + ") account_transfers ORDER BY transaction_date_time, uuid LIMIT :limit";
+
     Optional<Transfer> findByUuid(UUID uuid);
+
+    // Перевод вставляется с uuid, переданным в accounts, поэтому без генерации uuid и проверки существования в save
+    @Modifying
+    @Query(value = "INSERT INTO transfers (uuid, account_number_from, account_number_to, amount, cur, "
+            + "transaction_date_time) VALUES (:uuid, :accountNumberFrom, :accountNumberTo, :amount, :cur, "
+            + ":transactionDateTime)", nativeQuery = true)
+    void insert(UUID uuid, String accountNumberFrom, String accountNumberTo, BigDecimal amount, String cur,
+                LocalDateTime transactionDateTime);
+
+    // Строки читаются из базы порциями по мере обработки, вызывать внутри транзакции
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query(value = FIND_BY_ACCOUNT_SQL, nativeQuery = true)
+    Stream<Transfer> streamByAccount(String account, LocalDateTime afterDateTime, UUID afterUuid, LocalDateTime to,
+                                     int limit);
 }
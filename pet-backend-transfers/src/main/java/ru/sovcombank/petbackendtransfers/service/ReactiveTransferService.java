@@ -0,0 +1,22 @@
+package ru.sovcombank.petbackendtransfers.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.model.api.request.GetTransfersByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.AccountTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferCursor;
+
+import java.util.function.Consumer;
+
+public interface ReactiveTransferService {
+
+    Mono<MakeTransferResponse> makeTransfer(MakeTransferRequest request, String idempotencyKey);
+
+    Mono<GetTransferResponse> getTransfers(String uuid);
+
+    Flux<AccountTransferResponse> getTransfersByAccount(GetTransfersByAccountRequest request,
+                                                        Consumer<TransferCursor> nextConsumer);
+}
@@ -0,0 +1,9 @@
+package ru.sovcombank.petbackendtransfers.service;
+
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
+
+public interface ReactiveTransferStrategy<T extends MakeTransferRequest> {
+    Mono<TransferResult> makeTransfer(T request);
+}
@@ -1,13 +1,20 @@
 package ru.sovcombank.petbackendtransfers.service;
 
+import ru.sovcombank.petbackendtransfers.model.api.request.GetTransfersByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.AccountTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferCursor;
 
-import java.util.Map;
+import java.util.function.Consumer;
 
 public interface TransferService {
 
-    MakeTransferResponse makeTransfer(Map<String, Object> requestMap);
+    MakeTransferResponse makeTransfer(MakeTransferRequest request, String idempotencyKey);
 
     GetTransferResponse getTransfers(String uuid);
+
+    TransferCursor getTransfersByAccount(GetTransfersByAccountRequest request,
+                                         Consumer<AccountTransferResponse> transferConsumer);
 }
@@ -1,9 +1,8 @@
 package ru.sovcombank.petbackendtransfers.service;
 
-import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
 
-import java.util.Map;
-
-public interface TransferStrategy {
-    MakeTransferResponse makeTransfer(Map<String, Object> requestMap);
-}
\ No newline at end of file
+public interface TransferStrategy<T extends MakeTransferRequest> {
+    TransferResult makeTransfer(T request);
+}
@@ -0,0 +1,109 @@
+package ru.sovcombank.petbackendtransfers.service.helper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.exception.ServiceUnavailableException;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Параллельное выполнение независимых запросов к другим сервисам при валидации перевода.
+ * Все запросы одной валидации ждутся с общим сроком transfer-validation.timeout,
+ * первая ошибка или истечение срока прекращают ожидание: еще не начатые запросы не выполняются,
+ * а уже выполняющиеся не прерываются и завершаются не позже read-timeout клиента.
+ */
+@Slf4j
+@Component
+public class ParallelCallsServiceHelper {
+
+    private final Executor transferLookupExecutor;
+
+    private final Duration timeout;
+
+    public ParallelCallsServiceHelper(@Qualifier("transferLookupExecutor") Executor transferLookupExecutor,
+                                      @Value("${transfer-validation.timeout}") Duration timeout) {
+        this.transferLookupExecutor = transferLookupExecutor;
+        this.timeout = timeout;
+    }
+
+    // Запуск запроса в пуле transferLookupExecutor. Если пул и его очередь заполнены, запрос завершается
+    // ошибкой ServiceUnavailableException, и awaitAll сразу прерывает валидацию
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, transferLookupExecutor);
+        } catch (RejectedExecutionException ex) {
+            return rejected();
+        }
+    }
+
+    // Запуск проверки без результата в пуле transferLookupExecutor
+    public CompletableFuture<Void> runAsync(Runnable call) {
+        try {
+            return CompletableFuture.runAsync(call, transferLookupExecutor);
+        } catch (RejectedExecutionException ex) {
+            return rejected();
+        }
+    }
+
+    /**
+     * Ожидает завершения всех запросов в пределах общего срока.
+     * Завершается сразу после первой ошибки, пробрасывая исходное исключение.
+     *
+     * @param futures Запущенные запросы.
+     * @throws InternalServerErrorException Если запросы не завершились за отведенное время.
+     */
+    public void awaitAll(CompletableFuture<?>... futures) {
+        CompletableFuture<Void> firstFailureOrAll = new CompletableFuture<>();
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((result, ex) -> {
+                if (ex != null) {
+                    firstFailureOrAll.completeExceptionally(ex);
+                }
+            });
+        }
+        CompletableFuture.allOf(futures).thenRun(() -> firstFailureOrAll.complete(null));
+
+        try {
+            firstFailureOrAll.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            cancelAll(futures);
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InternalServerErrorException();
+        } catch (TimeoutException ex) {
+            cancelAll(futures);
+            log.error("Transfer validation calls did not complete within {}", timeout);
+            throw new InternalServerErrorException();
+        } catch (InterruptedException ex) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException();
+        }
+    }
+
+    private <T> CompletableFuture<T> rejected() {
+        log.warn("Transfer validation call rejected: transferLookupExecutor is saturated");
+        return CompletableFuture.failedFuture(
+                new ServiceUnavailableException(TransferResponseMessagesEnum.SERVICE_UNAVAILABLE.getMessage()));
+    }
+
+    // Ожидающие в очереди пула запросы не выполняются. CompletableFuture.cancel не прерывает поток,
+    // поэтому начатый запрос дорабатывает до ответа или read-timeout клиента, и его результат не используется
+    private void cancelAll(CompletableFuture<?>... futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
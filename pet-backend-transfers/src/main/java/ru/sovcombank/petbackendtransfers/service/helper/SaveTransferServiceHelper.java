@@ -1,25 +1,53 @@
 package ru.sovcombank.petbackendtransfers.service.helper;
 
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.sovcombank.petbackendtransfers.builder.TransferBuilder;
+import ru.sovcombank.petbackendtransfers.builder.TransferDTOBuilder;
+import ru.sovcombank.petbackendtransfers.builder.TransferOutboxBuilder;
 import ru.sovcombank.petbackendtransfers.db.DatabaseChanger;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
 
-import java.math.BigDecimal;
+import java.util.UUID;
 
 @Component
 public class SaveTransferServiceHelper {
     private final DatabaseChanger databaseChanger;
     private final TransferBuilder transferBuilder;
+    private final TransferDTOBuilder transferDTOBuilder;
+    private final TransferOutboxBuilder transferOutboxBuilder;
+    private final TransferMetrics transferMetrics;
 
-    public SaveTransferServiceHelper(DatabaseChanger databaseChanger, TransferBuilder transferBuilder) {
+    public SaveTransferServiceHelper(DatabaseChanger databaseChanger,
+                                     TransferBuilder transferBuilder,
+                                     TransferDTOBuilder transferDTOBuilder,
+                                     TransferOutboxBuilder transferOutboxBuilder,
+                                     TransferMetrics transferMetrics) {
         this.databaseChanger = databaseChanger;
         this.transferBuilder = transferBuilder;
+        this.transferDTOBuilder = transferDTOBuilder;
+        this.transferOutboxBuilder = transferOutboxBuilder;
+        this.transferMetrics = transferMetrics;
     }
 
-    public Transfer saveTransfer(String accountNumberFrom, String accountNumberTo, BigDecimal amount, String cur) {
-        Transfer transfer = transferBuilder.createTransferObject(accountNumberFrom, accountNumberTo, amount, cur);
+    // Сохранение перевода вместе с событием для history, отправкой события занимается TransferOutboxRelay.
+    // Перевод сохраняется с идентификатором, под которым он выполнен в accounts
+    @Transactional
+    public Transfer saveTransfer(TransferContext transferContext, UUID transferUuid) {
+        Transfer transfer = transferBuilder.createTransferObject(
+                transferContext.getAccountNumberFrom(),
+                transferContext.getAccountNumberTo(),
+                transferContext.getAmount(),
+                transferContext.getCur());
+        transfer.setUuid(transferUuid);
         databaseChanger.saveTransfer(transfer);
+
+        // Запись события для history заменяет синхронную отправку в Kafka, отправка замеряется в TransferOutboxRelay
+        transferMetrics.runStage("outbox-write", () -> databaseChanger.saveTransferOutbox(
+                transferOutboxBuilder.createTransferOutboxObject(
+                        transferDTOBuilder.createTransferDTOObject(transfer, transferContext))));
         return transfer;
     }
 }
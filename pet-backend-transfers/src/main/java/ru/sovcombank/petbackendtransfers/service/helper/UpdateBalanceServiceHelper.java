@@ -2,15 +2,16 @@ package ru.sovcombank.petbackendtransfers.service.helper;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 import ru.sovcombank.petbackendtransfers.builder.RequestBuilder;
 import ru.sovcombank.petbackendtransfers.db.DatabaseChanger;
-import ru.sovcombank.petbackendtransfers.model.api.request.UpdateBalanceRequest;
-import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
-import ru.sovcombank.petbackendtransfers.model.enums.TypePaymentsEnum;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
 
 import java.math.BigDecimal;
+import java.util.UUID;
 
 @Slf4j
 @Component
@@ -24,34 +25,44 @@ public class UpdateBalanceServiceHelper {
 
     private final SaveTransferServiceHelper saveTransferServiceHelper;
 
+    private final TransferMetrics transferMetrics;
+
     public UpdateBalanceServiceHelper(RequestBuilder requestBuilder,
                                       DatabaseChanger databaseChanger,
                                       GetAmountByCurServiceHelper getAmountByCurServiceHelper,
-                                      SaveTransferServiceHelper saveTransferServiceHelper) {
+                                      SaveTransferServiceHelper saveTransferServiceHelper,
+                                      TransferMetrics transferMetrics) {
         this.requestBuilder = requestBuilder;
         this.databaseChanger = databaseChanger;
         this.getAmountByCurServiceHelper = getAmountByCurServiceHelper;
         this.saveTransferServiceHelper = saveTransferServiceHelper;
+        this.transferMetrics = transferMetrics;
     }
 
-    @Transactional
-    public Transfer updateBalance(String cur, GetAccountResponse getAccountResponse, String accountNumberFrom, String accountNumberTo, BigDecimal transferAmount) {
-        UpdateBalanceRequest updateBalanceRequestForAccountFrom = requestBuilder.createUpdateBalanceRequest(
-                TypePaymentsEnum.DEBITING.getTypePayment(),
-                transferAmount);
-
-        BigDecimal amountByCur = getAmountByCurServiceHelper.getAmountByCur(cur, transferAmount, getAccountResponse);
+    // Списание и зачисление выполняются в accounts одной транзакцией, после чего перевод сохраняется локально.
+    // Запрос в accounts выполняется вне локальной транзакции: соединение пула занимает только короткое сохранение
+    // перевода с событием, и медленный accounts не исчерпывает пул для чтения переводов
+    public TransferResult updateBalance(TransferContext transferContext) {
+        String accountNumberFrom = transferContext.getAccountNumberFrom();
+        String accountNumberTo = transferContext.getAccountNumberTo();
+        BigDecimal transferAmount = transferContext.getAmount();
+        String cur = transferContext.getCur();
 
-        UpdateBalanceRequest updateBalanceRequestForAccountTo = requestBuilder.createUpdateBalanceRequest(
-                TypePaymentsEnum.REPLENISHMENT.getTypePayment(),
-                amountByCur);
+        transferMetrics.setCurPair(cur, transferContext.getAccountTo().getCur());
+        BigDecimal amountByCur = transferMetrics.recordStage("currency-conversion",
+                () -> getAmountByCurServiceHelper.getAmountByCur(cur, transferAmount, transferContext.getAccountTo()));
 
         log.info("Making a transfer from account {} to account {} with the amount for the recipient of {}",
                 accountNumberFrom, accountNumberTo, amountByCur);
 
-        databaseChanger.updateAccountBalance(accountNumberFrom, updateBalanceRequestForAccountFrom);
-        databaseChanger.updateAccountBalance(accountNumberTo, updateBalanceRequestForAccountTo);
+        // Идентификатор перевода передается в accounts и становится uuid перевода в transfers,
+        // поэтому перевод, ответ на который не получен, сверяется с журналом accounts и безопасно повторяется
+        UUID transferUuid = UUID.randomUUID();
+        TransferBalanceResponse transferBalanceResponse = databaseChanger.transferAccountBalance(
+                requestBuilder.createTransferBalanceRequest(transferContext, amountByCur, transferUuid));
 
-        return saveTransferServiceHelper.saveTransfer(accountNumberFrom, accountNumberTo, transferAmount, cur);
+        Transfer transfer = transferMetrics.recordStage("save-transfer",
+                () -> saveTransferServiceHelper.saveTransfer(transferContext, transferUuid));
+        return new TransferResult(transfer, transferBalanceResponse.getBalanceFrom());
     }
 }
@@ -0,0 +1,93 @@
+package ru.sovcombank.petbackendtransfers.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.exception.AccountClosedException;
+import ru.sovcombank.petbackendtransfers.exception.AccountNotFoundException;
+import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
+import ru.sovcombank.petbackendtransfers.exception.InsufficientFundsException;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.exception.ServiceUnavailableException;
+import ru.sovcombank.petbackendtransfers.exception.UserNotFoundException;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Проверка ключа идемпотентности, отпечаток запроса и хранение ответа в transfer_idempotency_keys.
+ * Общие для обычного и реактивного вариантов сервиса, поэтому повтор запроса распознается
+ * независимо от того, каким вариантом выполнен первый запрос.
+ */
+@Component
+public class IdempotencySupport {
+
+    private static final int KEY_MAX_LENGTH = 64;
+
+    private final ObjectMapper objectMapper;
+
+    public IdempotencySupport(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public void validateKey(String key) {
+        if (key.isBlank() || key.length() > KEY_MAX_LENGTH) {
+            throw new BadRequestException(TransferResponseMessagesEnum.BAD_REQUEST_FOR_IDEMPOTENCY_KEY.getMessage());
+        }
+    }
+
+    /**
+     * Проверяет, что перевод завершился ошибкой до списания и ключ можно освободить для повтора.
+     * Ошибки валидации и отказ сервиса счетов (400, 404) означают, что списания не было;
+     * ServiceUnavailableException выбрасывается, только если запрос не отправлялся.
+     * Остальные ошибки (таймаут, 5xx, сбой после списания) оставляют результат перевода неизвестным.
+     *
+     * @param ex Ошибка выполнения перевода.
+     * @return true, если списание точно не выполнялось.
+     */
+    public boolean isFailedBeforeDebit(Throwable ex) {
+        return ex instanceof BadRequestException
+                || ex instanceof UserNotFoundException
+                || ex instanceof AccountNotFoundException
+                || ex instanceof AccountClosedException
+                || ex instanceof InsufficientFundsException
+                || ex instanceof ServiceUnavailableException;
+    }
+
+    public void checkRequestHash(String storedRequestHash, String requestHash) {
+        if (!storedRequestHash.equals(requestHash)) {
+            throw new BadRequestException(TransferResponseMessagesEnum.BAD_REQUEST_FOR_IDEMPOTENCY_KEY.getMessage());
+        }
+    }
+
+    // Поля запроса сериализуются в порядке объявления в классе, поэтому отпечаток не зависит от порядка полей в теле
+    public String fingerprint(MakeTransferRequest request) {
+        try {
+            byte[] body = objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new InternalServerErrorException();
+        }
+    }
+
+    public String writeResponse(MakeTransferResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new InternalServerErrorException();
+        }
+    }
+
+    public MakeTransferResponse readResponse(String response) {
+        try {
+            return objectMapper.readValue(response, MakeTransferResponse.class);
+        } catch (JsonProcessingException ex) {
+            throw new InternalServerErrorException();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ru.sovcombank.petbackendtransfers.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.builder.ResponseBuilder;
+import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
+import ru.sovcombank.petbackendtransfers.exception.IdempotencyConflictException;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
+import ru.sovcombank.petbackendtransfers.model.entity.IdempotencyKey;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.repository.IdempotencyKeyRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет перевод не более одного раза на каждый ключ идемпотентности.
+ * <p>
+ * Повтор, пришедший в этот же экземпляр сервиса во время выполнения перевода, дожидается его результата.
+ * Ответы на недавние переводы хранятся в памяти не дольше idempotency.cache-ttl и не больше
+ * idempotency.cache-size штук, более поздний повтор получает ответ из таблицы transfer_idempotency_keys.
+ * Если ключ занят другим экземпляром сервиса и ответ еще не записан, повтор отклоняется с конфликтом.
+ * Ключ освобождается, только если перевод завершился ошибкой до списания
+ * (см. {@link IdempotencySupport#isFailedBeforeDebit}). При неизвестном результате ключ остается занятым
+ * без ответа, и повторы получают конфликт, а не выполняют перевод второй раз.
+ * Ключи хранятся в течение idempotency.ttl и удаляются по расписанию.
+ */
+@Slf4j
+@Component
+public class IdempotentTransferExecutor {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final ResponseBuilder responseBuilder;
+
+    private final IdempotencySupport idempotencySupport;
+
+    private final ConcurrentMap<String, CachedTransfer> inFlightTransfers = new ConcurrentHashMap<>();
+
+    private final Cache<String, CachedResponse> completedTransfers;
+
+    private final Duration ttl;
+
+    public IdempotentTransferExecutor(IdempotencyKeyRepository idempotencyKeyRepository,
+                                      ResponseBuilder responseBuilder,
+                                      IdempotencySupport idempotencySupport,
+                                      @Value("${idempotency.ttl}") Duration ttl,
+                                      @Value("${idempotency.cache-ttl}") Duration cacheTtl,
+                                      @Value("${idempotency.cache-size}") long cacheSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.responseBuilder = responseBuilder;
+        this.idempotencySupport = idempotencySupport;
+        this.ttl = ttl;
+        this.completedTransfers = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Выполняет перевод или возвращает ответ на уже выполненный перевод с тем же ключом.
+     *
+     * @param key      Ключ идемпотентности из заголовка Idempotency-Key.
+     * @param request  Запрос на перевод.
+     * @param transfer Выполнение перевода.
+     * @return Ответ с сообщением о выполнении перевода.
+     * @throws BadRequestException           Если ключ некорректен или уже использован с другим запросом.
+     * @throws IdempotencyConflictException Если перевод с этим ключом выполняется другим экземпляром сервиса.
+     */
+    public MakeTransferResponse execute(String key, MakeTransferRequest request, Supplier<TransferResult> transfer) {
+        idempotencySupport.validateKey(key);
+        String requestHash = idempotencySupport.fingerprint(request);
+
+        CachedResponse completed = completedTransfers.getIfPresent(key);
+        if (completed != null) {
+            idempotencySupport.checkRequestHash(completed.requestHash(), requestHash);
+            return completed.response();
+        }
+
+        CachedTransfer own = new CachedTransfer(requestHash, new CompletableFuture<>());
+        CachedTransfer existing = inFlightTransfers.putIfAbsent(key, own);
+        if (existing != null) {
+            idempotencySupport.checkRequestHash(existing.requestHash(), requestHash);
+            return await(existing.response());
+        }
+
+        try {
+            MakeTransferResponse response = executeOnce(key, requestHash, LocalDateTime.now().plus(ttl), transfer);
+            completedTransfers.put(key, new CachedResponse(requestHash, response));
+            own.response().complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            // Ожидающие повторы получат ту же ошибку, дальше судьбу ключа определяет таблица
+            own.response().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightTransfers.remove(key, own);
+        }
+    }
+
+    /**
+     * Удаляет ключи с истекшим сроком хранения из таблицы.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.eviction-interval}")
+    public void evictExpired() {
+        int deleted = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Evicted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private MakeTransferResponse executeOnce(String key, String requestHash, LocalDateTime expireDateTime,
+                                             Supplier<TransferResult> transfer) {
+        if (idempotencyKeyRepository.claim(key, requestHash, LocalDateTime.now(), expireDateTime) == 0) {
+            return getStoredResponse(key, requestHash);
+        }
+
+        TransferResult transferResult;
+        try {
+            transferResult = transfer.get();
+        } catch (RuntimeException ex) {
+            if (idempotencySupport.isFailedBeforeDebit(ex)) {
+                idempotencyKeyRepository.release(key);
+            } else {
+                // Списание могло пройти: ключ остается занятым без ответа до истечения idempotency.ttl
+                log.error("Transfer outcome is unknown for idempotency key {}", key, ex);
+            }
+            throw ex;
+        }
+
+        MakeTransferResponse response = responseBuilder.createMakeTransferResponse(transferResult.getBalanceFrom());
+        try {
+            idempotencyKeyRepository.complete(key, transferResult.getTransfer().getUuid(),
+                    idempotencySupport.writeResponse(response));
+        } catch (RuntimeException ex) {
+            // Перевод уже выполнен: ключ остается занятым, чтобы повтор не выполнил его еще раз
+            log.error("Failed to store the response for idempotency key {}", key, ex);
+        }
+        return response;
+    }
+
+    // Ключ занят: либо перевод уже выполнен и ответ сохранен, либо он выполняется другим экземпляром сервиса
+    private MakeTransferResponse getStoredResponse(String key, String requestHash) {
+        IdempotencyKey idempotencyKey = idempotencyKeyRepository.findById(key)
+                .orElseThrow(() -> new IdempotencyConflictException(
+                        TransferResponseMessagesEnum.TRANSFER_IN_PROGRESS.getMessage()));
+        idempotencySupport.checkRequestHash(idempotencyKey.getRequestHash(), requestHash);
+        if (idempotencyKey.getResponse() == null) {
+            throw new IdempotencyConflictException(TransferResponseMessagesEnum.TRANSFER_IN_PROGRESS.getMessage());
+        }
+        return idempotencySupport.readResponse(idempotencyKey.getResponse());
+    }
+
+    private MakeTransferResponse await(CompletableFuture<MakeTransferResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InternalServerErrorException();
+        }
+    }
+
+    // Выполняющийся перевод: отпечаток запроса и ответ, который завершится вместе с первым выполнением
+    private record CachedTransfer(String requestHash, CompletableFuture<MakeTransferResponse> response) {
+    }
+
+    // Ответ на недавно выполненный перевод
+    private record CachedResponse(String requestHash, MakeTransferResponse response) {
+    }
+}
@@ -0,0 +1,140 @@
+package ru.sovcombank.petbackendtransfers.service.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import ru.sovcombank.petbackendtransfers.builder.ResponseBuilder;
+import ru.sovcombank.petbackendtransfers.exception.IdempotencyConflictException;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.repository.ReactiveIdempotencyKeyRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Выполняет перевод не более одного раза на каждый ключ идемпотентности в реактивном варианте сервиса.
+ * <p>
+ * Ключи хранятся в той же таблице transfer_idempotency_keys и с тем же отпечатком запроса,
+ * что и у {@link IdempotentTransferExecutor}, и повторы обрабатываются так же: повтор, пришедший в этот же
+ * экземпляр сервиса во время выполнения перевода, дожидается его результата, а если ключ занят другим
+ * экземпляром и ответ еще не записан, повтор отклоняется с конфликтом. Ответы на выполненные переводы
+ * читаются из таблицы. Ключ освобождается, только если перевод завершился ошибкой до списания,
+ * при неизвестном результате он остается занятым без ответа.
+ */
+@Slf4j
+@Component
+@Profile("reactive")
+public class ReactiveIdempotentTransferExecutor {
+
+    private final ReactiveIdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final IdempotencySupport idempotencySupport;
+
+    private final ResponseBuilder responseBuilder;
+
+    private final ConcurrentMap<String, InFlightTransfer> inFlightTransfers = new ConcurrentHashMap<>();
+
+    private final Duration ttl;
+
+    public ReactiveIdempotentTransferExecutor(ReactiveIdempotencyKeyRepository idempotencyKeyRepository,
+                                              IdempotencySupport idempotencySupport,
+                                              ResponseBuilder responseBuilder,
+                                              @Value("${idempotency.ttl}") Duration ttl) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.idempotencySupport = idempotencySupport;
+        this.responseBuilder = responseBuilder;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Выполняет перевод или возвращает ответ на уже выполненный перевод с тем же ключом.
+     *
+     * @param key      Ключ идемпотентности из заголовка Idempotency-Key.
+     * @param request  Запрос на перевод.
+     * @param transfer Выполнение перевода, запускается только если ключ удалось занять.
+     * @return Ответ с сообщением о выполнении перевода или ошибка: BadRequestException, если ключ некорректен
+     * или уже использован с другим запросом, IdempotencyConflictException, если перевод с этим ключом
+     * выполняется другим экземпляром сервиса.
+     */
+    public Mono<MakeTransferResponse> execute(String key, MakeTransferRequest request, Mono<TransferResult> transfer) {
+        return Mono.defer(() -> {
+            idempotencySupport.validateKey(key);
+            String requestHash = idempotencySupport.fingerprint(request);
+
+            InFlightTransfer own = new InFlightTransfer(requestHash, Sinks.one());
+            InFlightTransfer existing = inFlightTransfers.putIfAbsent(key, own);
+            if (existing != null) {
+                idempotencySupport.checkRequestHash(existing.requestHash(), requestHash);
+                return existing.response().asMono();
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            return idempotencyKeyRepository.claim(key, requestHash, now, now.plus(ttl))
+                    .flatMap(claimed -> claimed == 0
+                            ? getStoredResponse(key, requestHash)
+                            : executeOnce(key, transfer))
+                    // Ожидающие повторы получают тот же ответ или ту же ошибку
+                    .doOnSuccess(response -> own.response().tryEmitValue(response))
+                    .doOnError(ex -> own.response().tryEmitError(ex))
+                    .doFinally(signal -> {
+                        inFlightTransfers.remove(key, own);
+                        if (signal == SignalType.CANCEL) {
+                            own.response().tryEmitError(new IdempotencyConflictException(
+                                    TransferResponseMessagesEnum.TRANSFER_IN_PROGRESS.getMessage()));
+                        }
+                    });
+        });
+    }
+
+    private Mono<MakeTransferResponse> executeOnce(String key, Mono<TransferResult> transfer) {
+        return transfer
+                .onErrorResume(ex -> {
+                    if (idempotencySupport.isFailedBeforeDebit(ex)) {
+                        return idempotencyKeyRepository.release(key).then(Mono.error(ex));
+                    }
+                    // Списание могло пройти: ключ остается занятым без ответа до истечения idempotency.ttl
+                    log.error("Transfer outcome is unknown for idempotency key {}", key, ex);
+                    return Mono.error(ex);
+                })
+                .flatMap(transferResult -> {
+                    MakeTransferResponse response =
+                            responseBuilder.createMakeTransferResponse(transferResult.getBalanceFrom());
+                    return Mono.defer(() -> idempotencyKeyRepository.complete(key,
+                                    transferResult.getTransfer().getUuid(), idempotencySupport.writeResponse(response)))
+                            // Перевод уже выполнен: ключ остается занятым, чтобы повтор не выполнил его еще раз
+                            .onErrorResume(ex -> {
+                                log.error("Failed to store the response for idempotency key {}", key, ex);
+                                return Mono.empty();
+                            })
+                            .thenReturn(response);
+                });
+    }
+
+    // Ключ занят: либо перевод уже выполнен и ответ сохранен, либо он выполняется другим экземпляром сервиса
+    private Mono<MakeTransferResponse> getStoredResponse(String key, String requestHash) {
+        return idempotencyKeyRepository.findById(key)
+                .switchIfEmpty(Mono.error(() -> new IdempotencyConflictException(
+                        TransferResponseMessagesEnum.TRANSFER_IN_PROGRESS.getMessage())))
+                .map(idempotencyKey -> {
+                    idempotencySupport.checkRequestHash(idempotencyKey.getRequestHash(), requestHash);
+                    if (idempotencyKey.getResponse() == null) {
+                        throw new IdempotencyConflictException(
+                                TransferResponseMessagesEnum.TRANSFER_IN_PROGRESS.getMessage());
+                    }
+                    return idempotencySupport.readResponse(idempotencyKey.getResponse());
+                });
+    }
+
+    // Выполняющийся перевод: отпечаток запроса и ответ, который получат повторы
+    private record InFlightTransfer(String requestHash, Sinks.One<MakeTransferResponse> response) {
+    }
+}
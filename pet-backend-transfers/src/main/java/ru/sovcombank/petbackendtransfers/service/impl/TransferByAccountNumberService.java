@@ -1,33 +1,26 @@
 package ru.sovcombank.petbackendtransfers.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 import ru.sovcombank.petbackendtransfers.builder.ResponseBuilder;
-import ru.sovcombank.petbackendtransfers.builder.TransferDTOBuilder;
 import ru.sovcombank.petbackendtransfers.client.AccountServiceClient;
-import ru.sovcombank.petbackendtransfers.mapping.impl.MapToMakeTransferByAccountRequest;
 import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferByAccountRequest;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
-import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
-import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
 import ru.sovcombank.petbackendtransfers.service.TransferStrategy;
+import ru.sovcombank.petbackendtransfers.service.helper.ParallelCallsServiceHelper;
 import ru.sovcombank.petbackendtransfers.service.helper.UpdateBalanceServiceHelper;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
 import ru.sovcombank.petbackendtransfers.service.validator.AccountValidator;
 import ru.sovcombank.petbackendtransfers.service.validator.UserValidator;
 
-import java.time.Instant;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
-public class TransferByAccountNumberService implements TransferStrategy {
+public class TransferByAccountNumberService implements TransferStrategy<MakeTransferByAccountRequest> {
 
     private final AccountValidator accountValidator;
 
@@ -35,108 +28,90 @@ public class TransferByAccountNumberService implements TransferStrategy {
 
     private final AccountServiceClient accountServiceClient;
 
-    private final KafkaTemplate<String, TransferDTO> kafkaTemplate;
-
     private final ResponseBuilder responseBuilder;
 
     private final UpdateBalanceServiceHelper updateBalanceServiceHelper;
 
-    private final TransferDTOBuilder transferDTOBuilder;
-
-    private final MapToMakeTransferByAccountRequest mapToMakeTransferByAccountRequest;
+    private final ParallelCallsServiceHelper parallelCallsServiceHelper;
 
-    private final TaskScheduler taskScheduler;
-
-    @Value("${kafka.topic.transfers-history-transaction}")
-    private String kafkaTopic;
+    private final TransferMetrics transferMetrics;
 
     public TransferByAccountNumberService(
             AccountValidator accountValidator,
             UserValidator userValidator,
             AccountServiceClient accountServiceClient,
-            KafkaTemplate<String, TransferDTO> kafkaTemplate,
             ResponseBuilder responseBuilder,
             UpdateBalanceServiceHelper updateBalanceServiceHelper,
-            TransferDTOBuilder transferDTOBuilder,
-            MapToMakeTransferByAccountRequest mapToMakeTransferByAccountRequest, TaskScheduler taskScheduler) {
+            ParallelCallsServiceHelper parallelCallsServiceHelper,
+            TransferMetrics transferMetrics) {
         this.accountValidator = accountValidator;
         this.userValidator = userValidator;
         this.accountServiceClient = accountServiceClient;
-        this.kafkaTemplate = kafkaTemplate;
         this.responseBuilder = responseBuilder;
         this.updateBalanceServiceHelper = updateBalanceServiceHelper;
-        this.transferDTOBuilder = transferDTOBuilder;
-        this.mapToMakeTransferByAccountRequest = mapToMakeTransferByAccountRequest;
-        this.taskScheduler = taskScheduler;
+        this.parallelCallsServiceHelper = parallelCallsServiceHelper;
+        this.transferMetrics = transferMetrics;
     }
 
     /**
      * Совершает перевод по номеру счета.
      *
-     * @param requestMap Запрос на перевод по номеру счета.
-     * @return Ответ с сообщением о выполнении перевода.
+     * @param makeTransferByAccountRequest Запрос на перевод по номеру счета.
+     * @return Результат перевода: сохраненный перевод и баланс отправителя.
      */
-    public MakeTransferResponse makeTransfer(Map<String, Object> requestMap) {
-        MakeTransferByAccountRequest makeTransferByAccountRequest =
-                mapToMakeTransferByAccountRequest.map(requestMap);
+    @Override
+    public TransferResult makeTransfer(MakeTransferByAccountRequest makeTransferByAccountRequest) {
+        TransferContext transferContext = transferMetrics.recordStage(
+                "validation", () -> validateTransfer(makeTransferByAccountRequest));
 
-        validateTransfer(makeTransferByAccountRequest);
-
-        Transfer transfer = updateBalanceServiceHelper.updateBalance(
-                makeTransferByAccountRequest.getCur(),
-                accountServiceClient.getAccountResponse(makeTransferByAccountRequest.getAccountNumberTo()),
-                makeTransferByAccountRequest.getAccountNumberFrom(),
-                makeTransferByAccountRequest.getAccountNumberTo(),
-                makeTransferByAccountRequest.getAmount());
-
-        sendKafkaMessage(transfer, makeTransferByAccountRequest);
+        TransferResult transferResult = updateBalanceServiceHelper.updateBalance(transferContext);
+        Transfer transfer = transferResult.getTransfer();
 
         log.info("The transfer from account {} to account {} in the amount of {} was completed successfully",
                 transfer.getAccountNumberFrom(), transfer.getAccountNumberTo(), transfer.getAmount());
 
-        return responseBuilder.createMakeTransferResponse(accountServiceClient.getBalanceResponse(
-                makeTransferByAccountRequest.getAccountNumberFrom()).getBalance());
+        return transferResult;
     }
 
-    // Валидация данных для осуществления перевода
-    private void validateTransfer(MakeTransferByAccountRequest makeTransferByAccountRequest) {
-        accountValidator.checkRepeatNumbers(
+    // Валидация данных для осуществления перевода, полученные счета сохраняются в контексте перевода.
+    // Проверка отправителя, его счета и счета получателя выполняются параллельно, первая ошибка отменяет остальные
+    private TransferContext validateTransfer(MakeTransferByAccountRequest makeTransferByAccountRequest) {
+        transferMetrics.runStage("validation.repeat-numbers", () -> accountValidator.checkRepeatNumbers(
                 makeTransferByAccountRequest.getAccountNumberFrom(),
-                makeTransferByAccountRequest.getAccountNumberTo());
-
-        userValidator.validateUserForTransferByAccount(makeTransferByAccountRequest.getClientId());
+                makeTransferByAccountRequest.getAccountNumberTo()));
 
         String accountNumberFrom = makeTransferByAccountRequest.getAccountNumberFrom();
-        GetAccountResponse getAccountFromResponse = accountServiceClient.getAccountResponse(accountNumberFrom);
-
-        accountValidator.validateAccountForTransfer(getAccountFromResponse);
-        accountValidator.validateCur(makeTransferByAccountRequest.getCur(), getAccountFromResponse.getCur());
-        accountValidator.validateSufficientFunds(accountNumberFrom, makeTransferByAccountRequest.getAmount());
-
         String accountNumberTo = makeTransferByAccountRequest.getAccountNumberTo();
-        GetAccountResponse getAccountToResponse = responseBuilder.getValidateGetAccountResponse(accountNumberTo);
 
-        userValidator.validateUserForTransferByAccount(getAccountToResponse.getClientId());
+        CompletableFuture<Void> userFromFuture = parallelCallsServiceHelper.runAsync(
+                () -> transferMetrics.runStage("validation.user-from", () ->
+                        userValidator.validateUserForTransferByAccount(makeTransferByAccountRequest.getClientId())));
+        CompletableFuture<GetAccountResponse> accountFromFuture = parallelCallsServiceHelper.supplyAsync(
+                () -> getValidateAccountFrom(accountNumberFrom, makeTransferByAccountRequest));
+        CompletableFuture<GetAccountResponse> accountToFuture = parallelCallsServiceHelper.supplyAsync(
+                () -> responseBuilder.getValidateGetAccountResponse(accountNumberTo));
+
+        parallelCallsServiceHelper.awaitAll(userFromFuture, accountFromFuture, accountToFuture);
+
+        return new TransferContext(
+                accountNumberFrom,
+                accountNumberTo,
+                accountFromFuture.join(),
+                accountToFuture.join(),
+                makeTransferByAccountRequest.getAmount(),
+                makeTransferByAccountRequest.getCur());
     }
 
-    @Retryable(retryFor = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private void sendKafkaMessage(Transfer transfer, MakeTransferByAccountRequest makeTransferByAccountRequest) {
-        kafkaTemplate.send(kafkaTopic, transferDTOBuilder.createTransferDTOObject(
-                transfer,
-                accountServiceClient.getAccountResponse(makeTransferByAccountRequest.getAccountNumberFrom()).getClientId(),
-                responseBuilder.getValidateGetAccountResponse(makeTransferByAccountRequest.getAccountNumberTo()).getClientId()));
-    }
-
-    @Recover
-    private void recover(Exception ex, Transfer transfer, MakeTransferByAccountRequest makeTransferByAccountRequest) {
-        scheduleDelayedKafkaMessage(transfer, makeTransferByAccountRequest);
-    }
+    // Получение счета отправителя и проверка возможности списания с него
+    private GetAccountResponse getValidateAccountFrom(String accountNumberFrom,
+                                                      MakeTransferByAccountRequest makeTransferByAccountRequest) {
+        GetAccountResponse getAccountFromResponse = accountServiceClient.getAccountResponse(accountNumberFrom);
 
-    private void scheduleDelayedKafkaMessage(Transfer transfer, MakeTransferByAccountRequest makeTransferByAccountRequest) {
-        taskScheduler.schedule(() -> {
-            log.info("Executing delayed Kafka message after three failed attempts for transfer with UUID: {}",
-                    transfer.getUuid());
-            sendKafkaMessage(transfer, makeTransferByAccountRequest);
-        }, Instant.now().plusSeconds(600));
+        transferMetrics.runStage("validation.account-from", () -> {
+            accountValidator.validateAccountForTransfer(getAccountFromResponse);
+            accountValidator.validateCur(makeTransferByAccountRequest.getCur(), getAccountFromResponse.getCur());
+            accountValidator.validateSufficientFunds(getAccountFromResponse, makeTransferByAccountRequest.getAmount());
+        });
+        return getAccountFromResponse;
     }
 }
@@ -1,44 +1,35 @@
 package ru.sovcombank.petbackendtransfers.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 import ru.sovcombank.petbackendtransfers.builder.ResponseBuilder;
-import ru.sovcombank.petbackendtransfers.builder.TransferDTOBuilder;
-import ru.sovcombank.petbackendtransfers.client.AccountServiceClient;
 import ru.sovcombank.petbackendtransfers.client.UserServiceClient;
-import ru.sovcombank.petbackendtransfers.mapping.impl.MapToMakeTransferByPhoneRequest;
 import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferByPhoneRequest;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetUserResponse;
-import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
-import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+import ru.sovcombank.petbackendtransfers.model.context.RecipientContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
 import ru.sovcombank.petbackendtransfers.service.TransferStrategy;
 import ru.sovcombank.petbackendtransfers.service.helper.GetMainAccountServiceHelper;
+import ru.sovcombank.petbackendtransfers.service.helper.ParallelCallsServiceHelper;
 import ru.sovcombank.petbackendtransfers.service.helper.UpdateBalanceServiceHelper;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
 import ru.sovcombank.petbackendtransfers.service.validator.AccountValidator;
 import ru.sovcombank.petbackendtransfers.service.validator.UserValidator;
 
 import java.math.BigDecimal;
-import java.time.Instant;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
-public class TransferByPhoneNumberService implements TransferStrategy {
+public class TransferByPhoneNumberService implements TransferStrategy<MakeTransferByPhoneRequest> {
 
     private final AccountValidator accountValidator;
 
     private final UserValidator userValidator;
 
-    private final AccountServiceClient accountServiceClient;
-
     private final UserServiceClient userServiceClient;
 
     private final ResponseBuilder responseBuilder;
@@ -47,127 +38,108 @@ public class TransferByPhoneNumberService implements TransferStrategy {
 
     private final UpdateBalanceServiceHelper updateBalanceServiceHelper;
 
-    private final TransferDTOBuilder transferDTOBuilder;
-
-    private final MapToMakeTransferByPhoneRequest mapToMakeTransferByPhoneRequest;
-
-    private final KafkaTemplate<String, TransferDTO> kafkaTemplate;
-
-    private final TaskScheduler taskScheduler;
+    private final ParallelCallsServiceHelper parallelCallsServiceHelper;
 
-    @Value("${kafka.topic.transfers-history-transaction}")
-    private String kafkaTopic;
+    private final TransferMetrics transferMetrics;
 
     public TransferByPhoneNumberService(
             AccountValidator accountValidator,
             UserValidator userValidator,
-            AccountServiceClient accountServiceClient,
             UserServiceClient userServiceClient,
             ResponseBuilder responseBuilder,
             GetMainAccountServiceHelper getMainAccountServiceHelper,
             UpdateBalanceServiceHelper updateBalanceServiceHelper,
-            TransferDTOBuilder transferDTOBuilder,
-            MapToMakeTransferByPhoneRequest mapToMakeTransferByPhoneRequest,
-            KafkaTemplate<String, TransferDTO> kafkaTemplate, TaskScheduler taskScheduler) {
+            ParallelCallsServiceHelper parallelCallsServiceHelper,
+            TransferMetrics transferMetrics) {
         this.accountValidator = accountValidator;
         this.userValidator = userValidator;
-        this.accountServiceClient = accountServiceClient;
         this.userServiceClient = userServiceClient;
         this.responseBuilder = responseBuilder;
         this.getMainAccountServiceHelper = getMainAccountServiceHelper;
         this.updateBalanceServiceHelper = updateBalanceServiceHelper;
-        this.transferDTOBuilder = transferDTOBuilder;
-        this.mapToMakeTransferByPhoneRequest = mapToMakeTransferByPhoneRequest;
-        this.kafkaTemplate = kafkaTemplate;
-        this.taskScheduler = taskScheduler;
+        this.parallelCallsServiceHelper = parallelCallsServiceHelper;
+        this.transferMetrics = transferMetrics;
     }
 
     /**
      * Совершает перевод по номеру телефона.
      *
-     * @param requestMap Запрос на перевод по номеру телефона.
-     * @return Ответ с сообщением о выполнении перевода.
+     * @param makeTransferByPhoneRequest Запрос на перевод по номеру телефона.
+     * @return Результат перевода: сохраненный перевод и баланс отправителя.
      */
-    public MakeTransferResponse makeTransfer(Map<String, Object> requestMap) {
-        MakeTransferByPhoneRequest makeTransferByPhoneRequest =
-                mapToMakeTransferByPhoneRequest.map(requestMap);
+    @Override
+    public TransferResult makeTransfer(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
+        TransferContext transferContext = transferMetrics.recordStage(
+                "validation", () -> validateTransfer(makeTransferByPhoneRequest));
 
-        validateTransfer(makeTransferByPhoneRequest);
-
-        Transfer transfer = updateBalanceServiceHelper.updateBalance(
-                makeTransferByPhoneRequest.getCur(),
-                responseBuilder.getAccountResponse(getMainAccountServiceHelper.getMainAccount(responseBuilder
-                        .getAccountsResponse(getClientId(makeTransferByPhoneRequest))
-                        .getAccountList())),
-                getMainAccountFrom(makeTransferByPhoneRequest),
-                getMainAccountTo(makeTransferByPhoneRequest),
-                makeTransferByPhoneRequest.getAmount());
-
-        sendKafkaMessage(transfer, makeTransferByPhoneRequest);
+        TransferResult transferResult = updateBalanceServiceHelper.updateBalance(transferContext);
+        Transfer transfer = transferResult.getTransfer();
 
         log.info("The transfer from account {} to account {} in the amount of {} was completed successfully",
                 transfer.getAccountNumberFrom(), transfer.getAccountNumberTo(), transfer.getAmount());
 
-        return responseBuilder.createMakeTransferResponse(accountServiceClient.getBalanceResponse(
-                getMainAccountFrom(makeTransferByPhoneRequest)).getBalance());
+        return transferResult;
     }
 
-    // Валидация данных для осуществления перевода
-    private void validateTransfer(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
-        accountValidator.checkRepeatNumbers(
+    // Валидация данных для осуществления перевода, полученные счета сохраняются в контексте перевода.
+    // Получатель разрешается параллельно с проверкой счета отправителя, ошибки отправителя имеют приоритет
+    private TransferContext validateTransfer(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
+        transferMetrics.runStage("validation.repeat-numbers", () -> accountValidator.checkRepeatNumbers(
                 makeTransferByPhoneRequest.getPhoneNumberFrom(),
-                makeTransferByPhoneRequest.getPhoneNumberTo());
+                makeTransferByPhoneRequest.getPhoneNumberTo()));
 
-        userValidator.validateUserForTransferByPhone(makeTransferByPhoneRequest);
+        transferMetrics.runStage("validation.user-from",
+                () -> userValidator.validateUserForTransferByPhone(makeTransferByPhoneRequest));
 
-        String mainAccountFrom = getMainAccountServiceHelper.getMainAccount(responseBuilder.getAccountsResponse(
-                makeTransferByPhoneRequest.getClientId()).getAccountList());
-        GetAccountResponse getAccountFromResponse = responseBuilder.getAccountResponse(mainAccountFrom);
-
-        accountValidator.validateAccountForTransfer(getAccountFromResponse);
+        CompletableFuture<RecipientContext> recipientFuture = parallelCallsServiceHelper.supplyAsync(
+                () -> resolveRecipient(makeTransferByPhoneRequest.getPhoneNumberTo()));
 
+        String mainAccountFrom;
+        GetAccountResponse getAccountFromResponse;
         BigDecimal transferAmount = makeTransferByPhoneRequest.getAmount();
         String cur = makeTransferByPhoneRequest.getCur();
-        accountValidator.validateCur(cur, getAccountFromResponse.getCur());
-
-        accountValidator.validateSufficientFunds(mainAccountFrom, transferAmount);
 
-        GetUserResponse getUserResponse = userServiceClient.getUserInfo(makeTransferByPhoneRequest.getPhoneNumberTo());
-        userValidator.validateActiveUser(getUserResponse);
-    }
-
-    private String getMainAccountFrom(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
-        return getMainAccountServiceHelper.getMainAccount(responseBuilder.getAccountsResponse(
-                makeTransferByPhoneRequest.getClientId()).getAccountList());
+        try {
+            mainAccountFrom = getMainAccount(makeTransferByPhoneRequest.getClientId());
+            getAccountFromResponse = responseBuilder.getAccountResponse(mainAccountFrom);
+            validateAccountFrom(getAccountFromResponse, cur, transferAmount);
+        } catch (RuntimeException ex) {
+            recipientFuture.cancel(true);
+            throw ex;
+        }
+
+        parallelCallsServiceHelper.awaitAll(recipientFuture);
+        RecipientContext recipientContext = recipientFuture.join();
+
+        return new TransferContext(
+                mainAccountFrom,
+                recipientContext.getMainAccountNumber(),
+                getAccountFromResponse,
+                recipientContext.getAccount(),
+                transferAmount,
+                cur);
     }
 
-    private String getMainAccountTo(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
-        return getMainAccountServiceHelper.getMainAccount(responseBuilder.getAccountsResponse(
-                        userServiceClient.getUserInfo(makeTransferByPhoneRequest.getPhoneNumberTo()).getId())
-                .getAccountList());
+    // Проверка возможности списания со счета отправителя
+    private void validateAccountFrom(GetAccountResponse getAccountFromResponse, String cur, BigDecimal transferAmount) {
+        transferMetrics.runStage("validation.account-from", () -> {
+            accountValidator.validateAccountForTransfer(getAccountFromResponse);
+            accountValidator.validateCur(cur, getAccountFromResponse.getCur());
+            accountValidator.validateSufficientFunds(getAccountFromResponse, transferAmount);
+        });
     }
 
-    private Integer getClientId(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
-        return userServiceClient.getUserInfo(makeTransferByPhoneRequest.getPhoneNumberTo()).getId();
-    }
-
-    @Retryable(retryFor = Exception.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    public void sendKafkaMessage(Transfer transfer, MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
-        kafkaTemplate.send(kafkaTopic, transferDTOBuilder.createTransferDTOObject(transfer,
-                accountServiceClient.getAccountResponse(getMainAccountFrom(makeTransferByPhoneRequest)).getClientId(),
-                responseBuilder.getValidateGetAccountResponse(getMainAccountTo(makeTransferByPhoneRequest)).getClientId()));
-    }
+    // Получение пользователя по номеру телефона, его основного счета и данных этого счета
+    private RecipientContext resolveRecipient(String phoneNumberTo) {
+        GetUserResponse getUserResponse = userServiceClient.getUserInfo(phoneNumberTo);
+        userValidator.validateActiveUser(getUserResponse);
 
-    @Recover
-    public void recover(Exception ex, Transfer transfer, MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
-        scheduleDelayedKafkaMessage(transfer, makeTransferByPhoneRequest);
+        String mainAccountTo = getMainAccount(getUserResponse.getId());
+        return new RecipientContext(getUserResponse, mainAccountTo, responseBuilder.getAccountResponse(mainAccountTo));
     }
 
-    private void scheduleDelayedKafkaMessage(Transfer transfer, MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
-        taskScheduler.schedule(() -> {
-            log.info("Executing delayed Kafka message after three failed attempts for transfer with UUID: {}",
-                    transfer.getUuid());
-            sendKafkaMessage(transfer, makeTransferByPhoneRequest);
-        }, Instant.now().plusSeconds(600));
+    // Получение номера основного счета клиента
+    private String getMainAccount(Integer clientId) {
+        return getMainAccountServiceHelper.getMainAccount(responseBuilder.getAccountsResponse(clientId).getAccountList());
     }
-}
\ No newline at end of file
+}
@@ -2,21 +2,35 @@ package ru.sovcombank.petbackendtransfers.service.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.sovcombank.petbackendtransfers.builder.ResponseBuilder;
 import ru.sovcombank.petbackendtransfers.exception.AccountNotFoundException;
 import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
+import ru.sovcombank.petbackendtransfers.mapping.impl.TransferToAccountTransferResponse;
 import ru.sovcombank.petbackendtransfers.mapping.impl.TransferToGetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.request.GetTransfersByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.AccountTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferCursor;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
 import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
 import ru.sovcombank.petbackendtransfers.model.enums.RequestTypeEnum;
 import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
 import ru.sovcombank.petbackendtransfers.repository.TransferRepository;
 import ru.sovcombank.petbackendtransfers.service.TransferService;
 import ru.sovcombank.petbackendtransfers.service.TransferStrategy;
+import ru.sovcombank.petbackendtransfers.service.idempotency.IdempotentTransferExecutor;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -26,18 +40,32 @@ public class TransferServiceImpl implements TransferService {
 
     private final TransferToGetTransferResponse transferToGetTransferResponse;
 
-    private final Map<String, TransferStrategy> transferStrategies;
+    private final TransferToAccountTransferResponse transferToAccountTransferResponse;
 
-    private static final String REQUEST_TYPE_STR = "requestType";
+    private final ResponseBuilder responseBuilder;
+
+    private final IdempotentTransferExecutor idempotentTransferExecutor;
+
+    private final TransferMetrics transferMetrics;
+
+    private final Map<String, TransferStrategy<? extends MakeTransferRequest>> transferStrategies;
 
     public TransferServiceImpl(
             TransferRepository transferRepository,
             TransferToGetTransferResponse transferToGetTransferResponse,
+            TransferToAccountTransferResponse transferToAccountTransferResponse,
+            ResponseBuilder responseBuilder,
+            IdempotentTransferExecutor idempotentTransferExecutor,
+            TransferMetrics transferMetrics,
             TransferByAccountNumberService transferByAccountNumber,
             TransferByPhoneNumberService transferByPhoneNumber
     ) {
         this.transferRepository = transferRepository;
         this.transferToGetTransferResponse = transferToGetTransferResponse;
+        this.transferToAccountTransferResponse = transferToAccountTransferResponse;
+        this.responseBuilder = responseBuilder;
+        this.idempotentTransferExecutor = idempotentTransferExecutor;
+        this.transferMetrics = transferMetrics;
         this.transferStrategies = new HashMap<>();
         this.transferStrategies.put(RequestTypeEnum.ACCOUNT.getRequestType(), transferByAccountNumber);
         this.transferStrategies.put(RequestTypeEnum.PHONE.getRequestType(), transferByPhoneNumber);
@@ -46,19 +74,23 @@ public class TransferServiceImpl implements TransferService {
     /**
      * Совершает перевод денежных средств.
      *
-     * @param requestMap Запрос на перевод.
+     * Если передан ключ идемпотентности, повторный запрос с тем же ключом не выполняет перевод еще раз,
+     * а получает ответ первого выполнения. Время перевода и его этапов записывается в метрики transfers.*.
+     *
+     * @param request        Запрос на перевод.
+     * @param idempotencyKey Ключ идемпотентности, может отсутствовать.
      * @return Ответ с сообщением о выполнении перевода.
      */
     @Override
-    public MakeTransferResponse makeTransfer(Map<String, Object> requestMap) {
-        String requestType = (String) requestMap.get(REQUEST_TYPE_STR);
-        TransferStrategy transferStrategy = transferStrategies.get(requestType);
-
-        if (transferStrategy != null) {
-            return transferStrategy.makeTransfer(requestMap);
-        } else {
-            log.error("BadRequestException occurred: {}", TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage());
-            throw new BadRequestException(TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage());
+    public MakeTransferResponse makeTransfer(MakeTransferRequest request, String idempotencyKey) {
+        transferMetrics.begin(request);
+        try {
+            MakeTransferResponse makeTransferResponse = executeTransfer(request, idempotencyKey);
+            transferMetrics.end(null);
+            return makeTransferResponse;
+        } catch (RuntimeException ex) {
+            transferMetrics.end(ex);
+            throw ex;
         }
     }
 
@@ -75,4 +107,64 @@ public class TransferServiceImpl implements TransferService {
                         TransferResponseMessagesEnum.TRANSFER_NOT_FOUND.getMessage()));
         return transferToGetTransferResponse.map(transfer);
     }
+
+    /**
+     * Получить страницу переводов по счету отправителя или получателя в порядке времени перевода.
+     *
+     * Переводы читаются из базы порциями и передаются обработчику по одному, не собираясь в список.
+     * Из базы читается на один перевод больше страницы: он показывает, что следующая страница есть.
+     *
+     * @param request          Счет, период, курсор предыдущей страницы и размер страницы.
+     * @param transferConsumer Обработчик переводов страницы.
+     * @return Курсор для следующей страницы или null, если страница последняя.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TransferCursor getTransfersByAccount(GetTransfersByAccountRequest request,
+                                                Consumer<AccountTransferResponse> transferConsumer) {
+        TransferCursor after = TransferCursor.lowerBound(request.getFrom(), request.getAfter());
+        LocalDateTime to = TransferCursor.upperBound(request.getTo());
+        int limit = request.getLimit();
+
+        try (Stream<Transfer> transfers = transferRepository.streamByAccount(
+                request.getAccount(), after.getTransactionDateTime(), after.getUuid(), to, limit + 1)) {
+            Iterator<Transfer> iterator = transfers.iterator();
+            Transfer last = null;
+            int count = 0;
+            while (iterator.hasNext()) {
+                Transfer transfer = iterator.next();
+                if (count == limit) {
+                    return TransferCursor.of(last);
+                }
+                transferConsumer.accept(transferToAccountTransferResponse.map(transfer));
+                last = transfer;
+                count++;
+            }
+            return null;
+        }
+    }
+
+    private MakeTransferResponse executeTransfer(MakeTransferRequest request, String idempotencyKey) {
+        TransferStrategy<MakeTransferRequest> transferStrategy = getTransferStrategy(request);
+
+        if (idempotencyKey == null) {
+            TransferResult transferResult = transferStrategy.makeTransfer(request);
+            return responseBuilder.createMakeTransferResponse(transferResult.getBalanceFrom());
+        }
+        return idempotentTransferExecutor.execute(
+                idempotencyKey, request, () -> transferStrategy.makeTransfer(request));
+    }
+
+    // Тип запроса выбран Jackson по полю requestType, поэтому стратегия соответствует классу запроса
+    @SuppressWarnings("unchecked")
+    private TransferStrategy<MakeTransferRequest> getTransferStrategy(MakeTransferRequest request) {
+        TransferStrategy<? extends MakeTransferRequest> transferStrategy =
+                transferStrategies.get(request.getRequestType());
+
+        if (transferStrategy == null) {
+            log.error("BadRequestException occurred: {}", TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage());
+            throw new BadRequestException(TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage());
+        }
+        return (TransferStrategy<MakeTransferRequest>) transferStrategy;
+    }
 }
\ No newline at end of file
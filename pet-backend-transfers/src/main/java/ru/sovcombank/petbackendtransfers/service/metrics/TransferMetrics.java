@@ -0,0 +1,200 @@
+package ru.sovcombank.petbackendtransfers.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Метрики времени выполнения перевода по этапам.
+ * <p>
+ * Этапы одного перевода выполняются в потоке запроса и в пуле transferLookupExecutor, контекст перевода
+ * передается в пул через {@link #propagate(Runnable)}. Замеры этапов копятся в контексте и записываются
+ * в реестр при завершении перевода, когда уже известна валютная пара: так все метрики перевода получают
+ * одинаковые теги request.type и cur.pair. Этап, выполненный вне перевода, записывается сразу с тегами none.
+ */
+@Component
+public class TransferMetrics {
+
+    private static final String NONE = "none";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadLocal<TransferTimings> currentTimings = new ThreadLocal<>();
+
+    public TransferMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Начинает замер перевода в текущем потоке.
+     *
+     * @param request Запрос на перевод.
+     */
+    public void begin(MakeTransferRequest request) {
+        currentTimings.set(new TransferTimings(request.getRequestType(), request.getCur()));
+    }
+
+    /**
+     * Завершает замер перевода: записывает все этапы и общее время перевода.
+     *
+     * @param exception Исключение, которым завершился перевод, или null при успешном переводе.
+     */
+    public void end(Throwable exception) {
+        TransferTimings timings = currentTimings.get();
+        if (timings == null) {
+            return;
+        }
+        currentTimings.remove();
+
+        Tags tags = timings.getTags();
+        for (StageTiming stageTiming : timings.stages) {
+            recordStage(tags.and("stage", stageTiming.stage()), stageTiming.exception(), stageTiming.nanos());
+        }
+        Timer.builder("transfers.total")
+                .description("Общее время выполнения перевода")
+                .tags(tags)
+                .tags(getOutcomeTags(getExceptionName(exception)))
+                .register(meterRegistry)
+                .record(System.nanoTime() - timings.startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Валютная пара становится известна после получения счета получателя
+    public void setCurPair(String curFrom, String curTo) {
+        TransferTimings timings = currentTimings.get();
+        if (timings != null) {
+            timings.curPair = curFrom + "-" + curTo;
+        }
+    }
+
+    /**
+     * Выполняет этап перевода и замеряет время его выполнения.
+     *
+     * @param stage Название этапа.
+     * @param call  Выполнение этапа.
+     * @return Результат этапа.
+     */
+    public <T> T recordStage(String stage, Supplier<T> call) {
+        long startNanos = System.nanoTime();
+        try {
+            T result = call.get();
+            stageCompleted(stage, null, startNanos);
+            return result;
+        } catch (RuntimeException ex) {
+            stageCompleted(stage, ex, startNanos);
+            throw ex;
+        }
+    }
+
+    // Этап без результата, например проверка валидатором
+    public void runStage(String stage, Runnable call) {
+        recordStage(stage, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Записывает время чтения тела запроса на перевод в типизированный объект.
+     * Чтение выполняется до начала перевода, поэтому валютная пара еще неизвестна.
+     *
+     * @param requestType Тип запроса.
+     * @param nanos       Время чтения тела в наносекундах.
+     */
+    public void recordRequestMapping(String requestType, long nanos) {
+        Timer.builder("transfers.request.mapping")
+                .description("Время чтения тела запроса на перевод")
+                .tag("request.type", requestType != null ? requestType : UNKNOWN)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Переносит контекст перевода в поток, который выполнит задачу.
+     * Предыдущий контекст потока восстанавливается, так как при переполнении пула задача выполняется
+     * в вызывающем потоке.
+     *
+     * @param task Задача для пула.
+     * @return Задача, выполняющаяся с контекстом текущего перевода.
+     */
+    public Runnable propagate(Runnable task) {
+        TransferTimings timings = currentTimings.get();
+        if (timings == null) {
+            return task;
+        }
+        return () -> {
+            TransferTimings previous = currentTimings.get();
+            currentTimings.set(timings);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    currentTimings.set(previous);
+                } else {
+                    currentTimings.remove();
+                }
+            }
+        };
+    }
+
+    private void stageCompleted(String stage, RuntimeException exception, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        String exceptionName = getExceptionName(exception);
+
+        TransferTimings timings = currentTimings.get();
+        if (timings != null) {
+            timings.stages.add(new StageTiming(stage, exceptionName, nanos));
+        } else {
+            recordStage(Tags.of("request.type", NONE, "cur.pair", NONE, "stage", stage), exceptionName, nanos);
+        }
+    }
+
+    private void recordStage(Tags tags, String exceptionName, long nanos) {
+        Timer.builder("transfers.stage")
+                .description("Время выполнения этапа перевода")
+                .tags(tags)
+                .tags(getOutcomeTags(exceptionName))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Tags getOutcomeTags(String exceptionName) {
+        return Tags.of("outcome", exceptionName.equals(NONE) ? "SUCCESS" : "ERROR", "exception", exceptionName);
+    }
+
+    private String getExceptionName(Throwable exception) {
+        return exception != null ? exception.getClass().getSimpleName() : NONE;
+    }
+
+    // Замеры одного перевода, этапы добавляются из разных потоков
+    private static final class TransferTimings {
+
+        private final long startNanos = System.nanoTime();
+
+        private final Queue<StageTiming> stages = new ConcurrentLinkedQueue<>();
+
+        private final String requestType;
+
+        private volatile String curPair;
+
+        private TransferTimings(String requestType, String curFrom) {
+            this.requestType = requestType;
+            this.curPair = curFrom + "-" + UNKNOWN;
+        }
+
+        private Tags getTags() {
+            return Tags.of("request.type", requestType, "cur.pair", curPair);
+        }
+    }
+
+    private record StageTiming(String stage, String exception, long nanos) {
+    }
+}
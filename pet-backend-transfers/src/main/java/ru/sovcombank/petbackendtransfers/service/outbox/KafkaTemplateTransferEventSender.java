@@ -0,0 +1,25 @@
+package ru.sovcombank.petbackendtransfers.service.outbox;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+// Отправка через KafkaTemplate, в профиле reactive вместо нее работает ReactiveKafkaTransferEventSender
+@Component
+@Profile("!reactive")
+public class KafkaTemplateTransferEventSender implements TransferEventSender {
+
+    private final KafkaTemplate<String, TransferDTO> kafkaTemplate;
+
+    public KafkaTemplateTransferEventSender(KafkaTemplate<String, TransferDTO> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    @Override
+    public CompletableFuture<?> send(String topic, TransferDTO transferDTO) {
+        return kafkaTemplate.send(topic, transferDTO);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.sovcombank.petbackendtransfers.service.outbox;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.stereotype.Component;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+// Отправка через reactor-kafka в реактивном варианте сервиса (профиль reactive)
+@Component
+@Profile("reactive")
+public class ReactiveKafkaTransferEventSender implements TransferEventSender {
+
+    private final ReactiveKafkaProducerTemplate<String, TransferDTO> reactiveKafkaProducerTemplate;
+
+    public ReactiveKafkaTransferEventSender(
+            ReactiveKafkaProducerTemplate<String, TransferDTO> reactiveKafkaProducerTemplate) {
+        this.reactiveKafkaProducerTemplate = reactiveKafkaProducerTemplate;
+    }
+
+    @Override
+    public CompletableFuture<?> send(String topic, TransferDTO transferDTO) {
+        return reactiveKafkaProducerTemplate.send(topic, transferDTO).toFuture();
+    }
+}
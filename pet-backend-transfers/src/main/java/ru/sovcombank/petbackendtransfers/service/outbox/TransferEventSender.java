@@ -0,0 +1,14 @@
+package ru.sovcombank.petbackendtransfers.service.outbox;
+
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Отправка события истории перевода в Kafka для {@link TransferOutboxRelay}.
+ * Результат приходит асинхронно: future завершается после подтверждения брокером или с ошибкой отправки.
+ */
+public interface TransferEventSender {
+
+    CompletableFuture<?> send(String topic, TransferDTO transferDTO);
+}
@@ -0,0 +1,262 @@
+package ru.sovcombank.petbackendtransfers.service.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.sovcombank.petbackendtransfers.builder.TransferOutboxBuilder;
+import ru.sovcombank.petbackendtransfers.model.entity.TransferOutbox;
+import ru.sovcombank.petbackendtransfers.repository.TransferOutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отправляет события истории переводов из таблицы transfer_outbox в Kafka.
+ * Работает по расписанию вне потока запроса и не ждет брокер: результат каждой отправки
+ * приходит в обработчик завершения, а число одновременно отправляемых событий ограничено окном.
+ * Пока окно заполнено, новые события из таблицы не выбираются.
+ * <p>
+ * Выбранное событие получает аренду до nextAttemptDateTime. Подтвержденные события помечаются отправленными,
+ * неудачные откладываются с экспоненциальной задержкой. Если сервис остановится до записи результата,
+ * событие будет выбрано повторно после окончания аренды.
+ */
+@Slf4j
+@Component
+public class TransferOutboxRelay {
+
+    private static final int LAST_ERROR_MAX_LENGTH = 1000;
+
+    private final TransferOutboxRepository transferOutboxRepository;
+
+    private final TransferOutboxBuilder transferOutboxBuilder;
+
+    private final TransferEventSender transferEventSender;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer publishLatencyTimer;
+
+    private final Counter publishFailureCounter;
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    // Окно одновременно отправляемых событий
+    private final Semaphore inFlight;
+
+    // Результаты отправки, записываются в таблицу потоком relay, а не потоком продюсера Kafka
+    private final Queue<Long> sentEventIds = new ConcurrentLinkedQueue<>();
+
+    private final Queue<FailedEvent> failedEvents = new ConcurrentLinkedQueue<>();
+
+    private final String kafkaTopic;
+
+    private final int batchSize;
+
+    private final int maxInFlight;
+
+    private final Duration lease;
+
+    private final Duration retryBackoff;
+
+    private final Duration retryMaxBackoff;
+
+    private final Duration shutdownTimeout;
+
+    public TransferOutboxRelay(TransferOutboxRepository transferOutboxRepository,
+                               TransferOutboxBuilder transferOutboxBuilder,
+                               TransferEventSender transferEventSender,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${kafka.topic.transfers-history-transaction}") String kafkaTopic,
+                               @Value("${kafka.outbox.batch-size}") int batchSize,
+                               @Value("${kafka.outbox.max-in-flight}") int maxInFlight,
+                               @Value("${kafka.outbox.lease}") Duration lease,
+                               @Value("${kafka.outbox.retry-backoff}") Duration retryBackoff,
+                               @Value("${kafka.outbox.retry-max-backoff}") Duration retryMaxBackoff,
+                               @Value("${kafka.outbox.shutdown-timeout}") Duration shutdownTimeout) {
+        this.transferOutboxRepository = transferOutboxRepository;
+        this.transferOutboxBuilder = transferOutboxBuilder;
+        this.transferEventSender = transferEventSender;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.kafkaTopic = kafkaTopic;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.lease = lease;
+        this.retryBackoff = retryBackoff;
+        this.retryMaxBackoff = retryMaxBackoff;
+        this.shutdownTimeout = shutdownTimeout;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.publishLatencyTimer = Timer.builder("transfers.outbox.publish.latency")
+                .description("Время от сохранения перевода до подтверждения события брокером")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.publishFailureCounter = Counter.builder("transfers.outbox.publish.failures")
+                .description("Количество неудачных попыток отправки событий")
+                .register(meterRegistry);
+        Gauge.builder("transfers.outbox.backlog", backlog, AtomicLong::get)
+                .description("Количество неотправленных событий в transfer_outbox")
+                .register(meterRegistry);
+        Gauge.builder("transfers.outbox.in-flight", inFlight, semaphore -> maxInFlight - semaphore.availablePermits())
+                .description("Количество событий, отправленных в Kafka и ожидающих подтверждения")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Записывает результаты завершившихся отправок и отправляет новые события, пока есть место в окне.
+     */
+    @Scheduled(fixedDelayString = "${kafka.outbox.poll-interval}")
+    public void publishPending() {
+        recordCompletions();
+
+        int claimed;
+        do {
+            claimed = claimAndSend();
+        } while (claimed == batchSize);
+
+        recordCompletions();
+        backlog.set(transferOutboxRepository.countBySentDateTimeIsNull());
+    }
+
+    // Дожидается подтверждения уже отправленных событий, чтобы не отправлять их повторно после перезапуска
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (inFlight.tryAcquire(maxInFlight, shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            inFlight.release(maxInFlight);
+        }
+        recordCompletions();
+    }
+
+    // Выбор пачки событий в пределах свободного места в окне и их отправка без ожидания результата
+    private int claimAndSend() {
+        int permits = Math.min(batchSize, inFlight.availablePermits());
+        if (permits == 0 || !inFlight.tryAcquire(permits)) {
+            return 0;
+        }
+
+        List<TransferOutbox> claimedEvents;
+        try {
+            claimedEvents = transactionTemplate.execute(status -> claim(permits));
+        } catch (RuntimeException ex) {
+            inFlight.release(permits);
+            throw ex;
+        }
+        if (claimedEvents == null) {
+            claimedEvents = List.of();
+        }
+        inFlight.release(permits - claimedEvents.size());
+
+        for (TransferOutbox transferOutbox : claimedEvents) {
+            send(transferOutbox);
+        }
+        return claimedEvents.size();
+    }
+
+    // Выбранные события получают аренду, на время которой их не выберет ни этот, ни другой экземпляр сервиса
+    private List<TransferOutbox> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TransferOutbox> pendingEvents = transferOutboxRepository.findPendingForUpdate(now, limit);
+        for (TransferOutbox transferOutbox : pendingEvents) {
+            transferOutbox.setAttempts(transferOutbox.getAttempts() + 1);
+            transferOutbox.setNextAttemptDateTime(now.plus(lease));
+        }
+        return pendingEvents;
+    }
+
+    private void send(TransferOutbox transferOutbox) {
+        Long id = transferOutbox.getId();
+        int attempts = transferOutbox.getAttempts();
+        LocalDateTime createDateTime = transferOutbox.getCreateDateTime();
+
+        long sendStartNanos = System.nanoTime();
+        CompletableFuture<?> sendFuture;
+        try {
+            sendFuture = transferEventSender.send(kafkaTopic, transferOutboxBuilder.readTransferDTO(transferOutbox));
+        } catch (Exception ex) {
+            sendFuture = CompletableFuture.failedFuture(ex);
+        }
+
+        sendFuture.whenComplete((result, ex) -> {
+            inFlight.release();
+            recordSend(sendStartNanos, ex);
+            if (ex == null) {
+                publishLatencyTimer.record(Duration.between(createDateTime, LocalDateTime.now()));
+                sentEventIds.add(id);
+            } else {
+                publishFailureCounter.increment();
+                log.warn("Failed to publish history event for transfer with UUID: {}, attempt {}",
+                        transferOutbox.getTransferUuid(), attempts, ex);
+                failedEvents.add(new FailedEvent(id, attempts, String.valueOf(ex)));
+            }
+        });
+    }
+
+    // Время от передачи события продюсеру до ответа брокера
+    private void recordSend(long sendStartNanos, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        Timer.builder("transfers.outbox.send")
+                .description("Время отправки события в Kafka до ответа брокера")
+                .tag("outcome", cause == null ? "SUCCESS" : "ERROR")
+                .tag("exception", cause == null ? "none" : cause.getClass().getSimpleName())
+                .register(meterRegistry)
+                .record(System.nanoTime() - sendStartNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Запись результатов отправки: подтвержденные события помечаются отправленными одним запросом на пачку
+    private void recordCompletions() {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> sentIds = new ArrayList<>();
+        for (Long id = sentEventIds.poll(); id != null; id = sentEventIds.poll()) {
+            sentIds.add(id);
+            if (sentIds.size() == batchSize) {
+                markSent(sentIds, now);
+                sentIds = new ArrayList<>();
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            markSent(sentIds, now);
+        }
+
+        for (FailedEvent failedEvent = failedEvents.poll(); failedEvent != null; failedEvent = failedEvents.poll()) {
+            FailedEvent event = failedEvent;
+            transactionTemplate.executeWithoutResult(status -> transferOutboxRepository.markFailed(
+                    event.id(), now.plus(getBackoff(event.attempts())), truncate(event.error())));
+        }
+    }
+
+    private void markSent(List<Long> ids, LocalDateTime sentDateTime) {
+        transactionTemplate.executeWithoutResult(status -> transferOutboxRepository.markSent(ids, sentDateTime));
+    }
+
+    // Экспоненциальная задержка: retryBackoff, 2 * retryBackoff, 4 * retryBackoff... но не больше retryMaxBackoff
+    private Duration getBackoff(int attempts) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(retryMaxBackoff) > 0 ? retryMaxBackoff : backoff;
+    }
+
+    private String truncate(String error) {
+        return error.length() > LAST_ERROR_MAX_LENGTH ? error.substring(0, LAST_ERROR_MAX_LENGTH) : error;
+    }
+
+    private record FailedEvent(Long id, int attempts, String error) {
+    }
+}
@@ -0,0 +1,116 @@
+package ru.sovcombank.petbackendtransfers.service.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.client.ReactiveAccountServiceClient;
+import ru.sovcombank.petbackendtransfers.client.ReactiveUserServiceClient;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.exception.UserNotFoundException;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.service.ReactiveTransferStrategy;
+import ru.sovcombank.petbackendtransfers.service.validator.AccountValidator;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveTransferByAccountNumberService implements ReactiveTransferStrategy<MakeTransferByAccountRequest> {
+
+    private final AccountValidator accountValidator;
+
+    private final ReactiveUserServiceClient userServiceClient;
+
+    private final ReactiveAccountServiceClient accountServiceClient;
+
+    private final ReactiveUpdateBalanceServiceHelper updateBalanceServiceHelper;
+
+    private final Duration validationTimeout;
+
+    public ReactiveTransferByAccountNumberService(
+            AccountValidator accountValidator,
+            ReactiveUserServiceClient userServiceClient,
+            ReactiveAccountServiceClient accountServiceClient,
+            ReactiveUpdateBalanceServiceHelper updateBalanceServiceHelper,
+            @Value("${transfer-validation.timeout}") Duration validationTimeout) {
+        this.accountValidator = accountValidator;
+        this.userServiceClient = userServiceClient;
+        this.accountServiceClient = accountServiceClient;
+        this.updateBalanceServiceHelper = updateBalanceServiceHelper;
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * Совершает перевод по номеру счета.
+     *
+     * @param makeTransferByAccountRequest Запрос на перевод по номеру счета.
+     * @return Результат перевода: сохраненный перевод и баланс отправителя.
+     */
+    @Override
+    public Mono<TransferResult> makeTransfer(MakeTransferByAccountRequest makeTransferByAccountRequest) {
+        return validateTransfer(makeTransferByAccountRequest)
+                .flatMap(updateBalanceServiceHelper::updateBalance)
+                .doOnNext(transferResult -> {
+                    Transfer transfer = transferResult.getTransfer();
+                    log.info("The transfer from account {} to account {} in the amount of {} "
+                                    + "was completed successfully",
+                            transfer.getAccountNumberFrom(), transfer.getAccountNumberTo(), transfer.getAmount());
+                });
+    }
+
+    // Валидация данных для осуществления перевода, полученные счета сохраняются в контексте перевода.
+    // Проверка отправителя, его счета и счета получателя выполняются параллельно, первая ошибка отменяет остальные
+    private Mono<TransferContext> validateTransfer(MakeTransferByAccountRequest makeTransferByAccountRequest) {
+        String accountNumberFrom = makeTransferByAccountRequest.getAccountNumberFrom();
+        String accountNumberTo = makeTransferByAccountRequest.getAccountNumberTo();
+
+        return Mono.defer(() -> {
+            accountValidator.checkRepeatNumbers(accountNumberFrom, accountNumberTo);
+
+            Mono<Boolean> userFrom = validateUser(makeTransferByAccountRequest.getClientId());
+            Mono<GetAccountResponse> accountFrom = accountServiceClient.getAccountResponse(accountNumberFrom)
+                    .doOnNext(getAccountFromResponse -> {
+                        accountValidator.validateAccountForTransfer(getAccountFromResponse);
+                        accountValidator.validateCur(
+                                makeTransferByAccountRequest.getCur(), getAccountFromResponse.getCur());
+                        accountValidator.validateSufficientFunds(
+                                getAccountFromResponse, makeTransferByAccountRequest.getAmount());
+                    });
+            // Владелец счета получателя тоже должен быть активным пользователем
+            Mono<GetAccountResponse> accountTo = accountServiceClient.getAccountResponse(accountNumberTo)
+                    .flatMap(getAccountToResponse -> validateUser(getAccountToResponse.getClientId())
+                            .thenReturn(getAccountToResponse));
+
+            return Mono.zip(userFrom, accountFrom, accountTo)
+                    .map(validated -> new TransferContext(
+                            accountNumberFrom,
+                            accountNumberTo,
+                            validated.getT2(),
+                            validated.getT3(),
+                            makeTransferByAccountRequest.getAmount(),
+                            makeTransferByAccountRequest.getCur()))
+                    .timeout(validationTimeout)
+                    .onErrorMap(TimeoutException.class, ex -> {
+                        log.error("Transfer validation calls did not complete within {}", validationTimeout);
+                        return new InternalServerErrorException();
+                    });
+        });
+    }
+
+    // Валидация пользователя (проверка полей isActive и isDeleted)
+    private Mono<Boolean> validateUser(Integer clientId) {
+        return userServiceClient.checkUserExistsForTransferByAccount(clientId)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(
+                        TransferResponseMessagesEnum.USER_NOT_FOUND.getMessage())));
+    }
+}
@@ -0,0 +1,159 @@
+package ru.sovcombank.petbackendtransfers.service.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import ru.sovcombank.petbackendtransfers.client.ReactiveAccountServiceClient;
+import ru.sovcombank.petbackendtransfers.client.ReactiveUserServiceClient;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.exception.UserNotFoundException;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferByPhoneRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.context.RecipientContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.service.ReactiveTransferStrategy;
+import ru.sovcombank.petbackendtransfers.service.helper.GetMainAccountServiceHelper;
+import ru.sovcombank.petbackendtransfers.service.validator.AccountValidator;
+import ru.sovcombank.petbackendtransfers.service.validator.UserValidator;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveTransferByPhoneNumberService implements ReactiveTransferStrategy<MakeTransferByPhoneRequest> {
+
+    private final AccountValidator accountValidator;
+
+    private final UserValidator userValidator;
+
+    private final ReactiveUserServiceClient userServiceClient;
+
+    private final ReactiveAccountServiceClient accountServiceClient;
+
+    private final GetMainAccountServiceHelper getMainAccountServiceHelper;
+
+    private final ReactiveUpdateBalanceServiceHelper updateBalanceServiceHelper;
+
+    private final Duration validationTimeout;
+
+    public ReactiveTransferByPhoneNumberService(
+            AccountValidator accountValidator,
+            UserValidator userValidator,
+            ReactiveUserServiceClient userServiceClient,
+            ReactiveAccountServiceClient accountServiceClient,
+            GetMainAccountServiceHelper getMainAccountServiceHelper,
+            ReactiveUpdateBalanceServiceHelper updateBalanceServiceHelper,
+            @Value("${transfer-validation.timeout}") Duration validationTimeout) {
+        this.accountValidator = accountValidator;
+        this.userValidator = userValidator;
+        this.userServiceClient = userServiceClient;
+        this.accountServiceClient = accountServiceClient;
+        this.getMainAccountServiceHelper = getMainAccountServiceHelper;
+        this.updateBalanceServiceHelper = updateBalanceServiceHelper;
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * Совершает перевод по номеру телефона.
+     *
+     * @param makeTransferByPhoneRequest Запрос на перевод по номеру телефона.
+     * @return Результат перевода: сохраненный перевод и баланс отправителя.
+     */
+    @Override
+    public Mono<TransferResult> makeTransfer(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
+        return validateTransfer(makeTransferByPhoneRequest)
+                .flatMap(updateBalanceServiceHelper::updateBalance)
+                .doOnNext(transferResult -> {
+                    Transfer transfer = transferResult.getTransfer();
+                    log.info("The transfer from account {} to account {} in the amount of {} "
+                                    + "was completed successfully",
+                            transfer.getAccountNumberFrom(), transfer.getAccountNumberTo(), transfer.getAmount());
+                });
+    }
+
+    // Валидация данных для осуществления перевода, полученные счета сохраняются в контексте перевода.
+    // Получатель разрешается параллельно с проверкой счета отправителя, ошибки отправителя имеют приоритет
+    private Mono<TransferContext> validateTransfer(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
+        return Mono.defer(() -> {
+            accountValidator.checkRepeatNumbers(
+                    makeTransferByPhoneRequest.getPhoneNumberFrom(),
+                    makeTransferByPhoneRequest.getPhoneNumberTo());
+
+            return validateUserFrom(makeTransferByPhoneRequest)
+                    .then(Mono.defer(() -> resolveSenderAndRecipient(makeTransferByPhoneRequest)))
+                    .timeout(validationTimeout)
+                    .onErrorMap(TimeoutException.class, ex -> {
+                        log.error("Transfer validation calls did not complete within {}", validationTimeout);
+                        return new InternalServerErrorException();
+                    });
+        });
+    }
+
+    // Ошибка получателя материализуется и пробрасывается только после успешной проверки отправителя.
+    // Ошибка отправителя завершает zip сразу и отменяет разрешение получателя
+    private Mono<TransferContext> resolveSenderAndRecipient(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
+        Mono<String> mainAccountFrom = getMainAccount(makeTransferByPhoneRequest.getClientId()).cache();
+        Mono<GetAccountResponse> accountFrom = mainAccountFrom
+                .flatMap(accountServiceClient::getAccountResponse)
+                .doOnNext(getAccountFromResponse -> {
+                    accountValidator.validateAccountForTransfer(getAccountFromResponse);
+                    accountValidator.validateCur(makeTransferByPhoneRequest.getCur(), getAccountFromResponse.getCur());
+                    accountValidator.validateSufficientFunds(
+                            getAccountFromResponse, makeTransferByPhoneRequest.getAmount());
+                });
+        Mono<Signal<RecipientContext>> recipient =
+                resolveRecipient(makeTransferByPhoneRequest.getPhoneNumberTo()).materialize();
+
+        return Mono.zip(mainAccountFrom, accountFrom, recipient)
+                .flatMap(resolved -> {
+                    Signal<RecipientContext> recipientSignal = resolved.getT3();
+                    if (recipientSignal.hasError()) {
+                        return Mono.error(recipientSignal.getThrowable());
+                    }
+                    RecipientContext recipientContext = recipientSignal.get();
+                    return Mono.just(new TransferContext(
+                            resolved.getT1(),
+                            recipientContext.getMainAccountNumber(),
+                            resolved.getT2(),
+                            recipientContext.getAccount(),
+                            makeTransferByPhoneRequest.getAmount(),
+                            makeTransferByPhoneRequest.getCur()));
+                });
+    }
+
+    // Валидация клиента для перевода по номеру телефона
+    // (проверка полей isActive, isDeleted и совпадение номера телефона)
+    private Mono<Boolean> validateUserFrom(MakeTransferByPhoneRequest makeTransferByPhoneRequest) {
+        return userServiceClient.checkUserExistsForTransferByPhone(
+                        makeTransferByPhoneRequest.getClientId(),
+                        makeTransferByPhoneRequest.getPhoneNumberFrom())
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(
+                        TransferResponseMessagesEnum.USER_NOT_FOUND.getMessage())));
+    }
+
+    // Получение пользователя по номеру телефона, его основного счета и данных этого счета
+    private Mono<RecipientContext> resolveRecipient(String phoneNumberTo) {
+        return userServiceClient.getUserInfo(phoneNumberTo)
+                .doOnNext(userValidator::validateActiveUser)
+                .flatMap(getUserResponse -> getMainAccount(getUserResponse.getId())
+                        .flatMap(mainAccountTo -> accountServiceClient.getAccountResponse(mainAccountTo)
+                                .map(getAccountToResponse ->
+                                        new RecipientContext(getUserResponse, mainAccountTo, getAccountToResponse))));
+    }
+
+    // Получение номера основного счета клиента
+    private Mono<String> getMainAccount(Integer clientId) {
+        return accountServiceClient.getAccountsResponse(clientId)
+                .map(getAccountsResponse -> getMainAccountServiceHelper.getMainAccount(
+                        getAccountsResponse.getAccountList()));
+    }
+}
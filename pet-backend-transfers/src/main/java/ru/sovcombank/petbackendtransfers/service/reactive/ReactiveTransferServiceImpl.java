@@ -0,0 +1,162 @@
+package ru.sovcombank.petbackendtransfers.service.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.builder.ResponseBuilder;
+import ru.sovcombank.petbackendtransfers.exception.AccountNotFoundException;
+import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
+import ru.sovcombank.petbackendtransfers.mapping.impl.TransferToAccountTransferResponse;
+import ru.sovcombank.petbackendtransfers.mapping.impl.TransferToGetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.request.GetTransfersByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.AccountTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferCursor;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+import ru.sovcombank.petbackendtransfers.model.enums.RequestTypeEnum;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+import ru.sovcombank.petbackendtransfers.repository.ReactiveTransferRepository;
+import ru.sovcombank.petbackendtransfers.service.ReactiveTransferService;
+import ru.sovcombank.petbackendtransfers.service.ReactiveTransferStrategy;
+import ru.sovcombank.petbackendtransfers.service.idempotency.ReactiveIdempotentTransferExecutor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Реактивный вариант сервиса переводов (профиль reactive) с тем же HTTP-контрактом, что и у TransferServiceImpl.
+ * Запросы в users и accounts выполняются через WebClient, перевод и событие для history записываются через R2DBC,
+ * поэтому ожидание соседних сервисов и базы не занимает потоки.
+ * Этапы перевода в метрики transfers.* не записываются: время запросов видно в http.server.requests
+ * и http.client.requests.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveTransferServiceImpl implements ReactiveTransferService {
+
+    private final ReactiveTransferRepository transferRepository;
+
+    private final TransferToGetTransferResponse transferToGetTransferResponse;
+
+    private final TransferToAccountTransferResponse transferToAccountTransferResponse;
+
+    private final ResponseBuilder responseBuilder;
+
+    private final ReactiveIdempotentTransferExecutor idempotentTransferExecutor;
+
+    private final Map<String, ReactiveTransferStrategy<? extends MakeTransferRequest>> transferStrategies;
+
+    public ReactiveTransferServiceImpl(
+            ReactiveTransferRepository transferRepository,
+            TransferToGetTransferResponse transferToGetTransferResponse,
+            TransferToAccountTransferResponse transferToAccountTransferResponse,
+            ResponseBuilder responseBuilder,
+            ReactiveIdempotentTransferExecutor idempotentTransferExecutor,
+            ReactiveTransferByAccountNumberService transferByAccountNumber,
+            ReactiveTransferByPhoneNumberService transferByPhoneNumber
+    ) {
+        this.transferRepository = transferRepository;
+        this.transferToGetTransferResponse = transferToGetTransferResponse;
+        this.transferToAccountTransferResponse = transferToAccountTransferResponse;
+        this.responseBuilder = responseBuilder;
+        this.idempotentTransferExecutor = idempotentTransferExecutor;
+        this.transferStrategies = new HashMap<>();
+        this.transferStrategies.put(RequestTypeEnum.ACCOUNT.getRequestType(), transferByAccountNumber);
+        this.transferStrategies.put(RequestTypeEnum.PHONE.getRequestType(), transferByPhoneNumber);
+    }
+
+    /**
+     * Совершает перевод денежных средств.
+     *
+     * Начатый перевод не отменяется, если клиент закрыл соединение: списание в accounts и сохранение перевода
+     * с событием для history должны выполниться вместе, как и в обычном варианте сервиса.
+     *
+     * @param request        Запрос на перевод.
+     * @param idempotencyKey Ключ идемпотентности, может отсутствовать.
+     * @return Ответ с сообщением о выполнении перевода.
+     */
+    @Override
+    public Mono<MakeTransferResponse> makeTransfer(MakeTransferRequest request, String idempotencyKey) {
+        return Mono.defer(() -> Mono.fromFuture(executeTransfer(request, idempotencyKey).toFuture(), true));
+    }
+
+    /**
+     * Получить информацию о транзакции по uuid.
+     *
+     * @param uuid uuid транзакции.
+     * @return Ответ с информацией о транзакции.
+     */
+    @Override
+    public Mono<GetTransferResponse> getTransfers(String uuid) {
+        return Mono.defer(() -> transferRepository.findByUuid(UUID.fromString(uuid)))
+                .switchIfEmpty(Mono.error(() -> new AccountNotFoundException(
+                        TransferResponseMessagesEnum.TRANSFER_NOT_FOUND.getMessage())))
+                .map(transferToGetTransferResponse::map);
+    }
+
+    /**
+     * Получить страницу переводов по счету отправителя или получателя в порядке времени перевода.
+     * Переводы отдаются по мере чтения из базы, из базы читается на один перевод больше страницы,
+     * чтобы определить, есть ли следующая.
+     *
+     * @param request      Счет, период, курсор предыдущей страницы и размер страницы.
+     * @param nextConsumer Получает курсор следующей страницы до завершения потока, если она есть.
+     * @return Переводы страницы.
+     */
+    @Override
+    public Flux<AccountTransferResponse> getTransfersByAccount(GetTransfersByAccountRequest request,
+                                                               Consumer<TransferCursor> nextConsumer) {
+        return Flux.defer(() -> {
+            TransferCursor after = TransferCursor.lowerBound(request.getFrom(), request.getAfter());
+            int limit = request.getLimit();
+            AtomicReference<Transfer> last = new AtomicReference<>();
+
+            return transferRepository.findByAccount(request.getAccount(), after.getTransactionDateTime(),
+                            after.getUuid(), TransferCursor.upperBound(request.getTo()), limit + 1)
+                    .index()
+                    .<AccountTransferResponse>handle((indexed, sink) -> {
+                        if (indexed.getT1() < limit) {
+                            last.set(indexed.getT2());
+                            sink.next(transferToAccountTransferResponse.map(indexed.getT2()));
+                        } else {
+                            nextConsumer.accept(TransferCursor.of(last.get()));
+                        }
+                    });
+        });
+    }
+
+    private Mono<MakeTransferResponse> executeTransfer(MakeTransferRequest request, String idempotencyKey) {
+        return Mono.defer(() -> {
+            ReactiveTransferStrategy<MakeTransferRequest> transferStrategy = getTransferStrategy(request);
+
+            if (idempotencyKey == null) {
+                return transferStrategy.makeTransfer(request)
+                        .map(transferResult -> responseBuilder.createMakeTransferResponse(
+                                transferResult.getBalanceFrom()));
+            }
+            return idempotentTransferExecutor.execute(
+                    idempotencyKey, request, Mono.defer(() -> transferStrategy.makeTransfer(request)));
+        });
+    }
+
+    // Тип запроса выбран Jackson по полю requestType, поэтому стратегия соответствует классу запроса
+    @SuppressWarnings("unchecked")
+    private ReactiveTransferStrategy<MakeTransferRequest> getTransferStrategy(MakeTransferRequest request) {
+        ReactiveTransferStrategy<? extends MakeTransferRequest> transferStrategy =
+                transferStrategies.get(request.getRequestType());
+
+        if (transferStrategy == null) {
+            log.error("BadRequestException occurred: {}", TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage());
+            throw new BadRequestException(TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage());
+        }
+        return (ReactiveTransferStrategy<MakeTransferRequest>) transferStrategy;
+    }
+}
@@ -0,0 +1,117 @@
+package ru.sovcombank.petbackendtransfers.service.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.sovcombank.petbackendtransfers.builder.RequestBuilder;
+import ru.sovcombank.petbackendtransfers.builder.TransferBuilder;
+import ru.sovcombank.petbackendtransfers.builder.TransferDTOBuilder;
+import ru.sovcombank.petbackendtransfers.builder.TransferOutboxBuilder;
+import ru.sovcombank.petbackendtransfers.client.ReactiveAccountServiceClient;
+import ru.sovcombank.petbackendtransfers.converter.CurrencyConverter;
+import ru.sovcombank.petbackendtransfers.model.context.TransferContext;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+import ru.sovcombank.petbackendtransfers.model.entity.TransferOutbox;
+import ru.sovcombank.petbackendtransfers.repository.ReactiveTransferOutboxRepository;
+import ru.sovcombank.petbackendtransfers.repository.ReactiveTransferRepository;
+import ru.sovcombank.petbackendtransfers.service.helper.GetAmountByCurServiceHelper;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Slf4j
+@Component
+@Profile("reactive")
+public class ReactiveUpdateBalanceServiceHelper {
+
+    private final RequestBuilder requestBuilder;
+
+    private final TransferBuilder transferBuilder;
+
+    private final TransferDTOBuilder transferDTOBuilder;
+
+    private final TransferOutboxBuilder transferOutboxBuilder;
+
+    private final ReactiveAccountServiceClient accountServiceClient;
+
+    private final ReactiveTransferRepository transferRepository;
+
+    private final ReactiveTransferOutboxRepository transferOutboxRepository;
+
+    private final GetAmountByCurServiceHelper getAmountByCurServiceHelper;
+
+    private final CurrencyConverter currencyConverter;
+
+    private final TransactionalOperator transferTransactionalOperator;
+
+    public ReactiveUpdateBalanceServiceHelper(RequestBuilder requestBuilder,
+                                              TransferBuilder transferBuilder,
+                                              TransferDTOBuilder transferDTOBuilder,
+                                              TransferOutboxBuilder transferOutboxBuilder,
+                                              ReactiveAccountServiceClient accountServiceClient,
+                                              ReactiveTransferRepository transferRepository,
+                                              ReactiveTransferOutboxRepository transferOutboxRepository,
+                                              GetAmountByCurServiceHelper getAmountByCurServiceHelper,
+                                              CurrencyConverter currencyConverter,
+                                              TransactionalOperator transferTransactionalOperator) {
+        this.requestBuilder = requestBuilder;
+        this.transferBuilder = transferBuilder;
+        this.transferDTOBuilder = transferDTOBuilder;
+        this.transferOutboxBuilder = transferOutboxBuilder;
+        this.accountServiceClient = accountServiceClient;
+        this.transferRepository = transferRepository;
+        this.transferOutboxRepository = transferOutboxRepository;
+        this.getAmountByCurServiceHelper = getAmountByCurServiceHelper;
+        this.currencyConverter = currencyConverter;
+        this.transferTransactionalOperator = transferTransactionalOperator;
+    }
+
+    // Списание и зачисление выполняются в accounts одной транзакцией, после чего перевод сохраняется локально
+    // под тем же идентификатором, что передан в accounts
+    public Mono<TransferResult> updateBalance(TransferContext transferContext) {
+        UUID transferUuid = UUID.randomUUID();
+        return getAmountByCur(transferContext)
+                .flatMap(amountByCur -> {
+                    log.info("Making a transfer from account {} to account {} with the amount for the recipient of {}",
+                            transferContext.getAccountNumberFrom(), transferContext.getAccountNumberTo(), amountByCur);
+                    return accountServiceClient.transferBalance(
+                            requestBuilder.createTransferBalanceRequest(transferContext, amountByCur, transferUuid));
+                })
+                .flatMap(transferBalanceResponse -> saveTransfer(transferContext, transferUuid)
+                        .map(transfer -> new TransferResult(transfer, transferBalanceResponse.getBalanceFrom())));
+    }
+
+    // Курсы читаются из таблицы в памяти. Пока она не загружена, первый запрос загружает ее синхронно,
+    // поэтому такой запрос выполняется вне потоков Netty
+    private Mono<BigDecimal> getAmountByCur(TransferContext transferContext) {
+        Mono<BigDecimal> amountByCur = Mono.fromCallable(() -> getAmountByCurServiceHelper.getAmountByCur(
+                transferContext.getCur(), transferContext.getAmount(), transferContext.getAccountTo()));
+        return currencyConverter.getLoadedAt() != null
+                ? amountByCur
+                : amountByCur.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Сохранение перевода вместе с событием для history в одной транзакции R2DBC,
+    // отправкой события занимается TransferOutboxRelay
+    private Mono<Transfer> saveTransfer(TransferContext transferContext, UUID transferUuid) {
+        return Mono.defer(() -> {
+            Transfer transfer = transferBuilder.createTransferObject(
+                    transferContext.getAccountNumberFrom(),
+                    transferContext.getAccountNumberTo(),
+                    transferContext.getAmount(),
+                    transferContext.getCur());
+            transfer.setUuid(transferUuid);
+            TransferOutbox transferOutbox = transferOutboxBuilder.createTransferOutboxObject(
+                    transferDTOBuilder.createTransferDTOObject(transfer, transferContext));
+
+            return transferRepository.save(transfer)
+                    .then(transferOutboxRepository.save(transferOutbox))
+                    .as(transferTransactionalOperator::transactional)
+                    .thenReturn(transfer);
+        });
+    }
+}
@@ -1,7 +1,6 @@
 package ru.sovcombank.petbackendtransfers.service.validator;
 
 import org.springframework.stereotype.Component;
-import ru.sovcombank.petbackendtransfers.client.AccountServiceClient;
 import ru.sovcombank.petbackendtransfers.exception.AccountClosedException;
 import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
 import ru.sovcombank.petbackendtransfers.exception.InsufficientFundsException;
@@ -13,12 +12,6 @@ import java.math.BigDecimal;
 @Component
 public class AccountValidator {
 
-    private final AccountServiceClient accountServiceClient;
-
-    public AccountValidator(AccountServiceClient accountServiceClient) {
-        this.accountServiceClient = accountServiceClient;
-    }
-
     // Валидация счета (проверка поля isClosed)
     public void validateAccountForTransfer(GetAccountResponse getAccountFromResponse) {
         if (getAccountFromResponse.isClosed()) {
@@ -27,8 +20,7 @@ public class AccountValidator {
     }
 
     // Валидация суммы перевода (должна быть не больше, чем сумма на балансе)
-    public void validateSufficientFunds(String accountNumber, BigDecimal transferAmount) {
-        GetAccountResponse getAccountFromResponse = accountServiceClient.getAccountResponse(accountNumber);
+    public void validateSufficientFunds(GetAccountResponse getAccountFromResponse, BigDecimal transferAmount) {
         if (transferAmount.compareTo(getAccountFromResponse.getBalance()) > 0) {
             throw new InsufficientFundsException(TransferResponseMessagesEnum.INSUFFICIENT_FUNDS.getMessage());
         }
@@ -0,0 +1,10 @@
+CREATE TABLE transfer_outbox
+(
+    id                 BIGSERIAL PRIMARY KEY NOT NULL,
+    transfer_uuid      UUID                  NOT NULL,
+    payload            TEXT                  NOT NULL,
+    create_date_time   TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    sent_date_time     TIMESTAMP
+);
+
+CREATE INDEX transfer_outbox_pending_idx ON transfer_outbox (id) WHERE sent_date_time IS NULL;
@@ -0,0 +1,8 @@
+ALTER TABLE transfer_outbox
+    ADD COLUMN attempts               INT       NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_date_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN last_error             VARCHAR(1000);
+
+DROP INDEX transfer_outbox_pending_idx;
+
+CREATE INDEX transfer_outbox_pending_idx ON transfer_outbox (next_attempt_date_time) WHERE sent_date_time IS NULL;
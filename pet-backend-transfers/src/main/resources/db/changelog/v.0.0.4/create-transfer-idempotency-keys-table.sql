@@ -0,0 +1,11 @@
+CREATE TABLE transfer_idempotency_keys
+(
+    idempotency_key  VARCHAR(64) PRIMARY KEY NOT NULL,
+    request_hash     VARCHAR(64)             NOT NULL,
+    transfer_uuid    UUID,
+    response         TEXT,
+    create_date_time TIMESTAMP               NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expire_date_time TIMESTAMP               NOT NULL
+);
+
+CREATE INDEX transfer_idempotency_keys_expire_idx ON transfer_idempotency_keys (expire_date_time);
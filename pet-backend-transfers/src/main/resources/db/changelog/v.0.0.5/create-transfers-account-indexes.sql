@@ -0,0 +1,5 @@
+CREATE INDEX transfers_account_number_from_idx
+    ON transfers (account_number_from, transaction_date_time, uuid) INCLUDE (account_number_to, amount, cur);
+
+CREATE INDEX transfers_account_number_to_idx
+    ON transfers (account_number_to, transaction_date_time, uuid) INCLUDE (account_number_from, amount, cur);
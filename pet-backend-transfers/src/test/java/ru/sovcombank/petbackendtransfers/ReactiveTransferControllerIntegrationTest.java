@@ -0,0 +1,219 @@
+package ru.sovcombank.petbackendtransfers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+import ru.sovcombank.petbackendtransfers.client.ReactiveAccountServiceClient;
+import ru.sovcombank.petbackendtransfers.client.ReactiveUserServiceClient;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+import ru.sovcombank.petbackendtransfers.service.outbox.ReactiveKafkaTransferEventSender;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Testcontainers
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ReactiveTransferControllerIntegrationTest {
+
+    private static final String ACCOUNT = "4200933666961739";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ReactiveUserServiceClient userServiceClient;
+
+    @MockBean
+    private ReactiveAccountServiceClient accountServiceClient;
+
+    @MockBean
+    private ReactiveKafkaTransferEventSender transferEventSender;
+
+    @BeforeAll
+    public static void startContainers() {
+        postgresContainer.start();
+        System.setProperty("spring.datasource.url", postgresContainer.getJdbcUrl());
+        System.setProperty("spring.datasource.username", postgresContainer.getUsername());
+        System.setProperty("spring.datasource.password", postgresContainer.getPassword());
+        System.setProperty("spring.r2dbc.url", "r2dbc:postgresql://" + postgresContainer.getHost() + ":"
+                + postgresContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/"
+                + postgresContainer.getDatabaseName());
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgresContainer.stop();
+    }
+
+    @BeforeEach
+    public void stubKafka() {
+        when(transferEventSender.send(anyString(), any(TransferDTO.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @AfterEach
+    public void execute() {
+        jdbcTemplate.execute("TRUNCATE TABLE transfers");
+        jdbcTemplate.execute("TRUNCATE TABLE transfer_outbox");
+        jdbcTemplate.execute("TRUNCATE TABLE transfer_idempotency_keys");
+    }
+
+    @Test
+    @DisplayName("Реактивный вариант: перевод средств по номеру счета")
+    void makeTransferByAccountNumberSuccessfully() throws IOException {
+        stubTransferByAccount(Duration.ZERO);
+
+        MakeTransferResponse actualResponse = webTestClient.post()
+                .uri("/transfers")
+                .bodyValue(readFromJson("request/make-transfer-by-account-request.json", Map.class))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody(MakeTransferResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(readFromJson("response/make-transfer-response.json", MakeTransferResponse.class),
+                actualResponse);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfers", Integer.class));
+        verify(accountServiceClient, times(1)).transferBalance(any(TransferBalanceRequest.class));
+    }
+
+    @Test
+    @DisplayName("Реактивный вариант: одновременный повтор с тем же ключом дожидается результата перевода")
+    void concurrentDuplicateWaitsForTransfer() throws IOException {
+        stubTransferByAccount(Duration.ofMillis(500));
+        Map<?, ?> request = readFromJson("request/make-transfer-by-account-request.json", Map.class);
+
+        CompletableFuture<MakeTransferResponse> first = CompletableFuture.supplyAsync(() -> makeTransfer(request));
+        CompletableFuture<MakeTransferResponse> duplicate = CompletableFuture.supplyAsync(() -> makeTransfer(request));
+
+        MakeTransferResponse expectedResponse = readFromJson(
+                "response/make-transfer-response.json", MakeTransferResponse.class);
+        assertEquals(expectedResponse, first.join());
+        assertEquals(expectedResponse, duplicate.join());
+        verify(accountServiceClient, times(1)).transferBalance(any(TransferBalanceRequest.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfers", Integer.class));
+    }
+
+    @Test
+    @Sql("/sql/insert-transfer.sql")
+    @DisplayName("Реактивный вариант: получение информации о переводе")
+    void getInfoAboutTransactionSuccessfully() throws IOException {
+        webTestClient.get()
+                .uri("/transfers/14e6edca-6319-4d4a-99fc-b951323f78b8")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(GetTransferResponse.class)
+                .isEqualTo(readFromJson("response/get-transfer-response.json", GetTransferResponse.class));
+    }
+
+    @Test
+    @DisplayName("Реактивный вариант: переводы по счету постранично")
+    void getTransfersByAccount() throws IOException {
+        for (int i = 1; i <= 3; ++i) {
+            jdbcTemplate.update("INSERT INTO transfers (uuid, account_number_from, account_number_to, amount, cur, "
+                    + "transaction_date_time) VALUES (gen_random_uuid(), ?, '4200810666632677', ?, '810', "
+                    + "TIMESTAMP '2023-12-13 18:25:25' + make_interval(mins => ?))", ACCOUNT, i, i);
+        }
+
+        JsonNode firstPage = getTransfersPage("/transfers?account=" + ACCOUNT + "&limit=2");
+        assertEquals(2, firstPage.get("transfers").size());
+        assertEquals(1, firstPage.get("transfers").get(0).get("amount").intValue());
+        assertTrue(firstPage.get("next").isTextual());
+
+        JsonNode secondPage = getTransfersPage(
+                "/transfers?account=" + ACCOUNT + "&limit=2&after=" + firstPage.get("next").asText());
+        assertEquals(1, secondPage.get("transfers").size());
+        assertEquals(3, secondPage.get("transfers").get(0).get("amount").intValue());
+        assertTrue(secondPage.get("next").isNull());
+    }
+
+    private MakeTransferResponse makeTransfer(Map<?, ?> request) {
+        return webTestClient.post()
+                .uri("/transfers")
+                .header("Idempotency-Key", "7f1c2e4a-0d3b-4a51-9b7e-2c6f8d1e5a90")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(MakeTransferResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private JsonNode getTransfersPage(String uri) throws IOException {
+        byte[] body = webTestClient.get()
+                .uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+        return objectMapper.readTree(body);
+    }
+
+    private void stubTransferByAccount(Duration accountsLatency) throws IOException {
+        when(userServiceClient.checkUserExistsForTransferByAccount(anyInt()))
+                .thenReturn(Mono.just(true));
+
+        when(accountServiceClient.getAccountResponse(anyString()))
+                .thenReturn(Mono.just(readFromJson("response/get-account-response.json", GetAccountResponse.class)));
+
+        when(accountServiceClient.transferBalance(any(TransferBalanceRequest.class)))
+                .thenReturn(Mono.just(readFromJson(
+                                "response/transfer-balance-response.json", TransferBalanceResponse.class))
+                        .delayElement(accountsLatency));
+    }
+
+    private <T> T readFromJson(String jsonFileName, Class<T> requestClass) throws IOException {
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream("json/" + jsonFileName);
+        return objectMapper.readValue(inputStream, requestClass);
+    }
+}
@@ -1,19 +1,26 @@
 package ru.sovcombank.petbackendtransfers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,35 +31,55 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.sovcombank.petbackendtransfers.client.AccountServiceClient;
+import ru.sovcombank.petbackendtransfers.client.DownstreamGuard;
 import ru.sovcombank.petbackendtransfers.client.UserServiceClient;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountsResponse;
-import ru.sovcombank.petbackendtransfers.model.api.response.GetBalanceResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.GetUserResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
 import ru.sovcombank.petbackendtransfers.model.api.response.MessageResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
 import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
 import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// Без этого тесты не публикуют метрики, и /actuator/prometheus недоступен
+@AutoConfigureObservability
 public class TransferControllerIntegrationTest {
 
     private final String BASE_HOST = "http://localhost:";
 
+    private static final String ACCOUNT = "4200933666961739";
+
+    private static final String OTHER_ACCOUNT = "4200810666632677";
+
     @Container
     private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
 
@@ -65,6 +92,12 @@ public class TransferControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private DownstreamGuard downstreamGuard;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
     @MockBean
     private UserServiceClient userServiceClient;
 
@@ -94,9 +127,18 @@ public class TransferControllerIntegrationTest {
         postgresContainer.stop();
     }
 
+    @BeforeEach
+    public void stubKafka() {
+        // Relay помечает событие отправленным только после подтверждения от брокера
+        when(kafkaTemplate.send(anyString(), any(TransferDTO.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
     @AfterEach
     public void execute() {
         jdbcTemplate.execute("TRUNCATE TABLE transfers");
+        jdbcTemplate.execute("TRUNCATE TABLE transfer_outbox");
+        jdbcTemplate.execute("TRUNCATE TABLE transfer_idempotency_keys");
     }
 
     @Test
@@ -125,10 +167,10 @@ public class TransferControllerIntegrationTest {
                         "response/get-account-response.json",
                         GetAccountResponse.class));
 
-        when(accountServiceClient.getBalanceResponse(anyString()))
+        when(accountServiceClient.transferBalance(any(TransferBalanceRequest.class)))
                 .thenReturn(readFromJson(
-                        "response/get-balance-response.json",
-                        GetBalanceResponse.class));
+                        "response/transfer-balance-response.json",
+                        TransferBalanceResponse.class));
 
         ResponseEntity<MakeTransferResponse> responseEntity = restTemplate.postForEntity(
                 BASE_HOST + port + "/transfers",
@@ -141,7 +183,8 @@ public class TransferControllerIntegrationTest {
         assertEquals(MediaType.APPLICATION_JSON_VALUE, responseEntity.getHeaders().getContentType().toString());
         assertEquals(expectedResponse, actualResponse);
 
-        verify(kafkaTemplate).send(topicCaptor.capture(), transferCaptor.capture());
+        // Событие отправляется в Kafka из transfer_outbox вне потока запроса
+        verify(kafkaTemplate, timeout(5000)).send(topicCaptor.capture(), transferCaptor.capture());
 
         String actualTopic = topicCaptor.getValue();
         TransferDTO actualTransfer = transferCaptor.getValue();
@@ -151,6 +194,151 @@ public class TransferControllerIntegrationTest {
 
         assertEquals(expectedKafkaTopic, actualTopic);
         assertEquals(expectedTransfer, actualTransfer);
+
+        // Каждый счет и каждый пользователь запрашиваются один раз за перевод
+        verify(accountServiceClient, times(2)).getAccountResponse(anyString());
+        verify(userServiceClient, times(2)).checkUserExistsForTransferByAccount(anyInt());
+
+        // Перевод сохраняется под идентификатором, переданным в accounts
+        ArgumentCaptor<TransferBalanceRequest> transferBalanceCaptor =
+                ArgumentCaptor.forClass(TransferBalanceRequest.class);
+        verify(accountServiceClient, times(1)).transferBalance(transferBalanceCaptor.capture());
+        assertEquals(actualTransfer.getUuid(), transferBalanceCaptor.getValue().getTransferUuid());
+    }
+
+    @Test
+    @DisplayName("Перевод средств по номеру счета: повтор с тем же ключом идемпотентности")
+    void makeTransferByAccountNumberWithIdempotencyKey() throws IOException {
+        Map<String, Object> requestMap = readFromJson(
+                "request/make-transfer-by-account-request.json",
+                Map.class);
+
+        MakeTransferResponse expectedResponse = readFromJson(
+                "response/make-transfer-response.json",
+                MakeTransferResponse.class);
+
+        when(userServiceClient.checkUserExistsForTransferByAccount(anyInt()))
+                .thenReturn(true);
+
+        when(accountServiceClient.getAccountResponse(anyString()))
+                .thenReturn(readFromJson(
+                        "response/get-account-response.json",
+                        GetAccountResponse.class));
+
+        when(accountServiceClient.transferBalance(any(TransferBalanceRequest.class)))
+                .thenReturn(readFromJson(
+                        "response/transfer-balance-response.json",
+                        TransferBalanceResponse.class));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Idempotency-Key", "7f1c2e4a-0d3b-4a51-9b7e-2c6f8d1e5a90");
+
+        ResponseEntity<MakeTransferResponse> firstResponseEntity = restTemplate.postForEntity(
+                BASE_HOST + port + "/transfers",
+                new HttpEntity<>(requestMap, headers),
+                MakeTransferResponse.class);
+
+        ResponseEntity<MakeTransferResponse> repeatedResponseEntity = restTemplate.postForEntity(
+                BASE_HOST + port + "/transfers",
+                new HttpEntity<>(requestMap, headers),
+                MakeTransferResponse.class);
+
+        assertEquals(HttpStatus.OK, firstResponseEntity.getStatusCode());
+        assertEquals(HttpStatus.OK, repeatedResponseEntity.getStatusCode());
+        assertEquals(expectedResponse, firstResponseEntity.getBody());
+        assertEquals(expectedResponse, repeatedResponseEntity.getBody());
+
+        // Повтор получает сохраненный ответ, перевод выполняется один раз
+        verify(accountServiceClient, times(1)).transferBalance(any(TransferBalanceRequest.class));
+        verify(kafkaTemplate, timeout(5000)).send(anyString(), any(TransferDTO.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfers", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Перевод средств по номеру счета: метрики этапов перевода в Prometheus")
+    void makeTransferByAccountNumberRecordsStageMetrics() throws IOException {
+        Map<String, Object> requestMap = readFromJson(
+                "request/make-transfer-by-account-request.json",
+                Map.class);
+
+        when(userServiceClient.checkUserExistsForTransferByAccount(anyInt()))
+                .thenReturn(true);
+
+        when(accountServiceClient.getAccountResponse(anyString()))
+                .thenReturn(readFromJson(
+                        "response/get-account-response.json",
+                        GetAccountResponse.class));
+
+        when(accountServiceClient.transferBalance(any(TransferBalanceRequest.class)))
+                .thenReturn(readFromJson(
+                        "response/transfer-balance-response.json",
+                        TransferBalanceResponse.class));
+
+        ResponseEntity<MakeTransferResponse> responseEntity = restTemplate.postForEntity(
+                BASE_HOST + port + "/transfers",
+                requestMap,
+                MakeTransferResponse.class);
+
+        ResponseEntity<String> prometheusResponseEntity = restTemplate.getForEntity(
+                BASE_HOST + port + "/actuator/prometheus",
+                String.class);
+
+        String prometheusMetrics = Objects.requireNonNull(prometheusResponseEntity.getBody());
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(HttpStatus.OK, prometheusResponseEntity.getStatusCode());
+        assertTrue(prometheusMetrics.contains("transfers_request_mapping_seconds_count{request_type=\"ACCOUNT\""));
+        assertTrue(prometheusMetrics.contains("transfers_total_seconds_count{cur_pair=\"810-810\",exception=\"none\","
+                + "outcome=\"SUCCESS\",request_type=\"ACCOUNT\""));
+        assertTrue(prometheusMetrics.contains("transfers_stage_seconds_count{cur_pair=\"810-810\",exception=\"none\","
+                + "outcome=\"SUCCESS\",request_type=\"ACCOUNT\",stage=\"currency-conversion\""));
+        assertTrue(prometheusMetrics.contains("transfers_stage_seconds_count{cur_pair=\"810-810\",exception=\"none\","
+                + "outcome=\"SUCCESS\",request_type=\"ACCOUNT\",stage=\"validation.account-from\""));
+    }
+
+    @Test
+    @Sql("/sql/insert-transfer.sql")
+    @DisplayName("Перевод средств по номеру счета: circuit breaker accounts открыт")
+    void makeTransferByAccountNumberWhenAccountsCircuitBreakerIsOpen() throws IOException {
+        Map<String, Object> requestMap = readFromJson(
+                "request/make-transfer-by-account-request.json",
+                Map.class);
+
+        CircuitBreaker accountsCircuitBreaker = circuitBreakerRegistry.circuitBreaker(DownstreamGuard.ACCOUNTS);
+
+        when(userServiceClient.checkUserExistsForTransferByAccount(anyInt()))
+                .thenReturn(true);
+
+        // Клиент замокан, поэтому запрос в accounts проходит через DownstreamGuard так же, как в AccountServiceClient
+        when(accountServiceClient.getAccountResponse(anyString()))
+                .thenAnswer(invocation -> downstreamGuard.call(DownstreamGuard.ACCOUNTS, () -> {
+                    throw new AssertionError("Request must not be sent while the circuit breaker is open");
+                }));
+
+        accountsCircuitBreaker.transitionToOpenState();
+        try {
+            ResponseEntity<MessageResponse> responseEntity = restTemplate.postForEntity(
+                    BASE_HOST + port + "/transfers",
+                    requestMap,
+                    MessageResponse.class);
+
+            ResponseEntity<GetTransferResponse> getTransferResponseEntity = restTemplate.getForEntity(
+                    BASE_HOST + port + "/transfers/14e6edca-6319-4d4a-99fc-b951323f78b8",
+                    GetTransferResponse.class);
+
+            ResponseEntity<String> prometheusResponseEntity = restTemplate.getForEntity(
+                    BASE_HOST + port + "/actuator/prometheus",
+                    String.class);
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+            assertEquals(TransferResponseMessagesEnum.SERVICE_UNAVAILABLE.getMessage(),
+                    Objects.requireNonNull(responseEntity.getBody()).getMessage());
+            assertEquals(HttpStatus.OK, getTransferResponseEntity.getStatusCode());
+            assertTrue(Objects.requireNonNull(prometheusResponseEntity.getBody())
+                    .contains("resilience4j_circuitbreaker_state{name=\"accounts\",state=\"open\",} 1.0"));
+        } finally {
+            accountsCircuitBreaker.reset();
+        }
     }
 
     @Test
@@ -182,10 +370,10 @@ public class TransferControllerIntegrationTest {
                         "response/get-accounts-response.json",
                         GetAccountsResponse.class));
 
-        when(accountServiceClient.getBalanceResponse(anyString()))
+        when(accountServiceClient.transferBalance(any(TransferBalanceRequest.class)))
                 .thenReturn(readFromJson(
-                        "response/get-balance-response.json",
-                        GetBalanceResponse.class));
+                        "response/transfer-balance-response.json",
+                        TransferBalanceResponse.class));
 
         when(userServiceClient.checkUserExistsForTransferByAccount(anyInt()))
                 .thenReturn(true);
@@ -200,6 +388,13 @@ public class TransferControllerIntegrationTest {
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertEquals(MediaType.APPLICATION_JSON_VALUE, responseEntity.getHeaders().getContentType().toString());
         assertEquals(expectedResponse, actualResponse);
+
+        // Каждый счет и каждый пользователь запрашиваются один раз за перевод
+        verify(accountServiceClient, times(2)).getAccountResponse(anyString());
+        verify(accountServiceClient, times(2)).getAccountsResponse(anyInt());
+        verify(userServiceClient, times(1)).getUserInfo(anyString());
+        verify(userServiceClient, times(1)).checkUserExistsForTransferByPhone(anyInt(), anyString());
+        verify(accountServiceClient, times(1)).transferBalance(any(TransferBalanceRequest.class));
     }
 
     @Test
@@ -282,6 +477,25 @@ public class TransferControllerIntegrationTest {
                 Objects.requireNonNull(responseEntity.getBody()).getMessage());
     }
 
+    @Test
+    @DisplayName("Перевод средств: неизвестный тип запроса")
+    void makeTransferWithUnknownRequestType() throws IOException {
+        Map<String, Object> requestMap = readFromJson(
+                "request/make-transfer-by-phone-request.json",
+                Map.class);
+        requestMap.put("requestType", "CARD");
+
+        ResponseEntity<MessageResponse> responseEntity = restTemplate.postForEntity(
+                BASE_HOST + port + "/transfers",
+                requestMap,
+                MessageResponse.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals(TransferResponseMessagesEnum.BAD_REQUEST_FOR_REQUEST_TYPE.getMessage(),
+                Objects.requireNonNull(responseEntity.getBody()).getMessage());
+        verify(userServiceClient, times(0)).checkUserExistsForTransferByPhone(anyInt(), anyString());
+    }
+
     @Test
     @DisplayName("Перевод средств по номеру телефона: ошибка InsufficientFundsException")
     void makeTransferByPhoneNumberInsufficientFundsException() throws IOException {
@@ -345,6 +559,106 @@ public class TransferControllerIntegrationTest {
                 Objects.requireNonNull(responseEntity.getBody()).getMessage());
     }
 
+    @Test
+    @DisplayName("Переводы по счету: страницы с одинаковым временем перевода не теряют и не повторяют переводы")
+    void getTransfersByAccountWithIdenticalTimestamps() throws IOException {
+        Set<String> expectedUuids = new HashSet<>();
+        for (int i = 0; i < 5; ++i) {
+            // Счет выступает и отправителем, и получателем
+            expectedUuids.add(insertTransfer(i % 2 == 0 ? ACCOUNT : OTHER_ACCOUNT, i % 2 == 0 ? OTHER_ACCOUNT : ACCOUNT,
+                    "2023-12-13T18:25:25"));
+        }
+        insertTransfer(OTHER_ACCOUNT, "4200810666600000", "2023-12-13T18:25:25");
+
+        List<String> actualUuids = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String next = null;
+        do {
+            String after = next != null ? "&after=" + next : "";
+            JsonNode page = getTransfersPage("account=" + ACCOUNT + "&limit=2" + after);
+            page.get("transfers").forEach(transfer -> actualUuids.add(transfer.get("uuid").asText()));
+            pageSizes.add(page.get("transfers").size());
+            next = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (next != null);
+
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        assertEquals(5, actualUuids.size());
+        assertEquals(expectedUuids, new HashSet<>(actualUuids));
+        // Внутри одного времени переводы упорядочены по uuid
+        assertEquals(actualUuids.stream().sorted().toList(), actualUuids);
+    }
+
+    @Test
+    @DisplayName("Переводы по счету: некорректный или измененный курсор")
+    void getTransfersByAccountWithInvalidCursor() {
+        String notBase64 = "not a cursor!";
+        String withoutSeparator = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2023-12-13T18:25:25".getBytes(StandardCharsets.UTF_8));
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2023-13-45T18:25:25_" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of(notBase64, withoutSeparator, tampered)) {
+            ResponseEntity<MessageResponse> responseEntity = restTemplate.getForEntity(
+                    BASE_HOST + port + "/transfers?account={account}&after={after}",
+                    MessageResponse.class, ACCOUNT, cursor);
+
+            assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+            assertEquals("Некорректный запрос по полю after",
+                    Objects.requireNonNull(responseEntity.getBody()).getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Переводы по счету: пустая страница")
+    void getTransfersByAccountEmptyPage() throws IOException {
+        insertTransfer(OTHER_ACCOUNT, "4200810666600000", "2023-12-13T18:25:25");
+
+        JsonNode page = getTransfersPage("account=" + ACCOUNT);
+
+        assertEquals(objectMapper.readTree("{\"transfers\":[],\"next\":null}"), page);
+    }
+
+    @Test
+    @Sql("/sql/insert-transfer.sql")
+    @DisplayName("Переводы по счету: формат ответа")
+    void getTransfersByAccountResponseShape() throws IOException {
+        ResponseEntity<String> responseEntity = restTemplate.getForEntity(
+                BASE_HOST + port + "/transfers?account=" + ACCOUNT, String.class);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, responseEntity.getHeaders().getContentType().toString());
+        assertEquals(objectMapper.readTree("""
+                        {
+                          "transfers": [
+                            {
+                              "uuid": "14e6edca-6319-4d4a-99fc-b951323f78b8",
+                              "accountNumberFrom": "4200933666961739",
+                              "accountNumberTo": "4200810666632677",
+                              "amount": 900.00,
+                              "cur": "810",
+                              "transactionDateTime": "2023-12-13T18:25:25"
+                            }
+                          ],
+                          "next": null
+                        }"""),
+                objectMapper.readTree(responseEntity.getBody()));
+    }
+
+    private String insertTransfer(String accountNumberFrom, String accountNumberTo, String transactionDateTime) {
+        String uuid = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO transfers (uuid, account_number_from, account_number_to, amount, cur, "
+                        + "transaction_date_time) VALUES (?::uuid, ?, ?, 100, '810', ?::timestamp)",
+                uuid, accountNumberFrom, accountNumberTo, transactionDateTime);
+        return uuid;
+    }
+
+    private JsonNode getTransfersPage(String query) throws IOException {
+        ResponseEntity<String> responseEntity = restTemplate.getForEntity(
+                BASE_HOST + port + "/transfers?" + query, String.class);
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        return objectMapper.readTree(responseEntity.getBody());
+    }
+
     private <T> T readFromJson(String jsonFileName, Class<T> requestClass) throws IOException {
         InputStream inputStream = getClass().getClassLoader().getResourceAsStream("json/" + jsonFileName);
         return objectMapper.readValue(inputStream, requestClass);
@@ -0,0 +1,184 @@
+package ru.sovcombank.petbackendtransfers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.sovcombank.petbackendtransfers.client.AccountServiceClient;
+import ru.sovcombank.petbackendtransfers.client.UserServiceClient;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetAccountResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.GetTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
+import ru.sovcombank.petbackendtransfers.model.dto.TransferDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Чтение переводов, пока запросы в accounts выполняются долго.
+ * Пул соединений меньше числа одновременных переводов: перевод не должен занимать соединение на время запроса
+ * в accounts.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=1000"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class TransferSlowAccountsIntegrationTest {
+
+    private static final int SLOW_TRANSFERS = 4;
+
+    private final String BASE_HOST = "http://localhost:";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:latest");
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private UserServiceClient userServiceClient;
+
+    @MockBean
+    private AccountServiceClient accountServiceClient;
+
+    @MockBean
+    private KafkaTemplate<String, TransferDTO> kafkaTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeAll
+    public static void startContainers() {
+        postgresContainer.start();
+        System.setProperty("spring.datasource.url", postgresContainer.getJdbcUrl());
+        System.setProperty("spring.datasource.username", postgresContainer.getUsername());
+        System.setProperty("spring.datasource.password", postgresContainer.getPassword());
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgresContainer.stop();
+    }
+
+    @BeforeEach
+    public void stubKafka() {
+        when(kafkaTemplate.send(anyString(), any(TransferDTO.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @AfterEach
+    public void execute() {
+        jdbcTemplate.execute("TRUNCATE TABLE transfers");
+        jdbcTemplate.execute("TRUNCATE TABLE transfer_outbox");
+        jdbcTemplate.execute("TRUNCATE TABLE transfer_idempotency_keys");
+    }
+
+    @Test
+    @Sql("/sql/insert-transfer.sql")
+    @DisplayName("Получение перевода: ответ, пока переводы ждут медленный accounts")
+    void getTransferWhileAccountsIsSlow() throws Exception {
+        Map<String, Object> requestMap = readFromJson("request/make-transfer-by-account-request.json", Map.class);
+        TransferBalanceResponse transferBalanceResponse = readFromJson(
+                "response/transfer-balance-response.json", TransferBalanceResponse.class);
+
+        when(userServiceClient.checkUserExistsForTransferByAccount(anyInt()))
+                .thenReturn(true);
+
+        when(accountServiceClient.getAccountResponse(anyString()))
+                .thenReturn(readFromJson("response/get-account-response.json", GetAccountResponse.class));
+
+        // Перевод в accounts не завершается, пока тест не отпустит его
+        CountDownLatch entered = new CountDownLatch(SLOW_TRANSFERS);
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountServiceClient.transferBalance(any(TransferBalanceRequest.class)))
+                .thenAnswer(invocation -> {
+                    entered.countDown();
+                    release.await();
+                    return transferBalanceResponse;
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(SLOW_TRANSFERS);
+        try {
+            List<Future<ResponseEntity<MakeTransferResponse>>> transfers = new ArrayList<>();
+            for (int i = 0; i < SLOW_TRANSFERS; i++) {
+                // С ключом идемпотентности перевод обращается к базе и до запроса в accounts
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("Idempotency-Key", UUID.randomUUID().toString());
+                transfers.add(executor.submit(() -> restTemplate.postForEntity(
+                        BASE_HOST + port + "/transfers",
+                        new HttpEntity<>(requestMap, headers),
+                        MakeTransferResponse.class)));
+            }
+
+            try {
+                assertTrue(entered.await(10, TimeUnit.SECONDS), "transfers waiting for accounts: "
+                        + (SLOW_TRANSFERS - entered.getCount()));
+
+                ResponseEntity<GetTransferResponse> getTransferResponseEntity = restTemplate.getForEntity(
+                        BASE_HOST + port + "/transfers/14e6edca-6319-4d4a-99fc-b951323f78b8",
+                        GetTransferResponse.class);
+
+                assertEquals(HttpStatus.OK, getTransferResponseEntity.getStatusCode());
+            } finally {
+                release.countDown();
+            }
+
+            for (Future<ResponseEntity<MakeTransferResponse>> transfer : transfers) {
+                assertEquals(HttpStatus.OK, transfer.get().getStatusCode());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(SLOW_TRANSFERS + 1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transfers", Integer.class));
+    }
+
+    private <T> T readFromJson(String jsonFileName, Class<T> requestClass) throws IOException {
+        InputStream inputStream = getClass().getClassLoader().getResourceAsStream("json/" + jsonFileName);
+        return objectMapper.readValue(inputStream, requestClass);
+    }
+}
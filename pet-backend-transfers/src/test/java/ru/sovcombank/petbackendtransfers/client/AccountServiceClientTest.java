@@ -0,0 +1,152 @@
+package ru.sovcombank.petbackendtransfers.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import ru.sovcombank.petbackendtransfers.config.AppConfig;
+import ru.sovcombank.petbackendtransfers.config.HttpClientProperties;
+import ru.sovcombank.petbackendtransfers.model.api.request.TransferBalanceRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.TransferBalanceResponse;
+import ru.sovcombank.petbackendtransfers.service.metrics.TransferMetrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Перевод через клиент accounts с настоящим пулом соединений: отдельный срок ответа на перевод
+ * и повтор с тем же идентификатором перевода, если ответ не получен.
+ */
+public class AccountServiceClientTest {
+
+    private static final String RESPONSE = "{\"accountNumberFrom\":\"4200933666961739\",\"balanceFrom\":900.00,"
+            + "\"accountNumberTo\":\"4200810666632677\",\"balanceTo\":1100.00}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Тела запросов на перевод в порядке получения
+    private final List<TransferBalanceRequest> requests = new CopyOnWriteArrayList<>();
+
+    // Задержка ответа на каждый следующий запрос, без задержки после исчерпания списка
+    private final List<Duration> delays = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private CloseableHttpClient httpClient;
+
+    private AccountServiceClient accountServiceClient;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/accounts/transfers", this::handleTransfer);
+        server.start();
+
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setConnectTimeout(Duration.ofSeconds(1));
+        properties.setReadTimeout(Duration.ofMillis(300));
+        properties.setTransferReadTimeout(Duration.ofMillis(1500));
+        properties.setConnectionRequestTimeout(Duration.ofSeconds(1));
+        properties.setKeepAlive(Duration.ofSeconds(30));
+        properties.setMaxIdleTime(Duration.ofMinutes(1));
+        properties.setMaxTotal(10);
+        properties.setDefaultMaxPerRoute(10);
+
+        AppConfig appConfig = new AppConfig();
+        httpClient = appConfig.httpClient(appConfig.httpClientConnectionManager(properties), properties);
+        RestTemplateBuilder builder = new RestTemplateBuilder();
+        accountServiceClient = new AccountServiceClient(
+                appConfig.restTemplate(builder, httpClient),
+                appConfig.accountTransferRestTemplate(builder, httpClient, properties),
+                objectMapper,
+                new TransferMetrics(new SimpleMeterRegistry()),
+                new DownstreamGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults()),
+                "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        httpClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Перевод в accounts: ответ дольше read-timeout дожидается без повтора")
+    void transferWaitsLongerThanReadTimeout() {
+        delays.add(Duration.ofMillis(800));
+        TransferBalanceRequest request = transferBalanceRequest();
+
+        TransferBalanceResponse response = accountServiceClient.transferBalance(request);
+
+        assertEquals(new BigDecimal("900.00"), response.getBalanceFrom());
+        assertEquals(1, requests.size());
+        assertEquals(request.getTransferUuid(), requests.get(0).getTransferUuid());
+    }
+
+    @Test
+    @DisplayName("Перевод в accounts: запрос без ответа повторяется с тем же идентификатором перевода")
+    void timedOutTransferIsRetriedWithSameUuid() {
+        delays.add(Duration.ofMillis(2500));
+        TransferBalanceRequest request = transferBalanceRequest();
+
+        TransferBalanceResponse response = accountServiceClient.transferBalance(request);
+
+        assertEquals(new BigDecimal("1100.00"), response.getBalanceTo());
+        assertEquals(2, requests.size());
+        assertEquals(request.getTransferUuid(), requests.get(0).getTransferUuid());
+        assertEquals(request.getTransferUuid(), requests.get(1).getTransferUuid());
+    }
+
+    private TransferBalanceRequest transferBalanceRequest() {
+        return new TransferBalanceRequest("4200933666961739", "4200810666632677",
+                new BigDecimal("100.00"), new BigDecimal("100.00"), UUID.randomUUID());
+    }
+
+    private void handleTransfer(HttpExchange exchange) throws IOException {
+        int index;
+        synchronized (requests) {
+            requests.add(objectMapper.readValue(exchange.getRequestBody(), TransferBalanceRequest.class));
+            index = requests.size() - 1;
+        }
+        if (index < delays.size()) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delays.get(index).toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, body.length);
+            responseBody.write(body);
+        } catch (IOException ex) {
+            // Клиент уже закрыл соединение по таймауту
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CbrRatesParserTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final CbrRatesParser cbrRatesParser = new CbrRatesParser();
+
+    @Test
+    @DisplayName("Разбор курсов: курс за единицу валюты берется из VunitRate")
+    void parseUnitRate() {
+        ExchangeRateTable table = parse(valute("840", "USD", 1, "89,9705", "89,9705")
+                + valute("392", "JPY", 100, "61,5906", "0,615906"));
+
+        assertEquals(2, table.size());
+        assertEquals(89.9705, table.getRate("840"), DELTA);
+        assertEquals(0.615906, table.getRate("392"), DELTA);
+    }
+
+    @Test
+    @DisplayName("Разбор курсов: без VunitRate курс считается как Value / Nominal")
+    void parseRateWithoutUnitRate() {
+        ExchangeRateTable table = parse(valute("398", "KZT", 100, "19,5413", null)
+                + valute("933", "BYN", 1, "27,9478", null));
+
+        assertEquals(0.195413, table.getRate("398"), DELTA);
+        assertEquals(27.9478, table.getRate("933"), DELTA);
+    }
+
+    @Test
+    @DisplayName("Разбор курсов: валюта с кодом вне таблицы пропускается")
+    void parseSkipsNumCodeOutsideTable() {
+        ExchangeRateTable table = parse(valute("1000", "XXX", 1, "1,0", "1,0")
+                + valute("84", "XXY", 1, "2,0", "2,0")
+                + valute("840", "USD", 1, "89,9705", "89,9705"));
+
+        assertEquals(1, table.size());
+        assertEquals(89.9705, table.getRate("840"), DELTA);
+        assertThrows(BadRequestException.class, () -> table.getRate("1000"));
+        assertThrows(BadRequestException.class, () -> table.getRate("084"));
+    }
+
+    @Test
+    @DisplayName("Разбор курсов: кодировка берется из XML-декларации")
+    void parseWindows1251() {
+        String xml = "<?xml version=\"1.0\" encoding=\"windows-1251\"?><ValCurs Date=\"13.12.2023\">"
+                + valute("978", "EUR", 1, "97,0472", "97,0472").replace("<Name/>", "<Name>Евро</Name>")
+                + "</ValCurs>";
+
+        ExchangeRateTable table = cbrRatesParser.parse(
+                new ByteArrayInputStream(xml.getBytes(Charset.forName("windows-1251"))));
+
+        assertEquals(97.0472, table.getRate("978"), DELTA);
+    }
+
+    @Test
+    @DisplayName("Разбор курсов: ошибка InternalServerErrorException для некорректного ответа")
+    void parseMalformedXml() {
+        assertThrows(InternalServerErrorException.class, () -> parse(valute("840", "USD", 1, "abc", null)));
+        assertThrows(InternalServerErrorException.class,
+                () -> cbrRatesParser.parse(new ByteArrayInputStream("<ValCurs><Valute>".getBytes())));
+    }
+
+    private ExchangeRateTable parse(String valutes) {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ValCurs Date=\"13.12.2023\">" + valutes + "</ValCurs>";
+        return cbrRatesParser.parse(new ByteArrayInputStream(xml.getBytes(Charset.forName("UTF-8"))));
+    }
+
+    static String valute(String numCode, String charCode, int nominal, String value, String unitRate) {
+        return "<Valute ID=\"R0\"><NumCode>" + numCode + "</NumCode><CharCode>" + charCode + "</CharCode>"
+                + "<Nominal>" + nominal + "</Nominal><Name/><Value>" + value + "</Value>"
+                + (unitRate != null ? "<VunitRate>" + unitRate + "</VunitRate>" : "") + "</Valute>";
+    }
+}
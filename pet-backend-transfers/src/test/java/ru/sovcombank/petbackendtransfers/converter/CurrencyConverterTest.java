@@ -0,0 +1,70 @@
+package ru.sovcombank.petbackendtransfers.converter;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import ru.sovcombank.petbackendtransfers.client.DownstreamGuard;
+import ru.sovcombank.petbackendtransfers.exception.BadRequestException;
+import ru.sovcombank.petbackendtransfers.exception.GlobalExceptionHandler;
+import ru.sovcombank.petbackendtransfers.model.api.response.MessageResponse;
+import ru.sovcombank.petbackendtransfers.model.enums.TransferResponseMessagesEnum;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CurrencyConverterTest {
+
+    private static final String CBR_URL = "http://cbr/XML_daily.asp";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+    private CurrencyConverter currencyConverter;
+
+    @BeforeEach
+    void createConverter() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ValCurs Date=\"13.12.2023\">"
+                + CbrRatesParserTest.valute("840", "USD", 1, "89,9705", "89,9705")
+                + CbrRatesParserTest.valute("398", "KZT", 100, "19,5413", "0,195413")
+                + "</ValCurs>";
+        when(restTemplate.getForEntity(eq(CBR_URL), eq(byte[].class)))
+                .thenReturn(ResponseEntity.ok(xml.getBytes(StandardCharsets.UTF_8)));
+
+        currencyConverter = new CurrencyConverter(restTemplate, new CbrRatesParser(),
+                new DownstreamGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults()), CBR_URL);
+    }
+
+    @Test
+    @DisplayName("Курс валюты: таблица загружается один раз, курс за единицу валюты")
+    void getCurrentRate() {
+        assertEquals(89.9705, currencyConverter.getCurrentRate("840"), 1e-9);
+        assertEquals(0.195413, currencyConverter.getCurrentRate("398"), 1e-9);
+
+        verify(restTemplate, times(1)).getForEntity(eq(CBR_URL), eq(byte[].class));
+    }
+
+    @Test
+    @DisplayName("Курс валюты: ошибка BadRequestException (400) для неизвестной валюты")
+    void getCurrentRateUnknownCurrency() {
+        BadRequestException ex = assertThrows(BadRequestException.class,
+                () -> currencyConverter.getCurrentRate("999"));
+        assertThrows(BadRequestException.class, () -> currencyConverter.getCurrentRate("USD"));
+
+        ResponseEntity<MessageResponse> responseEntity = new GlobalExceptionHandler().handleBadRequestException(ex);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals(TransferResponseMessagesEnum.BAD_REQUEST_FOR_CUR.getMessage(),
+                responseEntity.getBody().getMessage());
+    }
+}
@@ -0,0 +1,105 @@
+package ru.sovcombank.petbackendtransfers.service.helper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.sovcombank.petbackendtransfers.exception.AccountNotFoundException;
+import ru.sovcombank.petbackendtransfers.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelCallsServiceHelperTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor transferLookupExecutor;
+
+    private ParallelCallsServiceHelper parallelCallsServiceHelper;
+
+    @BeforeEach
+    void createHelper() {
+        transferLookupExecutor = new ThreadPoolTaskExecutor();
+        transferLookupExecutor.setCorePoolSize(2);
+        transferLookupExecutor.setMaxPoolSize(2);
+        transferLookupExecutor.setQueueCapacity(1);
+        transferLookupExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        transferLookupExecutor.initialize();
+        parallelCallsServiceHelper = new ParallelCallsServiceHelper(transferLookupExecutor, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        release.countDown();
+        transferLookupExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Параллельные запросы: заполненный пул сразу отклоняет запрос с ошибкой ServiceUnavailableException")
+    void saturatedExecutorFailsFast() {
+        // Оба потока и очередь пула заняты медленными запросами
+        for (int i = 0; i < 3; ++i) {
+            parallelCallsServiceHelper.runAsync(this::awaitRelease);
+        }
+        AtomicBoolean called = new AtomicBoolean();
+        CompletableFuture<Boolean> rejected = parallelCallsServiceHelper.supplyAsync(() -> called.getAndSet(true));
+
+        long start = System.nanoTime();
+        assertThrows(ServiceUnavailableException.class, () -> parallelCallsServiceHelper.awaitAll(rejected));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+        // Отклоненный запрос не выполняется и в вызывающем потоке
+        assertTrue(rejected.isCompletedExceptionally());
+        assertFalse(called.get());
+    }
+
+    @Test
+    @DisplayName("Параллельные запросы: первая ошибка прекращает ожидание, запросы из очереди пула не выполняются")
+    void firstFailureShortCircuits() throws InterruptedException {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Runnable slowCall = () -> {
+            awaitRelease();
+            interrupted.compareAndSet(false, Thread.currentThread().isInterrupted());
+        };
+        CompletableFuture<Void> slow = parallelCallsServiceHelper.runAsync(slowCall);
+        CompletableFuture<Void> otherSlow = parallelCallsServiceHelper.runAsync(slowCall);
+        AtomicBoolean queuedCalled = new AtomicBoolean();
+        CompletableFuture<Boolean> queued = parallelCallsServiceHelper.supplyAsync(() -> queuedCalled.getAndSet(true));
+        AccountNotFoundException failure = new AccountNotFoundException("not found");
+
+        long start = System.nanoTime();
+        AccountNotFoundException thrown = assertThrows(AccountNotFoundException.class,
+                () -> parallelCallsServiceHelper.awaitAll(slow, otherSlow, queued,
+                        CompletableFuture.failedFuture(failure)));
+
+        assertEquals(failure, thrown);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+        assertTrue(queued.isCancelled());
+
+        release.countDown();
+        transferLookupExecutor.getThreadPoolExecutor().shutdown();
+        assertTrue(transferLookupExecutor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+        assertFalse(queuedCalled.get());
+        // Выполняющиеся запросы не прерываются, они завершаются сами
+        assertFalse(interrupted.get());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
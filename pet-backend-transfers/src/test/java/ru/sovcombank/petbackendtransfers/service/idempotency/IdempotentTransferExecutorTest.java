@@ -0,0 +1,131 @@
+package ru.sovcombank.petbackendtransfers.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.sovcombank.petbackendtransfers.builder.ResponseBuilder;
+import ru.sovcombank.petbackendtransfers.exception.IdempotencyConflictException;
+import ru.sovcombank.petbackendtransfers.exception.InsufficientFundsException;
+import ru.sovcombank.petbackendtransfers.exception.InternalServerErrorException;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferByAccountRequest;
+import ru.sovcombank.petbackendtransfers.model.api.request.MakeTransferRequest;
+import ru.sovcombank.petbackendtransfers.model.api.response.MakeTransferResponse;
+import ru.sovcombank.petbackendtransfers.model.context.TransferResult;
+import ru.sovcombank.petbackendtransfers.model.entity.IdempotencyKey;
+import ru.sovcombank.petbackendtransfers.model.entity.Transfer;
+import ru.sovcombank.petbackendtransfers.repository.IdempotencyKeyRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotentTransferExecutorTest {
+
+    private static final String KEY = "key-1";
+
+    private final MakeTransferRequest request = new MakeTransferByAccountRequest(
+            1, "ACCOUNT", "40817810000000000001", "40817810000000000002", new BigDecimal("10.00"), "810");
+
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencySupport idempotencySupport;
+
+    private IdempotentTransferExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+        idempotencySupport = new IdempotencySupport(new ObjectMapper());
+        executor = new IdempotentTransferExecutor(idempotencyKeyRepository, new ResponseBuilder(null, null),
+                idempotencySupport, Duration.ofHours(24), Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    @DisplayName("Ошибка до списания освобождает ключ, повтор выполняет перевод")
+    void failureBeforeDebitReleasesKey() {
+        when(idempotencyKeyRepository.claim(eq(KEY), anyString(), any(), any())).thenReturn(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(InsufficientFundsException.class, () -> executor.execute(KEY, request, () -> {
+            calls.incrementAndGet();
+            throw new InsufficientFundsException("insufficient");
+        }));
+        verify(idempotencyKeyRepository).release(KEY);
+
+        MakeTransferResponse response = executor.execute(KEY, request, successfulTransfer(calls));
+        assertEquals(2, calls.get());
+        assertEquals(new BigDecimal("90.00"), balanceOf(response));
+    }
+
+    @Test
+    @DisplayName("Неизвестный результат перевода оставляет ключ занятым, повтор получает конфликт")
+    void unknownOutcomeKeepsKey() {
+        when(idempotencyKeyRepository.claim(eq(KEY), anyString(), any(), any())).thenReturn(1, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(InternalServerErrorException.class, () -> executor.execute(KEY, request, () -> {
+            calls.incrementAndGet();
+            throw new InternalServerErrorException();
+        }));
+        verify(idempotencyKeyRepository, never()).release(anyString());
+
+        // Ключ остается в таблице без ответа
+        LocalDateTime now = LocalDateTime.now();
+        when(idempotencyKeyRepository.findById(KEY)).thenReturn(Optional.of(new IdempotencyKey(
+                KEY, idempotencySupport.fingerprint(request), null, null, now, now.plusHours(24))));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> executor.execute(KEY, request, successfulTransfer(calls)));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Повтор, ответа на который нет в памяти, получает ответ из таблицы")
+    void replayFromTableWithoutCachedResponse() {
+        when(idempotencyKeyRepository.claim(eq(KEY), anyString(), any(), any())).thenReturn(1, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        MakeTransferResponse first = executor.execute(KEY, request, successfulTransfer(calls));
+        assertEquals(first, executor.execute(KEY, request, successfulTransfer(calls)));
+
+        // Другой экземпляр сервиса или ответ, вытесненный из памяти
+        IdempotentTransferExecutor otherExecutor = new IdempotentTransferExecutor(idempotencyKeyRepository,
+                new ResponseBuilder(null, null), idempotencySupport, Duration.ofHours(24), Duration.ofMinutes(5), 100);
+        LocalDateTime now = LocalDateTime.now();
+        when(idempotencyKeyRepository.findById(KEY)).thenReturn(Optional.of(new IdempotencyKey(
+                KEY, idempotencySupport.fingerprint(request), UUID.randomUUID(),
+                idempotencySupport.writeResponse(first), now, now.plusHours(24))));
+
+        MakeTransferResponse replay = otherExecutor.execute(KEY, request, successfulTransfer(calls));
+        assertEquals(1, calls.get());
+        assertEquals(first, replay);
+    }
+
+    private Supplier<TransferResult> successfulTransfer(AtomicInteger calls) {
+        return () -> {
+            calls.incrementAndGet();
+            Transfer transfer = new Transfer();
+            transfer.setUuid(UUID.randomUUID());
+            return new TransferResult(transfer, new BigDecimal("90.00"));
+        };
+    }
+
+    private BigDecimal balanceOf(MakeTransferResponse response) {
+        return new BigDecimal(response.getMessage().substring(response.getMessage().lastIndexOf(' ') + 1));
+    }
+}
@@ -0,0 +1,77 @@
+package ru.sovcombank.petbackendusers.mapping;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.sovcombank.petbackendusers.mapping.impl.CreateUserRequestToUser;
+import ru.sovcombank.petbackendusers.mapping.impl.UserToGetUserResponse;
+import ru.sovcombank.petbackendusers.model.api.request.CreateUserRequest;
+import ru.sovcombank.petbackendusers.model.api.response.GetUserResponse;
+import ru.sovcombank.petbackendusers.model.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение ModelMapper и сгенерированных MapStruct мапперов на тех же объектах.
+ * Аллокации смотреть через профайлер gc (включен в настройках jmh в build.gradle).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private User user;
+
+    private CreateUserRequest createUserRequest;
+
+    private CreateUserRequestToUser createUserRequestToUser;
+
+    private UserToGetUserResponse userToGetUserResponse;
+
+    @Setup
+    public void setUp() {
+        user = new User(1, "Иванов", "Иван", "Иванович", "78888888888", "01.01.1990", "4510123456",
+                "ivanov@example.com", LocalDateTime.of(2024, 1, 1, 12, 0), true, false);
+        createUserRequest = new CreateUserRequest("Иванов", "Иван", "Иванович", "78888888888", "01.01.1990",
+                "4510123456", "ivanov@example.com");
+        createUserRequestToUser = Mappers.getMapper(CreateUserRequestToUser.class);
+        userToGetUserResponse = Mappers.getMapper(UserToGetUserResponse.class);
+        // Один экземпляр на все замеры, как бин в приложении: карта типов строится при первом вызове на прогреве
+        modelMapper = new ModelMapper();
+    }
+
+    @Benchmark
+    public User modelMapperCreateUserRequestToUser() {
+        return modelMapper.map(createUserRequest, User.class);
+    }
+
+    @Benchmark
+    public User generatedCreateUserRequestToUser() {
+        return createUserRequestToUser.map(createUserRequest);
+    }
+
+    @Benchmark
+    public GetUserResponse modelMapperUserToGetUserResponse() {
+        return modelMapper.map(user, GetUserResponse.class);
+    }
+
+    @Benchmark
+    public GetUserResponse generatedUserToGetUserResponse() {
+        return userToGetUserResponse.map(user);
+    }
+}
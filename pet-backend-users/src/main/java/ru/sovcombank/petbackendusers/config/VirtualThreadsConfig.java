@@ -0,0 +1,27 @@
+package ru.sovcombank.petbackendusers.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Режим виртуальных потоков Java 21, включается свойством virtual-threads.enabled.
+ * <p>
+ * Запросы Tomcat выполняются в виртуальных потоках: ожидание базы не занимает поток платформы,
+ * число одновременных запросов к базе ограничивает пул Hikari. Закрепления виртуальных потоков
+ * отслеживает {@link VirtualThreadPinningMonitor}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    // Каждый запрос обрабатывается в новом виртуальном потоке вместо пула потоков Tomcat
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+}
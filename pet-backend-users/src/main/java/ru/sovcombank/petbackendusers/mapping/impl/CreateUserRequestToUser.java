@@ -1,19 +1,13 @@
 package ru.sovcombank.petbackendusers.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import org.mapstruct.Mapping;
+import ru.sovcombank.petbackendusers.mapping.MapStructConfig;
 import ru.sovcombank.petbackendusers.mapping.Mapper;
 import ru.sovcombank.petbackendusers.model.api.request.CreateUserRequest;
 import ru.sovcombank.petbackendusers.model.entity.User;
 
-@Component
-public class CreateUserRequestToUser implements Mapper<CreateUserRequest, User> {
-
-    private final ModelMapper modelMapper;
-
-    public CreateUserRequestToUser(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface CreateUserRequestToUser extends Mapper<CreateUserRequest, User> {
 
     /**
      * Преобразует запрос на создание пользователя в сущность пользователя.
@@ -21,8 +15,10 @@ public class CreateUserRequestToUser implements Mapper<CreateUserRequest, User>
      * @param createUserRequest Запрос на создание пользователя.
      * @return Сущность пользователя.
      */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createDateTime", ignore = true)
+    @Mapping(target = "isActive", ignore = true)
+    @Mapping(target = "isDeleted", ignore = true)
     @Override
-    public User map(CreateUserRequest createUserRequest) {
-        return modelMapper.map(createUserRequest, User.class);
-    }
+    User map(CreateUserRequest createUserRequest);
 }
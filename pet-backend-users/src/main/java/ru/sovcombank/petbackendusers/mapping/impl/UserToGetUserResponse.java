@@ -1,19 +1,13 @@
 package ru.sovcombank.petbackendusers.mapping.impl;
 
-import org.modelmapper.ModelMapper;
-import org.springframework.stereotype.Component;
+import org.mapstruct.Mapping;
+import ru.sovcombank.petbackendusers.mapping.MapStructConfig;
 import ru.sovcombank.petbackendusers.mapping.Mapper;
 import ru.sovcombank.petbackendusers.model.api.response.GetUserResponse;
 import ru.sovcombank.petbackendusers.model.entity.User;
 
-@Component
-public class UserToGetUserResponse implements Mapper<User, GetUserResponse> {
-
-    private final ModelMapper modelMapper;
-
-    public UserToGetUserResponse(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+@org.mapstruct.Mapper(config = MapStructConfig.class)
+public interface UserToGetUserResponse extends Mapper<User, GetUserResponse> {
 
     /**
      * Преобразует сущность пользователя в ответ на запрос получения информации о пользователе.
@@ -21,8 +15,8 @@ public class UserToGetUserResponse implements Mapper<User, GetUserResponse> {
      * @param user Сущность пользователя.
      * @return Ответ на запрос получения информации о пользователе.
      */
+    @Mapping(target = "active", source = "isActive")
+    @Mapping(target = "deleted", source = "isDeleted")
     @Override
-    public GetUserResponse map(User user) {
-        return modelMapper.map(user, GetUserResponse.class);
-    }
+    GetUserResponse map(User user);
 }